@@ -36,6 +36,9 @@ tasks {
     test {
         useJUnitPlatform()
         dependsOn("generateExpectations")
+        // test the vectorized columnar functions, not only their scalar fallback
+        jvmArgs("--add-modules", "jdk.incubator.vector")
+        systemProperty("mocha.test.vector", "true")
     }
     compileJmhJava {
         sourceCompatibility = "17"
@@ -45,9 +48,25 @@ tasks {
         sourceCompatibility = "8"
         targetCompatibility = "8"
     }
+    jar {
+        manifest {
+            // read by the persistent compile cache and the AOT compiler
+            attributes("Implementation-Version" to project.version)
+        }
+    }
     javadoc {
         isFailOnError = false
     }
+    // the annotation processor is only registered as a service in this
+    // jar, so it never runs implicitly when mocha is on the classpath
+    register<Jar>("processorJar") {
+        archiveClassifier.set("processor")
+        from(sourceSets.main.get().output)
+        from("src/processor/resources")
+        manifest {
+            attributes("Implementation-Version" to project.version)
+        }
+    }
 }
 
 license {
@@ -85,6 +104,7 @@ publishing {
     publications {
         create<MavenPublication>("maven") {
             from(components["java"])
+            artifact(tasks["processorJar"])
             pom {
                 name.set("Mocha")
                 description.set(project.description)
@@ -0,0 +1,120 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import team.unnamed.mocha.runtime.compiled.MochaColumnarFunction;
+import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
+import team.unnamed.mocha.runtime.compiled.Named;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares evaluating a compiled function once per entity against
+ * the columnar evaluation, which is vectorized when the Vector API
+ * is available (forks with and without it).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ColumnarBenchmark {
+    @Param({
+            "math.sin(anim_time * 90) * amp",
+            "anim_time > 0.5 ? amp * anim_time : amp - anim_time"
+    })
+    private String source;
+
+    @Param({"1024", "65536"})
+    private int rows;
+
+    private ScriptType function;
+    private MochaColumnarFunction columnar;
+    private double[][] columns;
+    private double[] output;
+
+    public static void main(final String[] args) throws RunnerException {
+        final Options opt = new OptionsBuilder()
+                .include(ColumnarBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        final MochaEngine<?> mocha = MochaEngine.createStandard();
+        function = mocha.compile(source, ScriptType.class);
+        columnar = mocha.compileColumnar(source, ScriptType.class);
+
+        final Random random = new Random(0);
+        columns = new double[2][rows];
+        for (int i = 0; i < rows; i++) {
+            columns[0][i] = random.nextDouble();
+            columns[1][i] = random.nextDouble() * 10;
+        }
+        output = new double[rows];
+    }
+
+    @Benchmark
+    @Fork(1)
+    public double[] scalar_per_entity() {
+        final double[] animTimes = columns[0];
+        final double[] amps = columns[1];
+        for (int i = 0; i < rows; i++) {
+            output[i] = function.eval(animTimes[i], amps[i]);
+        }
+        return output;
+    }
+
+    @Benchmark
+    @Fork(1)
+    public double[] columnar_scalar() {
+        columnar.evaluate(columns, output, rows);
+        return output;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public double[] columnar_vector() {
+        columnar.evaluate(columns, output, rows);
+        return output;
+    }
+
+    public interface ScriptType extends MochaCompiledFunction {
+        double eval(@Named("anim_time") double animTime, @Named("amp") double amp);
+    }
+}
@@ -30,12 +30,16 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import team.unnamed.mocha.parser.ParseException;
 import team.unnamed.mocha.parser.ast.Expression;
+import team.unnamed.mocha.runtime.CompiledFunctionCache;
+import team.unnamed.mocha.runtime.MochaEntityFunction;
 import team.unnamed.mocha.runtime.MochaFunction;
+import team.unnamed.mocha.runtime.MolangAotCompiler;
+import team.unnamed.mocha.runtime.PersistentCompileCache;
 import team.unnamed.mocha.runtime.Scope;
 import team.unnamed.mocha.runtime.binding.Binding;
-import team.unnamed.mocha.runtime.binding.JavaObjectBinding;
+import team.unnamed.mocha.runtime.compiled.MochaColumnarFunction;
 import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
-import team.unnamed.mocha.runtime.standard.MochaMath;
+import team.unnamed.mocha.runtime.standard.StandardLibrary;
 import team.unnamed.mocha.runtime.value.MutableObjectBinding;
 import team.unnamed.mocha.runtime.value.ObjectValue;
 
@@ -44,6 +48,7 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import static java.util.Objects.requireNonNull;
@@ -52,6 +57,16 @@ import static java.util.Objects.requireNonNull;
  * The engine's entry class. Provides methods to evaluate
  * and parse Molang code from strings and readers.
  *
+ * <p>Engines are thread-safe: a single engine can evaluate,
+ * compile and bind from many threads at once. Temporal
+ * variables are local to every evaluation, bindings are
+ * written in place to a concurrent map, so reads never lock
+ * (a scope that shares its bindings with a copy copies them
+ * once, on its first write), and compilation is serialized.
+ * Note that {@code variable} bindings are shared by all
+ * evaluations, so concurrent scripts writing the same
+ * variable race.</p>
+ *
  * @since 3.0.0
  */
 public interface MochaEngine<T> {
@@ -78,12 +93,12 @@ public interface MochaEngine<T> {
      */
     @Contract("_ -> new")
     static <T> @NotNull MochaEngine<T> createStandard(T entity) {
-        return create(entity, builder -> {
-            builder.set("math", JavaObjectBinding.of(MochaMath.class, null, new MochaMath()));
-            final MutableObjectBinding variableBinding = new MutableObjectBinding();
-            builder.set("variable", variableBinding);
-            builder.set("v", variableBinding);
-        });
+        // standard bindings are shared, only the variables are per-engine
+        final MutableObjectBinding variableBinding = new MutableObjectBinding();
+        return new MochaEngineImpl<>(entity, Scope.builder(StandardLibrary.scope())
+                .set("variable", variableBinding)
+                .set("v", variableBinding)
+                .build());
     }
 
     /**
@@ -147,6 +162,21 @@ public interface MochaEngine<T> {
      */
     double eval(final @NotNull List<Expression> expressions);
 
+    /**
+     * Evaluates the given {@code expressions} for the given entity,
+     * instead of the engine entity.
+     *
+     * <p>This way, the same engine (and parsed expressions) can
+     * be used for every entity.</p>
+     *
+     * @param expressions The expressions to evaluate.
+     * @param entity      The entity, or null to use the engine entity.
+     * @return The result of the evaluation.
+     * @see MochaEntityFunction
+     * @since 3.1.0
+     */
+    double eval(final @NotNull List<Expression> expressions, final @Nullable T entity);
+
     /**
      * Parses and evaluates the given Molang source.
      *
@@ -282,6 +312,71 @@ public interface MochaEngine<T> {
         }
     }
 
+    /**
+     * Compiles the given code into a Molang function that can also be
+     * evaluated for many rows at once, reading its arguments from
+     * {@code double[]} columns, see {@link MochaColumnarFunction}.
+     *
+     * <p>The returned function also implements the given interface,
+     * whose method must only take doubles and return a primitive.</p>
+     *
+     * @param code          The code to compile.
+     * @param interfaceType The interface to implement, must
+     *                      have a single method.
+     * @return The compiled function.
+     * @since 3.1.0
+     */
+    <F extends MochaCompiledFunction> @NotNull MochaColumnarFunction compileColumnar(final @NotNull String code, final @NotNull Class<F> interfaceType);
+
+    /**
+     * Compiles the given named scripts into Molang functions
+     * that implement the same interface.
+     *
+     * <p>Unlike calling {@link #compile(String, Class)} for every
+     * script, the scripts are compiled together as methods of a few
+     * shared classes, which is considerably cheaper (compile time and
+     * memory) for big sets of scripts, like the animations of a
+     * model.</p>
+     *
+     * @param sources       The scripts to compile, by name.
+     * @param interfaceType The interface to implement, must
+     *                      have a single method.
+     * @return The compiled functions, by name, in the iteration
+     * order of the given map.
+     * @since 3.1.0
+     */
+    <F extends MochaCompiledFunction> @NotNull Map<String, F> compileAll(final @NotNull Map<String, String> sources, final @NotNull Class<F> interfaceType);
+
+    /**
+     * Compiles the given named scripts into Molang functions
+     * that take no arguments.
+     *
+     * @param sources The scripts to compile, by name.
+     * @return The compiled functions, by name, in the iteration
+     * order of the given map.
+     * @see #compileAll(Map, Class)
+     * @since 3.1.0
+     */
+    default @NotNull Map<String, MochaFunction> compileAll(final @NotNull Map<String, String> sources) {
+        return compileAll(sources, MochaFunction.class);
+    }
+
+    /**
+     * Loads the scripts precompiled at build time by {@link MolangAotCompiler}
+     * and implementing the given interface, from all the indexes found by the
+     * given class loader.
+     *
+     * <p>Precompiled classes are loaded from the class path, without compiling
+     * anything, unless the bindings of this engine don't match the ones the
+     * scripts were compiled against, in which case, they are compiled again.</p>
+     *
+     * @param classLoader   The class loader to load the indexes and classes from.
+     * @param interfaceType The interface implemented by the scripts to load.
+     * @return The loaded functions, by name.
+     * @since 3.1.0
+     */
+    <F extends MochaCompiledFunction> @NotNull Map<String, F> loadPrecompiled(final @NotNull ClassLoader classLoader, final @NotNull Class<F> interfaceType);
+
     /**
      * Returns the internal {@link ClassPool} used by
      * the compiler.
@@ -379,6 +474,34 @@ public interface MochaEngine<T> {
     @Contract("_ -> this")
     @NotNull MochaEngine<T> handleParseExceptions(final @Nullable Consumer<@NotNull ParseException> exceptionHandler);
 
+    /**
+     * Sets the cache used to look up and store compiled functions. The
+     * same cache can be shared by multiple engines, see
+     * {@link CompiledFunctionCache}.
+     *
+     * <p>By default this is set to null (no cache).</p>
+     *
+     * @param cache The new compiled function cache
+     * @return This engine instance
+     * @since 3.1.0
+     */
+    @Contract("_ -> this")
+    @NotNull MochaEngine<T> compileCache(final @Nullable CompiledFunctionCache cache);
+
+    /**
+     * Sets the persistent (on-disk) cache used to store compiled scripts
+     * and load them back on later runs, skipping their compilation, see
+     * {@link PersistentCompileCache}.
+     *
+     * <p>By default this is set to null (no persistent cache).</p>
+     *
+     * @param cache The new persistent compile cache
+     * @return This engine instance
+     * @since 3.1.0
+     */
+    @Contract("_ -> this")
+    @NotNull MochaEngine<T> persistentCompileCache(final @Nullable PersistentCompileCache cache);
+
     /**
      * Sets the post-compile function, which is called after a script
      * is compiled to a new class, and before it is loaded. The received
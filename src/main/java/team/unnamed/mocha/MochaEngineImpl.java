@@ -29,11 +29,14 @@ import org.jetbrains.annotations.Nullable;
 import team.unnamed.mocha.parser.MolangParser;
 import team.unnamed.mocha.parser.ParseException;
 import team.unnamed.mocha.parser.ast.Expression;
+import team.unnamed.mocha.runtime.CompiledFunctionCache;
 import team.unnamed.mocha.runtime.ExpressionInterpreter;
 import team.unnamed.mocha.runtime.MochaFunction;
 import team.unnamed.mocha.runtime.MolangCompiler;
+import team.unnamed.mocha.runtime.PersistentCompileCache;
 import team.unnamed.mocha.runtime.Scope;
 import team.unnamed.mocha.runtime.binding.JavaObjectBinding;
+import team.unnamed.mocha.runtime.compiled.MochaColumnarFunction;
 import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
 import team.unnamed.mocha.runtime.value.MutableObjectBinding;
 import team.unnamed.mocha.runtime.value.NumberValue;
@@ -41,31 +44,61 @@ import team.unnamed.mocha.runtime.value.Value;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.UncheckedIOException;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
+import static java.util.Objects.requireNonNull;
+
 final class MochaEngineImpl<T> implements MochaEngine<T> {
     private final Scope scope;
     private final T entity;
-    private final MolangCompiler compiler;
+    private final ExpressionInterpreter.PropertyCaches propertyCaches = new ExpressionInterpreter.PropertyCaches();
+    private volatile MolangCompiler compiler;
 
-    private Consumer<@NotNull ParseException> parseExceptionHandler;
-    private boolean warnOnReflectiveFunctionUsage;
+    private volatile Consumer<@NotNull ParseException> parseExceptionHandler;
+    private volatile boolean warnOnReflectiveFunctionUsage;
 
     public MochaEngineImpl(final T entity, final Consumer<Scope.Builder> scopeBuilder) {
         Scope.Builder builder = Scope.builder();
         scopeBuilder.accept(builder);
         this.scope = builder.build();
         this.entity = entity;
-        this.compiler = new MolangCompiler(entity, getClass().getClassLoader(), scope);
+    }
+
+    MochaEngineImpl(final T entity, final @NotNull Scope scope) {
+        this.scope = requireNonNull(scope, "scope");
+        this.entity = entity;
+    }
+
+    private @NotNull MolangCompiler compiler() {
+        // created on first use, most engines never compile
+        MolangCompiler compiler = this.compiler;
+        if (compiler == null) {
+            synchronized (this) {
+                compiler = this.compiler;
+                if (compiler == null) {
+                    compiler = new MolangCompiler(entity, getClass().getClassLoader(), scope);
+                    this.compiler = compiler;
+                }
+            }
+        }
+        return compiler;
     }
 
     @Override
     public double eval(final @NotNull List<Expression> expressions) {
+        return eval(expressions, entity);
+    }
+
+    @Override
+    public double eval(final @NotNull List<Expression> expressions, final @Nullable T entity) {
         // create bindings that just apply for this evaluation
-        final Scope local = scope.copy();
+        final Scope local = Scope.layered(scope);
         {
             // create temp bindings
             MutableObjectBinding temp = new MutableObjectBinding();
@@ -73,7 +106,7 @@ final class MochaEngineImpl<T> implements MochaEngine<T> {
             local.set("t", temp);
         }
         local.readOnly(true);
-        ExpressionInterpreter<T> evaluator = new ExpressionInterpreter<>(entity, local);
+        ExpressionInterpreter<T> evaluator = new ExpressionInterpreter<>(entity == null ? this.entity : entity, local, propertyCaches);
         evaluator.warnOnReflectiveFunctionUsage(warnOnReflectiveFunctionUsage);
         Value lastResult = NumberValue.zero();
 
@@ -90,6 +123,14 @@ final class MochaEngineImpl<T> implements MochaEngine<T> {
         return lastResult == null ? 0D : lastResult.getAsNumber();
     }
 
+    private void handleParseException(final @NotNull ParseException e) {
+        // read once, it may be changed concurrently
+        final Consumer<@NotNull ParseException> handler = parseExceptionHandler;
+        if (handler != null) {
+            handler.accept(e);
+        }
+    }
+
     @Override
     public double eval(final @NotNull Reader source) {
         final List<Expression> parsed;
@@ -97,9 +138,7 @@ final class MochaEngineImpl<T> implements MochaEngine<T> {
             parsed = parse(source);
         } catch (final ParseException e) {
             // parse errors just output zero
-            if (parseExceptionHandler != null) {
-                parseExceptionHandler.accept(e);
-            }
+            handleParseException(e);
             return 0;
         } catch (final IOException e) {
             throw new UncheckedIOException("Failed to read from given reader", e);
@@ -114,9 +153,7 @@ final class MochaEngineImpl<T> implements MochaEngine<T> {
             parsed = parse(reader);
         } catch (final ParseException e) {
             // parse errors just output zero
-            if (parseExceptionHandler != null) {
-                parseExceptionHandler.accept(e);
-            }
+            handleParseException(e);
             return () -> 0D;
         } catch (final IOException e) {
             throw new UncheckedIOException("Failed to read from given reader", e);
@@ -141,9 +178,7 @@ final class MochaEngineImpl<T> implements MochaEngine<T> {
             parsed = parse(code);
         } catch (final ParseException e) {
             // parse errors just output zero
-            if (parseExceptionHandler != null) {
-                parseExceptionHandler.accept(e);
-            }
+            handleParseException(e);
             return new MochaFunction() {
                 @Override
                 public double evaluate() {
@@ -176,19 +211,69 @@ final class MochaEngineImpl<T> implements MochaEngine<T> {
         try {
             parsed = parse(reader);
         } catch (final ParseException e) {
-            if (parseExceptionHandler != null) {
-                parseExceptionHandler.accept(e);
-            }
+            handleParseException(e);
             parsed = Collections.emptyList();
         } catch (final IOException e) {
             throw new RuntimeException("Failed to read from given reader", e);
         }
-        return compiler.compile(parsed, interfaceType);
+        return compiler().compile(parsed, interfaceType);
+    }
+
+    @Override
+    public <F extends MochaCompiledFunction> @NotNull MochaColumnarFunction compileColumnar(final @NotNull String code, final @NotNull Class<F> interfaceType) {
+        requireNonNull(code, "code");
+        List<Expression> parsed;
+        try (final StringReader reader = new StringReader(code)) {
+            parsed = parse(reader);
+        } catch (final ParseException e) {
+            handleParseException(e);
+            parsed = Collections.emptyList();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read code", e);
+        }
+        return (MochaColumnarFunction) compiler().compileColumnar(parsed, interfaceType);
+    }
+
+    @Override
+    public <F extends MochaCompiledFunction> @NotNull Map<String, F> compileAll(final @NotNull Map<String, String> sources, final @NotNull Class<F> interfaceType) {
+        requireNonNull(sources, "sources");
+        final Map<String, List<Expression>> scripts = new LinkedHashMap<>();
+        for (final Map.Entry<String, String> entry : sources.entrySet()) {
+            List<Expression> parsed;
+            try (final StringReader reader = new StringReader(requireNonNull(entry.getValue(), "source"))) {
+                parsed = parse(reader);
+            } catch (final ParseException e) {
+                handleParseException(e);
+                parsed = Collections.emptyList();
+            } catch (final IOException e) {
+                throw new RuntimeException("Failed to read script " + entry.getKey(), e);
+            }
+            scripts.put(entry.getKey(), parsed);
+        }
+        return compiler().compile(scripts, interfaceType);
+    }
+
+    @Override
+    public <F extends MochaCompiledFunction> @NotNull Map<String, F> loadPrecompiled(final @NotNull ClassLoader classLoader, final @NotNull Class<F> interfaceType) {
+        try {
+            return compiler().loadPrecompiled(classLoader, interfaceType, source -> {
+                try (final StringReader reader = new StringReader(source)) {
+                    return parse(reader);
+                } catch (final ParseException e) {
+                    handleParseException(e);
+                    return Collections.emptyList();
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed to read precompiled script indexes", e);
+        }
     }
 
     @Override
     public @NotNull ClassPool classPool() {
-        return compiler.classPool();
+        return compiler().classPool();
     }
 
     @Override
@@ -230,9 +315,21 @@ final class MochaEngineImpl<T> implements MochaEngine<T> {
         return this;
     }
 
+    @Override
+    public @NotNull MochaEngine<T> compileCache(final @Nullable CompiledFunctionCache cache) {
+        compiler().cache(cache);
+        return this;
+    }
+
+    @Override
+    public @NotNull MochaEngine<T> persistentCompileCache(final @Nullable PersistentCompileCache cache) {
+        compiler().persistentCache(cache);
+        return this;
+    }
+
     @Override
     public @NotNull MochaEngine<T> postCompile(final @Nullable Consumer<byte @NotNull []> bytecodeConsumer) {
-        compiler.postCompile(bytecodeConsumer);
+        compiler().postCompile(bytecodeConsumer);
         return this;
     }
 }
@@ -59,6 +59,23 @@ public final class StatementExpression implements Expression {
         return visitor.visitStatement(this);
     }
 
+    @Override
+    public String toString() {
+        return "Statement(" + op + ")";
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StatementExpression that = (StatementExpression) o;
+        return op == that.op;
+    }
+
+    @Override
+    public int hashCode() {
+        return op.hashCode();
+    }
 
     /**
      * Enum containing all the possible operations/types
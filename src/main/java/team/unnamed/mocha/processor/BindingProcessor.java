@@ -0,0 +1,455 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.processor;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.runtime.binding.BindExternalFunction;
+import team.unnamed.mocha.runtime.binding.Binding;
+import team.unnamed.mocha.runtime.binding.BindingGlue;
+import team.unnamed.mocha.runtime.binding.Entity;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotation processor that generates a {@link BindingGlue} for every
+ * class annotated with {@link Binding} or {@link BindExternalFunction},
+ * or with members annotated with {@link Binding}.
+ *
+ * <p>The generated glue calls the bound methods and reads the bound
+ * fields directly, so that binding the class does not need reflection.
+ * Members that the glue can't access, or methods with parameters that
+ * are not simple values (e.g. {@code Lazy} or varargs parameters) are
+ * still called using reflection.</p>
+ *
+ * @since 3.1.0
+ */
+public final class BindingProcessor extends AbstractProcessor {
+    private static final String GLUE = BindingGlue.class.getCanonicalName();
+    private static final String VALUE = "team.unnamed.mocha.runtime.value.Value";
+
+    @Override
+    public @NotNull Set<String> getSupportedAnnotationTypes() {
+        return new LinkedHashSet<>(Arrays.asList(
+                Binding.class.getCanonicalName(),
+                BindExternalFunction.class.getCanonicalName(),
+                BindExternalFunction.Multiple.class.getCanonicalName()
+        ));
+    }
+
+    @Override
+    public @NotNull SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final @NotNull Set<? extends TypeElement> annotations, final @NotNull RoundEnvironment roundEnv) {
+        final Set<TypeElement> types = new LinkedHashSet<>();
+        for (final TypeElement annotation : annotations) {
+            for (final Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element instanceof TypeElement) {
+                    types.add((TypeElement) element);
+                } else if (element.getEnclosingElement() instanceof TypeElement) {
+                    types.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+
+        for (final TypeElement type : types) {
+            if (!canGenerate(type)) {
+                // bound using reflection
+                continue;
+            }
+            try {
+                generate(type);
+            } catch (final IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write binding glue: " + e.getMessage(), type);
+            }
+        }
+        return false;
+    }
+
+    private static boolean canGenerate(final @NotNull TypeElement type) {
+        if (type.getKind().isInterface()) {
+            return false;
+        }
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            final TypeElement enclosing = (TypeElement) element;
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)
+                    || enclosing.getNestingKind() == NestingKind.LOCAL
+                    || enclosing.getNestingKind() == NestingKind.ANONYMOUS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void generate(final @NotNull TypeElement type) throws IOException {
+        final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        final String packageName = packageElement.getQualifiedName().toString();
+        final String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        final String glueName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + BindingGlue.SUFFIX;
+        final String typeName = type.getQualifiedName().toString();
+
+        final StringBuilder staticBindings = new StringBuilder();
+        final StringBuilder instanceBindings = new StringBuilder();
+        final StringBuilder externalBindings = new StringBuilder();
+        boolean valid = true;
+
+        // external functions, only read from the container, like
+        // JavaObjectBinding does
+        for (final AnnotationMirror external : nestedAnnotations(type, BindExternalFunction.Multiple.class.getCanonicalName())) {
+            final Map<? extends ExecutableElement, ? extends AnnotationValue> values = processingEnv.getElementUtils().getElementValuesWithDefaults(external);
+            final TypeElement at = (TypeElement) ((DeclaredType) value(values, "at")).asElement();
+            final String methodName = (String) value(values, "name");
+            final String alias = (String) value(values, "as");
+            final boolean pure = (Boolean) value(values, "pure");
+            final List<TypeMirror> args = new ArrayList<>();
+            for (final Object arg : (List<?>) value(values, "args")) {
+                args.add((TypeMirror) ((AnnotationValue) arg).getValue());
+            }
+
+            final ExecutableElement method = findMethod(at, methodName, args);
+            if (method == null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "No method found with name "
+                        + methodName + " and parameter types " + args + ". Declared as external binding", type, external);
+                valid = false;
+                continue;
+            }
+
+            final String invoker = method.getModifiers().contains(Modifier.STATIC)
+                    ? invoker(method, at.getQualifiedName().toString(), packageElement)
+                    : null;
+            externalBindings.append("        ").append(function(new String[]{alias.isEmpty() ? methodName : alias}, pure, method, invoker)).append('\n');
+        }
+
+        for (final VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            final Binding annotation = field.getAnnotation(Binding.class);
+            if (annotation == null) {
+                continue;
+            }
+            if (annotation.value().length < 1) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "No property names declared for field", field);
+                valid = false;
+                continue;
+            }
+
+            final boolean isStatic = field.getModifiers().contains(Modifier.STATIC);
+            (isStatic ? staticBindings : instanceBindings).append("            ")
+                    .append(field(annotation.value(), field, isStatic ? typeName : "instance", packageElement))
+                    .append('\n');
+        }
+
+        for (final ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            final Binding annotation = method.getAnnotation(Binding.class);
+            if (annotation == null) {
+                continue;
+            }
+            if (annotation.value().length < 1) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "No function names declared for method", method);
+                valid = false;
+                continue;
+            }
+
+            final boolean isStatic = method.getModifiers().contains(Modifier.STATIC);
+            final String invoker = invoker(method, isStatic ? typeName : "instance", packageElement);
+            (isStatic ? staticBindings : instanceBindings).append("            ")
+                    .append(function(annotation.value(), annotation.pure(), method, invoker))
+                    .append('\n');
+        }
+
+        if (!valid) {
+            return;
+        }
+
+        final Binding binding = type.getAnnotation(Binding.class);
+        final String boundType = erasedName(type.asType());
+
+        try (final Writer writer = processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? glueName : packageName + '.' + glueName, type).openWriter()) {
+            if (!packageName.isEmpty()) {
+                writer.write("package " + packageName + ";\n\n");
+            }
+            writer.write("/**\n * Binding glue for {@link " + typeName + "}, generated by the mocha\n"
+                    + " * binding processor. Do not edit.\n */\n");
+            writer.write("@SuppressWarnings(\"all\")\n");
+            writer.write("public final class " + glueName + " implements " + GLUE + "<" + boundType + "> {\n");
+            writer.write("    @Override\n");
+            writer.write("    public String[] names() {\n");
+            writer.write("        return " + (binding == null ? "null" : names(binding.value())) + ";\n");
+            writer.write("    }\n\n");
+            writer.write("    @Override\n");
+            writer.write("    public void bind(final " + boundType + " instance, final " + GLUE + ".Registrar registrar) {\n");
+            writer.write(externalBindings.toString());
+            writer.write("        if (instance == null) {\n");
+            writer.write(staticBindings.toString());
+            writer.write("        } else {\n");
+            writer.write(instanceBindings.toString());
+            writer.write("        }\n");
+            writer.write("    }\n");
+            writer.write("}\n");
+        }
+    }
+
+    private @NotNull List<AnnotationMirror> nestedAnnotations(final @NotNull Element element, final @NotNull String containerType) {
+        for (final AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            final TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(containerType)) {
+                final List<AnnotationMirror> nested = new ArrayList<>();
+                for (final Object value : (List<?>) value(processingEnv.getElementUtils().getElementValuesWithDefaults(mirror), "value")) {
+                    nested.add((AnnotationMirror) ((AnnotationValue) value).getValue());
+                }
+                return nested;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private static @NotNull Object value(final @NotNull Map<? extends ExecutableElement, ? extends AnnotationValue> values, final @NotNull String name) {
+        for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        throw new IllegalArgumentException("No annotation value: " + name);
+    }
+
+    private @Nullable ExecutableElement findMethod(final @NotNull TypeElement type, final @NotNull String name, final @NotNull List<TypeMirror> parameterTypes) {
+        for (final ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (!method.getSimpleName().contentEquals(name) || method.getParameters().size() != parameterTypes.size()) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < parameterTypes.size(); i++) {
+                if (!processingEnv.getTypeUtils().isSameType(
+                        processingEnv.getTypeUtils().erasure(method.getParameters().get(i).asType()),
+                        processingEnv.getTypeUtils().erasure(parameterTypes.get(i)))) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private @NotNull String function(final @NotNull String @NotNull [] names, final boolean pure, final @NotNull ExecutableElement method, final @Nullable String invoker) {
+        final StringBuilder parameterTypes = new StringBuilder("new Class<?>[] {");
+        for (int i = 0; i < method.getParameters().size(); i++) {
+            if (i > 0) {
+                parameterTypes.append(", ");
+            }
+            parameterTypes.append(erasedName(method.getParameters().get(i).asType())).append(".class");
+        }
+        parameterTypes.append('}');
+
+        final TypeElement declaringType = (TypeElement) method.getEnclosingElement();
+        return "registrar.function(" + names(names) + ", " + pure + ", "
+                + erasedName(declaringType.asType()) + ".class, \""
+                + method.getSimpleName() + "\", " + parameterTypes + ", " + (invoker == null ? "null" : invoker) + ");";
+    }
+
+    /**
+     * Creates the source of a {@code Function} lambda that calls the given
+     * method directly, or returns null if it must be called using reflection,
+     * i.e. if it isn't accessible or takes parameters that are not simple values.
+     */
+    private @Nullable String invoker(final @NotNull ExecutableElement method, final @NotNull String target, final @NotNull PackageElement from) {
+        if (!accessible(method, from) || method.isVarArgs()) {
+            return null;
+        }
+
+        final StringBuilder arguments = new StringBuilder();
+        for (final VariableElement parameter : method.getParameters()) {
+            final String argument;
+            if (parameter.getAnnotation(Entity.class) != null && !isSpecial(parameter.asType())) {
+                argument = "(" + erasedName(parameter.asType()) + ") context.entity()";
+            } else {
+                final String conversion = conversion(parameter.asType());
+                if (conversion == null) {
+                    return null;
+                }
+                argument = GLUE + '.' + conversion + "(arguments.next().eval())";
+            }
+            if (arguments.length() > 0) {
+                arguments.append(", ");
+            }
+            arguments.append(argument);
+        }
+
+        final String call = target + '.' + method.getSimpleName() + '(' + arguments + ')';
+        final TypeMirror returnType = method.getReturnType();
+        if (returnType.getKind() == TypeKind.VOID) {
+            return "(context, arguments) -> { " + call + "; return " + VALUE + ".nil(); }";
+        } else {
+            return "(context, arguments) -> " + value(call, returnType);
+        }
+    }
+
+    private @NotNull String field(final @NotNull String @NotNull [] names, final @NotNull VariableElement field, final @NotNull String target, final @NotNull PackageElement from) {
+        final TypeElement declaringType = (TypeElement) field.getEnclosingElement();
+        final String prefix = names(names) + ", "
+                + erasedName(declaringType.asType()) + ".class, \""
+                + field.getSimpleName() + "\", ";
+        final String access = target + '.' + field.getSimpleName();
+        final TypeMirror type = field.asType();
+        final Set<Modifier> modifiers = field.getModifiers();
+
+        if (!accessible(field, from)) {
+            // read using reflection
+            return "registrar.field(" + prefix + "null);";
+        } else if (modifiers.contains(Modifier.PUBLIC) && modifiers.contains(Modifier.STATIC)
+                && modifiers.contains(Modifier.FINAL) && type.getKind().isPrimitive()) {
+            // same as JavaFieldBinding inlining
+            return "registrar.constant(" + prefix + value(access, type) + ");";
+        } else if (type.getKind() == TypeKind.BOOLEAN) {
+            return "registrar.numberField(" + prefix + "() -> " + access + " ? 1D : 0D);";
+        } else if (type.getKind().isPrimitive() && type.getKind() != TypeKind.CHAR) {
+            return "registrar.numberField(" + prefix + "() -> " + access + ");";
+        } else {
+            return "registrar.field(" + prefix + "() -> " + value(access, type) + ");";
+        }
+    }
+
+    private static @NotNull String value(final @NotNull String expression, final @NotNull TypeMirror type) {
+        switch (type.getKind()) {
+            case DOUBLE:
+            case FLOAT:
+            case INT:
+            case LONG:
+            case SHORT:
+            case BYTE:
+            case BOOLEAN:
+                return GLUE + ".value(" + expression + ')';
+            default:
+                // chars are kept as Java values, like reflection does
+                return GLUE + ".value((Object) " + expression + ')';
+        }
+    }
+
+    private static @Nullable String conversion(final @NotNull TypeMirror type) {
+        switch (type.getKind()) {
+            case DOUBLE:
+                return "toDouble";
+            case INT:
+                return "toInt";
+            case FLOAT:
+                return "toFloat";
+            case LONG:
+                return "toLong";
+            case SHORT:
+                return "toShort";
+            case BOOLEAN:
+                return "toBoolean";
+            case DECLARED:
+                final TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+                return element.getQualifiedName().contentEquals(String.class.getName()) ? "toText" : null;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isSpecial(final @NotNull TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        final String name = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        return name.equals("team.unnamed.mocha.runtime.binding.Lazy")
+                || name.equals("team.unnamed.mocha.runtime.ExecutionContext");
+    }
+
+    private boolean accessible(final @NotNull Element member, final @NotNull PackageElement from) {
+        final boolean samePackage = processingEnv.getElementUtils().getPackageOf(member).equals(from);
+        for (Element element = member; element != null && !(element instanceof PackageElement); element = element.getEnclosingElement()) {
+            final Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (!samePackage && !modifiers.contains(Modifier.PUBLIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private @NotNull String erasedName(final @NotNull TypeMirror type) {
+        final TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        switch (erased.getKind()) {
+            case ARRAY:
+                return erasedName(((ArrayType) erased).getComponentType()) + "[]";
+            case DECLARED:
+                return ((TypeElement) ((DeclaredType) erased).asElement()).getQualifiedName().toString();
+            default:
+                // primitives
+                return erased.getKind().name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static @NotNull String names(final @NotNull String @NotNull [] names) {
+        final StringBuilder builder = new StringBuilder("new String[] {");
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append('"');
+            for (final char c : names[i].toCharArray()) {
+                if (c == '"' || c == '\\') {
+                    builder.append('\\');
+                }
+                builder.append(c);
+            }
+            builder.append('"');
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.parser.ast.Expression;
+import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A bounded cache of compiled functions, that can be shared between
+ * multiple {@link team.unnamed.mocha.MochaEngine} instances.
+ *
+ * <p>Compiled functions are keyed by the parsed script, the target
+ * interface, the identity of the bindings the script was compiled
+ * against and the class of the entity: compiling the same script for
+ * the same interface with the same bindings (e.g. engines sharing their
+ * bindings, or the same engine compiling a script twice) does not
+ * generate a new class. The same function is returned, unless it uses
+ * the engine entity (e.g. calls a function taking an
+ * {@link team.unnamed.mocha.runtime.binding.Entity} parameter), then
+ * the cached class is instantiated again for engines with another
+ * entity.</p>
+ *
+ * <p>When the cache is full, the least recently used function is
+ * evicted. Note that cached entries keep their bindings (and the entity
+ * of the engine that compiled them) reachable until evicted.</p>
+ *
+ * @since 3.1.0
+ */
+public final class CompiledFunctionCache {
+    private final int maximumSize;
+    private final Map<Key, Entry> functions;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    private CompiledFunctionCache(final int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.functions = new LinkedHashMap<Key, Entry>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+                if (size() > CompiledFunctionCache.this.maximumSize) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Creates a new, empty compiled function cache.
+     *
+     * @param maximumSize The maximum amount of cached functions
+     * @return The created cache
+     * @since 3.1.0
+     */
+    public static @NotNull CompiledFunctionCache create(final int maximumSize) {
+        return new CompiledFunctionCache(maximumSize);
+    }
+
+    /**
+     * Gets the maximum amount of functions held by this cache.
+     *
+     * @return The maximum size
+     * @since 3.1.0
+     */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Gets the current amount of functions held by this cache.
+     *
+     * @return The current size
+     * @since 3.1.0
+     */
+    public synchronized int size() {
+        return functions.size();
+    }
+
+    /**
+     * Gets the amount of lookups that found a cached function.
+     *
+     * @return The hit count
+     * @since 3.1.0
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the amount of lookups that didn't find a cached function,
+     * and so, compiled a new one.
+     *
+     * @return The miss count
+     * @since 3.1.0
+     */
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the amount of functions removed because the cache was full.
+     *
+     * @return The eviction count
+     * @since 3.1.0
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Removes all the cached functions. Does not reset the metrics.
+     *
+     * @since 3.1.0
+     */
+    public synchronized void clear() {
+        functions.clear();
+    }
+
+    synchronized @Nullable Entry get(final @NotNull Key key) {
+        final Entry entry = functions.get(key);
+        if (entry == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return entry;
+    }
+
+    synchronized void put(final @NotNull Key key, final @NotNull Entry entry) {
+        functions.put(key, entry);
+    }
+
+    /**
+     * Creates the cache key for the given script.
+     *
+     * @param expressions The script expressions
+     * @param type        The target interface
+     * @param classLoader The class loader the function is defined for
+     * @param scope       The scope the script is compiled with
+     * @param entity      The entity the script is compiled with, only its
+     *                    class is part of the key
+     * @return The cache key
+     */
+    static @NotNull Key key(
+            final @NotNull List<Expression> expressions,
+            final @NotNull Class<?> type,
+            final @NotNull ClassLoader classLoader,
+            final @NotNull Scope scope,
+            final @Nullable Object entity
+    ) {
+        // the compiled code only depends on the script, the values bound to
+        // the names it references, and the entity class, the entity itself
+        // is a requirement that is replaced when instantiating (see Entry)
+        final Set<String> names = ExpressionScanner.scan(expressions).identifiers();
+        final Object[] identities = new Object[names.size() + 2];
+        int i = 0;
+        for (final String name : names) {
+            identities[i++] = scope.get(name);
+        }
+        identities[i++] = classLoader;
+        identities[i] = entity == null ? null : entity.getClass();
+        return new Key(expressions, type, identities);
+    }
+
+    /**
+     * A cached function, plus what is needed to instantiate its class
+     * again for another entity.
+     */
+    static final class Entry {
+        private final MochaCompiledFunction function;
+        private final Map<String, Object> requirements;
+        private final int index;
+
+        Entry(final @NotNull MochaCompiledFunction function, final @NotNull Map<String, Object> requirements, final int index) {
+            this.function = requireNonNull(function, "function");
+            this.requirements = requireNonNull(requirements, "requirements");
+            this.index = index;
+        }
+
+        /**
+         * Gets the cached function for the given entity.
+         *
+         * @param entity The entity, of the class the function was compiled for
+         * @return The cached function if it doesn't use the entity or uses
+         * the same entity, otherwise a new instance of its class
+         */
+        @NotNull MochaCompiledFunction function(final @Nullable Object entity) {
+            final Object compiledEntity = requirements.get(MolangCompiler.ENTITY_REQUIREMENT);
+            if (compiledEntity == null || compiledEntity == entity) {
+                return function;
+            }
+            return (MochaCompiledFunction) MolangCompiler.instantiate(function.getClass(), requirements, index, entity);
+        }
+    }
+
+    static final class Key {
+        private final List<Expression> expressions;
+        private final Class<?> type;
+        private final Object[] identities;
+        private final int hashCode;
+
+        private Key(final @NotNull List<Expression> expressions, final @NotNull Class<?> type, final @Nullable Object @NotNull [] identities) {
+            this.expressions = requireNonNull(expressions, "expressions");
+            this.type = requireNonNull(type, "type");
+            this.identities = requireNonNull(identities, "identities");
+
+            int hashCode = expressions.hashCode();
+            hashCode = 31 * hashCode + type.hashCode();
+            for (final Object identity : identities) {
+                hashCode = 31 * hashCode + System.identityHashCode(identity);
+            }
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public boolean equals(final @Nullable Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key that = (Key) o;
+            if (hashCode != that.hashCode) return false;
+            if (type != that.type) return false;
+            if (identities.length != that.identities.length) return false;
+            for (int i = 0; i < identities.length; i++) {
+                if (identities[i] != that.identities[i]) return false;
+            }
+            return expressions.equals(that.expressions);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                    "expressions=" + expressions +
+                    ", type=" + type +
+                    ", identities=" + Arrays.toString(identities) +
+                    '}';
+        }
+    }
+}
@@ -27,11 +27,14 @@ import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import team.unnamed.mocha.parser.ast.*;
+import team.unnamed.mocha.runtime.binding.JavaFieldBinding;
 import team.unnamed.mocha.runtime.binding.JavaFunction;
 import team.unnamed.mocha.runtime.value.*;
 
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.Objects.requireNonNull;
 
@@ -93,7 +96,7 @@ public final class ExpressionInterpreter<T> implements ExpressionVisitor<Value>,
                     final AccessExpression access = (AccessExpression) a;
                     final Value objectValue = access.object().visit(evaluator);
                     if (objectValue instanceof MutableObjectBinding) {
-                        ((MutableObjectBinding) objectValue).set(access.property(), val);
+                        evaluator.propertyCache(access).set((MutableObjectBinding) objectValue, val);
                     }
                 }
                 return val;
@@ -110,22 +113,45 @@ public final class ExpressionInterpreter<T> implements ExpressionVisitor<Value>,
                 }
                 return NumberValue.zero();
             },
-            arithmetic((a, b) -> ((a.eval() == b.eval()) ? 1.0F : 0.0F)), // eq
-            arithmetic((a, b) -> ((a.eval() != b.eval()) ? 1.0F : 0.0F))  // neq
+            equality(false), // eq
+            equality(true)   // neq
     );
 
-    private final T entity;
+    private T entity;
     private final Scope scope;
     private @Nullable Object flag;
     private @Nullable Value returnValue;
 
     private boolean warnOnReflectiveFunctionUsage;
 
+    // the inline caches of the evaluated property accesses, by expression
+    // identity, they are kept here and not in the expressions, which may be
+    // shared by many engines. Created lazily, and shared with children
+    private @Nullable Map<AccessExpression, MutableObjectBinding.PropertyCache> propertyCaches;
+
     public ExpressionInterpreter(final @Nullable T entity, final @NotNull Scope scope) {
         this.entity = entity;
         this.scope = requireNonNull(scope, "scope");
     }
 
+    /**
+     * Creates an interpreter that uses the inline caches of the
+     * given table for the current thread, so that they outlive it.
+     *
+     * @param entity The entity
+     * @param scope  The scope
+     * @param caches The inline caches table
+     */
+    public ExpressionInterpreter(final @Nullable T entity, final @NotNull Scope scope, final @NotNull PropertyCaches caches) {
+        this(entity, scope);
+        this.propertyCaches = caches.current();
+    }
+
+    private ExpressionInterpreter(final @Nullable T entity, final @NotNull Scope scope, final @NotNull Map<AccessExpression, MutableObjectBinding.PropertyCache> propertyCaches) {
+        this(entity, scope);
+        this.propertyCaches = propertyCaches;
+    }
+
     private static Evaluator bool(BooleanOperator op) {
         return (evaluator, a, b) -> Value.of(op.operate(
                 () -> a.visit(evaluator).getAsBoolean(),
@@ -140,6 +166,27 @@ public final class ExpressionInterpreter<T> implements ExpressionVisitor<Value>,
         ));
     }
 
+    private static Evaluator equality(final boolean negate) {
+        return (evaluator, a, b) -> Value.of(equal(a.visit(evaluator), b.visit(evaluator)) != negate);
+    }
+
+    /**
+     * Determines whether the given values are equal, as
+     * in Molang's {@code ==} operator.
+     *
+     * @param a The first value
+     * @param b The second value
+     * @return True if they are equal
+     */
+    public static boolean equal(final @NotNull Value a, final @NotNull Value b) {
+        if (a instanceof StringValue || b instanceof StringValue) {
+            // strings are only equal to strings with the same contents
+            return a.equals(b);
+        } else {
+            return a.getAsNumber() == b.getAsNumber();
+        }
+    }
+
     private static Evaluator arithmetic(ArithmeticOperator op) {
         return (evaluator, a, b) -> NumberValue.of(op.operate(
                 () -> a.visit(evaluator).getAsNumber(),
@@ -147,6 +194,18 @@ public final class ExpressionInterpreter<T> implements ExpressionVisitor<Value>,
         ));
     }
 
+    /**
+     * Prepares this interpreter to evaluate another expression
+     * with the given entity, so that it can be reused.
+     *
+     * @param entity The new entity
+     */
+    void reset(final @Nullable T entity) {
+        this.entity = entity;
+        this.flag = null;
+        this.returnValue = null;
+    }
+
     public void warnOnReflectiveFunctionUsage(final boolean warnOnReflectiveFunctionUsage) {
         this.warnOnReflectiveFunctionUsage = warnOnReflectiveFunctionUsage;
     }
@@ -172,13 +231,13 @@ public final class ExpressionInterpreter<T> implements ExpressionVisitor<Value>,
     }
 
     public <R> @NotNull ExpressionInterpreter<R> createChild(final @Nullable R entity) {
-        return new ExpressionInterpreter<>(entity, this.scope);
+        return new ExpressionInterpreter<>(entity, this.scope, propertyCaches());
     }
 
     public @NotNull ExpressionInterpreter<T> createChild() {
         // Note that it will have its own returnValue, but same bindings
         // (Should we create new bindings?)
-        return new ExpressionInterpreter<>(this.entity, this.scope);
+        return new ExpressionInterpreter<>(this.entity, this.scope, propertyCaches());
     }
 
     public @NotNull Scope bindings() {
@@ -195,20 +254,49 @@ public final class ExpressionInterpreter<T> implements ExpressionVisitor<Value>,
     public @NotNull Value visitArrayAccess(final @NotNull ArrayAccessExpression expression) {
         final Value array = expression.array().visit(this);
         final Value index = expression.index().visit(this);
-        if (!(array instanceof ArrayValue)) {
-            return Value.nil();
-        } else {
-            final Value[] values = ((ArrayValue) array).values();
-            final int validIndex = Math.max(0, (int) index.getAsNumber()) % values.length;
-            return values[validIndex];
+        return ArrayValue.access(array, index.getAsNumber());
+    }
+
+    private @NotNull Map<AccessExpression, MutableObjectBinding.PropertyCache> propertyCaches() {
+        Map<AccessExpression, MutableObjectBinding.PropertyCache> caches = propertyCaches;
+        if (caches == null) {
+            caches = new IdentityHashMap<>();
+            propertyCaches = caches;
+        }
+        return caches;
+    }
+
+    /**
+     * Gets the inline cache of the given access expression, it is created
+     * on the first evaluation of the expression by this interpreter.
+     */
+    private @NotNull MutableObjectBinding.PropertyCache propertyCache(final @NotNull AccessExpression expression) {
+        final Map<AccessExpression, MutableObjectBinding.PropertyCache> caches = propertyCaches();
+        MutableObjectBinding.PropertyCache cache = caches.get(expression);
+        if (cache == null) {
+            cache = new MutableObjectBinding.PropertyCache(expression.property());
+            caches.put(expression, cache);
         }
+        return cache;
     }
 
     @Override
     public @NotNull Value visitAccess(final @NotNull AccessExpression expression) {
         final Value objectValue = expression.object().visit(this);
-        if (objectValue instanceof ObjectValue) {
+        if (objectValue instanceof MutableObjectBinding) {
+            return propertyCache(expression).get((MutableObjectBinding) objectValue);
+        } else if (objectValue instanceof ObjectValue) {
             return ((ObjectValue) objectValue).get(expression.property());
+        } else if (objectValue instanceof JavaValue) {
+            // nested Java objects, e.g. query.foo.bar, where
+            // 'foo' is a Java object with a @Binding("bar") field
+            final Object object = ((JavaValue) objectValue).value();
+            if (object != null) {
+                final Value value = JavaFieldBinding.getInstanceField(object, expression.property());
+                if (value != null) {
+                    return value;
+                }
+            }
         }
         return NumberValue.zero();
     }
@@ -262,12 +350,12 @@ public final class ExpressionInterpreter<T> implements ExpressionVisitor<Value>,
                 }
                 final AccessExpression variableAccess = (AccessExpression) variableExpr;
                 final Expression objectExpr = variableAccess.object();
-                final String propertyName = variableAccess.property();
+                final MutableObjectBinding.PropertyCache propertyCache = propertyCache(variableAccess);
 
                 final Value array = args.next().eval();
                 final Iterable<Value> arrayIterable;
                 if (array instanceof ArrayValue) {
-                    arrayIterable = Arrays.asList(((ArrayValue) array).values());
+                    arrayIterable = ((ArrayValue) array).asList();
                 } else {
                     // second argument must be an array or iterable
                     return NumberValue.zero();
@@ -282,7 +370,7 @@ public final class ExpressionInterpreter<T> implements ExpressionVisitor<Value>,
                         // eval (objectExpr.propertyName = val)
                         final Value evaluatedObjectValue = this.eval(objectExpr);
                         if (evaluatedObjectValue instanceof MutableObjectBinding) {
-                            ((MutableObjectBinding) evaluatedObjectValue).set(propertyName, val);
+                            propertyCache.set((MutableObjectBinding) evaluatedObjectValue, val);
                         }
                         final Object returnValue = callable.evaluate(this);
 
@@ -300,7 +388,7 @@ public final class ExpressionInterpreter<T> implements ExpressionVisitor<Value>,
             return Value.nil();
         }
 
-        if (warnOnReflectiveFunctionUsage && function instanceof JavaFunction) {
+        if (warnOnReflectiveFunctionUsage && function instanceof JavaFunction && ((JavaFunction<?>) function).reflective()) {
             final JavaFunction<?> javaFunction = (JavaFunction<?>) function;
             System.err.println("Warning: Reflective function usage detected for method: " + javaFunction.method());
         }
@@ -394,6 +482,28 @@ public final class ExpressionInterpreter<T> implements ExpressionVisitor<Value>,
         throw new UnsupportedOperationException("Unsupported expression type: " + expression);
     }
 
+    /**
+     * A table of inline caches, kept by an engine so that they are reused
+     * by all of its evaluations. Every thread has its own caches, that are
+     * discarded once they grow too large, since they keep the evaluated
+     * expressions reachable.
+     */
+    @ApiStatus.Internal
+    public static final class PropertyCaches {
+        private static final int MAXIMUM_SIZE = 4096;
+
+        private final ThreadLocal<Map<AccessExpression, MutableObjectBinding.PropertyCache>> caches = new ThreadLocal<>();
+
+        @NotNull Map<AccessExpression, MutableObjectBinding.PropertyCache> current() {
+            Map<AccessExpression, MutableObjectBinding.PropertyCache> current = caches.get();
+            if (current == null || current.size() >= MAXIMUM_SIZE) {
+                current = new IdentityHashMap<>();
+                caches.set(current);
+            }
+            return current;
+        }
+    }
+
     private interface Evaluator {
         @NotNull Value eval(ExpressionInterpreter<?> evaluator, Expression a, Expression b);
     }
@@ -0,0 +1,219 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.parser.ast.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A {@link ExpressionVisitor} that collects information about
+ * an expression tree, like the temporal variables it uses.
+ */
+final class ExpressionScanner implements ExpressionVisitor<Void> {
+    private final Set<String> tempNames = new TreeSet<>();
+    private final Set<String> identifiers = new TreeSet<>();
+    private final Set<String> paths = new TreeSet<>();
+    private final List<BinaryExpression> tempAssignments = new ArrayList<>();
+    private boolean returns;
+
+    static @NotNull ExpressionScanner scan(final @NotNull Iterable<Expression> expressions) {
+        final ExpressionScanner scanner = new ExpressionScanner();
+        for (final Expression expression : expressions) {
+            expression.visit(scanner);
+        }
+        return scanner;
+    }
+
+    /**
+     * Returns the (lower-case) names of the temporal
+     * variables read or written by the scanned expressions.
+     *
+     * @return The temporal variable names
+     */
+    @NotNull Set<String> tempNames() {
+        return tempNames;
+    }
+
+    /**
+     * Returns the assignments to temporal variables in the
+     * scanned expressions, e.g. {@code t.x = 1}.
+     *
+     * @return The temporal variable assignments
+     */
+    @NotNull List<BinaryExpression> tempAssignments() {
+        return tempAssignments;
+    }
+
+    /**
+     * Returns the (lower-case) name of the temporal variable accessed
+     * by the given expression.
+     *
+     * @param expression The expression
+     * @return The temporal variable name, or null if the expression
+     * is not a temporal variable access
+     */
+    static @Nullable String tempName(final @NotNull Expression expression) {
+        if (!(expression instanceof AccessExpression)) {
+            return null;
+        }
+        final AccessExpression access = (AccessExpression) expression;
+        if (access.object() instanceof IdentifierExpression) {
+            final String name = ((IdentifierExpression) access.object()).name();
+            if (name.equalsIgnoreCase("temp") || name.equalsIgnoreCase("t")) {
+                return access.property().toLowerCase(Locale.ROOT);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the (lower-case) names of the identifiers
+     * referenced by the scanned expressions, excluding the
+     * temporal variables.
+     *
+     * @return The referenced identifier names
+     */
+    @NotNull Set<String> identifiers() {
+        return identifiers;
+    }
+
+    /**
+     * Returns the (lower-case) dotted paths of the identifiers and
+     * property accesses referenced by the scanned expressions, e.g.
+     * {@code query} and {@code query.health} for {@code query.health}.
+     *
+     * @return The referenced paths
+     */
+    @NotNull Set<String> paths() {
+        return paths;
+    }
+
+    /**
+     * Determines whether the scanned expressions contain
+     * a return statement.
+     *
+     * @return True if they contain a return statement
+     */
+    boolean returns() {
+        return returns;
+    }
+
+    @Override
+    public Void visitArrayAccess(final @NotNull ArrayAccessExpression expression) {
+        expression.array().visit(this);
+        expression.index().visit(this);
+        return null;
+    }
+
+    @Override
+    public Void visitTernaryConditional(final @NotNull TernaryConditionalExpression expression) {
+        expression.condition().visit(this);
+        expression.trueExpression().visit(this);
+        expression.falseExpression().visit(this);
+        return null;
+    }
+
+    @Override
+    public Void visitUnary(final @NotNull UnaryExpression expression) {
+        if (expression.op() == UnaryExpression.Op.RETURN) {
+            returns = true;
+        }
+        expression.expression().visit(this);
+        return null;
+    }
+
+    @Override
+    public Void visitExecutionScope(final @NotNull ExecutionScopeExpression expression) {
+        for (final Expression child : expression.expressions()) {
+            child.visit(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitBinary(final @NotNull BinaryExpression expression) {
+        if (expression.op() == BinaryExpression.Op.ASSIGN && tempName(expression.left()) != null) {
+            tempAssignments.add(expression);
+        }
+        expression.left().visit(this);
+        expression.right().visit(this);
+        return null;
+    }
+
+    @Override
+    public Void visitAccess(final @NotNull AccessExpression expression) {
+        final Expression objectExpr = expression.object();
+        final String tempName = tempName(expression);
+        if (tempName != null) {
+            tempNames.add(tempName);
+            return null;
+        }
+        final String path = path(expression);
+        if (path != null) {
+            paths.add(path);
+        }
+        objectExpr.visit(this);
+        return null;
+    }
+
+    private static @Nullable String path(final @NotNull Expression expression) {
+        if (expression instanceof IdentifierExpression) {
+            return ((IdentifierExpression) expression).name();
+        } else if (expression instanceof AccessExpression) {
+            final AccessExpression access = (AccessExpression) expression;
+            final String objectPath = path(access.object());
+            return objectPath == null ? null : objectPath + '.' + access.property().toLowerCase(Locale.ROOT);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitCall(final @NotNull CallExpression expression) {
+        expression.function().visit(this);
+        for (final Expression argument : expression.arguments()) {
+            argument.visit(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitIdentifier(final @NotNull IdentifierExpression expression) {
+        identifiers.add(expression.name());
+        paths.add(expression.name());
+        return null;
+    }
+
+    @Override
+    public Void visit(final @NotNull Expression expression) {
+        // leaf expressions (literals, statements)
+        return null;
+    }
+}
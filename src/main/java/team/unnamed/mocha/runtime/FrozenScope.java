@@ -0,0 +1,84 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.runtime.value.ObjectProperty;
+import team.unnamed.mocha.runtime.value.Value;
+import team.unnamed.mocha.util.CaseInsensitivePerfectHashMap;
+
+import java.util.Map;
+
+/**
+ * An immutable {@link Scope} implementation, its bindings are kept in a
+ * {@link CaseInsensitivePerfectHashMap}, so lookups don't hash into a
+ * general-purpose map. Frozen scopes are always read-only, and can be
+ * shared between threads.
+ */
+final class FrozenScope implements Scope {
+    private final CaseInsensitivePerfectHashMap<ObjectProperty> bindings;
+
+    FrozenScope(final @NotNull Map<String, ObjectProperty> bindings) {
+        this.bindings = CaseInsensitivePerfectHashMap.copyOf(bindings);
+    }
+
+    @Override
+    public @Nullable ObjectProperty getProperty(final @NotNull String name) {
+        return bindings.get(name);
+    }
+
+    @Override
+    public @NotNull Scope copy() {
+        // copies can be modified
+        return new ScopeImpl(bindings);
+    }
+
+    @Override
+    public @NotNull Scope freeze() {
+        return this;
+    }
+
+    @Override
+    public boolean set(final @NotNull String name, final @Nullable Value value) {
+        return false;
+    }
+
+    @Override
+    public void readOnly(final boolean readOnly) {
+        if (!readOnly) {
+            throw new UnsupportedOperationException("Frozen scopes are always read-only");
+        }
+    }
+
+    @Override
+    public boolean readOnly() {
+        return true;
+    }
+
+    @Override
+    public @NotNull Map<String, ObjectProperty> entries() {
+        return bindings;
+    }
+}
@@ -27,7 +27,7 @@ import javassist.ClassPool;
 import javassist.CtClass;
 import javassist.bytecode.Bytecode;
 import org.jetbrains.annotations.NotNull;
-import team.unnamed.mocha.util.CaseInsensitiveStringHashMap;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Method;
 import java.util.Map;
@@ -42,10 +42,12 @@ final class FunctionCompileState {
     private final Bytecode bytecode;
     private final Method method;
 
-    private final Map<String, Object> requirements = new CaseInsensitiveStringHashMap<>();
+    private final Map<String, Object> requirements;
     private final Scope scope;
     private final Map<String, Integer> argumentParameterIndexes;
     private int maxLocals = 0;
+    private int entityParameterLocal = -1;
+    private CtClass entityParameterType;
 
     FunctionCompileState(
             MolangCompiler compiler,
@@ -53,7 +55,8 @@ final class FunctionCompileState {
             CtClass ctClass, Bytecode bytecode,
             Method method,
             Scope scope,
-            Map<String, Integer> argumentParameterIndexes
+            Map<String, Integer> argumentParameterIndexes,
+            Map<String, Object> requirements
     ) {
         this.compiler = requireNonNull(compiler, "compiler");
         this.classPool = requireNonNull(classPool, "classPool");
@@ -62,6 +65,7 @@ final class FunctionCompileState {
         this.method = requireNonNull(method, "method");
         this.scope = requireNonNull(scope, "scope");
         this.argumentParameterIndexes = requireNonNull(argumentParameterIndexes, "argumentParameterIndexes");
+        this.requirements = requireNonNull(requirements, "requirements");
     }
 
     public @NotNull MolangCompiler compiler() {
@@ -88,6 +92,34 @@ final class FunctionCompileState {
         return requirements;
     }
 
+    /**
+     * Adds the given {@code value} as a requirement for the compiled
+     * function and returns the name of the field that will hold it.
+     *
+     * <p>Adding the same value multiple times will always return the
+     * same field name.</p>
+     *
+     * @param value The required value
+     * @return The name of the field holding the value
+     */
+    public @NotNull String requirement(final @NotNull Object value) {
+        requireNonNull(value, "value");
+        final StringBuilder baseName = new StringBuilder();
+        for (final char c : value.getClass().getSimpleName().toLowerCase().toCharArray()) {
+            // simple names may contain invalid characters (arrays, lambdas)
+            baseName.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        baseName.append(Integer.toHexString(System.identityHashCode(value)));
+
+        String name = baseName.toString();
+        Object existing;
+        for (int i = 1; (existing = requirements.get(name)) != null && existing != value; i++) {
+            name = baseName + "_" + i;
+        }
+        requirements.put(name, value);
+        return name;
+    }
+
     public @NotNull Scope scope() {
         return scope;
     }
@@ -96,6 +128,26 @@ final class FunctionCompileState {
         return argumentParameterIndexes;
     }
 
+    /**
+     * Returns the local variable index of the compiled method parameter
+     * annotated with {@link team.unnamed.mocha.runtime.binding.Entity},
+     * or -1 if there is no such parameter.
+     *
+     * @return The entity parameter local variable index
+     */
+    public int entityParameterLocal() {
+        return entityParameterLocal;
+    }
+
+    public @Nullable CtClass entityParameterType() {
+        return entityParameterType;
+    }
+
+    public void entityParameter(final int local, final @NotNull CtClass type) {
+        this.entityParameterLocal = local;
+        this.entityParameterType = requireNonNull(type, "type");
+    }
+
     public int maxLocals() {
         return maxLocals;
     }
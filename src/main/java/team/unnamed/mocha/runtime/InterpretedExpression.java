@@ -0,0 +1,213 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.parser.ast.Expression;
+import team.unnamed.mocha.runtime.value.MutableObjectBinding;
+import team.unnamed.mocha.runtime.value.NumberValue;
+import team.unnamed.mocha.runtime.value.Value;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An expression that could not be compiled. Compiled functions
+ * hold instances of this class and delegate the evaluation of
+ * the expression to an {@link ExpressionInterpreter}.
+ *
+ * <p>Temporal variables are locals in compiled functions, so they
+ * are passed to (and read back from) the interpreter through the
+ * arrays of a {@link Frame}: numeric temporal variables are passed
+ * as doubles, and the ones that may hold any value (e.g. strings)
+ * as {@link Value}s. Frames are reused by the evaluations on the
+ * same thread.</p>
+ */
+@ApiStatus.Internal
+public final class InterpretedExpression {
+    private final Scope scope;
+    private final Expression expression;
+    private final String[] numberTempNames;
+    private final String[] valueTempNames;
+
+    // the local scope used when the expression has no temporal
+    // variables, it never changes so it is shared by every frame
+    private final Scope sharedLocal;
+    private final ThreadLocal<Frame> frames = new ThreadLocal<>();
+
+    InterpretedExpression(final @NotNull Scope scope, final @NotNull Expression expression, final @NotNull String @NotNull [] numberTempNames, final @NotNull String @NotNull [] valueTempNames) {
+        this.scope = requireNonNull(scope, "scope");
+        this.expression = requireNonNull(expression, "expression");
+        this.numberTempNames = requireNonNull(numberTempNames, "numberTempNames");
+        this.valueTempNames = requireNonNull(valueTempNames, "valueTempNames");
+        if (numberTempNames.length == 0 && valueTempNames.length == 0) {
+            final MutableObjectBinding temp = new MutableObjectBinding();
+            temp.block();
+            this.sharedLocal = local(scope, temp);
+        } else {
+            this.sharedLocal = null;
+        }
+    }
+
+    private static @NotNull Scope local(final @NotNull Scope scope, final @NotNull MutableObjectBinding temp) {
+        final Scope local = Scope.layered(scope);
+        local.set("temp", temp);
+        local.set("t", temp);
+        local.readOnly(true);
+        return local;
+    }
+
+    public @NotNull Expression expression() {
+        return expression;
+    }
+
+    /**
+     * Returns the frame to pass the temporal variables in, before
+     * calling {@link #evaluate(Object, Frame)}.
+     *
+     * @return The frame of the current thread, or a new frame if it
+     * is in use (the expression called the function that contains it)
+     */
+    public @NotNull Frame frame() {
+        Frame frame = frames.get();
+        if (frame == null) {
+            frame = new Frame(this);
+            frames.set(frame);
+        } else if (frame.busy) {
+            frame = new Frame(this);
+        }
+        return frame;
+    }
+
+    /**
+     * Evaluates the expression.
+     *
+     * @param entity The entity, given by the compiled function
+     * @param frame  The frame holding the values of the temporal variables,
+     *               in the order given by the compiler, they are updated
+     *               after the evaluation
+     * @return The evaluation result, or the returned value, see
+     * {@link Frame#returned()}
+     */
+    public @NotNull Value evaluate(final @Nullable Object entity, final @NotNull Frame frame) {
+        final MutableObjectBinding temp = frame.temp;
+        if (temp != null) {
+            for (int i = 0; i < numberTempNames.length; i++) {
+                temp.set(numberTempNames[i], NumberValue.of(frame.numbers[i]));
+            }
+            for (int i = 0; i < valueTempNames.length; i++) {
+                temp.set(valueTempNames[i], frame.values[i]);
+            }
+        }
+
+        frame.busy = true;
+        try {
+            final ExpressionInterpreter<Object> interpreter = frame.interpreter;
+            interpreter.reset(entity);
+            Value result = expression.visit(interpreter);
+            final Value returnValue = interpreter.popReturnValue();
+            frame.returned = returnValue != null;
+            if (returnValue != null) {
+                result = returnValue;
+            }
+
+            if (temp != null) {
+                for (int i = 0; i < numberTempNames.length; i++) {
+                    frame.numbers[i] = temp.get(numberTempNames[i]).getAsNumber();
+                }
+                for (int i = 0; i < valueTempNames.length; i++) {
+                    frame.values[i] = temp.get(valueTempNames[i]);
+                }
+            }
+            return result;
+        } finally {
+            frame.interpreter.reset(null);
+            frame.busy = false;
+        }
+    }
+
+    @Override
+    public @NotNull String toString() {
+        return "InterpretedExpression(" + expression + ")";
+    }
+
+    /**
+     * The reusable state of an evaluation: the values of the temporal
+     * variables, and the local scope and interpreter that evaluate the
+     * expression, which binds "temp" and "t" to an object holding them.
+     */
+    @ApiStatus.Internal
+    public static final class Frame {
+        private final double[] numbers;
+        private final Value[] values;
+        private final MutableObjectBinding temp;
+        private final ExpressionInterpreter<Object> interpreter;
+        private boolean returned;
+        private boolean busy;
+
+        private Frame(final @NotNull InterpretedExpression expression) {
+            this.numbers = new double[expression.numberTempNames.length];
+            this.values = new Value[expression.valueTempNames.length];
+            final Scope local;
+            if (expression.sharedLocal != null) {
+                this.temp = null;
+                local = expression.sharedLocal;
+            } else {
+                this.temp = new MutableObjectBinding();
+                local = local(expression.scope, temp);
+            }
+            this.interpreter = new ExpressionInterpreter<>(null, local);
+        }
+
+        /**
+         * Returns the values of the numeric temporal variables.
+         *
+         * @return The numeric temporal variables
+         */
+        public double @NotNull [] numbers() {
+            return numbers;
+        }
+
+        /**
+         * Returns the values of the temporal variables that may
+         * hold any value.
+         *
+         * @return The other temporal variables
+         */
+        public @NotNull Value @NotNull [] values() {
+            return values;
+        }
+
+        /**
+         * Determines whether the last evaluation returned a value, by
+         * using the {@code return} statement.
+         *
+         * @return True if the last evaluation returned
+         */
+        public boolean returned() {
+            return returned;
+        }
+    }
+}
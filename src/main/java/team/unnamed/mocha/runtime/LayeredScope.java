@@ -0,0 +1,154 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.runtime.value.ObjectProperty;
+import team.unnamed.mocha.runtime.value.Value;
+import team.unnamed.mocha.util.CaseInsensitiveStringHashMap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link Scope} implementation that overlays a few local bindings
+ * on a parent scope, without copying the parent bindings. Lookups
+ * check the local bindings first and then fall through to the parent,
+ * writes only affect the local bindings.
+ *
+ * <p>Local bindings are kept in small copy-on-write arrays and compared
+ * ignoring case, since layers are expected to hold just a few bindings
+ * (e.g. {@code temp} and {@code t} for an evaluation).</p>
+ */
+final class LayeredScope implements Scope {
+    private static final String[] NO_NAMES = new String[0];
+    private static final ObjectProperty[] NO_PROPERTIES = new ObjectProperty[0];
+
+    private final Scope parent;
+    private final Object writeLock = new Object();
+    private volatile Layer layer;
+    private volatile boolean readOnly;
+
+    LayeredScope(final @NotNull Scope parent) {
+        this(parent, new Layer(NO_NAMES, NO_PROPERTIES));
+    }
+
+    private LayeredScope(final @NotNull Scope parent, final @NotNull Layer layer) {
+        this.parent = requireNonNull(parent, "parent");
+        this.layer = layer;
+    }
+
+    @Override
+    public @Nullable ObjectProperty getProperty(final @NotNull String name) {
+        final Layer layer = this.layer;
+        final int index = layer.indexOf(name);
+        if (index != -1) {
+            // may be null, if the binding was removed from this layer
+            return layer.properties[index];
+        }
+        return parent.getProperty(name);
+    }
+
+    @Override
+    public @NotNull Scope copy() {
+        // layers are never modified once published
+        return new LayeredScope(parent, layer);
+    }
+
+    @Override
+    public boolean set(final @NotNull String name, final @Nullable Value value) {
+        requireNonNull(name, "name");
+        if (readOnly) {
+            return false;
+        }
+        // a null property hides the parent binding
+        final ObjectProperty property = value == null ? null : ObjectProperty.property(value, false);
+        synchronized (writeLock) {
+            final Layer layer = this.layer;
+            final int index = layer.indexOf(name);
+            final String[] names;
+            final ObjectProperty[] properties;
+            if (index == -1) {
+                names = Arrays.copyOf(layer.names, layer.names.length + 1);
+                properties = Arrays.copyOf(layer.properties, layer.properties.length + 1);
+                names[names.length - 1] = name;
+                properties[properties.length - 1] = property;
+            } else {
+                names = layer.names;
+                properties = layer.properties.clone();
+                properties[index] = property;
+            }
+            this.layer = new Layer(names, properties);
+        }
+        return true;
+    }
+
+    @Override
+    public void readOnly(final boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public boolean readOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public @NotNull Map<String, ObjectProperty> entries() {
+        final Layer layer = this.layer;
+        final Map<String, ObjectProperty> entries = new CaseInsensitiveStringHashMap<>(parent.entries());
+        for (int i = 0; i < layer.names.length; i++) {
+            final ObjectProperty property = layer.properties[i];
+            if (property == null) {
+                entries.remove(layer.names[i]);
+            } else {
+                entries.put(layer.names[i], property);
+            }
+        }
+        return Collections.unmodifiableMap(entries);
+    }
+
+    private static final class Layer {
+        private final String[] names;
+        private final ObjectProperty[] properties;
+
+        Layer(final @NotNull String @NotNull [] names, final @Nullable ObjectProperty @NotNull [] properties) {
+            this.names = names;
+            this.properties = properties;
+        }
+
+        int indexOf(final @NotNull String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
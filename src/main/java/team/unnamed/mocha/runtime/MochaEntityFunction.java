@@ -0,0 +1,51 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.runtime.binding.Entity;
+import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
+
+/**
+ * A {@link MochaCompiledFunction} that is evaluated for a given entity,
+ * so that a single compiled function can be used for every entity,
+ * instead of compiling it for every entity engine.
+ *
+ * <p>The entity is used for the {@link Entity} parameters of bound
+ * functions, same as the engine entity for other functions.</p>
+ *
+ * @param <T> The entity type
+ * @since 3.1.0
+ */
+@FunctionalInterface
+public interface MochaEntityFunction<T> extends MochaCompiledFunction {
+    /**
+     * Evaluates this function for the given entity.
+     *
+     * @param entity The entity, or null to use the engine entity.
+     * @return The result of the evaluation.
+     * @since 3.1.0
+     */
+    double evaluate(final @Entity @Nullable T entity);
+}
@@ -0,0 +1,359 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.parser.ParseException;
+import team.unnamed.mocha.parser.ast.Expression;
+import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Ahead-of-time (build-time) compiler for Molang scripts.
+ *
+ * <p>Compiles scripts to regular class files plus an index
+ * ({@value #INDEX_RESOURCE}), that can be packaged with the
+ * application and loaded with {@link MochaEngine#loadPrecompiled},
+ * which doesn't compile anything, the classes are loaded from the
+ * class path.</p>
+ *
+ * <p>Scripts are compiled against the bindings of the given engine,
+ * which must match (in type, and value for constants) the bindings
+ * of the engine that loads them, otherwise, the scripts are compiled
+ * again at load time.</p>
+ *
+ * <p>It can also be used from the command line, see {@link #main}.</p>
+ *
+ * @since 3.1.0
+ */
+public final class MolangAotCompiler {
+    /**
+     * The path of the index resource, listing the precompiled scripts.
+     *
+     * @since 3.1.0
+     */
+    public static final String INDEX_RESOURCE = "META-INF/mocha/precompiled.properties";
+
+    private final MochaEngine<?> engine;
+    private final MolangCompiler compiler;
+    private final String packageName;
+
+    private final Map<String, byte[]> classes = new LinkedHashMap<>();
+    private final Set<String> names = new HashSet<>();
+    private final Properties index = new Properties();
+    private int scriptCount;
+
+    private MolangAotCompiler(final @NotNull MochaEngine<?> engine, final @NotNull String packageName) {
+        this.engine = requireNonNull(engine, "engine");
+        this.packageName = requireNonNull(packageName, "packageName");
+        this.compiler = new MolangCompiler(null, MolangAotCompiler.class.getClassLoader(), engine.scope());
+    }
+
+    /**
+     * Creates a new ahead-of-time compiler.
+     *
+     * @param engine      The engine providing the bindings to compile against
+     * @param packageName The package for the generated classes
+     * @return The created compiler
+     * @since 3.1.0
+     */
+    public static @NotNull MolangAotCompiler create(final @NotNull MochaEngine<?> engine, final @NotNull String packageName) {
+        return new MolangAotCompiler(engine, packageName);
+    }
+
+    /**
+     * Compiles the given script.
+     *
+     * @param name          The script name, used to get it when loading
+     * @param source        The script source
+     * @param interfaceType The interface to implement
+     * @throws ParseException           If the script can't be parsed
+     * @throws IllegalArgumentException If the script can't be compiled ahead of time,
+     *                                  e.g. if it requires objects that can't be obtained
+     *                                  from the bindings when loaded
+     * @since 3.1.0
+     */
+    public void compile(final @NotNull String name, final @NotNull String source, final @NotNull Class<? extends MochaCompiledFunction> interfaceType) throws ParseException {
+        requireNonNull(name, "name");
+        requireNonNull(source, "source");
+        requireNonNull(interfaceType, "interfaceType");
+
+        if (!names.add(name)) {
+            throw new IllegalArgumentException("Duplicated script name: " + name);
+        }
+
+        final List<Expression> expressions = engine.parse(source);
+        final Method method = MolangCompiler.findImplementedMethod(interfaceType);
+        final ScriptBindings bindings = new ScriptBindings(expressions, engine.scope(), null);
+        final ScriptClass scriptClass = compiler.compileClass(expressions, interfaceType, method, className(name));
+
+        final String prefix = scriptCount + ".";
+        final Map<String, Object> requirements = scriptClass.requirements();
+        int i = 0;
+        for (final Object requirement : requirements.values()) {
+            final String recipe = bindings.recipe(requirement);
+            if (recipe == null) {
+                throw new IllegalArgumentException("Script " + name + " requires a " + requirement.getClass().getName()
+                        + " that can't be obtained from the bindings, it can't be compiled ahead of time");
+            }
+            index.setProperty(prefix + "requirement." + i, requirement.getClass().getName() + ' ' + recipe);
+            i++;
+        }
+
+        index.setProperty(prefix + "name", name);
+        index.setProperty(prefix + "interface", interfaceType.getName());
+        index.setProperty(prefix + "class", scriptClass.className());
+        index.setProperty(prefix + "source", source);
+        index.setProperty(prefix + "signature", signature(method, bindings));
+        index.setProperty(prefix + "requirements", Integer.toString(requirements.size()));
+        classes.put(scriptClass.className(), scriptClass.bytecode());
+        index.setProperty("scripts", Integer.toString(++scriptCount));
+    }
+
+    /**
+     * Writes the compiled class files and the index to the given
+     * directory, which can then be added to the class path.
+     *
+     * @param outputDirectory The output directory
+     * @throws IOException If writing fails
+     * @since 3.1.0
+     */
+    public void write(final @NotNull Path outputDirectory) throws IOException {
+        requireNonNull(outputDirectory, "outputDirectory");
+        for (final Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            final Path classFile = outputDirectory.resolve(entry.getKey().replace('.', '/') + ".class");
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, entry.getValue());
+        }
+
+        final Path indexFile = outputDirectory.resolve(INDEX_RESOURCE);
+        Files.createDirectories(indexFile.getParent());
+        try (final OutputStream output = Files.newOutputStream(indexFile)) {
+            index.store(output, "Precompiled Molang scripts");
+        }
+    }
+
+    private @NotNull String className(final @NotNull String name) {
+        final StringBuilder className = new StringBuilder(packageName).append(".Molang_");
+        for (final char c : name.toCharArray()) {
+            className.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        // sanitized names may collide
+        return className.append('_').append(scriptCount).toString();
+    }
+
+    private static @NotNull String signature(final @NotNull Method method, final @NotNull ScriptBindings bindings) {
+        return ScriptBindings.LIBRARY_VERSION + "\n" + method.toGenericString() + "\n" + bindings.signature();
+    }
+
+    /**
+     * Loads the precompiled scripts implementing the given interface,
+     * listed by the indexes found by the given class loader.
+     *
+     * @see MochaEngine#loadPrecompiled
+     */
+    static <T extends MochaCompiledFunction> @NotNull Map<String, T> load(
+            final @NotNull MolangCompiler compiler,
+            final @NotNull ClassLoader classLoader,
+            final @NotNull Class<T> interfaceType,
+            final @NotNull Function<String, List<Expression>> parser
+    ) throws IOException {
+        final Map<String, T> functions = new LinkedHashMap<>();
+        final Enumeration<URL> indexes = classLoader.getResources(INDEX_RESOURCE);
+        while (indexes.hasMoreElements()) {
+            final Properties index = new Properties();
+            try (final InputStream input = indexes.nextElement().openStream()) {
+                index.load(input);
+            }
+
+            final int scriptCount = Integer.parseInt(index.getProperty("scripts", "0"));
+            for (int i = 0; i < scriptCount; i++) {
+                final String prefix = i + ".";
+                if (!interfaceType.getName().equals(index.getProperty(prefix + "interface"))) {
+                    continue;
+                }
+
+                final String name = index.getProperty(prefix + "name");
+                final List<Expression> expressions = parser.apply(index.getProperty(prefix + "source"));
+                final T function = load(compiler, classLoader, interfaceType, index, prefix, expressions);
+                // bindings changed, compile it again
+                functions.put(name, function != null ? function : compiler.compile(expressions, interfaceType));
+            }
+        }
+        return functions;
+    }
+
+    private static <T extends MochaCompiledFunction> @Nullable T load(
+            final @NotNull MolangCompiler compiler,
+            final @NotNull ClassLoader classLoader,
+            final @NotNull Class<T> interfaceType,
+            final @NotNull Properties index,
+            final @NotNull String prefix,
+            final @NotNull List<Expression> expressions
+    ) {
+        final ScriptBindings bindings = new ScriptBindings(expressions, compiler.scope(), compiler.entity());
+        final Method method = MolangCompiler.findImplementedMethod(interfaceType);
+        if (!signature(method, bindings).equals(index.getProperty(prefix + "signature"))) {
+            return null;
+        }
+
+        final int requirementCount = Integer.parseInt(index.getProperty(prefix + "requirements"));
+        final Map<String, Object> requirements = new LinkedHashMap<>();
+        for (int i = 0; i < requirementCount; i++) {
+            final String requirementDescriptor = index.getProperty(prefix + "requirement." + i);
+            final int separator = requirementDescriptor.indexOf(' ');
+            final String typeName = requirementDescriptor.substring(0, separator);
+            final Object requirement = bindings.resolve(requirementDescriptor.substring(separator + 1));
+            if (requirement == null || !requirement.getClass().getName().equals(typeName)) {
+                return null;
+            }
+            requirements.put(Integer.toString(i), requirement);
+        }
+
+        final Class<?> compiledClass;
+        try {
+            compiledClass = Class.forName(index.getProperty(prefix + "class"), true, classLoader);
+        } catch (final ClassNotFoundException e) {
+            return null;
+        }
+        return interfaceType.cast(MolangCompiler.instantiate(compiledClass, requirements, -1));
+    }
+
+    /**
+     * Compiles all the {@code .molang} files in a directory, and writes
+     * the compiled classes and index to another directory.
+     *
+     * <p>Usage: {@code MolangAotCompiler <input directory> <output directory>
+     * [--package <name>] [--interface <class>] [--bind <class>]...
+     * [--bind-instance <class>=<name>[,<alias>...]]...}</p>
+     *
+     * <ul>
+     *     <li>Script names are the file paths relative to the input
+     *     directory, without extension, e.g. {@code animations/walk}</li>
+     *     <li>{@code --package} is the package for the generated classes,
+     *     defaults to {@code team.unnamed.mocha.precompiled}</li>
+     *     <li>{@code --interface} is the interface the scripts implement,
+     *     defaults to {@link MochaFunction}</li>
+     *     <li>{@code --bind} binds the static members of the given class,
+     *     see {@link MochaEngine#bind}</li>
+     *     <li>{@code --bind-instance} binds an instance of the given class,
+     *     created with its no-args constructor, see {@link MochaEngine#bindInstance}.
+     *     The engine loading the scripts must bind an instance of the same class</li>
+     * </ul>
+     *
+     * @param args The command line arguments
+     * @throws Exception If compilation fails
+     * @since 3.1.0
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static void main(final @NotNull String @NotNull [] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: MolangAotCompiler <input directory> <output directory> [--package <name>]"
+                    + " [--interface <class>] [--bind <class>]... [--bind-instance <class>=<name>[,<alias>...]]...");
+            System.exit(1);
+            return;
+        }
+
+        final Path inputDirectory = Paths.get(args[0]);
+        final Path outputDirectory = Paths.get(args[1]);
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        String packageName = "team.unnamed.mocha.precompiled";
+        Class<? extends MochaCompiledFunction> interfaceType = MochaFunction.class;
+
+        for (int i = 2; i < args.length; i++) {
+            final String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option " + option);
+            }
+            final String value = args[++i];
+            switch (option) {
+                case "--package":
+                    packageName = value;
+                    break;
+                case "--interface":
+                    interfaceType = Class.forName(value).asSubclass(MochaCompiledFunction.class);
+                    break;
+                case "--bind":
+                    engine.bind(Class.forName(value));
+                    break;
+                case "--bind-instance": {
+                    final int separator = value.indexOf('=');
+                    if (separator == -1) {
+                        throw new IllegalArgumentException("Expected <class>=<name>[,<alias>...] for --bind-instance, found " + value);
+                    }
+                    final Class type = Class.forName(value.substring(0, separator));
+                    final String[] bindingNames = value.substring(separator + 1).split(",");
+                    final String[] aliases = new String[bindingNames.length - 1];
+                    System.arraycopy(bindingNames, 1, aliases, 0, aliases.length);
+                    engine.bindInstance(type, type.getDeclaredConstructor().newInstance(), bindingNames[0], aliases);
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+
+        final MolangAotCompiler compiler = create(engine, packageName);
+        final List<Path> files = new ArrayList<>();
+        try (final Stream<Path> stream = Files.walk(inputDirectory)) {
+            stream.filter(path -> path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".molang"))
+                    .sorted()
+                    .forEach(files::add);
+        }
+
+        for (final Path file : files) {
+            final String relativePath = inputDirectory.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+            final String name = relativePath.substring(0, relativePath.length() - ".molang".length());
+            final String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            compiler.compile(name, source, interfaceType);
+        }
+
+        compiler.write(outputDirectory);
+        System.out.println("Compiled " + files.size() + " script(s) to " + outputDirectory);
+    }
+}
@@ -29,17 +29,21 @@ import javassist.CtClass;
 import javassist.CtConstructor;
 import javassist.CtField;
 import javassist.CtMethod;
+import javassist.LoaderClassPath;
 import javassist.NotFoundException;
 import javassist.bytecode.BadBytecode;
 import javassist.bytecode.Bytecode;
 import javassist.bytecode.Descriptor;
 import javassist.bytecode.MethodInfo;
+import javassist.bytecode.Opcode;
 import javassist.bytecode.StackMapTable;
 import javassist.bytecode.stackmap.MapMaker;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import team.unnamed.mocha.parser.ast.Expression;
+import team.unnamed.mocha.runtime.binding.Entity;
+import team.unnamed.mocha.runtime.compiled.MochaColumnarFunction;
 import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
 import team.unnamed.mocha.runtime.compiled.Named;
 import team.unnamed.mocha.util.CaseInsensitiveStringHashMap;
@@ -51,28 +55,56 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Compiles Molang scripts to Java classes. Compilation is
+ * synchronized, since compilers use a single class pool.
+ */
 @ApiStatus.Internal
 public final class MolangCompiler {
-    private static final Random RANDOM = new Random();
+    private static final AtomicLong CLASS_COUNTER = new AtomicLong();
+
+    /**
+     * The maximum amount of scripts compiled into a single class by
+     * {@link #compile(Map, Class)}, keeps the class constant pool and
+     * method count far from the class file limits.
+     */
+    static final int BATCH_SIZE = 256;
+    private static final String SCRIPT_METHOD_PREFIX = "script";
+    private static final String INDEX_FIELD_NAME = "__index__";
+    /**
+     * The name of the requirement holding the compiler entity, the only
+     * requirement that depends on the entity, so that compiled classes
+     * can be instantiated again for other entities.
+     */
+    static final String ENTITY_REQUIREMENT = "__entity__";
 
     private final Object entity;
     private final ClassLoader classLoader;
     private final ClassPool classPool;
 
     private final Scope scope;
-    private Consumer<byte @NotNull []> postCompile;
+    private volatile Consumer<byte @NotNull []> postCompile;
+    private volatile CompiledFunctionCache cache;
+    private volatile PersistentCompileCache persistentCache;
 
     public MolangCompiler(final @Nullable Object entity, final @NotNull ClassLoader classLoader, final @NotNull Scope scope) {
         this.entity = entity;
         this.classLoader = requireNonNull(classLoader, "classLoader");
-        this.classPool = ClassPool.getDefault();
+        // own class pool, so that script classes are not kept by the
+        // global pool (they are detached anyway, after compilation)
+        this.classPool = new ClassPool(ClassPool.getDefault());
+        this.classPool.appendClassPath(new LoaderClassPath(classLoader));
         this.scope = requireNonNull(scope, "scope");
     }
 
@@ -84,11 +116,32 @@ public final class MolangCompiler {
         return classPool;
     }
 
+    public @NotNull Scope scope() {
+        return scope;
+    }
+
     public void postCompile(final @Nullable Consumer<byte @NotNull []> postCompile) {
         this.postCompile = postCompile;
     }
 
-    public <T extends MochaCompiledFunction> @NotNull T compile(final @NotNull List<Expression> expressions, final @NotNull Class<T> clazz) {
+    public @Nullable CompiledFunctionCache cache() {
+        return cache;
+    }
+
+    public void cache(final @Nullable CompiledFunctionCache cache) {
+        this.cache = cache;
+    }
+
+    public @Nullable PersistentCompileCache persistentCache() {
+        return persistentCache;
+    }
+
+    public void persistentCache(final @Nullable PersistentCompileCache persistentCache) {
+        this.persistentCache = persistentCache;
+    }
+
+
+    public synchronized <T extends MochaCompiledFunction> @NotNull T compile(final @NotNull List<Expression> expressions, final @NotNull Class<T> clazz) {
         requireNonNull(expressions, "expressions");
         requireNonNull(clazz, "clazz");
 
@@ -98,6 +151,237 @@ public final class MolangCompiler {
             return clazz.cast(MochaFunction.nop());
         }
 
+        final CompiledFunctionCache cache = this.cache;
+        CompiledFunctionCache.Key key = null;
+        if (cache != null) {
+            key = CompiledFunctionCache.key(expressions, clazz, classLoader, scope, entity);
+            final CompiledFunctionCache.Entry cached = cache.get(key);
+            if (cached != null) {
+                return clazz.cast(cached.function(entity));
+            }
+        }
+
+        final Method implementedMethod = findImplementedMethod(clazz);
+
+        final PersistentCompileCache persistentCache = this.persistentCache;
+        PersistentCompileCache.Entry persistentEntry = null;
+        if (persistentCache != null) {
+            persistentEntry = persistentCache.entry(expressions, implementedMethod, scope, entity);
+            final ScriptClass stored = persistentEntry.load();
+            if (stored != null) {
+                // no need to compile, just define the stored class
+                final Class<?> storedClass = ScriptClassDefiner.define(classLoader, stored.className(), stored.bytecode());
+                final T function = clazz.cast(instantiate(storedClass, stored.requirements(), -1));
+                if (key != null) {
+                    cache.put(key, new CompiledFunctionCache.Entry(function, stored.requirements(), -1));
+                }
+                return function;
+            }
+        }
+
+        final ScriptClass scriptClass = compileClass(expressions, clazz, implementedMethod, null);
+        if (persistentEntry != null) {
+            persistentEntry.store(scriptClass);
+        }
+
+        // defined so that it can be unloaded once the function is unreachable
+        final Class<?> compiledClass = ScriptClassDefiner.define(classLoader, scriptClass.className(), scriptClass.bytecode());
+        final T function = clazz.cast(instantiate(compiledClass, scriptClass.requirements(), -1));
+        if (key != null) {
+            cache.put(key, new CompiledFunctionCache.Entry(function, scriptClass.requirements(), -1));
+        }
+        return function;
+    }
+
+    /**
+     * Compiles the given scripts, all implementing the same interface.
+     *
+     * <p>The scripts are compiled as methods of a few shared classes (up
+     * to {@link #BATCH_SIZE} scripts per class) instead of generating a
+     * class per script, every returned function is an instance of one
+     * of these classes, that dispatches to its script method.</p>
+     *
+     * @param scripts The scripts to compile, by name
+     * @param clazz   The interface to implement
+     * @param <T>     The interface type
+     * @return The compiled functions, by name, in the iteration
+     * order of the given scripts map
+     */
+    public synchronized <T extends MochaCompiledFunction> @NotNull Map<String, T> compile(final @NotNull Map<String, List<Expression>> scripts, final @NotNull Class<T> clazz) {
+        requireNonNull(scripts, "scripts");
+        requireNonNull(clazz, "clazz");
+
+        final CompiledFunctionCache cache = this.cache;
+        final Map<String, CompiledFunctionCache.Key> keys = new HashMap<>();
+        final Map<String, T> functions = new LinkedHashMap<>();
+        final List<Map.Entry<String, List<Expression>>> batch = new ArrayList<>();
+        Method implementedMethod = null;
+
+        for (final Map.Entry<String, List<Expression>> entry : scripts.entrySet()) {
+            final List<Expression> expressions = requireNonNull(entry.getValue(), "expressions");
+            if (clazz == MochaFunction.class && expressions.isEmpty()) {
+                functions.put(entry.getKey(), clazz.cast(MochaFunction.nop()));
+                continue;
+            }
+
+            if (cache != null) {
+                final CompiledFunctionCache.Key key = CompiledFunctionCache.key(expressions, clazz, classLoader, scope, entity);
+                final CompiledFunctionCache.Entry cached = cache.get(key);
+                if (cached != null) {
+                    functions.put(entry.getKey(), clazz.cast(cached.function(entity)));
+                    continue;
+                }
+                keys.put(entry.getKey(), key);
+            }
+
+            if (implementedMethod == null) {
+                implementedMethod = findImplementedMethod(clazz);
+            }
+
+            batch.add(entry);
+            if (batch.size() == BATCH_SIZE) {
+                compileBatch(batch, clazz, implementedMethod, functions, keys);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            compileBatch(batch, clazz, implementedMethod, functions, keys);
+        }
+
+        // keep the given order
+        final Map<String, T> orderedFunctions = new LinkedHashMap<>();
+        for (final String name : scripts.keySet()) {
+            orderedFunctions.put(name, functions.get(name));
+        }
+        return orderedFunctions;
+    }
+
+    private <T extends MochaCompiledFunction> void compileBatch(
+            final @NotNull List<Map.Entry<String, List<Expression>>> batch,
+            final @NotNull Class<T> clazz,
+            final @NotNull Method implementedMethod,
+            final @NotNull Map<String, T> functions,
+            final @NotNull Map<String, CompiledFunctionCache.Key> keys
+    ) {
+        final CtClass scriptCtClass = makeScriptClass(clazz, implementedMethod, null);
+        // requirements are shared by all the scripts in the class
+        final Map<String, Object> requirements = new CaseInsensitiveStringHashMap<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            addScriptMethod(scriptCtClass, implementedMethod, SCRIPT_METHOD_PREFIX + i, Modifier.PRIVATE | Modifier.FINAL, batch.get(i).getValue(), requirements);
+        }
+        addDispatchMethod(scriptCtClass, implementedMethod, batch.size());
+
+        try {
+            final CtField indexField = new CtField(CtClass.intType, INDEX_FIELD_NAME, scriptCtClass);
+            indexField.setModifiers(Modifier.PRIVATE | Modifier.FINAL);
+            scriptCtClass.addField(indexField);
+        } catch (final CannotCompileException e) {
+            throw new IllegalStateException("Couldn't compile index field", e);
+        }
+        addConstructor(scriptCtClass, requirements, true);
+
+        final String scriptClassName = scriptCtClass.getName();
+        final Class<?> compiledClass = ScriptClassDefiner.define(classLoader, scriptClassName, toBytecode(scriptCtClass));
+        final CompiledFunctionCache cache = this.cache;
+        for (int i = 0; i < batch.size(); i++) {
+            final String name = batch.get(i).getKey();
+            final T function = clazz.cast(instantiate(compiledClass, requirements, i));
+            functions.put(name, function);
+            final CompiledFunctionCache.Key key = keys.get(name);
+            if (cache != null && key != null) {
+                cache.put(key, new CompiledFunctionCache.Entry(function, requirements, i));
+            }
+        }
+    }
+
+    /**
+     * Compiles the given script, the returned function also implements
+     * {@link MochaColumnarFunction}, to evaluate it for many rows at once.
+     *
+     * <p>All the parameters of the implemented method must be doubles, and
+     * its return type must be a primitive.</p>
+     *
+     * @param expressions The script expressions
+     * @param clazz       The interface to implement
+     * @param <T>         The interface type
+     * @return The compiled function
+     */
+    public synchronized <T extends MochaCompiledFunction> @NotNull T compileColumnar(final @NotNull List<Expression> expressions, final @NotNull Class<T> clazz) {
+        requireNonNull(expressions, "expressions");
+        requireNonNull(clazz, "clazz");
+
+        final Method implementedMethod = findImplementedMethod(clazz);
+        final Class<?> returnType = implementedMethod.getReturnType();
+        if (!returnType.isPrimitive() || returnType == void.class) {
+            throw new IllegalArgumentException("Columnar functions must return a primitive: " + implementedMethod);
+        }
+        for (final Class<?> parameterType : implementedMethod.getParameterTypes()) {
+            if (parameterType != double.class) {
+                throw new IllegalArgumentException("Columnar functions must only have double parameters: " + implementedMethod);
+            }
+        }
+
+        final CtClass scriptCtClass = makeScriptClass(clazz, implementedMethod, null);
+        final String scriptClassName = scriptCtClass.getName();
+        final Map<String, Object> requirements = new CaseInsensitiveStringHashMap<>();
+
+        addScriptMethod(scriptCtClass, implementedMethod, implementedMethod.getName(), Modifier.PUBLIC | Modifier.FINAL, expressions, requirements);
+        addColumnarMethod(scriptCtClass, implementedMethod, expressions);
+        addConstructor(scriptCtClass, requirements, false);
+
+        final Class<?> compiledClass = ScriptClassDefiner.define(classLoader, scriptClassName, toBytecode(scriptCtClass));
+        return clazz.cast(instantiate(compiledClass, requirements, -1));
+    }
+
+    /**
+     * Loads the scripts precompiled by {@link MolangAotCompiler}.
+     *
+     * @param classLoader The class loader to find the indexes and classes
+     * @param clazz       The interface implemented by the scripts to load
+     * @param parser      The function used to parse the script sources, in
+     *                    case they have to be compiled again
+     * @param <T>         The interface type
+     * @return The loaded functions, by name
+     * @throws IOException If an index can't be read
+     */
+    public <T extends MochaCompiledFunction> @NotNull Map<String, T> loadPrecompiled(
+            final @NotNull ClassLoader classLoader,
+            final @NotNull Class<T> clazz,
+            final @NotNull Function<String, List<Expression>> parser
+    ) throws IOException {
+        requireNonNull(classLoader, "classLoader");
+        requireNonNull(clazz, "clazz");
+        requireNonNull(parser, "parser");
+        return MolangAotCompiler.load(this, classLoader, clazz, parser);
+    }
+
+    /**
+     * Compiles the given script to a class, without defining it.
+     *
+     * @param expressions       The script expressions
+     * @param clazz             The interface to implement
+     * @param implementedMethod The interface method to implement
+     * @param className         The class name, null to generate one
+     * @return The compiled script class
+     */
+    synchronized @NotNull ScriptClass compileClass(
+            final @NotNull List<Expression> expressions,
+            final @NotNull Class<?> clazz,
+            final @NotNull Method implementedMethod,
+            final @Nullable String className
+    ) {
+        final CtClass scriptCtClass = makeScriptClass(clazz, implementedMethod, className);
+        final String scriptClassName = scriptCtClass.getName();
+        final Map<String, Object> requirements = new CaseInsensitiveStringHashMap<>();
+
+        addScriptMethod(scriptCtClass, implementedMethod, implementedMethod.getName(), Modifier.PUBLIC | Modifier.FINAL, expressions, requirements);
+        addConstructor(scriptCtClass, requirements, false);
+        return new ScriptClass(scriptClassName, toBytecode(scriptCtClass), requirements);
+    }
+
+    static @NotNull Method findImplementedMethod(final @NotNull Class<?> clazz) {
         if (!clazz.isInterface()) {
             throw new IllegalArgumentException("Target type must be an interface: " + clazz.getName());
         }
@@ -116,17 +400,28 @@ public final class MolangCompiler {
         if (implementedMethod == null) {
             throw new IllegalArgumentException("Target type must have a method to implement: " + clazz.getName());
         }
+        return implementedMethod;
+    }
 
-        final Map<String, Integer> argumentParameterIndexes = new CaseInsensitiveStringHashMap<>();
-        final CtClass[] ctParameters;
+    private @NotNull CtClass makeScriptClass(final @NotNull Class<?> clazz, final @NotNull Method implementedMethod, final @Nullable String className) {
+        final CtClass interfaceCtClass = JavassistUtil.getClassUnchecked(classPool, clazz);
+        final String scriptClassName = className != null ? className : getClass().getPackage().getName() + ".MolangFunctionImpl_" + clazz.getSimpleName() + "_" + implementedMethod.getName()
+                + "_" + Long.toHexString(CLASS_COUNTER.incrementAndGet());
+
+        final CtClass scriptCtClass = classPool.makeClass(scriptClassName);
+        scriptCtClass.addInterface(interfaceCtClass);
+        scriptCtClass.setModifiers(Modifier.PUBLIC);
+        return scriptCtClass;
+    }
+
+    private @NotNull CtClass @NotNull [] parameterTypes(final @NotNull Method implementedMethod, final @Nullable Map<String, Integer> argumentParameterIndexes) {
+        final Parameter[] parameters = implementedMethod.getParameters();
+        final CtClass[] ctParameters = new CtClass[parameters.length];
 
-        // check method parameter types
-        {
-            final Parameter[] parameters = implementedMethod.getParameters();
-            ctParameters = new CtClass[parameters.length];
+        for (int i = 0; i < parameters.length; ++i) {
+            final Parameter parameter = parameters[i];
 
-            for (int i = 0; i < parameters.length; ++i) {
-                final Parameter parameter = parameters[i];
+            if (argumentParameterIndexes != null && !parameter.isAnnotationPresent(Entity.class)) {
                 final Named named = parameter.getDeclaredAnnotation(Named.class);
                 final String name;
 
@@ -140,39 +435,57 @@ public final class MolangCompiler {
                 }
 
                 argumentParameterIndexes.put(name, i);
-                try {
-                    ctParameters[i] = classPool.get(parameter.getType().getName());
-                } catch (NotFoundException e) {
-                    throw new RuntimeException(e);
-                }
+            }
+            try {
+                ctParameters[i] = classPool.get(parameter.getType().getName());
+            } catch (NotFoundException e) {
+                throw new RuntimeException(e);
             }
         }
+        return ctParameters;
+    }
 
-        final CtClass interfaceCtClass = JavassistUtil.getClassUnchecked(classPool, clazz);
-        final String scriptClassName = getClass().getPackage().getName() + ".MolangFunctionImpl_" + clazz.getSimpleName() + "_" + implementedMethod.getName()
-                + "_" + Long.toHexString(System.currentTimeMillis()) + "_" + Integer.toHexString(RANDOM.nextInt(2024));
-
-        final CtClass scriptCtClass = classPool.makeClass(scriptClassName);
-        scriptCtClass.addInterface(interfaceCtClass);
-        scriptCtClass.setModifiers(Modifier.PUBLIC);
+    private static int parameterLocals(final @NotNull CtClass @NotNull [] ctParameters) {
+        int maxLocals = 1; // 1: this
+        for (final CtClass paramType : ctParameters) {
+            if (paramType == CtClass.doubleType || paramType == CtClass.longType) {
+                maxLocals += 2; // doubles and longs take 2 places
+            } else {
+                maxLocals++;
+            }
+        }
+        return maxLocals;
+    }
 
-        final Class<?> returnType = implementedMethod.getReturnType();
-        final CtClass returnCtType = JavassistUtil.getClassUnchecked(classPool, returnType);
+    private void addScriptMethod(
+            final @NotNull CtClass scriptCtClass,
+            final @NotNull Method implementedMethod,
+            final @NotNull String methodName,
+            final int modifiers,
+            final @NotNull List<Expression> expressions,
+            final @NotNull Map<String, Object> requirements
+    ) {
+        final Map<String, Integer> argumentParameterIndexes = new CaseInsensitiveStringHashMap<>();
+        final CtClass[] ctParameters = parameterTypes(implementedMethod, argumentParameterIndexes);
+        final CtClass returnCtType = JavassistUtil.getClassUnchecked(classPool, implementedMethod.getReturnType());
 
         final Bytecode bytecode = new Bytecode(scriptCtClass.getClassFile().getConstPool());
-        final FunctionCompileState compileState = new FunctionCompileState(this, classPool, scriptCtClass, bytecode, implementedMethod, scope, argumentParameterIndexes);
+        final FunctionCompileState compileState = new FunctionCompileState(this, classPool, scriptCtClass, bytecode, implementedMethod, scope, argumentParameterIndexes, requirements);
 
         // compute initial max locals
-        {
-            int maxLocals = 1; // 1: this
-            for (final CtClass paramType : ctParameters) {
-                if (paramType == CtClass.doubleType || paramType == CtClass.longType) {
-                    maxLocals += 2; // doubles and longs take 2 places
-                } else {
-                    maxLocals++;
+        compileState.maxLocals(parameterLocals(ctParameters));
+
+        // entity given per call
+        final Parameter[] parameters = implementedMethod.getParameters();
+        for (int i = 0, local = 1; i < parameters.length; i++) {
+            if (parameters[i].isAnnotationPresent(Entity.class)) {
+                if (ctParameters[i].isPrimitive()) {
+                    throw new IllegalArgumentException("Entity parameter must be an object: " + parameters[i]);
                 }
+                compileState.entityParameter(local, ctParameters[i]);
+                break;
             }
-            compileState.maxLocals(maxLocals);
+            local += ctParameters[i] == CtClass.doubleType || ctParameters[i] == CtClass.longType ? 2 : 1;
         }
 
         if (expressions.isEmpty()) {
@@ -181,6 +494,7 @@ public final class MolangCompiler {
             bytecode.addReturn(returnCtType);
         } else {
             final MolangCompilingVisitor compiler = new MolangCompilingVisitor(compileState);
+            compiler.declareTemps(expressions);
             CompileVisitResult lastVisitResult = null;
 
             final ExpressionInliner inliner = new ExpressionInliner(new ExpressionInterpreter<>(null, scope), scope);
@@ -203,9 +517,155 @@ public final class MolangCompiler {
         }
 
         bytecode.setMaxLocals(compileState.maxLocals());
+        addMethod(scriptCtClass, methodName, modifiers, Descriptor.ofMethod(returnCtType, ctParameters), bytecode);
+    }
+
+    /**
+     * Adds the method implementing the interface for a batch-compiled
+     * class, it calls the script method selected by the index field.
+     */
+    private void addDispatchMethod(final @NotNull CtClass scriptCtClass, final @NotNull Method implementedMethod, final int scriptCount) {
+        final CtClass[] ctParameters = parameterTypes(implementedMethod, null);
+        final CtClass returnCtType = JavassistUtil.getClassUnchecked(classPool, implementedMethod.getReturnType());
+        final String descriptor = Descriptor.ofMethod(returnCtType, ctParameters);
 
-        final MethodInfo method = new MethodInfo(scriptCtClass.getClassFile().getConstPool(), implementedMethod.getName(), Descriptor.ofMethod(returnCtType, ctParameters));
-        method.setAccessFlags(Modifier.PUBLIC | Modifier.FINAL);
+        final Bytecode bytecode = new Bytecode(scriptCtClass.getClassFile().getConstPool());
+        bytecode.addAload(0);
+        bytecode.addGetfield(scriptCtClass, INDEX_FIELD_NAME, "I");
+
+        // tableswitch <padding> <default> <low> <high> <offsets...>
+        final int switchPc = bytecode.currentPc();
+        bytecode.addOpcode(Opcode.TABLESWITCH);
+        while (bytecode.currentPc() % 4 != 0) {
+            bytecode.add(0);
+        }
+        final int defaultPc = bytecode.currentPc();
+        bytecode.add32bit(0);
+        bytecode.add32bit(0);
+        bytecode.add32bit(scriptCount - 1);
+        final int tablePc = bytecode.currentPc();
+        for (int i = 0; i < scriptCount; i++) {
+            bytecode.add32bit(0);
+        }
+
+        for (int i = 0; i < scriptCount; i++) {
+            bytecode.write32bit(tablePc + i * 4, bytecode.currentPc() - switchPc);
+            if (i == scriptCount - 1) {
+                // the index is always in range, jump anywhere
+                bytecode.write32bit(defaultPc, bytecode.currentPc() - switchPc);
+            }
+
+            bytecode.addAload(0);
+            int local = 1;
+            for (final CtClass parameter : ctParameters) {
+                local += bytecode.addLoad(local, parameter);
+            }
+            bytecode.addInvokespecial(scriptCtClass, SCRIPT_METHOD_PREFIX + i, descriptor);
+            bytecode.addReturn(returnCtType);
+        }
+
+        bytecode.setMaxLocals(parameterLocals(ctParameters));
+        addMethod(scriptCtClass, implementedMethod.getName(), Modifier.PUBLIC | Modifier.FINAL, descriptor, bytecode);
+    }
+
+    /**
+     * Implements {@link MochaColumnarFunction} for a class whose implemented
+     * method only takes doubles, by calling it for every row. If possible,
+     * most rows are evaluated by a vectorized loop instead, see
+     * {@link VectorColumnarCompiler}.
+     */
+    private void addColumnarMethod(final @NotNull CtClass scriptCtClass, final @NotNull Method implementedMethod, final @NotNull List<Expression> expressions) {
+        final Map<String, Integer> argumentParameterIndexes = new CaseInsensitiveStringHashMap<>();
+        final CtClass[] ctParameters = parameterTypes(implementedMethod, argumentParameterIndexes);
+        final CtClass returnCtType = JavassistUtil.getClassUnchecked(classPool, implementedMethod.getReturnType());
+        scriptCtClass.addInterface(JavassistUtil.getClassUnchecked(classPool, MochaColumnarFunction.class));
+
+        final Bytecode bytecode = new Bytecode(scriptCtClass.getClassFile().getConstPool());
+        // locals: 0 = this, 1 = columns, 2 = output, 3 = rows, then the column arrays and the row index
+        final int firstColumnLocal = 4;
+        final int rowLocal = firstColumnLocal + ctParameters.length;
+
+        // load every column once, before the loop
+        for (int i = 0; i < ctParameters.length; i++) {
+            bytecode.addAload(1);
+            bytecode.addIconst(i);
+            bytecode.addOpcode(Opcode.AALOAD);
+            bytecode.addAstore(firstColumnLocal + i);
+        }
+
+        bytecode.addIconst(0);
+        bytecode.addIstore(rowLocal);
+        int maxLocals = rowLocal + 1;
+
+        final Class<?> returnType = implementedMethod.getReturnType();
+        final Expression vectorizable = returnType == double.class || returnType == boolean.class
+                ? VectorColumnarCompiler.vectorizable(expressions, scope, argumentParameterIndexes)
+                : null;
+        if (vectorizable != null) {
+            // evaluate most rows in vectors, the remaining rows
+            // are evaluated by the scalar loop below
+            maxLocals = VectorColumnarCompiler.addLoop(bytecode, vectorizable, returnType == boolean.class,
+                    scope, argumentParameterIndexes, 2, 3, firstColumnLocal, rowLocal, maxLocals);
+        }
+
+        // while (row < rows)
+        final int loopPc = bytecode.currentPc();
+        bytecode.addIload(rowLocal);
+        bytecode.addIload(3);
+        final int exitJumpPc = bytecode.currentPc();
+        bytecode.addOpcode(Opcode.IF_ICMPGE);
+        bytecode.addIndex(0);
+
+        // output[row] = this.method(columns[0][row], columns[1][row], ...)
+        bytecode.addAload(2);
+        bytecode.addIload(rowLocal);
+        bytecode.addAload(0);
+        for (int i = 0; i < ctParameters.length; i++) {
+            bytecode.addAload(firstColumnLocal + i);
+            bytecode.addIload(rowLocal);
+            bytecode.addOpcode(Opcode.DALOAD);
+        }
+        bytecode.addInvokevirtual(scriptCtClass, implementedMethod.getName(), Descriptor.ofMethod(returnCtType, ctParameters));
+        if (returnCtType != CtClass.doubleType) {
+            JavassistUtil.addCast(bytecode, returnCtType, CtClass.doubleType);
+        }
+        bytecode.addOpcode(Opcode.DASTORE);
+
+        // row++
+        bytecode.addOpcode(Opcode.IINC);
+        bytecode.add(rowLocal);
+        bytecode.add(1);
+
+        final int gotoPc = bytecode.currentPc();
+        bytecode.addOpcode(Opcode.GOTO);
+        bytecode.addIndex(loopPc - gotoPc);
+
+        bytecode.write16bit(exitJumpPc + 1, bytecode.currentPc() - exitJumpPc);
+        bytecode.addReturn(null);
+
+        bytecode.setMaxLocals(maxLocals);
+        addMethod(
+                scriptCtClass,
+                "evaluate",
+                Modifier.PUBLIC | Modifier.FINAL,
+                Descriptor.ofMethod(CtClass.voidType, new CtClass[]{
+                        JavassistUtil.getClassUnchecked(classPool, double[][].class),
+                        JavassistUtil.getClassUnchecked(classPool, double[].class),
+                        CtClass.intType
+                }),
+                bytecode
+        );
+    }
+
+    private void addMethod(
+            final @NotNull CtClass scriptCtClass,
+            final @NotNull String methodName,
+            final int modifiers,
+            final @NotNull String descriptor,
+            final @NotNull Bytecode bytecode
+    ) {
+        final MethodInfo method = new MethodInfo(scriptCtClass.getClassFile().getConstPool(), methodName, descriptor);
+        method.setAccessFlags(modifiers);
         method.setCodeAttribute(bytecode.toCodeAttribute());
         final StackMapTable stackMapTable;
 
@@ -225,79 +685,118 @@ public final class MolangCompiler {
         } catch (final CannotCompileException e) {
             throw new IllegalStateException("Couldn't compile main function method", e);
         }
+    }
 
-        final Map<String, Object> requirements = compileState.requirements();
-
+    private void addConstructor(final @NotNull CtClass scriptCtClass, final @NotNull Map<String, Object> requirements, final boolean indexed) {
         // add fields for the requirements
         for (final Map.Entry<String, Object> entry : requirements.entrySet()) {
             final String fieldName = entry.getKey();
             final Object fieldValue = entry.getValue();
             final CtClass fieldType = JavassistUtil.getClassUnchecked(classPool, fieldValue.getClass());
             try {
-                scriptCtClass.addField(new CtField(fieldType, fieldName, scriptCtClass));
+                // final, so that compiled functions are safely published
+                // and can be evaluated from many threads at once
+                final CtField field = new CtField(fieldType, fieldName, scriptCtClass);
+                field.setModifiers(Modifier.PRIVATE | Modifier.FINAL);
+                scriptCtClass.addField(field);
             } catch (final CannotCompileException e) {
                 throw new IllegalStateException("Couldn't compile field " + fieldName + " with type " + fieldType.getName(), e);
             }
         }
 
-        // add constructor that needs requirements and initializes them
-        final CtClass[] constructorParameterCtTypes = new CtClass[requirements.size()];
-        int j = 0;
+        // add constructor that needs requirements (and the script index,
+        // if batch-compiled) and initializes them
+        final int firstRequirement = indexed ? 1 : 0;
+        final CtClass[] constructorParameterCtTypes = new CtClass[requirements.size() + firstRequirement];
+        if (indexed) {
+            constructorParameterCtTypes[0] = CtClass.intType;
+        }
+        int j = firstRequirement;
         for (final Map.Entry<String, Object> entry : requirements.entrySet()) {
             constructorParameterCtTypes[j] = JavassistUtil.getClassUnchecked(classPool, entry.getValue().getClass());
             ++j;
         }
 
-        {
-            final CtConstructor ctConstructor = new CtConstructor(constructorParameterCtTypes, scriptCtClass);
-            final Bytecode constructorBytecode = new Bytecode(scriptCtClass.getClassFile().getConstPool());
+        final CtConstructor ctConstructor = new CtConstructor(constructorParameterCtTypes, scriptCtClass);
+        final Bytecode constructorBytecode = new Bytecode(scriptCtClass.getClassFile().getConstPool());
+        constructorBytecode.addAload(0); // load this
+        constructorBytecode.addInvokespecial(JavassistUtil.getClassUnchecked(classPool, Object.class), "<init>", "()V"); // invoke superclass constructor
+        if (indexed) {
             constructorBytecode.addAload(0); // load this
-            constructorBytecode.addInvokespecial(JavassistUtil.getClassUnchecked(classPool, Object.class), "<init>", "()V"); // invoke superclass constructor
-            // put!
-            int parameterIndex = 0;
-            for (final Map.Entry<String, Object> entry : requirements.entrySet()) {
-                final String fieldName = entry.getKey();
-                final Object fieldValue = entry.getValue();
-                constructorBytecode.addAload(0); // load this
-                constructorBytecode.addAload(parameterIndex + 1); // load parameter
-                constructorBytecode.addPutfield(scriptCtClass, fieldName, Descriptor.of(JavassistUtil.getClassUnchecked(classPool, fieldValue.getClass()))); // set!
-                parameterIndex++;
-            }
-            constructorBytecode.addReturn(null); // return
-            ctConstructor.getMethodInfo().setCodeAttribute(constructorBytecode.toCodeAttribute());
-            try {
-                ctConstructor.getMethodInfo().getCodeAttribute().computeMaxStack();
-            } catch (final BadBytecode e) {
-                throw new IllegalStateException("Generated bad bytecode, open an issue at https://github.com/unnamed/mocha/issues", e);
-            }
-
-            ctConstructor.getMethodInfo().getCodeAttribute().setMaxLocals(constructorParameterCtTypes.length + 1);
-            try {
-                scriptCtClass.addConstructor(ctConstructor);
-            } catch (final CannotCompileException e) {
-                throw new IllegalStateException("Couldn't compile script constructor", e);
-            }
+            constructorBytecode.addIload(1); // load index
+            constructorBytecode.addPutfield(scriptCtClass, INDEX_FIELD_NAME, "I"); // set!
         }
-
-        if (postCompile != null) {
-            try {
-                postCompile.accept(scriptCtClass.toBytecode());
-            } catch (IOException | CannotCompileException e) {
-                throw new IllegalStateException("Couldn't collect script bytecode", e);
-            }
+        // put!
+        int parameterIndex = firstRequirement;
+        for (final Map.Entry<String, Object> entry : requirements.entrySet()) {
+            final String fieldName = entry.getKey();
+            final Object fieldValue = entry.getValue();
+            constructorBytecode.addAload(0); // load this
+            constructorBytecode.addAload(parameterIndex + 1); // load parameter
+            constructorBytecode.addPutfield(scriptCtClass, fieldName, Descriptor.of(JavassistUtil.getClassUnchecked(classPool, fieldValue.getClass()))); // set!
+            parameterIndex++;
+        }
+        constructorBytecode.addReturn(null); // return
+        ctConstructor.getMethodInfo().setCodeAttribute(constructorBytecode.toCodeAttribute());
+        try {
+            ctConstructor.getMethodInfo().getCodeAttribute().computeMaxStack();
+        } catch (final BadBytecode e) {
+            throw new IllegalStateException("Generated bad bytecode, open an issue at https://github.com/unnamed/mocha/issues", e);
         }
-        final Class<?> compiledClass;
+
+        ctConstructor.getMethodInfo().getCodeAttribute().setMaxLocals(constructorParameterCtTypes.length + 1);
         try {
-            compiledClass = classPool.toClass(scriptCtClass, getClass(), classLoader, null);
+            scriptCtClass.addConstructor(ctConstructor);
         } catch (final CannotCompileException e) {
-            throw new IllegalStateException("Couldn't compile script class", e);
+            throw new IllegalStateException("Couldn't compile script constructor", e);
         }
+    }
 
+    private byte @NotNull [] toBytecode(final @NotNull CtClass scriptCtClass) {
+        final byte[] scriptBytecode;
+        try {
+            scriptBytecode = scriptCtClass.toBytecode();
+        } catch (IOException | CannotCompileException e) {
+            throw new IllegalStateException("Couldn't collect script bytecode", e);
+        } finally {
+            // remove from the class pool, so it can be garbage-collected
+            scriptCtClass.detach();
+        }
+
+        if (postCompile != null) {
+            postCompile.accept(scriptBytecode);
+        }
+        return scriptBytecode;
+    }
+
+    static @NotNull Object instantiate(final @NotNull Class<?> compiledClass, final @NotNull Map<String, Object> requirements, final int index) {
+        return instantiate(compiledClass, requirements, index, null);
+    }
+
+    /**
+     * Instantiates a compiled class.
+     *
+     * @param compiledClass The compiled class
+     * @param requirements  The requirements the class was compiled with
+     * @param index         The script index, or -1 if the class has a single script
+     * @param entity        The entity to use instead of the {@link #ENTITY_REQUIREMENT}
+     *                      requirement, must be of the same class, or null to keep it
+     * @return The instance
+     */
+    static @NotNull Object instantiate(final @NotNull Class<?> compiledClass, final @NotNull Map<String, Object> requirements, final int index, final @Nullable Object entity) {
         // find the constructor with the requirements
-        final Class<?>[] constructorParameterTypes = new Class[requirements.size()];
-        final Object[] constructorArguments = new Object[requirements.size()];
-        int i = 0;
-        for (final Object requirement : requirements.values()) {
+        final int firstRequirement = index == -1 ? 0 : 1;
+        final Class<?>[] constructorParameterTypes = new Class[requirements.size() + firstRequirement];
+        final Object[] constructorArguments = new Object[requirements.size() + firstRequirement];
+        if (index != -1) {
+            constructorParameterTypes[0] = int.class;
+            constructorArguments[0] = index;
+        }
+        int i = firstRequirement;
+        for (final Map.Entry<String, Object> entry : requirements.entrySet()) {
+            final Object requirement = entity != null && entry.getKey().equals(ENTITY_REQUIREMENT)
+                    ? entity
+                    : entry.getValue();
             constructorParameterTypes[i] = requirement.getClass();
             constructorArguments[i] = requirement;
             ++i;
@@ -309,12 +808,10 @@ public final class MolangCompiler {
         } catch (final NoSuchMethodException e) {
             throw new IllegalStateException("Couldn't find constructor with parameters " + requirements.keySet(), e);
         }
-        final Object instance;
         try {
-            instance = constructor.newInstance(constructorArguments);
+            return constructor.newInstance(constructorArguments);
         } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
             throw new IllegalStateException("Couldn't instantiate script class", e);
         }
-        return clazz.cast(instance);
     }
-}
\ No newline at end of file
+}
@@ -25,18 +25,26 @@ package team.unnamed.mocha.runtime;
 
 import javassist.ClassPool;
 import javassist.CtClass;
+import javassist.CtPrimitiveType;
 import javassist.NotFoundException;
 import javassist.bytecode.Bytecode;
 import javassist.bytecode.Descriptor;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import team.unnamed.mocha.parser.ast.*;
 import team.unnamed.mocha.runtime.binding.Entity;
 import team.unnamed.mocha.runtime.binding.JavaFieldBinding;
 import team.unnamed.mocha.runtime.binding.JavaFunction;
 import team.unnamed.mocha.runtime.binding.JavaObjectBinding;
+import team.unnamed.mocha.runtime.binding.NativeFunction;
+import team.unnamed.mocha.runtime.value.ArrayValue;
 import team.unnamed.mocha.runtime.value.Function;
+import team.unnamed.mocha.runtime.value.JavaValue;
+import team.unnamed.mocha.runtime.value.MutableObjectBinding;
 import team.unnamed.mocha.runtime.value.NumberValue;
+import team.unnamed.mocha.runtime.value.ObjectProperty;
 import team.unnamed.mocha.runtime.value.ObjectValue;
+import team.unnamed.mocha.runtime.value.StringValue;
 import team.unnamed.mocha.runtime.value.Value;
 import team.unnamed.mocha.util.CaseInsensitiveStringHashMap;
 import team.unnamed.mocha.util.JavassistUtil;
@@ -45,9 +53,15 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResult> {
     private static final int[] OPCODES_BY_BINARY_EXPRESSION_OP = new int[]{
@@ -80,8 +94,15 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
     private final Map<String, Integer> argumentParameterIndexes;
 
     private final Map<String, Integer> localsByName = new CaseInsensitiveStringHashMap<>();
+    /**
+     * The (lowercase) names of the temporal variables that may hold
+     * non-numeric values, they are {@link Value} locals, the other
+     * temporal variables are double locals.
+     */
+    private final Set<String> valueTemps = new HashSet<>();
 
     private final CtClass stringCtType;
+    private final CtClass valueCtType;
     /**
      * The method return type
      */
@@ -92,6 +113,18 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
      */
     private CtClass expectedType = null;
 
+    /**
+     * The local variable holding the current entity, set when compiling
+     * the right side of an arrow ({@code ->}) operator, or to the
+     * {@link team.unnamed.mocha.runtime.binding.Entity} parameter of the
+     * compiled method, -1 to use the engine entity.
+     */
+    private int entityLocalIndex = -1;
+    /**
+     * The static type of the current entity, if held by a local variable.
+     */
+    private CtClass entityLocalType = null;
+
     MolangCompilingVisitor(final @NotNull FunctionCompileState compileState) {
         this.interpreter = new ExpressionInterpreter<>(null, compileState.scope());
         this.functionCompileState = compileState;
@@ -100,9 +133,12 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
         this.method = compileState.method();
         this.requirements = compileState.requirements();
         this.argumentParameterIndexes = compileState.argumentParameterIndexes();
+        this.entityLocalIndex = compileState.entityParameterLocal();
+        this.entityLocalType = compileState.entityParameterType();
 
         try {
             this.stringCtType = classPool.get(String.class.getName());
+            this.valueCtType = classPool.get(Value.class.getName());
             this.methodReturnType = classPool.get(method.getReturnType().getName());
         } catch (final NotFoundException e) {
             throw new IllegalStateException("Couldn't find CtClass for standard classes", e);
@@ -124,21 +160,30 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
                     final String property = ((AccessExpression) left).property();
 
                     if (name.equals("temp") || name.equals("t")) {
-                        final CompileVisitResult result = expression.right().visit(this);
-                        final int localIndex = localsByName.computeIfAbsent(property, k -> {
-                            int index = functionCompileState.maxLocals();
-                            if (result.lastPushedType() == CtClass.doubleType || result.lastPushedType() == CtClass.longType) {
-                                functionCompileState.maxLocals(index + 2);
-                            } else {
-                                functionCompileState.maxLocals(index + 1);
-                            }
-                            return index;
-                        });
-                        bytecode.addStore(localIndex, CtClass.doubleType);
-                        return null;
+                        final CtClass currentExpectedType = expectedType;
+                        final CtClass tempType;
+                        if (isValueTemp(property)) {
+                            pushAsValue(expression.right());
+                            tempType = valueCtType;
+                        } else {
+                            visitAs(expression.right(), CtClass.doubleType);
+                            tempType = CtClass.doubleType;
+                        }
+                        expectedType = currentExpectedType;
+                        final int localIndex = tempLocal(property);
+                        if (currentExpectedType == CtClass.voidType) {
+                            bytecode.addStore(localIndex, tempType);
+                            return new CompileVisitResult(CtClass.voidType);
+                        }
+                        // assignments evaluate to the assigned value
+                        bytecode.addOpcode(tempType == CtClass.doubleType ? Bytecode.DUP2 : Bytecode.DUP);
+                        bytecode.addStore(localIndex, tempType);
+                        return pushed(tempType);
                     }
                 }
             }
+            // assignments to variables or other objects are interpreted
+            return visitInterpreted(expression);
         }
 
         final CtClass currentExpectedType = expectedType;
@@ -149,26 +194,31 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
                 final int const_0;
                 final int const_1;
 
+                final CtClass resultType;
+
                 if (expectedType == CtClass.doubleType) {
                     const_0 = Bytecode.DCONST_0;
                     const_1 = Bytecode.DCONST_1;
+                    resultType = CtClass.doubleType;
                 } else if (expectedType == CtClass.floatType) {
                     const_0 = Bytecode.FCONST_0;
                     const_1 = Bytecode.FCONST_1;
+                    resultType = CtClass.floatType;
                 } else if (expectedType == CtClass.longType) {
                     const_0 = Bytecode.LCONST_0;
                     const_1 = Bytecode.LCONST_1;
+                    resultType = CtClass.longType;
                 } else {
                     const_0 = Bytecode.ICONST_0;
                     const_1 = Bytecode.ICONST_1;
+                    resultType = CtClass.booleanType;
                 }
 
-                expectedType = CtClass.booleanType;
-                expression.left().visit(this); // pushes lhs value to stack as boolean
+                pushTruthiness(expression.left()); // pushes lhs truthiness to stack
                 bytecode.addOpcode(Bytecode.IFEQ); // if lhs is false set to zero
                 final int indexPc = bytecode.currentPc();
                 bytecode.addGap(2); // index1, index2 (we don't know how many bytes the next instruction will take)
-                expression.right().visit(this); // pushes rhs value to stack as boolean
+                pushTruthiness(expression.right()); // pushes rhs truthiness to stack
                 bytecode.addOpcode(Bytecode.IFEQ); // if rhs is false set to zero
                 bytecode.addIndex(7); // index1, index2, const_1, goto, index1, index2, const_0
                 bytecode.addOpcode(const_1);
@@ -178,32 +228,37 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
                 bytecode.write16bit(indexPc, bytecode.currentPc() - indexPc + 1);
                 bytecode.addOpcode(const_0);
                 expectedType = currentExpectedType;
-                return new CompileVisitResult(currentExpectedType);
+                return pushed(resultType);
             }
             case OR: {
                 final int const_0;
                 final int const_1;
 
+                final CtClass resultType;
+
                 if (expectedType == CtClass.doubleType) {
                     const_0 = Bytecode.DCONST_0;
                     const_1 = Bytecode.DCONST_1;
+                    resultType = CtClass.doubleType;
                 } else if (expectedType == CtClass.floatType) {
                     const_0 = Bytecode.FCONST_0;
                     const_1 = Bytecode.FCONST_1;
+                    resultType = CtClass.floatType;
                 } else if (expectedType == CtClass.longType) {
                     const_0 = Bytecode.LCONST_0;
                     const_1 = Bytecode.LCONST_1;
+                    resultType = CtClass.longType;
                 } else {
                     const_0 = Bytecode.ICONST_0;
                     const_1 = Bytecode.ICONST_1;
+                    resultType = CtClass.booleanType;
                 }
 
-                expectedType = CtClass.booleanType;
-                expression.left().visit(this); // pushes lhs value to stack as boolean
-                bytecode.addOpcode(Bytecode.IFNE); // if lhs is false set to zero
+                pushTruthiness(expression.left()); // pushes lhs truthiness to stack
+                bytecode.addOpcode(Bytecode.IFNE); // if lhs is true set to one
                 final int indexPc = bytecode.currentPc();
                 bytecode.addGap(2); // index1, index2 (we don't know how many bytes the next instruction will take)
-                expression.right().visit(this); // pushes rhs value to stack as boolean
+                pushTruthiness(expression.right()); // pushes rhs truthiness to stack
                 bytecode.addOpcode(Bytecode.IFEQ); // if rhs is false set to zero
                 bytecode.addIndex(7); // index1, index2, const_1, goto, index1, index2, const_0
                 // jump here!
@@ -213,45 +268,21 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
                 bytecode.addIndex(4); // index1, index2, const_0, ((?))
                 bytecode.addOpcode(const_0);
                 expectedType = currentExpectedType;
-                return new CompileVisitResult(currentExpectedType);
+                return pushed(resultType);
             }
             case EQ:
             case NEQ:
+                if (isObjectExpression(expression.left()) || isObjectExpression(expression.right())) {
+                    // operands may be strings
+                    return visitEquality(expression);
+                }
+                // numbers only
+                return visitComparison(expression);
             case LT:
             case LTE:
             case GT:
-            case GTE: {
-                expectedType = CtClass.doubleType;
-                expression.left().visit(this);   // pushes lhs value to stack
-                expression.right().visit(this);  // pushes rhs value to stack
-                expectedType = currentExpectedType;
-
-                final int const_0;
-                final int const_1;
-
-                if (expectedType == CtClass.doubleType) {
-                    const_0 = Bytecode.DCONST_0;
-                    const_1 = Bytecode.DCONST_1;
-                } else if (expectedType == CtClass.floatType) {
-                    const_0 = Bytecode.FCONST_0;
-                    const_1 = Bytecode.FCONST_1;
-                } else if (expectedType == CtClass.longType) {
-                    const_0 = Bytecode.LCONST_0;
-                    const_1 = Bytecode.LCONST_1;
-                } else {
-                    const_0 = Bytecode.ICONST_0;
-                    const_1 = Bytecode.ICONST_1;
-                }
-
-                bytecode.addOpcode(Bytecode.DCMPL); // compare both numbers
-                bytecode.addOpcode(OPCODES_BY_BINARY_EXPRESSION_OP[op.ordinal()]); // branch
-                bytecode.addIndex(7);
-                bytecode.addOpcode(const_0);
-                bytecode.addOpcode(Bytecode.GOTO);
-                bytecode.addIndex(4);
-                bytecode.addOpcode(const_1);
-                return new CompileVisitResult(expectedType == null ? CtClass.booleanType : expectedType);
-            }
+            case GTE:
+                return visitComparison(expression);
             case ADD:
             case SUB:
             case MUL:
@@ -262,17 +293,451 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
                 expectedType = currentExpectedType;
 
                 bytecode.addOpcode(OPCODES_BY_BINARY_EXPRESSION_OP[op.ordinal()]);
-                return new CompileVisitResult(CtClass.doubleType);
+                return pushed(CtClass.doubleType);
             }
             case ARROW:
+                return visitArrow(expression);
             case NULL_COALESCE:
+                return visitNullCoalesce(expression);
             case CONDITIONAL:
-                break;
+                return visitConditional(expression);
         }
         //@formatter:on
         return null;
     }
 
+    private @NotNull CompileVisitResult visitComparison(final @NotNull BinaryExpression expression) {
+        final CtClass currentExpectedType = expectedType;
+        final BinaryExpression.Op op = expression.op();
+
+        expectedType = CtClass.doubleType;
+        expression.left().visit(this);   // pushes lhs value to stack
+        expression.right().visit(this);  // pushes rhs value to stack
+        expectedType = currentExpectedType;
+
+        final int const_0;
+        final int const_1;
+
+        final CtClass resultType;
+
+        if (expectedType == CtClass.doubleType) {
+            const_0 = Bytecode.DCONST_0;
+            const_1 = Bytecode.DCONST_1;
+            resultType = CtClass.doubleType;
+        } else if (expectedType == CtClass.floatType) {
+            const_0 = Bytecode.FCONST_0;
+            const_1 = Bytecode.FCONST_1;
+            resultType = CtClass.floatType;
+        } else if (expectedType == CtClass.longType) {
+            const_0 = Bytecode.LCONST_0;
+            const_1 = Bytecode.LCONST_1;
+            resultType = CtClass.longType;
+        } else {
+            const_0 = Bytecode.ICONST_0;
+            const_1 = Bytecode.ICONST_1;
+            resultType = CtClass.booleanType;
+        }
+
+        bytecode.addOpcode(Bytecode.DCMPL); // compare both numbers
+        bytecode.addOpcode(OPCODES_BY_BINARY_EXPRESSION_OP[op.ordinal()]); // branch
+        bytecode.addIndex(7);
+        bytecode.addOpcode(const_0);
+        bytecode.addOpcode(Bytecode.GOTO);
+        bytecode.addIndex(4);
+        bytecode.addOpcode(const_1);
+        return pushed(resultType);
+    }
+
+    private @NotNull CompileVisitResult visitNullCoalesce(final @NotNull BinaryExpression expression) {
+        final CtClass currentExpectedType = expectedType;
+        final CtClass resultType = currentExpectedType == null ? CtClass.doubleType : currentExpectedType;
+        final Expression left = expression.left();
+
+        expectedType = isObjectExpression(left) ? null : CtClass.doubleType;
+        final CompileVisitResult leftResult = left.visit(this);
+        final CtClass leftType = leftResult == null || leftResult.lastPushedType() == null
+                ? CtClass.voidType
+                : leftResult.lastPushedType();
+
+        if (leftType == CtClass.voidType) {
+            // nothing to check, always use the right side
+            visitAs(expression.right(), resultType);
+            expectedType = currentExpectedType;
+            return new CompileVisitResult(resultType);
+        }
+
+        // use the left side if it is truthy
+        bytecode.addOpcode(leftType == CtClass.doubleType || leftType == CtClass.longType ? Bytecode.DUP2 : Bytecode.DUP);
+        addTruthiness(leftType);
+        final int falseIndexPc = addJump(Bytecode.IFEQ);
+        if (resultType == CtClass.voidType) {
+            addPop(leftType);
+        } else {
+            addConversion(leftType, resultType);
+        }
+        final int endIndexPc = addJump(Bytecode.GOTO);
+
+        // otherwise, use the right side
+        jumpHere(falseIndexPc);
+        addPop(leftType);
+        visitAs(expression.right(), resultType);
+        jumpHere(endIndexPc);
+
+        expectedType = currentExpectedType;
+        return new CompileVisitResult(resultType);
+    }
+
+    private @NotNull CompileVisitResult visitConditional(final @NotNull BinaryExpression expression) {
+        final CtClass currentExpectedType = expectedType;
+        final CtClass resultType = currentExpectedType == null ? CtClass.doubleType : currentExpectedType;
+
+        pushTruthiness(expression.left());
+        final int falseIndexPc = addJump(Bytecode.IFEQ);
+
+        final Expression right = expression.right();
+        final boolean returned;
+        if (right instanceof ExecutionScopeExpression) {
+            // execution scopes are executed and evaluate to zero
+            returned = visitStatements(((ExecutionScopeExpression) right).expressions());
+            if (!returned && resultType != CtClass.voidType) {
+                bytecode.addConstZero(resultType);
+            }
+        } else {
+            returned = visitAs(right, resultType);
+        }
+
+        final int endIndexPc = returned ? -1 : addJump(Bytecode.GOTO);
+
+        // condition not met, evaluates to zero
+        jumpHere(falseIndexPc);
+        if (resultType != CtClass.voidType) {
+            bytecode.addConstZero(resultType);
+        }
+        if (endIndexPc != -1) {
+            jumpHere(endIndexPc);
+        }
+
+        expectedType = currentExpectedType;
+        return new CompileVisitResult(resultType);
+    }
+
+    private @NotNull CompileVisitResult visitEquality(final @NotNull BinaryExpression expression) {
+        final CtClass currentExpectedType = expectedType;
+        final boolean negate = expression.op() == BinaryExpression.Op.NEQ;
+
+        CtClass leftType = pushOperand(expression.left());
+        if (!isString(leftType) && !isValue(leftType)) {
+            addConversion(leftType, CtClass.doubleType);
+            leftType = CtClass.doubleType;
+        }
+        final CtClass rightType = pushOperand(expression.right());
+        expectedType = currentExpectedType;
+
+        if (isValue(leftType) || isValue(rightType)) {
+            // interpreted values, compare them like the interpreter does
+            if (!isValue(rightType)) {
+                addToValue(rightType);
+            } else if (!isValue(leftType)) {
+                // move the left operand to the top (order doesn't matter)
+                if (leftType == CtClass.doubleType) {
+                    bytecode.addOpcode(Bytecode.DUP_X2);
+                    bytecode.addOpcode(Bytecode.POP);
+                } else {
+                    bytecode.addOpcode(Bytecode.SWAP);
+                }
+                addToValue(leftType);
+            }
+            bytecode.addInvokestatic(
+                    JavassistUtil.getClassUnchecked(classPool, ExpressionInterpreter.class),
+                    "equal",
+                    CtClass.booleanType,
+                    new CtClass[]{valueCtType, valueCtType}
+            );
+            if (negate) {
+                bytecode.addIconst(1);
+                bytecode.addOpcode(Bytecode.IXOR);
+            }
+        } else if (isString(leftType) && isString(rightType)) {
+            // compare string contents
+            final CtClass objectCtType = JavassistUtil.getClassUnchecked(classPool, Object.class);
+            bytecode.addInvokestatic(
+                    JavassistUtil.getClassUnchecked(classPool, Objects.class),
+                    "equals",
+                    CtClass.booleanType,
+                    new CtClass[]{objectCtType, objectCtType}
+            );
+            if (negate) {
+                bytecode.addIconst(1);
+                bytecode.addOpcode(Bytecode.IXOR);
+            }
+        } else if (isString(leftType) || isString(rightType)) {
+            // strings are never equal to numbers
+            addPop(rightType);
+            addPop(leftType);
+            bytecode.addIconst(negate ? 1 : 0);
+        } else {
+            addConversion(rightType, CtClass.doubleType);
+            bytecode.addOpcode(Bytecode.DCMPL);
+            final int trueIndexPc = addJump(negate ? Bytecode.IFNE : Bytecode.IFEQ);
+            bytecode.addIconst(0);
+            final int endIndexPc = addJump(Bytecode.GOTO);
+            jumpHere(trueIndexPc);
+            bytecode.addIconst(1);
+            jumpHere(endIndexPc);
+        }
+        return pushed(CtClass.booleanType);
+    }
+
+    /**
+     * Pushes an operand of an equality check, using its natural
+     * type if it may be an object (e.g. a string), or a double
+     * otherwise.
+     *
+     * @param expression The operand expression
+     * @return The pushed type
+     */
+    private @NotNull CtClass pushOperand(final @NotNull Expression expression) {
+        expectedType = isObjectExpression(expression) ? null : CtClass.doubleType;
+        final CompileVisitResult result = expression.visit(this);
+        return result == null || result.lastPushedType() == null ? CtClass.doubleType : result.lastPushedType();
+    }
+
+    /**
+     * Converts the value on top of the stack, of the given
+     * type, to a {@link Value}.
+     *
+     * @param type The value type
+     */
+    private void addToValue(final @NotNull CtClass type) {
+        final CtClass paramType;
+        if (type.isPrimitive()) {
+            addConversion(type, CtClass.doubleType);
+            paramType = CtClass.doubleType;
+        } else if (isString(type)) {
+            paramType = stringCtType;
+        } else {
+            paramType = JavassistUtil.getClassUnchecked(classPool, Object.class);
+        }
+        bytecode.addInvokestatic(valueCtType, "of", valueCtType, new CtClass[]{paramType});
+    }
+
+    /**
+     * Pushes the value of the given expression as a {@link Value},
+     * keeping non-numeric values (e.g. strings) intact.
+     *
+     * @param expression The expression
+     */
+    private void pushAsValue(final @NotNull Expression expression) {
+        if (isObjectExpression(expression)) {
+            expectedType = null;
+            final CompileVisitResult result = expression.visit(this);
+            final CtClass type = result == null || result.lastPushedType() == null
+                    ? CtClass.doubleType
+                    : result.lastPushedType();
+            if (!isValue(type)) {
+                addToValue(type);
+            }
+        } else if (isNumeric(expression)) {
+            visitAs(expression, CtClass.doubleType);
+            addToValue(CtClass.doubleType);
+        } else {
+            // e.g. ternary operators that may evaluate to strings
+            expectedType = null;
+            visitInterpreted(expression);
+        }
+    }
+
+    private static boolean isString(final @NotNull CtClass type) {
+        return type.getName().equals(String.class.getName());
+    }
+
+    /**
+     * Determines whether the given expression may evaluate to a
+     * non-numeric value (a string, an array or a Java object), these
+     * expressions push their natural type when no type is expected.
+     *
+     * @param expression The expression
+     * @return True if it may evaluate to an object
+     */
+    private static boolean isObjectExpression(final @NotNull Expression expression) {
+        return expression instanceof StringExpression
+                || expression instanceof AccessExpression
+                || expression instanceof CallExpression
+                || expression instanceof IdentifierExpression
+                || expression instanceof ArrayAccessExpression
+                || (expression instanceof BinaryExpression && ((BinaryExpression) expression).op() == BinaryExpression.Op.ARROW);
+    }
+
+    /**
+     * Visits the given expression, making sure that the given type is
+     * pushed (or nothing, if type is void).
+     *
+     * @param expression The expression
+     * @param type       The type to push
+     * @return True if the expression returned from the method
+     */
+    private boolean visitAs(final @NotNull Expression expression, final @NotNull CtClass type) {
+        expectedType = type;
+        final CompileVisitResult result = expression.visit(this);
+        if (result != null && result.returned()) {
+            return true;
+        }
+        final CtClass pushedType = result == null || result.lastPushedType() == null
+                ? CtClass.voidType
+                : result.lastPushedType();
+        if (type == CtClass.voidType) {
+            addPop(pushedType);
+        } else {
+            addConversion(pushedType, type);
+        }
+        return false;
+    }
+
+    /**
+     * Visits the given expressions as statements, their values are
+     * discarded.
+     *
+     * @param expressions The statement expressions
+     * @return True if a statement returned from the method
+     */
+    private boolean visitStatements(final @NotNull List<Expression> expressions) {
+        final CtClass currentExpectedType = expectedType;
+        for (final Expression expression : expressions) {
+            if (visitAs(expression, CtClass.voidType)) {
+                // following statements are unreachable
+                expectedType = currentExpectedType;
+                return true;
+            }
+        }
+        expectedType = currentExpectedType;
+        return false;
+    }
+
+    /**
+     * Pushes an int whose value is non-zero only if the
+     * given expression is truthy, following the same rules
+     * as {@link Value#getAsBoolean()}.
+     *
+     * @param expression The expression
+     */
+    private void pushTruthiness(final @NotNull Expression expression) {
+        final CtClass currentExpectedType = expectedType;
+        expectedType = isObjectExpression(expression) ? null : CtClass.doubleType;
+        final CompileVisitResult result = expression.visit(this);
+        expectedType = currentExpectedType;
+
+        if (result == null || result.lastPushedType() == null || result.lastPushedType() == CtClass.voidType) {
+            // nothing pushed, falsy
+            bytecode.addIconst(0);
+        } else {
+            addTruthiness(result.lastPushedType());
+        }
+    }
+
+    /**
+     * Converts the value of the given type in top of the stack to
+     * an int whose value is non-zero only if the value is truthy.
+     *
+     * @param type The value type
+     */
+    private void addTruthiness(final @NotNull CtClass type) {
+        if (type == CtClass.doubleType) {
+            bytecode.addOpcode(Bytecode.DCONST_0);
+            bytecode.addOpcode(Bytecode.DCMPL);
+        } else if (type == CtClass.floatType) {
+            bytecode.addOpcode(Bytecode.FCONST_0);
+            bytecode.addOpcode(Bytecode.FCMPL);
+        } else if (type == CtClass.longType) {
+            bytecode.addOpcode(Bytecode.LCONST_0);
+            bytecode.addOpcode(Bytecode.LCMP);
+        } else if (type.isPrimitive()) {
+            // int, boolean, short, char and byte are already ints
+        } else if (isValue(type)) {
+            bytecode.addInvokeinterface(valueCtType, "getAsBoolean", "()Z", 1);
+        } else if (JavassistUtil.isWrapper(type) || isString(type) || type.isArray()) {
+            // null is falsy
+            bytecode.addOpcode(Bytecode.DUP);
+            final int nonNullIndexPc = addJump(Bytecode.IFNONNULL);
+            bytecode.addOpcode(Bytecode.POP);
+            bytecode.addIconst(0);
+            final int endIndexPc = addJump(Bytecode.GOTO);
+            jumpHere(nonNullIndexPc);
+            if (type.isArray()) {
+                // arrays are truthy if not empty
+                bytecode.addOpcode(Bytecode.ARRAYLENGTH);
+            } else if (isString(type)) {
+                // strings are truthy if not empty
+                bytecode.addInvokevirtual(type, "length", "()I");
+            } else {
+                // unbox
+                final CtClass primitiveType = JavassistUtil.getPrimitiveType(type);
+                JavassistUtil.addCast(bytecode, type, primitiveType);
+                addTruthiness(primitiveType);
+            }
+            jumpHere(endIndexPc);
+        } else {
+            // other objects are truthy if present
+            addConversion(type, CtClass.booleanType);
+        }
+    }
+
+    private @NotNull CompileVisitResult visitArrow(final @NotNull BinaryExpression expression) {
+        final Expression left = expression.left();
+        if (left instanceof StringExpression || !isObjectExpression(left)) {
+            // can't evaluate to a Java object, always zero
+            return pushZero();
+        }
+
+        final CtClass currentExpectedType = expectedType;
+        expectedType = null;
+        final CompileVisitResult leftResult = left.visit(this); // pushes the entity with its static type
+        expectedType = currentExpectedType;
+
+        CtClass entityType = leftResult == null ? null : leftResult.lastPushedType();
+        if (entityType == null || entityType == CtClass.voidType) {
+            return pushZero();
+        }
+        if (isValue(entityType)) {
+            // interpreted value, only Java values are entities
+            addUnwrap(JavaValue.class, "value", Object.class);
+            entityType = JavassistUtil.getClassUnchecked(classPool, Object.class);
+        }
+        if (JavassistUtil.isPrimitiveOrWrapper(entityType) || entityType.getName().equals(String.class.getName())) {
+            // not an entity, always zero
+            addPop(entityType);
+            return pushZero();
+        }
+
+        final int localIndex = functionCompileState.maxLocals();
+        functionCompileState.maxLocals(localIndex + 1);
+        bytecode.addAstore(localIndex);
+
+        // null entities evaluate to zero
+        bytecode.addAload(localIndex);
+        final int nullIndexPc = addJump(Bytecode.IFNULL);
+
+        // compile the right side using the new entity
+        final int previousEntityLocalIndex = entityLocalIndex;
+        final CtClass previousEntityLocalType = entityLocalType;
+        entityLocalIndex = localIndex;
+        entityLocalType = entityType;
+        final CompileVisitResult rightResult = expression.right().visit(this);
+        entityLocalIndex = previousEntityLocalIndex;
+        entityLocalType = previousEntityLocalType;
+
+        final CtClass resultType = rightResult == null || rightResult.lastPushedType() == null
+                ? CtClass.doubleType
+                : rightResult.lastPushedType();
+
+        final int endIndexPc = addJump(Bytecode.GOTO);
+        jumpHere(nullIndexPc);
+        if (resultType != CtClass.voidType) {
+            bytecode.addConstZero(resultType);
+        }
+        jumpHere(endIndexPc);
+        return new CompileVisitResult(resultType);
+    }
+
     public void endVisit() {
         bytecode.addReturn(methodReturnType);
     }
@@ -302,8 +767,8 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
             }
             return new CompileVisitResult(CtClass.booleanType);
         } else if (expectedType == CtClass.intType) {
-            // expects an int, push int
-            bytecode.addLdc((int) value);
+            // expects an int, push int (addLdc takes a constant pool index)
+            bytecode.addIconst((int) value);
             return new CompileVisitResult(CtClass.intType);
         } else if (expectedType == CtClass.longType) {
             // expects a long, push long
@@ -365,15 +830,16 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
                     return new CompileVisitResult(currentExpectedType);
                 }
 
-                // todo: wrap primitives to their wrapper class if needed
-
-                expectedType = CtClass.booleanType;
-                expression.expression().visit(this); // push boolean value to stack
+                pushTruthiness(expression.expression()); // push truthiness to stack
                 expectedType = currentExpectedType;
 
-                if (currentExpectedType == CtClass.booleanType) {
-                    // booleans just leave it ready to branch
+                if (currentExpectedType == null || currentExpectedType == CtClass.booleanType) {
                     bytecode.addOpcode(Bytecode.IFNE);
+                    bytecode.addIndex(7); // index1, index2, iconst_1, goto, index1, index2, ((iconst_0))
+                    bytecode.addIconst(1);
+                    bytecode.addOpcode(Bytecode.GOTO);
+                    bytecode.addIndex(4); // index1, index2, iconst_0, ((?))
+                    bytecode.addIconst(0);
                     return new CompileVisitResult(CtClass.booleanType);
                 }
 
@@ -403,8 +869,22 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
                 return new CompileVisitResult(currentExpectedType);
             }
             case ARITHMETICAL_NEGATION: {
+                final CtClass currentExpectedType = expectedType;
+                if (currentExpectedType == CtClass.voidType) {
+                    // evaluate without pushing anything
+                    expression.expression().visit(this);
+                    return new CompileVisitResult(CtClass.voidType);
+                }
+                expectedType = currentExpectedType == CtClass.intType
+                        || currentExpectedType == CtClass.longType
+                        || currentExpectedType == CtClass.floatType
+                        ? currentExpectedType
+                        : CtClass.doubleType;
                 final CompileVisitResult result = expression.expression().visit(this); // push value to stack
-                if (result.is(CtClass.doubleType)) {
+                expectedType = currentExpectedType;
+                if (result == null || result.lastPushedType() == null) {
+                    throw new IllegalStateException("Unsupported type for negation: " + result);
+                } else if (result.is(CtClass.doubleType)) {
                     bytecode.addOpcode(Bytecode.DNEG);
                 } else if (result.is(CtClass.longType)) {
                     bytecode.addOpcode(Bytecode.LNEG);
@@ -419,12 +899,11 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
                 } else {
                     throw new IllegalStateException("Unsupported type for negation: " + result);
                 }
-                break;
+                return pushed(result.lastPushedType());
             }
             default:
                 throw new UnsupportedOperationException("Unsupported unary operator: " + expression.op());
         }
-        return null;
     }
 
     @Override
@@ -434,37 +913,22 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
         final Expression falseExpr = expression.falseExpression();
 
         final CtClass currentExpectedType = expectedType;
-        expectedType = CtClass.booleanType;
-        final CompileVisitResult conditionRes = expression.condition().visit(this); // push boolean value to stack
-        expectedType = currentExpectedType;
+        final CtClass resultType = currentExpectedType == null ? CtClass.doubleType : currentExpectedType;
 
-        if (conditionRes != null && conditionRes.lastPushedType() != null && !conditionRes.is(CtClass.booleanType) && !conditionRes.is(CtClass.intType)) {
-            bytecode.addConstZero(conditionRes.lastPushedType()); // push 0
-            // compare
-            if (conditionRes.is(CtClass.doubleType)) {
-                bytecode.addOpcode(Bytecode.DCMPL);
-            } else if (conditionRes.is(CtClass.floatType)) {
-                bytecode.addOpcode(Bytecode.FCMPL);
-            } else if (conditionRes.is(CtClass.longType)) {
-                bytecode.addOpcode(Bytecode.LCMP);
-            } else {
-                throw new IllegalStateException("Unsupported type for comparison: " + conditionRes);
-            }
-        }
+        pushTruthiness(conditionExpr); // push condition truthiness to stack
 
-        bytecode.addOpcode(Bytecode.IFEQ); // if false skip
-        final int indexPc = bytecode.currentPc();
-        bytecode.addGap(2);
-        trueExpr.visit(this); // push true value to stack
-        bytecode.addOpcode(Bytecode.GOTO); // skip pushing false value
-        final int indexPc2 = bytecode.currentPc();
-        bytecode.addGap(2);
+        final int falseIndexPc = addJump(Bytecode.IFEQ); // if false skip
+        final boolean trueReturned = visitAs(trueExpr, resultType); // push true value to stack
+        final int endIndexPc = trueReturned ? -1 : addJump(Bytecode.GOTO); // skip pushing false value
         // jump here if false
-        bytecode.write16bit(indexPc, bytecode.currentPc() - indexPc + 1);
-        falseExpr.visit(this); // push false value to stack
+        jumpHere(falseIndexPc);
+        final boolean falseReturned = visitAs(falseExpr, resultType); // push false value to stack
         // jump here if true
-        bytecode.write16bit(indexPc2, bytecode.currentPc() - indexPc2 + 1);
-        return new CompileVisitResult(currentExpectedType);
+        if (endIndexPc != -1) {
+            jumpHere(endIndexPc);
+        }
+        expectedType = currentExpectedType;
+        return new CompileVisitResult(resultType, trueReturned && falseReturned);
     }
 
     @Override
@@ -472,7 +936,13 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
         final String name = expression.name();
         final Integer paramIndex = argumentParameterIndexes.get(name);
         if (paramIndex == null) {
-            throw new IllegalStateException("Unknown variable: " + name);
+            final Value value = functionCompileState.scope().get(name);
+            if (value instanceof JavaValue && ((JavaValue) value).value() != null) {
+                // Java objects in the scope, e.g. for "self->query.health"
+                return pushed(loadRequirement(((JavaValue) value).value()));
+            }
+            // unknown to the compiler, e.g. scope values
+            return visitInterpreted(expression);
         }
 
         final Parameter[] parameters = method.getParameters();
@@ -498,14 +968,129 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
 
         bytecode.addLoad(loadIndex, parameterCtType);
 
-        if (expectedType == null) {
-            // we are free to use anything, no need to cast
-            return new CompileVisitResult(parameterCtType);
+        // convert to the expected type
+        return pushed(parameterCtType);
+    }
+
+    @Override
+    public @NotNull CompileVisitResult visitArrayAccess(final @NotNull ArrayAccessExpression expression) {
+        final CtClass currentExpectedType = expectedType;
+        final Expression arrayExpr = expression.array();
+        if (arrayExpr instanceof StringExpression || !isObjectExpression(arrayExpr)) {
+            // can't evaluate to an array, always zero
+            return pushZero();
         }
 
-        // convert to the expected type
-        JavassistUtil.addCast(bytecode, parameterCtType, expectedType);
-        return new CompileVisitResult(expectedType);
+        expectedType = null;
+        final CompileVisitResult arrayResult = arrayExpr.visit(this);
+        CtClass arrayType = arrayResult == null || arrayResult.lastPushedType() == null
+                ? CtClass.voidType
+                : arrayResult.lastPushedType();
+
+        if (isList(arrayType)) {
+            // lists are accessed through an array view, like the interpreter does
+            addToValue(arrayType);
+            arrayType = valueCtType;
+        }
+
+        if (isValue(arrayType)) {
+            // interpreted value, only array values can be accessed, access the
+            // element directly so that array views don't convert every element
+            expectedType = CtClass.doubleType;
+            final CompileVisitResult indexResult = expression.index().visit(this);
+            expectedType = currentExpectedType;
+            if (indexResult != null && indexResult.lastPushedType() != null) {
+                addConversion(indexResult.lastPushedType(), CtClass.doubleType);
+            }
+            final CtClass valueType = JavassistUtil.getClassUnchecked(classPool, Value.class);
+            bytecode.addInvokestatic(
+                    JavassistUtil.getClassUnchecked(classPool, ArrayValue.class),
+                    "access",
+                    valueType,
+                    new CtClass[]{valueType, CtClass.doubleType}
+            );
+            return pushed(valueType);
+        }
+
+        final CtClass componentType;
+        try {
+            componentType = arrayType.isArray() ? arrayType.getComponentType() : null;
+        } catch (final NotFoundException e) {
+            throw new IllegalStateException("Couldn't find component type of " + arrayType.getName(), e);
+        }
+
+        if (componentType == null) {
+            // not an array, evaluate the index anyway (same as interpreter)
+            addPop(arrayType);
+            expectedType = CtClass.voidType;
+            expression.index().visit(this);
+            expectedType = currentExpectedType;
+            return pushZero();
+        }
+
+        final int arrayLocalIndex = functionCompileState.maxLocals();
+        final int indexLocalIndex = arrayLocalIndex + 1;
+        functionCompileState.maxLocals(arrayLocalIndex + 2);
+        bytecode.addAstore(arrayLocalIndex);
+
+        // index = max(0, (int) index)
+        expectedType = CtClass.doubleType;
+        final CompileVisitResult indexResult = expression.index().visit(this);
+        expectedType = currentExpectedType;
+        if (indexResult != null && indexResult.lastPushedType() != null) {
+            addConversion(indexResult.lastPushedType(), CtClass.doubleType);
+        }
+        bytecode.addOpcode(Bytecode.D2I);
+        bytecode.addIconst(0);
+        bytecode.addInvokestatic(
+                JavassistUtil.getClassUnchecked(classPool, Math.class),
+                "max",
+                CtClass.intType,
+                new CtClass[]{CtClass.intType, CtClass.intType}
+        );
+        bytecode.addIstore(indexLocalIndex);
+
+        // null and empty arrays evaluate to zero
+        bytecode.addAload(arrayLocalIndex);
+        final int nullIndexPc = addJump(Bytecode.IFNULL);
+        bytecode.addAload(arrayLocalIndex);
+        bytecode.addOpcode(Bytecode.ARRAYLENGTH);
+        final int emptyIndexPc = addJump(Bytecode.IFEQ);
+
+        // array[index % array.length]
+        bytecode.addAload(arrayLocalIndex);
+        bytecode.addIload(indexLocalIndex);
+        bytecode.addAload(arrayLocalIndex);
+        bytecode.addOpcode(Bytecode.ARRAYLENGTH);
+        bytecode.addOpcode(Bytecode.IREM);
+        bytecode.addOpcode(arrayLoadOpcode(componentType));
+        final int endIndexPc = addJump(Bytecode.GOTO);
+
+        jumpHere(nullIndexPc);
+        jumpHere(emptyIndexPc);
+        bytecode.addConstZero(componentType);
+        jumpHere(endIndexPc);
+        return pushed(componentType);
+    }
+
+    private static int arrayLoadOpcode(final @NotNull CtClass componentType) {
+        if (componentType == CtClass.booleanType || componentType == CtClass.byteType) {
+            return Bytecode.BALOAD;
+        } else if (componentType == CtClass.charType) {
+            return Bytecode.CALOAD;
+        } else if (componentType == CtClass.shortType) {
+            return Bytecode.SALOAD;
+        } else if (componentType == CtClass.intType) {
+            return Bytecode.IALOAD;
+        } else if (componentType == CtClass.longType) {
+            return Bytecode.LALOAD;
+        } else if (componentType == CtClass.floatType) {
+            return Bytecode.FALOAD;
+        } else if (componentType == CtClass.doubleType) {
+            return Bytecode.DALOAD;
+        } else {
+            return Bytecode.AALOAD;
+        }
     }
 
     @Override
@@ -520,104 +1105,255 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
                 final Integer localIndex = localsByName.get(property);
                 if (localIndex == null) {
                     bytecode.addConstZero(CtClass.doubleType);
+                } else if (isValueTemp(property)) {
+                    bytecode.addAload(localIndex);
+                    return pushed(valueCtType);
                 } else {
                     bytecode.addLoad(localIndex, CtClass.doubleType);
                 }
-                return new CompileVisitResult(CtClass.doubleType);
+                return pushed(CtClass.doubleType);
             }
         }
 
-        final Scope scope = functionCompileState.scope();
-        final Value objectValue = objectExpr.visit(new ExpressionVisitor<Value>() {
-            @Override
-            public @NotNull Value visitIdentifier(final @NotNull IdentifierExpression expression) {
-                final String name = expression.name();
-                return scope.get(name);
+        if (expectedType == CtClass.voidType) {
+            // reading a property has no side effects
+            return new CompileVisitResult(CtClass.voidType);
+        }
+
+        if (isDynamic(expression)) {
+            // e.g. variables
+            return visitInterpreted(expression);
+        }
+
+        // jumps to be done if any object in the chain is null
+        final List<Integer> nullJumps = new ArrayList<>();
+        final Class<?> propertyType = pushProperty(resolveObject(objectExpr, nullJumps), property, nullJumps);
+        final CompileVisitResult result;
+
+        if (propertyType == null) {
+            // unknown property, evaluates to zero
+            result = pushZero();
+        } else {
+            result = pushed(JavassistUtil.getClassUnchecked(classPool, propertyType));
+        }
+
+        if (!nullJumps.isEmpty()) {
+            final int endIndexPc = addJump(Bytecode.GOTO);
+            for (final int nullIndexPc : nullJumps) {
+                jumpHere(nullIndexPc);
             }
+            // accessing a property of null evaluates to zero
+            bytecode.addOpcode(Bytecode.POP);
+            bytecode.addConstZero(result.lastPushedType());
+            jumpHere(endIndexPc);
+        }
+        return result;
+    }
 
-            @Override
-            public @NotNull Value visitAccess(final @NotNull AccessExpression expression) {
-                final Value object = expression.object().visit(this);
-                if (object instanceof ObjectValue) {
-                    return ((ObjectValue) object).get(expression.property());
-                } else {
-                    return NumberValue.zero();
+    /**
+     * Resolves the object referenced by the given expression, so that
+     * its properties can be accessed. Objects known at compile-time are
+     * not pushed, Java objects that must be read in runtime are pushed.
+     *
+     * @param expression The object expression
+     * @param nullJumps  The list to add the jumps to do if the object is null
+     * @return The resolved object, null if it can't be resolved (nothing is pushed)
+     */
+    private @Nullable AccessObject resolveObject(final @NotNull Expression expression, final @NotNull List<Integer> nullJumps) {
+        if (expression instanceof IdentifierExpression) {
+            final Value value = functionCompileState.scope().get(((IdentifierExpression) expression).name());
+            if (value instanceof ObjectValue) {
+                return new AccessObject((ObjectValue) value, null);
+            } else if (value instanceof JavaValue) {
+                final Object object = ((JavaValue) value).value();
+                if (object != null && isAccessible(object.getClass())) {
+                    loadRequirement(object);
+                    return new AccessObject(null, object.getClass());
                 }
             }
-
-            @Override
-            public @NotNull Value visit(final @NotNull Expression expression) {
-                return NumberValue.zero();
+            return null;
+        } else if (expression instanceof AccessExpression) {
+            final AccessExpression access = (AccessExpression) expression;
+            final AccessObject object = resolveObject(access.object(), nullJumps);
+            if (object == null) {
+                return null;
             }
-        });
 
-        if (objectValue instanceof ObjectValue) {
-            final ObjectValue actualObjectValue = (ObjectValue) objectValue;
-            if (actualObjectValue instanceof JavaObjectBinding) {
-                final JavaFieldBinding javaFieldBinding = ((JavaObjectBinding) actualObjectValue).getField(property);
-                if (javaFieldBinding == null) {
-                    // push zero only
-                    bytecode.addDconst(0D);
-                } else if (javaFieldBinding.constant()) {
-                    // inline const
-                    bytecode.addDconst(javaFieldBinding.get().getAsNumber());
-                } else {
-                    // get field
-                    final Field field = javaFieldBinding.field();
-                    if (Modifier.isStatic(field.getModifiers())) {
-                        try {
-                            bytecode.addGetstatic(
-                                    classPool.get(field.getDeclaringClass().getName()),
-                                    field.getName(),
-                                    Descriptor.of(field.getType().toString())
-                            );
-                        } catch (final NotFoundException ignored) {
-                        }
-                    }
+            if (object.value != null && !(object.value instanceof JavaObjectBinding)) {
+                // nested objects, only if they can't change, e.g. custom namespaces
+                final ObjectProperty property = object.value.getProperty(access.property());
+                if (property != null && property.constant() && property.value() instanceof ObjectValue) {
+                    return new AccessObject((ObjectValue) property.value(), null);
                 }
+                return null;
             }
-        }
 
+            final Class<?> type = pushProperty(object, access.property(), nullJumps);
+            if (type == null) {
+                return null;
+            }
+            if (type.isPrimitive() || Value.class.isAssignableFrom(type) || !isAccessible(type)) {
+                // not a plain Java object, can't access its properties
+                addPop(JavassistUtil.getClassUnchecked(classPool, type));
+                return null;
+            }
+            return new AccessObject(null, type);
+        }
         return null;
     }
 
-    @Override
-    public CompileVisitResult visitCall(final @NotNull CallExpression expression) {
-        final Scope scope = functionCompileState.scope();
-        final Expression functionExpr = expression.function();
+    /**
+     * Pushes the value of the given {@code property} from the given
+     * resolved object.
+     *
+     * @param object    The resolved object, if a Java object, it must be in the stack
+     * @param property  The property name
+     * @param nullJumps The list to add the jumps to do if the object is null
+     * @return The pushed type, null if nothing was pushed
+     */
+    private @Nullable Class<?> pushProperty(final @Nullable AccessObject object, final @NotNull String property, final @NotNull List<Integer> nullJumps) {
+        if (object == null) {
+            return null;
+        }
 
-        final Value functionValue = functionExpr.visit(new ExpressionVisitor<Value>() {
-            @Override
-            public @NotNull Value visitIdentifier(final @NotNull IdentifierExpression expression) {
-                final String name = expression.name();
-                return scope.get(name);
+        if (object.type != null) {
+            // a Java object is in the stack, get its field
+            final Field field = JavaFieldBinding.findInstanceField(object.type, property);
+            if (field == null || !isAccessible(field)) {
+                bytecode.addOpcode(Bytecode.POP);
+                return null;
             }
+            bytecode.addOpcode(Bytecode.DUP);
+            nullJumps.add(addJump(Bytecode.IFNULL));
+            bytecode.addGetfield(
+                    JavassistUtil.getClassUnchecked(classPool, field.getDeclaringClass()),
+                    field.getName(),
+                    Descriptor.of(JavassistUtil.getClassUnchecked(classPool, field.getType()))
+            );
+            return field.getType();
+        }
 
-            @Override
-            public @NotNull Value visitAccess(final @NotNull AccessExpression expression) {
-                final Value object = expression.object().visit(this);
-                if (object instanceof ObjectValue) {
-                    return ((ObjectValue) object).get(expression.property());
-                } else {
-                    return NumberValue.zero();
+        if (!(object.value instanceof JavaObjectBinding)) {
+            // inline constant values from other objects
+            final ObjectProperty objectProperty = object.value.getProperty(property);
+            if (objectProperty != null && objectProperty.constant()) {
+                if (objectProperty.value() instanceof NumberValue) {
+                    bytecode.addDconst(objectProperty.value().getAsNumber());
+                    return double.class;
+                } else if (objectProperty.value() instanceof ArrayValue) {
+                    return pushArray((ArrayValue) objectProperty.value());
                 }
             }
+            return null;
+        }
 
-            @Override
-            public @NotNull Value visit(final @NotNull Expression expression) {
-                return NumberValue.zero();
+        final JavaFieldBinding javaFieldBinding = ((JavaObjectBinding) object.value).getField(property);
+        if (javaFieldBinding == null) {
+            return null;
+        } else if (javaFieldBinding.constant()) {
+            // inline const
+            final Value value = javaFieldBinding.get();
+            if (value instanceof ArrayValue) {
+                return pushArray((ArrayValue) value);
             }
-        });
+            bytecode.addDconst(value.getAsNumber());
+            return double.class;
+        }
+
+        final Field field = javaFieldBinding.field();
+        if (field == null || !isAccessible(field)) {
+            return null;
+        }
+
+        final CtClass declaringCtClass = JavassistUtil.getClassUnchecked(classPool, field.getDeclaringClass());
+        final String fieldDescriptor = Descriptor.of(JavassistUtil.getClassUnchecked(classPool, field.getType()));
+
+        if (Modifier.isStatic(field.getModifiers())) {
+            bytecode.addGetstatic(declaringCtClass, field.getName(), fieldDescriptor);
+        } else {
+            final Object instance = javaFieldBinding.object();
+            if (instance == null) {
+                return null;
+            }
+            loadRequirement(instance);
+            bytecode.addGetfield(declaringCtClass, field.getName(), fieldDescriptor);
+        }
+        return field.getType();
+    }
+
+    /**
+     * Pushes a constant array, it is converted to a primitive
+     * or string array when possible, so that accessing its
+     * elements doesn't require any conversion.
+     *
+     * @param array The array value
+     * @return The pushed array type
+     */
+    private @NotNull Class<?> pushArray(final @NotNull ArrayValue array) {
+        final Object javaArray = toJavaArray(array);
+        loadRequirement(javaArray);
+        return javaArray.getClass();
+    }
+
+    /**
+     * Converts the given array value to the Java array pushed by
+     * {@link #pushArray}: a {@code double[]}, a {@code String[]} or
+     * a {@code Value[]}.
+     *
+     * @param array The array value
+     * @return The Java array
+     */
+    static @NotNull Object toJavaArray(final @NotNull ArrayValue array) {
+        final Value[] values = array.values();
+        boolean numbers = true;
+        boolean strings = true;
+        for (final Value value : values) {
+            numbers &= value instanceof NumberValue;
+            strings &= value instanceof StringValue;
+        }
+
+        final Object javaArray;
+        if (numbers) {
+            final double[] doubles = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                doubles[i] = values[i].getAsNumber();
+            }
+            javaArray = doubles;
+        } else if (strings) {
+            final String[] stringArray = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                stringArray[i] = ((StringValue) values[i]).value();
+            }
+            javaArray = stringArray;
+        } else {
+            javaArray = values;
+        }
+        return javaArray;
+    }
+
+    @Override
+    public CompileVisitResult visitCall(final @NotNull CallExpression expression) {
+        final Scope scope = functionCompileState.scope();
+        final Expression functionExpr = expression.function();
+
+        if (functionExpr instanceof IdentifierExpression) {
+            final String name = ((IdentifierExpression) functionExpr).name();
+            if (name.equalsIgnoreCase("loop") || name.equalsIgnoreCase("for_each")) {
+                // built-in functions, interpreted
+                return visitInterpreted(expression);
+            }
+        }
+
+        final Value functionValue = resolveFunction(functionExpr);
 
         if (!(functionValue instanceof Function<?>)) {
             // not a function, just add 0
-            bytecode.addDconst(0D);
-            return new CompileVisitResult(CtClass.doubleType);
+            return pushZero();
         }
 
         final Function<?> function = (Function<?>) functionValue;
 
-        if (function instanceof JavaFunction<?>) {
+        if (function instanceof JavaFunction<?> && isAccessible(((JavaFunction<?>) function).method())) {
             // we can compile to directly call this function (Java Method)
             final JavaFunction<?> javaFunction = (JavaFunction<?>) function;
             final Method nativeMethod = javaFunction.method();
@@ -634,7 +1370,28 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
                 }
             }
 
-            final Object object = javaFunction.object();
+            final CtClass nativeMethodDeclaringCtClass;
+            final CtClass ctReturnType;
+
+            try {
+                nativeMethodDeclaringCtClass = classPool.get(nativeMethod.getDeclaringClass().getName());
+                ctReturnType = classPool.get(nativeMethod.getReturnType().getName());
+            } catch (final NotFoundException e) {
+                throw new IllegalStateException("Return type not found", e);
+            }
+
+            final boolean isStatic = Modifier.isStatic(nativeMethod.getModifiers());
+            if (!isStatic) {
+                final Object object = javaFunction.object();
+                if (object == null) {
+                    // no instance to call the method on
+                    return pushZero();
+                }
+                // we must load object before the arguments
+                loadRequirement(object);
+            }
+
+            final CtClass currentExpectedType = expectedType;
 
             // load arguments
             final Iterator<Expression> it = arguments.iterator();
@@ -642,21 +1399,20 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
                 final Parameter parameter = parameters[i];
 
                 if (parameter.isAnnotationPresent(Entity.class)) {
+                    if (entityLocalIndex != -1) {
+                        // entity given by an arrow operator
+                        bytecode.addAload(entityLocalIndex);
+                        addConversion(entityLocalType, ctParameters[i]);
+                        continue;
+                    }
+
                     Object entity = functionCompileState.compiler().entity();
                     if (entity == null || !parameter.getType().isInstance(entity)) {
                         // load null
                         bytecode.addConstZero(ctParameters[i]);
                     } else {
-                        // add entity requirement
-                        requirements.put("__entity__", entity);
-
                         // load entity requirement (field)
-                        bytecode.addAload(0); // load this
-                        bytecode.addGetfield(
-                                functionCompileState.type(),
-                                "__entity__",
-                                Descriptor.of(ctParameters[i])
-                        );
+                        loadRequirement(MolangCompiler.ENTITY_REQUIREMENT, entity);
                     }
                     continue;
                 }
@@ -671,52 +1427,613 @@ final class MolangCompilingVisitor implements ExpressionVisitor<CompileVisitResu
                 it.next().visit(this);
             }
 
-            final CtClass nativeMethodDeclaringCtClass;
-            final CtClass ctReturnType;
-
-            try {
-                nativeMethodDeclaringCtClass = classPool.get(nativeMethod.getDeclaringClass().getName());
-                ctReturnType = classPool.get(nativeMethod.getReturnType().getName());
-            } catch (final NotFoundException e) {
-                throw new IllegalStateException("Return type not found", e);
-            }
+            expectedType = currentExpectedType;
 
-            if (Modifier.isStatic(nativeMethod.getModifiers())) {
+            if (isStatic) {
                 // invoke static
                 bytecode.addInvokestatic(nativeMethodDeclaringCtClass, nativeMethod.getName(), ctReturnType, ctParameters);
+            } else if (nativeMethodDeclaringCtClass.isInterface()) {
+                final String descriptor = Descriptor.ofMethod(ctReturnType, ctParameters);
+                bytecode.addInvokeinterface(nativeMethodDeclaringCtClass, nativeMethod.getName(), descriptor, Descriptor.paramSize(descriptor) + 1);
             } else {
-                final String fieldName = object.getClass().getSimpleName().toLowerCase() + Integer.toHexString(object.hashCode());
-                requirements.put(fieldName, object);
+                bytecode.addInvokevirtual(nativeMethodDeclaringCtClass, nativeMethod.getName(), ctReturnType, ctParameters);
+            }
 
-                final CtClass requirementType;
+            if (nativeMethod.getReturnType() == void.class) {
+                return pushZero();
+            } else {
+                return pushed(ctReturnType);
+            }
+        } else if (function instanceof NativeFunction<?> && isAccessible(((NativeFunction<?>) function).method())) {
+            // functional interface with a known signature, call it directly
+            final NativeFunction<?> nativeFunction = (NativeFunction<?>) function;
+            final Method interfaceMethod = nativeFunction.method();
+            final Class<?>[] parameterTypes = interfaceMethod.getParameterTypes();
+            final CtClass interfaceCtClass = JavassistUtil.getClassUnchecked(classPool, nativeFunction.type());
+            final CtClass ctReturnType = JavassistUtil.getClassUnchecked(classPool, interfaceMethod.getReturnType());
+            final CtClass[] ctParameters = new CtClass[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                ctParameters[i] = JavassistUtil.getClassUnchecked(classPool, parameterTypes[i]);
+            }
 
-                try {
-                    requirementType = classPool.get(object.getClass().getName());
-                } catch (final NotFoundException e) {
-                    throw new IllegalStateException("Field not found", e);
+            // the functional interface instance may be a lambda, whose class
+            // can't be referenced, so load it from the NativeFunction
+            final CtClass nativeFunctionCtClass = loadRequirement(nativeFunction);
+            bytecode.addInvokevirtual(nativeFunctionCtClass, "target", "()Ljava/lang/Object;");
+            bytecode.addCheckcast(interfaceCtClass);
+
+            final CtClass currentExpectedType = expectedType;
+            final Iterator<Expression> it = expression.arguments().iterator();
+            for (final CtClass ctParameter : ctParameters) {
+                if (!it.hasNext()) {
+                    bytecode.addConstZero(ctParameter);
+                    continue;
                 }
+                expectedType = ctParameter;
+                it.next().visit(this);
+            }
+            expectedType = currentExpectedType;
 
-                // we must load object
-                bytecode.addAload(0);
-                bytecode.addGetfield(functionCompileState.type(), fieldName, Descriptor.of(requirementType));
-                bytecode.addInvokevirtual(nativeMethodDeclaringCtClass, nativeMethod.getName(), ctReturnType, ctParameters);
+            final String descriptor = Descriptor.ofMethod(ctReturnType, ctParameters);
+            bytecode.addInvokeinterface(interfaceCtClass, interfaceMethod.getName(), descriptor, Descriptor.paramSize(descriptor) + 1);
+
+            if (interfaceMethod.getReturnType() == void.class) {
+                return pushZero();
+            } else {
+                return pushed(ctReturnType);
             }
+        } else {
+            // not a Java function, use the interpreter
+            return visitInterpreted(expression);
+        }
+    }
 
-            if (nativeMethod.getReturnType() == void.class) {
-                if (expectedType != CtClass.voidType) {
-                    bytecode.addConstZero(expectedType);
+    @Override
+    public @NotNull CompileVisitResult visitExecutionScope(final @NotNull ExecutionScopeExpression expression) {
+        // execution scopes are only executed by conditionals
+        // and functions (like loop), otherwise evaluate to zero
+        return pushZero();
+    }
+
+    @Override
+    public @NotNull CompileVisitResult visitStatement(final @NotNull StatementExpression expression) {
+        // break and continue only affect interpreted loops
+        return pushZero();
+    }
+
+    @Override
+    public CompileVisitResult visit(final @NotNull Expression expression) {
+        // unknown expression type, use the interpreter
+        return visitInterpreted(expression);
+    }
+
+    /**
+     * Resolves the function called by a call expression.
+     *
+     * @param functionExpr The function expression
+     * @return The function value, or zero if it can't be resolved
+     */
+    private @NotNull Value resolveFunction(final @NotNull Expression functionExpr) {
+        final Scope scope = functionCompileState.scope();
+        return functionExpr.visit(new ExpressionVisitor<Value>() {
+            @Override
+            public @NotNull Value visitIdentifier(final @NotNull IdentifierExpression expression) {
+                final String name = expression.name();
+                return scope.get(name);
+            }
+
+            @Override
+            public @NotNull Value visitAccess(final @NotNull AccessExpression expression) {
+                final Value object = expression.object().visit(this);
+                if (object instanceof ObjectValue) {
+                    return ((ObjectValue) object).get(expression.property());
+                } else {
+                    return NumberValue.zero();
                 }
-            } else if (!nativeMethod.getReturnType().getName().equals(expectedType.getName())) {
-                JavassistUtil.addCast(bytecode, ctReturnType, expectedType);
             }
+
+            @Override
+            public @NotNull Value visit(final @NotNull Expression expression) {
+                return NumberValue.zero();
+            }
+        });
+    }
+
+    /**
+     * Compiles the given expression to a call to an interpreter, used
+     * for expressions that can't be compiled, e.g. calls to non-Java
+     * functions, or accesses to variables.
+     *
+     * <p>The temporal variables used by the expression are passed to the
+     * interpreter, and updated after the evaluation.</p>
+     *
+     * @param expression The expression
+     * @return The visit result, the pushed type is {@link Value}
+     */
+    private @NotNull CompileVisitResult visitInterpreted(final @NotNull Expression expression) {
+        final ExpressionScanner scanner = ExpressionScanner.scan(Collections.singletonList(expression));
+        final List<String> numberTempNames = new ArrayList<>();
+        final List<String> valueTempNames = new ArrayList<>();
+        for (final String tempName : scanner.tempNames()) {
+            (isValueTemp(tempName) ? valueTempNames : numberTempNames).add(tempName);
+        }
+
+        final InterpretedExpression interpreted = new InterpretedExpression(
+                functionCompileState.scope(),
+                expression,
+                numberTempNames.toArray(new String[0]),
+                valueTempNames.toArray(new String[0])
+        );
+        final CtClass interpretedType = loadRequirement(interpreted);
+        final CtClass frameType = JavassistUtil.getClassUnchecked(classPool, InterpretedExpression.Frame.class);
+
+        // frame = interpreted.frame()
+        final int frameLocalIndex = functionCompileState.maxLocals();
+        functionCompileState.maxLocals(frameLocalIndex + 1);
+        bytecode.addOpcode(Bytecode.DUP);
+        bytecode.addInvokevirtual(interpretedType, "frame", frameType, new CtClass[0]);
+        bytecode.addAstore(frameLocalIndex);
+
+        // frame.numbers() = { t.a, t.b, ... }, frame.values() = { t.c, ... }
+        if (!numberTempNames.isEmpty()) {
+            bytecode.addAload(frameLocalIndex);
+            bytecode.addInvokevirtual(frameType, "numbers", JavassistUtil.getClassUnchecked(classPool, double[].class), new CtClass[0]);
+            for (int i = 0; i < numberTempNames.size(); i++) {
+                bytecode.addOpcode(Bytecode.DUP);
+                bytecode.addIconst(i);
+                bytecode.addDload(tempLocal(numberTempNames.get(i)));
+                bytecode.addOpcode(Bytecode.DASTORE);
+            }
+            bytecode.addOpcode(Bytecode.POP);
+        }
+        if (!valueTempNames.isEmpty()) {
+            bytecode.addAload(frameLocalIndex);
+            bytecode.addInvokevirtual(frameType, "values", JavassistUtil.getClassUnchecked(classPool, Value[].class), new CtClass[0]);
+            for (int i = 0; i < valueTempNames.size(); i++) {
+                bytecode.addOpcode(Bytecode.DUP);
+                bytecode.addIconst(i);
+                bytecode.addAload(tempLocal(valueTempNames.get(i)));
+                bytecode.addOpcode(Bytecode.AASTORE);
+            }
+            bytecode.addOpcode(Bytecode.POP);
+        }
+
+        // entity given by an arrow operator or per call, or the compiler entity
+        final Object entity = functionCompileState.compiler().entity();
+        if (entityLocalIndex != -1) {
+            bytecode.addAload(entityLocalIndex);
+        } else if (entity != null) {
+            loadRequirement(MolangCompiler.ENTITY_REQUIREMENT, entity);
         } else {
-            throw new UnsupportedOperationException("Not supporting non-Java functions yet");
+            bytecode.addOpcode(Bytecode.ACONST_NULL);
+        }
+        bytecode.addAload(frameLocalIndex);
+
+        bytecode.addInvokevirtual(
+                interpretedType,
+                "evaluate",
+                valueCtType,
+                new CtClass[]{JavassistUtil.getClassUnchecked(classPool, Object.class), frameType}
+        );
+
+        // read back the temps
+        if (!numberTempNames.isEmpty()) {
+            bytecode.addAload(frameLocalIndex);
+            bytecode.addInvokevirtual(frameType, "numbers", JavassistUtil.getClassUnchecked(classPool, double[].class), new CtClass[0]);
+            for (int i = 0; i < numberTempNames.size(); i++) {
+                bytecode.addOpcode(Bytecode.DUP);
+                bytecode.addIconst(i);
+                bytecode.addOpcode(Bytecode.DALOAD);
+                bytecode.addDstore(tempLocal(numberTempNames.get(i)));
+            }
+            bytecode.addOpcode(Bytecode.POP);
+        }
+        if (!valueTempNames.isEmpty()) {
+            bytecode.addAload(frameLocalIndex);
+            bytecode.addInvokevirtual(frameType, "values", JavassistUtil.getClassUnchecked(classPool, Value[].class), new CtClass[0]);
+            for (int i = 0; i < valueTempNames.size(); i++) {
+                bytecode.addOpcode(Bytecode.DUP);
+                bytecode.addIconst(i);
+                bytecode.addOpcode(Bytecode.AALOAD);
+                bytecode.addAstore(tempLocal(valueTempNames.get(i)));
+            }
+            bytecode.addOpcode(Bytecode.POP);
+        }
+
+        if (scanner.returns()) {
+            // return the value if the expression returned
+            bytecode.addAload(frameLocalIndex);
+            bytecode.addInvokevirtual(frameType, "returned", CtClass.booleanType, new CtClass[0]);
+            final int notReturnedIndexPc = addJump(Bytecode.IFEQ);
+            if (methodReturnType == CtClass.voidType) {
+                bytecode.addOpcode(Bytecode.POP);
+            } else {
+                addConversion(valueCtType, methodReturnType);
+            }
+            bytecode.addReturn(methodReturnType);
+            jumpHere(notReturnedIndexPc);
+        }
+
+        return pushed(valueCtType);
+    }
+
+    /**
+     * Declares and initializes (to zero) the locals for the temporal
+     * variables used in the given expressions, must be called before
+     * visiting them.
+     *
+     * @param expressions The expressions
+     */
+    public void declareTemps(final @NotNull List<Expression> expressions) {
+        final ExpressionScanner scanner = ExpressionScanner.scan(expressions);
+
+        // a temp is numeric unless it is assigned a value that may not
+        // be a number, repeat until no more temps become non-numeric,
+        // since assigning a non-numeric temp makes the assigned one too
+        boolean changed;
+        do {
+            changed = false;
+            for (final BinaryExpression assignment : scanner.tempAssignments()) {
+                final String tempName = ExpressionScanner.tempName(assignment.left());
+                if (tempName != null && !valueTemps.contains(tempName) && !isNumeric(assignment.right())) {
+                    valueTemps.add(tempName);
+                    changed = true;
+                }
+            }
+        } while (changed);
+
+        for (final String tempName : scanner.tempNames()) {
+            final int localIndex = tempLocal(tempName);
+            if (isValueTemp(tempName)) {
+                bytecode.addInvokestatic(valueCtType, "nil", valueCtType, new CtClass[0]);
+                bytecode.addAstore(localIndex);
+            } else {
+                bytecode.addOpcode(Bytecode.DCONST_0);
+                bytecode.addDstore(localIndex);
+            }
+        }
+    }
+
+    private int tempLocal(final @NotNull String name) {
+        return localsByName.computeIfAbsent(name, k -> {
+            final int index = functionCompileState.maxLocals();
+            // numeric temps are doubles, they take two slots
+            functionCompileState.maxLocals(index + (isValueTemp(name) ? 1 : 2));
+            return index;
+        });
+    }
+
+    private boolean isValueTemp(final @NotNull String name) {
+        return valueTemps.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Determines whether the given expression always evaluates to
+     * a number, so that it can be held by a numeric temporal variable.
+     *
+     * @param expression The expression
+     * @return True if it always evaluates to a number
+     */
+    private boolean isNumeric(final @NotNull Expression expression) {
+        if (expression instanceof DoubleExpression || expression instanceof ExecutionScopeExpression
+                || expression instanceof StatementExpression || expression instanceof UnaryExpression) {
+            return true;
+        } else if (expression instanceof TernaryConditionalExpression) {
+            final TernaryConditionalExpression ternary = (TernaryConditionalExpression) expression;
+            return isNumeric(ternary.trueExpression()) && isNumeric(ternary.falseExpression());
+        } else if (expression instanceof BinaryExpression) {
+            final BinaryExpression binary = (BinaryExpression) expression;
+            switch (binary.op()) {
+                case ARROW:
+                    return false;
+                case ASSIGN:
+                case CONDITIONAL:
+                    return isNumeric(binary.right());
+                case NULL_COALESCE:
+                    return isNumeric(binary.left()) && isNumeric(binary.right());
+                default:
+                    return true;
+            }
+        } else if (expression instanceof AccessExpression) {
+            final String tempName = ExpressionScanner.tempName(expression);
+            if (tempName != null) {
+                return !valueTemps.contains(tempName);
+            }
+            final AccessExpression access = (AccessExpression) expression;
+            final Value object = knownValue(access.object());
+            if (object instanceof JavaObjectBinding) {
+                final JavaFieldBinding field = ((JavaObjectBinding) object).getField(access.property());
+                return field != null && (field.constant()
+                        ? field.get() instanceof NumberValue
+                        : field.field() != null && field.field().getType().isPrimitive());
+            } else if (object instanceof ObjectValue) {
+                final ObjectProperty property = ((ObjectValue) object).getProperty(access.property());
+                return property != null && property.constant() && property.value() instanceof NumberValue;
+            }
+            return false;
+        } else if (expression instanceof CallExpression) {
+            final Value function = resolveFunction(((CallExpression) expression).function());
+            final Method nativeMethod;
+            if (function instanceof JavaFunction<?>) {
+                nativeMethod = ((JavaFunction<?>) function).method();
+            } else if (function instanceof NativeFunction<?>) {
+                nativeMethod = ((NativeFunction<?>) function).method();
+            } else {
+                return false;
+            }
+            return nativeMethod.getReturnType().isPrimitive();
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether the given property access reads a value that
+     * may change after compilation and is not held by a Java field, like
+     * variables. These accesses are interpreted.
+     *
+     * @param expression The access expression
+     * @return True if the access is dynamic
+     */
+    private boolean isDynamic(final @NotNull AccessExpression expression) {
+        final Expression objectExpr = expression.object();
+        if (objectExpr instanceof AccessExpression && isDynamic((AccessExpression) objectExpr)) {
+            return true;
+        }
+
+        final Value object = knownValue(objectExpr);
+        if (object instanceof MutableObjectBinding) {
+            return true;
+        } else if (object instanceof ObjectValue && !(object instanceof JavaObjectBinding)) {
+            final ObjectProperty property = ((ObjectValue) object).getProperty(expression.property());
+            return property != null && !property.constant();
+        } else {
+            return false;
+        }
+    }
+
+    private @Nullable Value knownValue(final @NotNull Expression expression) {
+        if (expression instanceof IdentifierExpression) {
+            final String name = ((IdentifierExpression) expression).name();
+            if (argumentParameterIndexes.containsKey(name)) {
+                return null;
+            }
+            return functionCompileState.scope().get(name);
+        } else if (expression instanceof AccessExpression) {
+            final Value object = knownValue(((AccessExpression) expression).object());
+            if (object instanceof ObjectValue) {
+                return ((ObjectValue) object).get(((AccessExpression) expression).property());
+            }
         }
         return null;
     }
 
-    @Override
-    public CompileVisitResult visit(final @NotNull Expression expression) {
-        throw new UnsupportedOperationException("Unsupported expression type: " + expression);
+    /**
+     * Converts the value on top of the stack, of the given type, to
+     * the currently expected type.
+     *
+     * @param type The type of the value on top of the stack
+     * @return The visit result
+     */
+    private @NotNull CompileVisitResult pushed(final @NotNull CtClass type) {
+        if (expectedType == null) {
+            // we are free to use anything, no need to cast
+            return new CompileVisitResult(type);
+        } else if (expectedType == CtClass.voidType) {
+            addPop(type);
+            return new CompileVisitResult(CtClass.voidType);
+        }
+        addConversion(type, expectedType);
+        return new CompileVisitResult(expectedType);
+    }
+
+    /**
+     * Pushes a zero-like value of the currently expected type, or
+     * a double zero if no type is expected.
+     *
+     * @return The visit result
+     */
+    private @NotNull CompileVisitResult pushZero() {
+        if (expectedType == CtClass.voidType) {
+            return new CompileVisitResult(CtClass.voidType);
+        }
+        final CtClass type = expectedType == null ? CtClass.doubleType : expectedType;
+        bytecode.addConstZero(type);
+        return new CompileVisitResult(type);
+    }
+
+    private void addConversion(final @NotNull CtClass from, final @NotNull CtClass to) {
+        if (from.equals(to)) {
+            return;
+        }
+
+        if (from == CtClass.voidType) {
+            // nothing was pushed
+            bytecode.addConstZero(to);
+            return;
+        }
+
+        if (!JavassistUtil.isPrimitiveOrWrapper(from)) {
+            if (to.isPrimitive() && isValue(from)) {
+                // molang values, e.g. elements of an array
+                if (to == CtClass.booleanType) {
+                    bytecode.addInvokeinterface(valueCtType, "getAsBoolean", "()Z", 1);
+                } else {
+                    bytecode.addInvokeinterface(valueCtType, "getAsNumber", "()D", 1);
+                    JavassistUtil.addCast(bytecode, CtClass.doubleType, to);
+                }
+                return;
+            }
+            if (to.isPrimitive()) {
+                if (to == CtClass.booleanType) {
+                    // objects are truthy if present
+                    bytecode.addOpcode(Bytecode.IFNULL);
+                    bytecode.addIndex(7); // index1, index2, iconst_1, goto, index1, index2, ((iconst_0))
+                    bytecode.addIconst(1);
+                    bytecode.addOpcode(Bytecode.GOTO);
+                    bytecode.addIndex(4); // index1, index2, iconst_0, ((?))
+                    bytecode.addIconst(0);
+                } else {
+                    // objects evaluate to zero when used as numbers
+                    bytecode.addOpcode(Bytecode.POP);
+                    bytecode.addConstZero(to);
+                }
+                return;
+            }
+
+            try {
+                if (from.subtypeOf(to)) {
+                    return;
+                }
+            } catch (final NotFoundException ignored) {
+            }
+
+            // objects that are not instance of the expected type evaluate to null
+            bytecode.addOpcode(Bytecode.DUP);
+            bytecode.addInstanceof(to.getName());
+            bytecode.addOpcode(Bytecode.IFNE);
+            bytecode.addIndex(5); // index1, index2, pop, aconst_null, ((checkcast))
+            bytecode.addOpcode(Bytecode.POP);
+            bytecode.addOpcode(Bytecode.ACONST_NULL);
+            bytecode.addCheckcast(to);
+            return;
+        }
+
+        if (from.isPrimitive() && !to.isPrimitive() && !JavassistUtil.isWrapper(to)) {
+            // box it, wrappers are assignable to Object and Number
+            final CtClass wrapper;
+            try {
+                wrapper = classPool.get(((CtPrimitiveType) from).getWrapperName());
+            } catch (final NotFoundException e) {
+                throw new IllegalStateException("Couldn't find wrapper type for " + from.getName(), e);
+            }
+            JavassistUtil.addCast(bytecode, from, wrapper);
+            if (!to.getName().equals(Object.class.getName()) && !to.getName().equals(Number.class.getName())) {
+                // no possible conversion, evaluate to null
+                bytecode.addOpcode(Bytecode.POP);
+                bytecode.addConstZero(to);
+            }
+            return;
+        }
+
+        JavassistUtil.addCast(bytecode, from, to);
+    }
+
+    /**
+     * Converts the {@link Value} on top of the stack to the result
+     * of calling the given method, if it is an instance of the given
+     * type, or null otherwise.
+     *
+     * @param valueType  The expected value type
+     * @param methodName The name of the method to call
+     * @param returnType The method return type
+     */
+    private void addUnwrap(final @NotNull Class<? extends Value> valueType, final @NotNull String methodName, final @NotNull Class<?> returnType) {
+        final CtClass valueCtClass = JavassistUtil.getClassUnchecked(classPool, valueType);
+        bytecode.addOpcode(Bytecode.DUP);
+        bytecode.addInstanceof(valueCtClass.getName());
+        final int instanceIndexPc = addJump(Bytecode.IFNE);
+        bytecode.addOpcode(Bytecode.POP);
+        bytecode.addOpcode(Bytecode.ACONST_NULL);
+        final int endIndexPc = addJump(Bytecode.GOTO);
+        jumpHere(instanceIndexPc);
+        bytecode.addCheckcast(valueCtClass);
+        bytecode.addInvokevirtual(valueCtClass, methodName, JavassistUtil.getClassUnchecked(classPool, returnType), new CtClass[0]);
+        jumpHere(endIndexPc);
+    }
+
+    private boolean isList(final @NotNull CtClass type) {
+        try {
+            return !type.isPrimitive() && type.subtypeOf(JavassistUtil.getClassUnchecked(classPool, List.class));
+        } catch (final NotFoundException e) {
+            return false;
+        }
+    }
+
+    private boolean isValue(final @NotNull CtClass type) {
+        try {
+            return type.subtypeOf(valueCtType);
+        } catch (final NotFoundException e) {
+            return false;
+        }
+    }
+
+    private void addPop(final @NotNull CtClass type) {
+        if (type == CtClass.voidType) {
+            return;
+        }
+        bytecode.addOpcode(type == CtClass.doubleType || type == CtClass.longType ? Bytecode.POP2 : Bytecode.POP);
+    }
+
+    /**
+     * Adds a jump instruction whose target is not known yet,
+     * see {@link #jumpHere(int)}.
+     *
+     * @param opcode The jump opcode
+     * @return The position of the jump offset
+     */
+    private int addJump(final int opcode) {
+        bytecode.addOpcode(opcode);
+        final int indexPc = bytecode.currentPc();
+        bytecode.addGap(2); // index1, index2 (we don't know how many bytes the next instructions will take)
+        return indexPc;
+    }
+
+    /**
+     * Sets the target of the jump at the given position to
+     * the current position.
+     *
+     * @param indexPc The position of the jump offset
+     */
+    private void jumpHere(final int indexPc) {
+        bytecode.write16bit(indexPc, bytecode.currentPc() - indexPc + 1);
+    }
+
+    /**
+     * Pushes the given object, which is added as a requirement
+     * for the compiled function.
+     *
+     * @param object The object
+     * @return The type of the pushed object
+     */
+    private @NotNull CtClass loadRequirement(final @NotNull Object object) {
+        return loadRequirement(functionCompileState.requirement(object), object);
+    }
+
+    private @NotNull CtClass loadRequirement(final @NotNull String fieldName, final @NotNull Object object) {
+        requirements.put(fieldName, object);
+        final CtClass requirementType = JavassistUtil.getClassUnchecked(classPool, object.getClass());
+        bytecode.addAload(0); // load this
+        bytecode.addGetfield(functionCompileState.type(), fieldName, Descriptor.of(requirementType));
+        return requirementType;
+    }
+
+    private static boolean isAccessible(final @NotNull Class<?> type) {
+        if (type.isArray()) {
+            return isAccessible(type.getComponentType());
+        }
+        return type.isPrimitive() || Modifier.isPublic(type.getModifiers());
+    }
+
+    private static boolean isAccessible(final @NotNull Method method) {
+        return Modifier.isPublic(method.getModifiers()) && isAccessible(method.getDeclaringClass());
+    }
+
+    private static boolean isAccessible(final @NotNull Field field) {
+        return Modifier.isPublic(field.getModifiers()) && isAccessible(field.getDeclaringClass());
+    }
+
+    /**
+     * An object whose properties are being accessed, it is either
+     * a value known at compile-time, or a Java object of a known type
+     * that is in the stack.
+     */
+    private static final class AccessObject {
+        private final ObjectValue value;
+        private final Class<?> type;
+
+        AccessObject(final @Nullable ObjectValue value, final @Nullable Class<?> type) {
+            this.value = value;
+            this.type = type;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,314 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates functions for many independent entities (or indexes)
+ * in parallel, using a {@link ForkJoinPool}.
+ *
+ * <p>The work is split in chunks of at most {@link #grainSize()}
+ * elements, every chunk is evaluated by a single thread, in order.
+ * Results are written to caller-provided arrays, or passed to
+ * caller-provided consumers.</p>
+ *
+ * <p>Compiled functions and the engine scope are safe to read from
+ * many threads at once, as long as they are not modified while
+ * evaluating, i.e. the functions must be compiled, and the bindings
+ * set, before evaluating them in parallel. Temporal variables are
+ * local to every evaluation, but scripts that write to the engine
+ * variables ({@code variable.*}) should not be evaluated in parallel,
+ * since those are shared.</p>
+ *
+ * @since 3.1.0
+ */
+public final class ParallelEvaluator {
+    /**
+     * The default grain size, the maximum amount of elements
+     * evaluated by a single task.
+     *
+     * @since 3.1.0
+     */
+    public static final int DEFAULT_GRAIN_SIZE = 256;
+
+    private final ForkJoinPool pool;
+    private final int grainSize;
+
+    private ParallelEvaluator(final @NotNull ForkJoinPool pool, final int grainSize) {
+        this.pool = requireNonNull(pool, "pool");
+        if (grainSize < 1) {
+            throw new IllegalArgumentException("Grain size must be positive: " + grainSize);
+        }
+        this.grainSize = grainSize;
+    }
+
+    /**
+     * Creates a new parallel evaluator using the given pool
+     * and grain size.
+     *
+     * @param pool      The pool to evaluate in
+     * @param grainSize The maximum amount of elements evaluated
+     *                  by a single task, must be positive
+     * @return The created evaluator
+     * @since 3.1.0
+     */
+    public static @NotNull ParallelEvaluator create(final @NotNull ForkJoinPool pool, final int grainSize) {
+        return new ParallelEvaluator(pool, grainSize);
+    }
+
+    /**
+     * Creates a new parallel evaluator using the common pool
+     * and the {@link #DEFAULT_GRAIN_SIZE default grain size}.
+     *
+     * @return The created evaluator
+     * @since 3.1.0
+     */
+    public static @NotNull ParallelEvaluator create() {
+        return new ParallelEvaluator(ForkJoinPool.commonPool(), DEFAULT_GRAIN_SIZE);
+    }
+
+    /**
+     * Returns the pool used by this evaluator.
+     *
+     * @return The pool
+     * @since 3.1.0
+     */
+    public @NotNull ForkJoinPool pool() {
+        return pool;
+    }
+
+    /**
+     * Returns the maximum amount of elements evaluated
+     * by a single task.
+     *
+     * @return The grain size
+     * @since 3.1.0
+     */
+    public int grainSize() {
+        return grainSize;
+    }
+
+    /**
+     * Evaluates the given function for every entity, writing the
+     * result for {@code entities.get(i)} to {@code output[i]}.
+     *
+     * @param function The function to evaluate
+     * @param entities The entities
+     * @param output   The output array, must be at least as long
+     *                 as the entity list
+     * @param <T>      The entity type
+     * @since 3.1.0
+     */
+    public <T> void evaluate(final @NotNull MochaEntityFunction<T> function, final @NotNull List<? extends T> entities, final double @NotNull [] output) {
+        requireNonNull(function, "function");
+        requireNonNull(output, "output");
+        final List<? extends T> list = randomAccess(entities);
+        checkOutput(output, list.size());
+        run(0, list.size(), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                output[i] = function.evaluate(list.get(i));
+            }
+        });
+    }
+
+    /**
+     * Evaluates the given function for every entity, passing the
+     * entity and its result to the given consumer.
+     *
+     * <p>The consumer is called from many threads at once, so it
+     * must be thread-safe.</p>
+     *
+     * @param function The function to evaluate
+     * @param entities The entities
+     * @param consumer The result consumer
+     * @param <T>      The entity type
+     * @since 3.1.0
+     */
+    public <T> void evaluate(final @NotNull MochaEntityFunction<T> function, final @NotNull List<? extends T> entities, final @NotNull ObjDoubleConsumer<? super T> consumer) {
+        requireNonNull(function, "function");
+        requireNonNull(consumer, "consumer");
+        final List<? extends T> list = randomAccess(entities);
+        run(0, list.size(), (from, to) -> {
+            for (int i = from; i < to; i++) {
+                final T entity = list.get(i);
+                consumer.accept(entity, function.evaluate(entity));
+            }
+        });
+    }
+
+    /**
+     * Evaluates the given function for every index in the given
+     * range, writing the result for index {@code i} to
+     * {@code output[i]}.
+     *
+     * @param function The function to evaluate, e.g. a lambda that
+     *                 calls a compiled function with the arguments
+     *                 of the given index
+     * @param from     The first index, inclusive
+     * @param to       The last index, exclusive
+     * @param output   The output array
+     * @since 3.1.0
+     */
+    public void evaluate(final @NotNull IntToDoubleFunction function, final int from, final int to, final double @NotNull [] output) {
+        requireNonNull(function, "function");
+        requireNonNull(output, "output");
+        checkRange(from, to);
+        checkOutput(output, to);
+        run(from, to, (chunkFrom, chunkTo) -> {
+            for (int i = chunkFrom; i < chunkTo; i++) {
+                output[i] = function.applyAsDouble(i);
+            }
+        });
+    }
+
+    /**
+     * Evaluates the given function for every index in the given
+     * range, writing the result for index {@code i} to
+     * {@code output[i]}.
+     *
+     * <p>The state is created once per chunk, and it is never
+     * shared between threads, so it can be used to hold temporal
+     * (mutable) state, like argument arrays or binding objects,
+     * without allocating them for every index.</p>
+     *
+     * @param stateFactory The state factory
+     * @param function     The function to evaluate
+     * @param from         The first index, inclusive
+     * @param to           The last index, exclusive
+     * @param output       The output array
+     * @param <S>          The state type
+     * @since 3.1.0
+     */
+    public <S> void evaluate(
+            final @NotNull Supplier<? extends S> stateFactory,
+            final @NotNull StatefulFunction<? super S> function,
+            final int from,
+            final int to,
+            final double @NotNull [] output
+    ) {
+        requireNonNull(stateFactory, "stateFactory");
+        requireNonNull(function, "function");
+        requireNonNull(output, "output");
+        checkRange(from, to);
+        checkOutput(output, to);
+        run(from, to, (chunkFrom, chunkTo) -> {
+            final S state = stateFactory.get();
+            for (int i = chunkFrom; i < chunkTo; i++) {
+                output[i] = function.evaluate(state, i);
+            }
+        });
+    }
+
+    private void run(final int from, final int to, final @NotNull Chunk chunk) {
+        if (to - from <= grainSize) {
+            // not worth submitting to the pool
+            chunk.evaluate(from, to);
+        } else {
+            pool.invoke(new ChunkTask(chunk, from, to, grainSize));
+        }
+    }
+
+    private static <T> @NotNull List<? extends T> randomAccess(final @NotNull List<? extends T> entities) {
+        requireNonNull(entities, "entities");
+        return entities instanceof RandomAccess ? entities : new ArrayList<>(entities);
+    }
+
+    private static void checkRange(final int from, final int to) {
+        if (from < 0 || from > to) {
+            throw new IllegalArgumentException("Invalid range: [" + from + ", " + to + ")");
+        }
+    }
+
+    private static void checkOutput(final double @NotNull [] output, final int size) {
+        if (output.length < size) {
+            throw new IllegalArgumentException("Output array is too small, length: " + output.length + ", required: " + size);
+        }
+    }
+
+    /**
+     * A function evaluated for an index, with a state that is not
+     * shared between threads.
+     *
+     * @param <S> The state type
+     * @since 3.1.0
+     */
+    @FunctionalInterface
+    public interface StatefulFunction<S> {
+        /**
+         * Evaluates the function for the given index.
+         *
+         * @param state The state of the current chunk
+         * @param index The index
+         * @return The result
+         * @since 3.1.0
+         */
+        double evaluate(final S state, final int index);
+    }
+
+    @FunctionalInterface
+    private interface Chunk {
+        void evaluate(final int from, final int to);
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk chunk;
+        private final int from;
+        private final int to;
+        private final int grainSize;
+
+        ChunkTask(final @NotNull Chunk chunk, final int from, final int to, final int grainSize) {
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+            this.grainSize = grainSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grainSize) {
+                chunk.evaluate(from, to);
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(
+                    new ChunkTask(chunk, from, middle, grainSize),
+                    new ChunkTask(chunk, middle, to, grainSize)
+            );
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.parser.ast.Expression;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A persistent (on-disk) cache of compiled scripts, that lets a
+ * later run define the compiled classes directly, without compiling
+ * the scripts again.
+ *
+ * <p>Entries are keyed by the script, the target interface, the
+ * signature of the bindings the script references (their types, and
+ * the values of the constant ones, which are inlined by the compiler),
+ * and the library version. They store the class bytecode and how to
+ * get every object the class requires from the bindings (the entity,
+ * a bound Java object, a bound array, etc.)</p>
+ *
+ * <p>Scripts requiring objects that can't be obtained again from the
+ * bindings (for example, the ones partially evaluated by the
+ * interpreter) are not stored. The cache is best-effort: entries that
+ * can't be read or written are ignored.</p>
+ *
+ * @since 3.1.0
+ */
+public final class PersistentCompileCache {
+    private static final int MAGIC = 0x4D4F4348; // MOCH
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_EXTENSION = ".bin";
+
+    private final Path directory;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong storeCount = new AtomicLong();
+
+    private PersistentCompileCache(final @NotNull Path directory) {
+        this.directory = requireNonNull(directory, "directory");
+    }
+
+    /**
+     * Creates a persistent compile cache that stores its entries
+     * in the given directory, it is created if it doesn't exist.
+     *
+     * @param directory The cache directory
+     * @return The created cache
+     * @since 3.1.0
+     */
+    public static @NotNull PersistentCompileCache create(final @NotNull Path directory) {
+        return new PersistentCompileCache(directory);
+    }
+
+    /**
+     * Gets the directory where the entries are stored.
+     *
+     * @return The cache directory
+     * @since 3.1.0
+     */
+    public @NotNull Path directory() {
+        return directory;
+    }
+
+    /**
+     * Gets the amount of scripts loaded from the cache.
+     *
+     * @return The hit count
+     * @since 3.1.0
+     */
+    public long hitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the amount of scripts that were not found in the cache
+     * (or whose entry was invalid), and so, were compiled.
+     *
+     * @return The miss count
+     * @since 3.1.0
+     */
+    public long missCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the amount of compiled scripts written to the cache.
+     *
+     * @return The store count
+     * @since 3.1.0
+     */
+    public long storeCount() {
+        return storeCount.get();
+    }
+
+    /**
+     * Creates the cache entry handle for the given script.
+     *
+     * @param expressions The script expressions
+     * @param method      The implemented interface method
+     * @param scope       The scope the script is compiled with
+     * @param entity      The entity the script is compiled with
+     * @return The cache entry
+     */
+    @NotNull Entry entry(
+            final @NotNull List<Expression> expressions,
+            final @NotNull Method method,
+            final @NotNull Scope scope,
+            final @Nullable Object entity
+    ) {
+        final ScriptBindings bindings = new ScriptBindings(expressions, scope, entity);
+        final String key = FORMAT_VERSION + "\n"
+                + ScriptBindings.LIBRARY_VERSION + "\n"
+                + method.toGenericString() + "\n"
+                + expressions + "\n"
+                + bindings.signature();
+        return new Entry(key, bindings);
+    }
+
+    /**
+     * A script entry in a {@link PersistentCompileCache}.
+     */
+    final class Entry {
+        private final String key;
+        private final ScriptBindings bindings;
+        private final Path file;
+
+        private Entry(final @NotNull String key, final @NotNull ScriptBindings bindings) {
+            this.key = key;
+            this.bindings = bindings;
+            this.file = directory.resolve(sha256(key) + FILE_EXTENSION);
+        }
+
+        /**
+         * Loads the stored script class.
+         *
+         * @return The stored script class, null if not found or invalid
+         */
+        @Nullable ScriptClass load() {
+            final ScriptClass stored;
+            try (final InputStream input = Files.newInputStream(file)) {
+                stored = read(new DataInputStream(input));
+            } catch (final IOException | RuntimeException e) {
+                // not found or corrupt, it will be (over)written
+                missCount.incrementAndGet();
+                return null;
+            }
+
+            if (stored == null) {
+                missCount.incrementAndGet();
+            } else {
+                hitCount.incrementAndGet();
+            }
+            return stored;
+        }
+
+        private @Nullable ScriptClass read(final @NotNull DataInputStream input) throws IOException {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+
+            final byte[] storedKey = new byte[input.readInt()];
+            input.readFully(storedKey);
+            if (!key.equals(new String(storedKey, StandardCharsets.UTF_8))) {
+                // hash collision
+                return null;
+            }
+
+            final String className = input.readUTF();
+            final byte[] bytecode = new byte[input.readInt()];
+            input.readFully(bytecode);
+
+            final int requirementCount = input.readInt();
+            final Map<String, Object> requirements = new LinkedHashMap<>();
+            for (int i = 0; i < requirementCount; i++) {
+                final String fieldName = input.readUTF();
+                final String typeName = input.readUTF();
+                final String recipe = input.readUTF();
+
+                final Object requirement = bindings.resolve(recipe);
+                if (requirement == null || !requirement.getClass().getName().equals(typeName)) {
+                    // bindings changed
+                    return null;
+                }
+                requirements.put(fieldName, requirement);
+            }
+            return new ScriptClass(className, bytecode, requirements);
+        }
+
+        /**
+         * Stores the given compiled script class, if all of its
+         * requirements can be obtained again from the bindings.
+         *
+         * @param scriptClass The compiled script class
+         */
+        void store(final @NotNull ScriptClass scriptClass) {
+            final Map<String, Object> requirements = scriptClass.requirements();
+            final String[] recipes = new String[requirements.size()];
+            int i = 0;
+            for (final Object requirement : requirements.values()) {
+                recipes[i] = bindings.recipe(requirement);
+                if (recipes[i] == null) {
+                    // can't be persisted
+                    return;
+                }
+                i++;
+            }
+
+            Path temporaryFile = null;
+            boolean moved = false;
+            try {
+                Files.createDirectories(directory);
+                temporaryFile = Files.createTempFile(directory, "entry", ".tmp");
+                try (final OutputStream output = Files.newOutputStream(temporaryFile)) {
+                    final DataOutputStream data = new DataOutputStream(output);
+                    data.writeInt(MAGIC);
+                    data.writeInt(FORMAT_VERSION);
+                    final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                    data.writeInt(keyBytes.length);
+                    data.write(keyBytes);
+                    data.writeUTF(scriptClass.className());
+                    data.writeInt(scriptClass.bytecode().length);
+                    data.write(scriptClass.bytecode());
+                    data.writeInt(requirements.size());
+                    i = 0;
+                    for (final Map.Entry<String, Object> entry : requirements.entrySet()) {
+                        data.writeUTF(entry.getKey());
+                        data.writeUTF(entry.getValue().getClass().getName());
+                        data.writeUTF(recipes[i]);
+                        i++;
+                    }
+                    data.flush();
+                }
+                try {
+                    Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (final AtomicMoveNotSupportedException e) {
+                    Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                moved = true;
+                storeCount.incrementAndGet();
+            } catch (final IOException ignored) {
+                // best-effort, the script will be compiled again next time
+            } finally {
+                if (temporaryFile != null && !moved) {
+                    // don't leave partial entries behind (e.g. the disk is full)
+                    try {
+                        Files.deleteIfExists(temporaryFile);
+                    } catch (final IOException ignored) {
+                        // nothing else to do
+                    }
+                }
+            }
+        }
+    }
+
+    private static @NotNull String sha256(final @NotNull String string) {
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(string.getBytes(StandardCharsets.UTF_8));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        final StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (final byte b : hash) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
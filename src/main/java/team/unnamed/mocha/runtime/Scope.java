@@ -42,6 +42,39 @@ public interface Scope extends ObjectValue {
         return new ScopeImpl.BuilderImpl();
     }
 
+    /**
+     * Creates a new scope builder, initialized with the bindings
+     * of the given template scope.
+     *
+     * @param template The template scope
+     * @return The created builder
+     * @since 3.1.0
+     */
+    static @NotNull Builder builder(final @NotNull Scope template) {
+        return new ScopeImpl.BuilderImpl(template);
+    }
+
+    /**
+     * Creates a new scope that overlays its own bindings on the
+     * given parent scope. The parent bindings are not copied, lookups
+     * that don't match a binding of the created scope fall through to
+     * the parent, so changes to the parent are visible from the
+     * created scope. Setting (or removing) bindings in the created
+     * scope never affects the parent.
+     *
+     * <p>Creating a layered scope is cheap regardless of the number of
+     * bindings of the parent, but lookups of parent bindings are slightly
+     * slower, so it is meant for short-lived scopes with a few bindings,
+     * like the ones used for every evaluation.</p>
+     *
+     * @param parent The parent scope
+     * @return The created scope
+     * @since 3.1.0
+     */
+    static @NotNull Scope layered(final @NotNull Scope parent) {
+        return new LayeredScope(parent);
+    }
+
     /**
      * Creates a shallow copy of this scope. The copy will
      * contain the same bindings as this scope, but it will
@@ -53,6 +86,22 @@ public interface Scope extends ObjectValue {
      */
     @NotNull Scope copy();
 
+    /**
+     * Returns an immutable version of this scope, with the current
+     * bindings of this scope. Lookups in frozen scopes use a precomputed
+     * perfect hash, so they are faster than lookups in regular scopes,
+     * and frozen scopes can be safely shared between threads.
+     *
+     * <p>Frozen scopes are always read-only, their {@link #copy()} is
+     * a regular (modifiable) scope.</p>
+     *
+     * @return The frozen scope
+     * @since 3.1.0
+     */
+    default @NotNull Scope freeze() {
+        return new FrozenScope(entries());
+    }
+
     void readOnly(final boolean readOnly);
 
     boolean readOnly();
@@ -61,5 +110,16 @@ public interface Scope extends ObjectValue {
         Builder set(final @NotNull String name, final @NotNull Value value);
 
         Scope build();
+
+        /**
+         * Builds an immutable scope, same as {@code build().freeze()}.
+         *
+         * @return The frozen scope
+         * @see Scope#freeze()
+         * @since 3.1.0
+         */
+        default Scope buildFrozen() {
+            return build().freeze();
+        }
     }
 }
@@ -29,22 +29,61 @@ import team.unnamed.mocha.runtime.value.ObjectProperty;
 import team.unnamed.mocha.runtime.value.Value;
 import team.unnamed.mocha.util.CaseInsensitiveStringHashMap;
 
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link Scope} implementation that can be read by many threads
+ * while it is being modified. Bindings are kept in a concurrent map
+ * (with lowercase keys), so reads are lock-free and writes don't copy
+ * the bindings. Copies share the bindings until either of them is
+ * modified, then the modified one copies them once.
+ */
 final class ScopeImpl implements Scope {
-    private final Map<String, ObjectProperty> bindings = new CaseInsensitiveStringHashMap<>();
-    private boolean readOnly;
+    private final Object writeLock = new Object();
+    private volatile ConcurrentHashMap<String, ObjectProperty> bindings;
+    // whether the bindings may be shared with a copy, guarded by writeLock
+    private boolean shared;
+    private volatile boolean readOnly;
+    private Map<String, ObjectProperty> entries;
+
+    ScopeImpl() {
+        this.bindings = new ConcurrentHashMap<>();
+    }
+
+    ScopeImpl(final @NotNull Map<String, ObjectProperty> bindings) {
+        this.bindings = new ConcurrentHashMap<>(bindings.size());
+        for (final Map.Entry<String, ObjectProperty> entry : bindings.entrySet()) {
+            this.bindings.put(key(entry.getKey()), entry.getValue());
+        }
+    }
+
+    private ScopeImpl(final @NotNull ConcurrentHashMap<String, ObjectProperty> bindings, final boolean shared) {
+        this.bindings = bindings;
+        this.shared = shared;
+    }
+
+    private static @NotNull String key(final @NotNull String name) {
+        // binding names are case-insensitive
+        return name.toLowerCase();
+    }
 
     @Override
     public @Nullable ObjectProperty getProperty(final @NotNull String name) {
-        return bindings.get(name);
+        return bindings.get(key(name));
     }
 
     @Override
     public @NotNull Scope copy() {
-        final ScopeImpl copy = new ScopeImpl();
-        copy.bindings.putAll(this.bindings);
-        return copy;
+        synchronized (writeLock) {
+            shared = true;
+            return new ScopeImpl(bindings, true);
+        }
     }
 
     @Override
@@ -52,10 +91,20 @@ final class ScopeImpl implements Scope {
         if (readOnly) {
             return false;
         }
-        if (value == null) {
-            bindings.remove(name);
-        } else {
-            bindings.put(name, ObjectProperty.property(value, false));
+        final String key = key(name);
+        synchronized (writeLock) {
+            ConcurrentHashMap<String, ObjectProperty> bindings = this.bindings;
+            if (shared) {
+                // copy once, then modify in place
+                bindings = new ConcurrentHashMap<>(bindings);
+                this.bindings = bindings;
+                shared = false;
+            }
+            if (value == null) {
+                bindings.remove(key);
+            } else {
+                bindings.put(key, ObjectProperty.property(value, false));
+            }
         }
         return true;
     }
@@ -70,13 +119,57 @@ final class ScopeImpl implements Scope {
         return readOnly;
     }
 
+    /**
+     * Returns a live, case-insensitive and read-only view of the
+     * bindings of this scope, bindings are modified using
+     * {@link #set(String, Value)}.
+     *
+     * @return The bindings view
+     */
     @Override
     public @NotNull Map<String, ObjectProperty> entries() {
-        return bindings;
+        Map<String, ObjectProperty> entries = this.entries;
+        if (entries == null) {
+            // benign race, views are equivalent
+            entries = new Entries();
+            this.entries = entries;
+        }
+        return entries;
+    }
+
+    private final class Entries extends AbstractMap<String, ObjectProperty> {
+        @Override
+        public ObjectProperty get(final @Nullable Object key) {
+            return key instanceof String ? bindings.get(key((String) key)) : null;
+        }
+
+        @Override
+        public boolean containsKey(final @Nullable Object key) {
+            return key instanceof String && bindings.containsKey(key((String) key));
+        }
+
+        @Override
+        public int size() {
+            return bindings.size();
+        }
+
+        @Override
+        public @NotNull Set<Map.Entry<String, ObjectProperty>> entrySet() {
+            return Collections.unmodifiableMap(bindings).entrySet();
+        }
     }
 
     static final class BuilderImpl implements Builder {
-        private final Map<String, ObjectProperty> properties = new CaseInsensitiveStringHashMap<>();
+        private final Map<String, ObjectProperty> properties;
+
+        BuilderImpl() {
+            this.properties = new CaseInsensitiveStringHashMap<>();
+        }
+
+        BuilderImpl(final @NotNull Scope template) {
+            requireNonNull(template, "template");
+            this.properties = new CaseInsensitiveStringHashMap<>(template.entries());
+        }
 
         @Override
         public Builder set(@NotNull String name, @NotNull Value value) {
@@ -86,9 +179,12 @@ final class ScopeImpl implements Scope {
 
         @Override
         public Scope build() {
-            ScopeImpl impl = new ScopeImpl();
-            impl.bindings.putAll(properties);
-            return impl;
+            return new ScopeImpl(properties);
+        }
+
+        @Override
+        public Scope buildFrozen() {
+            return new FrozenScope(properties);
         }
     }
 }
@@ -0,0 +1,313 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.parser.ast.Expression;
+import team.unnamed.mocha.runtime.binding.JavaFieldBinding;
+import team.unnamed.mocha.runtime.binding.JavaFunction;
+import team.unnamed.mocha.runtime.binding.JavaObjectBinding;
+import team.unnamed.mocha.runtime.binding.NativeFunction;
+import team.unnamed.mocha.runtime.value.ArrayValue;
+import team.unnamed.mocha.runtime.value.Function;
+import team.unnamed.mocha.runtime.value.JavaValue;
+import team.unnamed.mocha.runtime.value.MutableObjectBinding;
+import team.unnamed.mocha.runtime.value.NumberValue;
+import team.unnamed.mocha.runtime.value.ObjectProperty;
+import team.unnamed.mocha.runtime.value.ObjectValue;
+import team.unnamed.mocha.runtime.value.StringValue;
+import team.unnamed.mocha.runtime.value.Value;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The bindings referenced by a script, used to store compiled scripts
+ * and load them back (later, or in another process).
+ *
+ * <p>The signature describes the bindings the compiled code depends on,
+ * and requirements (the objects passed to the compiled class constructor)
+ * are described by recipes that obtain them again from the bindings, in
+ * the form {@code <kind>:<path>}, e.g. {@code v:query} for the Java
+ * object bound to {@code query}.</p>
+ */
+final class ScriptBindings {
+    /**
+     * Identifies the library that generated a stored script: its version
+     * (from the jar manifest) plus a hash of the classes that decide the
+     * shape of the generated code, so that stored scripts are invalidated
+     * when the library changes, even if the version is not known (e.g.
+     * when running from a classes directory).
+     */
+    static final String LIBRARY_VERSION = libraryVersion(
+            ScriptBindings.class.getPackage().getImplementationVersion(),
+            MolangCompiler.class,
+            MolangCompilingVisitor.class,
+            FunctionCompileState.class,
+            CompileVisitResult.class,
+            ScriptBindings.class,
+            ScriptClass.class,
+            InterpretedExpression.class,
+            ExpressionInterpreter.class,
+            JavaTypes.class,
+            ArrayValue.class,
+            NativeFunction.class,
+            JavaFieldBinding.class,
+            JavaFunction.class,
+            JavaObjectBinding.class
+    );
+
+    private static final char ENTITY = 'e';
+    private static final char VALUE = 'v';
+    private static final char FIELD_OBJECT = 'f';
+    private static final char FUNCTION_OBJECT = 'm';
+    private static final char ARRAY = 'a';
+    private static final char NATIVE_FUNCTION = 'n';
+
+    private final Scope scope;
+    private final Object entity;
+    private final Set<String> paths;
+
+    /**
+     * Computes the library version used to identify stored scripts.
+     *
+     * @param implementationVersion The library version, if known
+     * @param compilerClasses       The classes whose code is hashed
+     * @return The library version
+     */
+    static @NotNull String libraryVersion(final @Nullable String implementationVersion, final @NotNull Class<?> @NotNull ... compilerClasses) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        final byte[] buffer = new byte[8192];
+        for (final Class<?> compilerClass : compilerClasses) {
+            digest.update(compilerClass.getName().getBytes(StandardCharsets.UTF_8));
+            final String resource = '/' + compilerClass.getName().replace('.', '/') + ".class";
+            try (final InputStream input = compilerClass.getResourceAsStream(resource)) {
+                if (input == null) {
+                    // class files not available, only the version is used
+                    digest.update((byte) 0);
+                    continue;
+                }
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Couldn't read " + resource, e);
+            }
+        }
+        final StringBuilder version = new StringBuilder(String.valueOf(implementationVersion)).append('+');
+        for (final byte b : digest.digest()) {
+            version.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return version.toString();
+    }
+
+    ScriptBindings(final @NotNull List<Expression> expressions, final @NotNull Scope scope, final @Nullable Object entity) {
+        this.scope = requireNonNull(scope, "scope");
+        this.entity = entity;
+        this.paths = ExpressionScanner.scan(expressions).paths();
+    }
+
+    /**
+     * Returns the signature of the bindings referenced by the script: the
+     * type of every referenced binding, plus the value of the constant
+     * ones, since they are inlined by the compiler.
+     *
+     * @return The bindings signature
+     */
+    @NotNull String signature() {
+        final StringBuilder signature = new StringBuilder()
+                .append("entity=").append(entity == null ? null : entity.getClass().getName()).append('\n');
+        for (final String path : paths) {
+            signature.append(path).append('=').append(signature(path)).append('\n');
+        }
+        return signature.toString();
+    }
+
+    /**
+     * Finds the recipe to obtain the given requirement from the bindings.
+     *
+     * @param requirement The requirement
+     * @return The recipe, null if it can't be obtained from the bindings
+     */
+    @Nullable String recipe(final @NotNull Object requirement) {
+        if (requirement == entity) {
+            return ENTITY + ":";
+        }
+
+        for (final char kind : new char[]{VALUE, FIELD_OBJECT, FUNCTION_OBJECT, ARRAY, NATIVE_FUNCTION}) {
+            for (final String path : paths) {
+                final Object resolved = resolve(kind, path);
+                final boolean matches = kind == ARRAY
+                        ? resolved != null && Arrays.deepEquals(new Object[]{resolved}, new Object[]{requirement})
+                        : resolved == requirement;
+                if (matches) {
+                    return kind + ":" + path;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtains a requirement from the bindings, using the given recipe.
+     *
+     * @param recipe The recipe, as returned by {@link #recipe}
+     * @return The requirement, null if not found
+     */
+    @Nullable Object resolve(final @NotNull String recipe) {
+        if (recipe.length() < 2 || recipe.charAt(1) != ':') {
+            return null;
+        }
+        return resolve(recipe.charAt(0), recipe.substring(2));
+    }
+
+    private @Nullable Object resolve(final char kind, final @NotNull String path) {
+        switch (kind) {
+            case ENTITY:
+                return entity;
+            case VALUE: {
+                final Value value = resolvePath(path);
+                return value instanceof JavaValue ? ((JavaValue) value).value() : null;
+            }
+            case FIELD_OBJECT: {
+                final int separator = path.lastIndexOf('.');
+                if (separator == -1) {
+                    return null;
+                }
+                final Value object = resolvePath(path.substring(0, separator));
+                if (!(object instanceof JavaObjectBinding)) {
+                    return null;
+                }
+                final JavaFieldBinding field = ((JavaObjectBinding) object).getField(path.substring(separator + 1));
+                return field == null ? null : field.object();
+            }
+            case FUNCTION_OBJECT: {
+                final Value value = resolvePath(path);
+                return value instanceof JavaFunction<?> ? ((JavaFunction<?>) value).object() : null;
+            }
+            case ARRAY: {
+                final Value value = resolvePath(path);
+                return value instanceof ArrayValue ? MolangCompilingVisitor.toJavaArray((ArrayValue) value) : null;
+            }
+            case NATIVE_FUNCTION: {
+                final Value value = resolvePath(path);
+                return value instanceof NativeFunction<?> ? value : null;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private @Nullable Value resolvePath(final @NotNull String path) {
+        Value value = scope;
+        for (final String name : path.split("\\.")) {
+            if (!(value instanceof ObjectValue)) {
+                return null;
+            }
+            value = ((ObjectValue) value).get(name);
+        }
+        return value;
+    }
+
+    private @NotNull String signature(final @NotNull String path) {
+        final int separator = path.lastIndexOf('.');
+        final Value object = separator == -1 ? scope : resolvePath(path.substring(0, separator));
+        if (!(object instanceof ObjectValue)) {
+            return "none";
+        }
+        final ObjectProperty property = ((ObjectValue) object).getProperty(path.substring(separator + 1));
+        if (property == null) {
+            return "none";
+        }
+        // constant values can be inlined by the compiler, so their value
+        // is part of the signature, for the rest, only their type
+        final String signature = property.constant() ? "constant " + signature(property.value(), true) : signature(property.value(), false);
+        if (object instanceof JavaObjectBinding) {
+            // fields are read directly from their declaring class
+            final JavaFieldBinding field = ((JavaObjectBinding) object).getField(path.substring(separator + 1));
+            final Field javaField = field == null ? null : field.field();
+            if (javaField != null) {
+                return signature + " field " + javaField.getDeclaringClass().getName() + '.' + javaField.getName();
+            }
+        }
+        return signature;
+    }
+
+    private static @NotNull String signature(final @Nullable Value value, final boolean constant) {
+        if (value == null) {
+            return "null";
+        } else if (value instanceof NumberValue) {
+            return constant ? "number " + value.getAsNumber() : "number";
+        } else if (value instanceof StringValue) {
+            return constant ? "string " + ((StringValue) value).value() : "string";
+        } else if (value instanceof ArrayValue) {
+            if (!constant) {
+                return "array";
+            }
+            final StringBuilder builder = new StringBuilder("array [");
+            for (final Value element : ((ArrayValue) value).values()) {
+                builder.append(signature(element, true)).append(", ");
+            }
+            return builder.append(']').toString();
+        } else if (value instanceof JavaValue) {
+            final Object object = ((JavaValue) value).value();
+            return "java " + (object == null ? null : object.getClass().getName());
+        } else if (value instanceof JavaFunction<?>) {
+            final Method method = ((JavaFunction<?>) value).method();
+            return "java function " + (method == null ? null : method.toGenericString());
+        } else if (value instanceof NativeFunction<?>) {
+            final NativeFunction<?> function = (NativeFunction<?>) value;
+            return (function.pure() ? "pure " : "") + "native function " + function.method().toGenericString();
+        } else if (value instanceof Function<?>) {
+            // (not the class name, lambdas have a different name every run)
+            return "function";
+        } else if (value instanceof JavaObjectBinding) {
+            return "java object " + ((JavaObjectBinding) value).type().getName();
+        } else if (value instanceof MutableObjectBinding) {
+            return "mutable object";
+        } else if (value instanceof ObjectValue) {
+            return "object";
+        } else {
+            return "value";
+        }
+    }
+}
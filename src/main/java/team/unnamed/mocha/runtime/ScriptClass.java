@@ -0,0 +1,64 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A compiled script class that has not been defined yet, along
+ * with the objects required to instantiate it.
+ */
+final class ScriptClass {
+    private final String className;
+    private final byte[] bytecode;
+    private final Map<String, Object> requirements;
+
+    ScriptClass(final @NotNull String className, final byte @NotNull [] bytecode, final @NotNull Map<String, Object> requirements) {
+        this.className = requireNonNull(className, "className");
+        this.bytecode = requireNonNull(bytecode, "bytecode");
+        this.requirements = requireNonNull(requirements, "requirements");
+    }
+
+    @NotNull String className() {
+        return className;
+    }
+
+    byte @NotNull [] bytecode() {
+        return bytecode;
+    }
+
+    /**
+     * Returns the objects required by the class constructor,
+     * by field name, in constructor order.
+     *
+     * @return The requirements
+     */
+    @NotNull Map<String, Object> requirements() {
+        return requirements;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Defines compiled script classes in a way that lets them be
+ * unloaded (garbage-collected) once they are no longer used.
+ *
+ * <p>On Java 15+ scripts are defined as hidden classes, otherwise
+ * (or if they must be visible from a different class loader) every
+ * script class is defined by its own class loader.</p>
+ */
+final class ScriptClassDefiner {
+    private static final @Nullable Method DEFINE_HIDDEN_CLASS;
+    private static final @Nullable Object NO_CLASS_OPTIONS;
+
+    static {
+        Method defineHiddenClass;
+        Object noClassOptions;
+        try {
+            final Class<?> classOptionType = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            noClassOptions = Array.newInstance(classOptionType, 0);
+            defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class, noClassOptions.getClass());
+        } catch (final ClassNotFoundException | NoSuchMethodException e) {
+            // Java 14 or lower
+            defineHiddenClass = null;
+            noClassOptions = null;
+        }
+        DEFINE_HIDDEN_CLASS = defineHiddenClass;
+        NO_CLASS_OPTIONS = noClassOptions;
+    }
+
+    private ScriptClassDefiner() {
+        throw new UnsupportedOperationException("This class cannot be instantiated");
+    }
+
+    /**
+     * Defines a script class.
+     *
+     * @param classLoader The class loader whose classes must be visible
+     *                    from the script class
+     * @param name        The script class name, must be in this package
+     * @param bytecode    The script class bytecode
+     * @return The defined class
+     */
+    static @NotNull Class<?> define(final @NotNull ClassLoader classLoader, final @NotNull String name, final byte @NotNull [] bytecode) {
+        requireNonNull(classLoader, "classLoader");
+        requireNonNull(name, "name");
+        requireNonNull(bytecode, "bytecode");
+
+        if (DEFINE_HIDDEN_CLASS != null && classLoader == ScriptClassDefiner.class.getClassLoader()) {
+            // hidden classes are defined by our class loader, but can be
+            // unloaded independently
+            try {
+                final MethodHandles.Lookup lookup = (MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(MethodHandles.lookup(), bytecode, true, NO_CLASS_OPTIONS);
+                return lookup.lookupClass();
+            } catch (final IllegalAccessException e) {
+                throw new IllegalStateException("Couldn't define hidden class " + name, e);
+            } catch (final InvocationTargetException e) {
+                throw new IllegalStateException("Couldn't define hidden class " + name, e.getCause());
+            }
+        }
+
+        return new ScriptClassLoader(classLoader).define(name, bytecode);
+    }
+
+    /**
+     * A class loader that defines a single script class, the class can
+     * be unloaded once both the class and the loader are unreachable.
+     */
+    private static final class ScriptClassLoader extends ClassLoader {
+        static {
+            registerAsParallelCapable();
+        }
+
+        ScriptClassLoader(final @NotNull ClassLoader parent) {
+            super(parent);
+        }
+
+        @NotNull Class<?> define(final @NotNull String name, final byte @NotNull [] bytecode) {
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+    }
+}
@@ -0,0 +1,697 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.Opcode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.parser.ast.AccessExpression;
+import team.unnamed.mocha.parser.ast.BinaryExpression;
+import team.unnamed.mocha.parser.ast.CallExpression;
+import team.unnamed.mocha.parser.ast.DoubleExpression;
+import team.unnamed.mocha.parser.ast.Expression;
+import team.unnamed.mocha.parser.ast.ExpressionVisitor;
+import team.unnamed.mocha.parser.ast.IdentifierExpression;
+import team.unnamed.mocha.parser.ast.TernaryConditionalExpression;
+import team.unnamed.mocha.parser.ast.UnaryExpression;
+import team.unnamed.mocha.runtime.binding.JavaFunction;
+import team.unnamed.mocha.runtime.standard.MochaMath;
+import team.unnamed.mocha.runtime.value.NumberValue;
+import team.unnamed.mocha.runtime.value.ObjectProperty;
+import team.unnamed.mocha.runtime.value.ObjectValue;
+import team.unnamed.mocha.runtime.value.Value;
+import team.unnamed.mocha.util.CaseInsensitiveStringHashMap;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generates the vectorized loop of columnar functions, using the
+ * incubating Vector API ({@code jdk.incubator.vector}), for scripts
+ * that are pure arithmetic over their parameters.
+ *
+ * <p>The Vector API is only referenced by the generated bytecode, so
+ * Mocha itself still runs on Java 8; the vectorized loop is only
+ * generated if the {@code jdk.incubator.vector} module is available
+ * at runtime (i.e. {@code --add-modules jdk.incubator.vector}),
+ * otherwise, or if the script can't be vectorized, the scalar
+ * columnar loop is used.</p>
+ *
+ * <p>Comparisons and logical operators are lowered to vector masks,
+ * and conditionals to blends, so both branches are always evaluated,
+ * which is fine since vectorized scripts are pure.</p>
+ */
+final class VectorColumnarCompiler {
+    private static final boolean AVAILABLE = isAvailable();
+
+    private static final String DOUBLE_VECTOR = "jdk.incubator.vector.DoubleVector";
+    private static final String VECTOR_MASK = "jdk.incubator.vector.VectorMask";
+    private static final String VECTOR_SPECIES = "jdk.incubator.vector.VectorSpecies";
+    private static final String VECTOR_OPERATORS = "jdk.incubator.vector.VectorOperators";
+
+    private static final String DOUBLE_VECTOR_DESC = "Ljdk/incubator/vector/DoubleVector;";
+    private static final String VECTOR_DESC = "Ljdk/incubator/vector/Vector;";
+    private static final String VECTOR_MASK_DESC = "Ljdk/incubator/vector/VectorMask;";
+    private static final String VECTOR_SPECIES_DESC = "Ljdk/incubator/vector/VectorSpecies;";
+    private static final String UNARY_DESC = "Ljdk/incubator/vector/VectorOperators$Unary;";
+    private static final String BINARY_DESC = "Ljdk/incubator/vector/VectorOperators$Binary;";
+    private static final String COMPARISON_DESC = "Ljdk/incubator/vector/VectorOperators$Comparison;";
+
+    private static final double RADIAN = Math.toRadians(1);
+
+    private final Bytecode bytecode;
+    private final Scope scope;
+    private final Map<String, Integer> columnIndexes;
+    private final int firstColumnLocal;
+    private final int speciesLocal;
+    private final int rowLocal;
+    private final Map<String, Integer> columnVectorLocals = new CaseInsensitiveStringHashMap<>();
+    private int nextLocal;
+
+    private VectorColumnarCompiler(
+            final @NotNull Bytecode bytecode,
+            final @NotNull Scope scope,
+            final @NotNull Map<String, Integer> columnIndexes,
+            final int firstColumnLocal,
+            final int rowLocal,
+            final int firstFreeLocal
+    ) {
+        this.bytecode = requireNonNull(bytecode, "bytecode");
+        this.scope = requireNonNull(scope, "scope");
+        this.columnIndexes = requireNonNull(columnIndexes, "columnIndexes");
+        this.firstColumnLocal = firstColumnLocal;
+        this.rowLocal = rowLocal;
+        this.speciesLocal = firstFreeLocal;
+        this.nextLocal = firstFreeLocal + 1;
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName(DOUBLE_VECTOR, false, VectorColumnarCompiler.class.getClassLoader());
+            return true;
+        } catch (final ClassNotFoundException | LinkageError e) {
+            // not running on Java 16+, or jdk.incubator.vector not added
+            return false;
+        }
+    }
+
+    /**
+     * Determines whether the Vector API is available at runtime.
+     *
+     * @return True if the Vector API is available
+     */
+    static boolean available() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Returns the expression to vectorize from the given script, or
+     * null if the script can't be vectorized.
+     *
+     * @param expressions   The script expressions
+     * @param scope         The compiler scope
+     * @param columnIndexes The column (parameter) indexes, by name
+     * @return The expression to vectorize, or null
+     */
+    static @Nullable Expression vectorizable(final @NotNull List<Expression> expressions, final @NotNull Scope scope, final @NotNull Map<String, Integer> columnIndexes) {
+        if (!AVAILABLE || expressions.size() != 1) {
+            return null;
+        }
+        Expression expression = expressions.get(0);
+        if (expression instanceof UnaryExpression && ((UnaryExpression) expression).op() == UnaryExpression.Op.RETURN) {
+            // return x;
+            expression = ((UnaryExpression) expression).expression();
+        }
+        return expression.visit(new Vectorizable(scope, columnIndexes)) ? expression : null;
+    }
+
+    /**
+     * Adds the vectorized loop to the given bytecode. The loop starts
+     * at the current row and, once finished, leaves the row local at
+     * the first row that wasn't evaluated, so that a scalar loop can
+     * evaluate the remaining rows.
+     *
+     * @param bytecode         The method bytecode
+     * @param expression       The vectorizable expression, see {@link #vectorizable}
+     * @param asBoolean        Whether the function returns a boolean
+     * @param scope            The compiler scope
+     * @param columnIndexes    The column (parameter) indexes, by name
+     * @param outputLocal      The local holding the output array
+     * @param rowsLocal        The local holding the row count
+     * @param firstColumnLocal The local holding the first column array
+     * @param rowLocal         The local holding the current row
+     * @param firstFreeLocal   The first local that can be used
+     * @return The max locals used by the loop
+     */
+    static int addLoop(
+            final @NotNull Bytecode bytecode,
+            final @NotNull Expression expression,
+            final boolean asBoolean,
+            final @NotNull Scope scope,
+            final @NotNull Map<String, Integer> columnIndexes,
+            final int outputLocal,
+            final int rowsLocal,
+            final int firstColumnLocal,
+            final int rowLocal,
+            final int firstFreeLocal
+    ) {
+        final VectorColumnarCompiler compiler = new VectorColumnarCompiler(bytecode, scope, columnIndexes, firstColumnLocal, rowLocal, firstFreeLocal);
+        final int boundLocal = compiler.nextLocal++;
+        final int stepLocal = compiler.nextLocal++;
+
+        // species = DoubleVector.SPECIES_PREFERRED
+        bytecode.addGetstatic(DOUBLE_VECTOR, "SPECIES_PREFERRED", VECTOR_SPECIES_DESC);
+        bytecode.addAstore(compiler.speciesLocal);
+
+        // bound = species.loopBound(rows), step = species.length()
+        bytecode.addAload(compiler.speciesLocal);
+        bytecode.addIload(rowsLocal);
+        bytecode.addInvokeinterface(VECTOR_SPECIES, "loopBound", "(I)I", 2);
+        bytecode.addIstore(boundLocal);
+        bytecode.addAload(compiler.speciesLocal);
+        bytecode.addInvokeinterface(VECTOR_SPECIES, "length", "()I", 1);
+        bytecode.addIstore(stepLocal);
+
+        // while (row < bound)
+        final int loopPc = bytecode.currentPc();
+        bytecode.addIload(rowLocal);
+        bytecode.addIload(boundLocal);
+        final int exitJumpPc = bytecode.currentPc();
+        bytecode.addOpcode(Opcode.IF_ICMPGE);
+        bytecode.addIndex(0);
+
+        // column vectors are loaded (once) when first used
+        final Kind kind = expression.visit(compiler.new Emitter());
+        if (asBoolean) {
+            if (kind == Kind.VECTOR) {
+                compiler.toMask();
+            }
+            compiler.toVector();
+        } else if (kind == Kind.MASK) {
+            compiler.toVector();
+        }
+
+        // result.intoArray(output, row)
+        bytecode.addAload(outputLocal);
+        bytecode.addIload(rowLocal);
+        bytecode.addInvokevirtual(DOUBLE_VECTOR, "intoArray", "([DI)V");
+
+        // row += step
+        bytecode.addIload(rowLocal);
+        bytecode.addIload(stepLocal);
+        bytecode.addOpcode(Opcode.IADD);
+        bytecode.addIstore(rowLocal);
+
+        final int gotoPc = bytecode.currentPc();
+        bytecode.addOpcode(Opcode.GOTO);
+        bytecode.addIndex(loopPc - gotoPc);
+
+        bytecode.write16bit(exitJumpPc + 1, bytecode.currentPc() - exitJumpPc);
+        return compiler.nextLocal;
+    }
+
+    /**
+     * Converts the vector at the top of the stack to a mask,
+     * any non-zero lane is true.
+     */
+    private void toMask() {
+        bytecode.addGetstatic(VECTOR_OPERATORS, "NE", COMPARISON_DESC);
+        bytecode.addDconst(0);
+        bytecode.addInvokevirtual(DOUBLE_VECTOR, "compare", "(" + COMPARISON_DESC + "D)" + VECTOR_MASK_DESC);
+    }
+
+    /**
+     * Converts the mask at the top of the stack to a vector, true
+     * lanes are one, and false lanes are zero.
+     */
+    private void toVector() {
+        final int maskLocal = nextLocal++;
+        bytecode.addAstore(maskLocal);
+        bytecode.addAload(speciesLocal);
+        bytecode.addInvokestatic(DOUBLE_VECTOR, "zero", "(" + VECTOR_SPECIES_DESC + ")" + DOUBLE_VECTOR_DESC);
+        bytecode.addDconst(1);
+        bytecode.addAload(maskLocal);
+        bytecode.addInvokevirtual(DOUBLE_VECTOR, "blend", "(D" + VECTOR_MASK_DESC + ")" + DOUBLE_VECTOR_DESC);
+    }
+
+    private void broadcast(final double value) {
+        bytecode.addAload(speciesLocal);
+        bytecode.addLdc2w(value);
+        bytecode.addInvokestatic(DOUBLE_VECTOR, "broadcast", "(" + VECTOR_SPECIES_DESC + "D)" + DOUBLE_VECTOR_DESC);
+    }
+
+    private void invokeVector(final @NotNull String name, final @NotNull String descriptor) {
+        bytecode.addInvokevirtual(DOUBLE_VECTOR, name, descriptor);
+    }
+
+    private void invokeBinary(final @NotNull String name) {
+        // a.name(b), both vectors
+        invokeVector(name, "(" + VECTOR_DESC + ")" + DOUBLE_VECTOR_DESC);
+    }
+
+    private void invokeScalar(final @NotNull String name, final double value) {
+        // a.name(value)
+        bytecode.addLdc2w(value);
+        invokeVector(name, "(D)" + DOUBLE_VECTOR_DESC);
+    }
+
+    private void lanewise(final @NotNull String operator) {
+        bytecode.addGetstatic(VECTOR_OPERATORS, operator, UNARY_DESC);
+        invokeVector("lanewise", "(" + UNARY_DESC + ")" + DOUBLE_VECTOR_DESC);
+    }
+
+    private int store() {
+        final int local = nextLocal++;
+        bytecode.addAstore(local);
+        return local;
+    }
+
+    /**
+     * Resolves the constant numeric value of the given
+     * access expression (e.g. {@code math.pi}), or null.
+     */
+    private static @Nullable Double constant(final @NotNull Scope scope, final @NotNull AccessExpression expression) {
+        final Value object = objectOf(scope, expression);
+        if (!(object instanceof ObjectValue)) {
+            return null;
+        }
+        final ObjectProperty property = ((ObjectValue) object).getProperty(expression.property());
+        if (property == null || !property.constant() || !(property.value() instanceof NumberValue)) {
+            return null;
+        }
+        return ((NumberValue) property.value()).value();
+    }
+
+    /**
+     * Resolves the math function called by the given expression, if it
+     * is bound to the standard implementation, or null.
+     */
+    private static @Nullable MathFunction mathFunction(final @NotNull Scope scope, final @NotNull CallExpression expression) {
+        if (!(expression.function() instanceof AccessExpression)) {
+            return null;
+        }
+        final AccessExpression access = (AccessExpression) expression.function();
+        final MathFunction function = MathFunction.byName(access.property());
+        if (function == null || function.arity != expression.arguments().size()) {
+            return null;
+        }
+        final Value object = objectOf(scope, access);
+        if (!(object instanceof ObjectValue)) {
+            return null;
+        }
+        final ObjectProperty property = ((ObjectValue) object).getProperty(access.property());
+        if (property == null || !property.constant() || !(property.value() instanceof JavaFunction)) {
+            return null;
+        }
+        final Method method = ((JavaFunction<?>) property.value()).method();
+        if (method == null || method.getDeclaringClass() != function.declaringClass || !method.getName().equals(function.methodName)) {
+            // not the standard implementation
+            return null;
+        }
+        return function;
+    }
+
+    private static @Nullable Value objectOf(final @NotNull Scope scope, final @NotNull AccessExpression expression) {
+        if (!(expression.object() instanceof IdentifierExpression)) {
+            return null;
+        }
+        final ObjectProperty property = scope.getProperty(((IdentifierExpression) expression.object()).name());
+        if (property == null || !property.constant()) {
+            return null;
+        }
+        return property.value();
+    }
+
+    private enum Kind {
+        VECTOR,
+        MASK
+    }
+
+    private enum MathFunction {
+        ABS("abs", Math.class, "abs", 1),
+        ATAN("atan", MochaMath.class, "atan", 1),
+        ATAN2("atan2", MochaMath.class, "atan2", 2),
+        CLAMP("clamp", MochaMath.class, "clamp", 3),
+        COS("cos", MochaMath.class, "cos", 1),
+        EXP("exp", Math.class, "exp", 1),
+        HERMITE_BLEND("hermite_blend", MochaMath.class, "hermiteBlend", 1),
+        LERP("lerp", MochaMath.class, "lerp", 3),
+        LN("ln", Math.class, "log", 1),
+        MAX("max", Math.class, "max", 2),
+        MIN("min", Math.class, "min", 2),
+        POW("pow", Math.class, "pow", 2),
+        SIN("sin", MochaMath.class, "sin", 1),
+        SQRT("sqrt", Math.class, "sqrt", 1);
+
+        private final String name;
+        private final Class<?> declaringClass;
+        private final String methodName;
+        private final int arity;
+
+        MathFunction(final @NotNull String name, final @NotNull Class<?> declaringClass, final @NotNull String methodName, final int arity) {
+            this.name = name;
+            this.declaringClass = declaringClass;
+            this.methodName = methodName;
+            this.arity = arity;
+        }
+
+        static @Nullable MathFunction byName(final @NotNull String name) {
+            for (final MathFunction function : values()) {
+                if (function.name.equalsIgnoreCase(name)) {
+                    return function;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Determines whether an expression can be vectorized.
+     */
+    private static final class Vectorizable implements ExpressionVisitor<@NotNull Boolean> {
+        private final Scope scope;
+        private final Map<String, Integer> columnIndexes;
+
+        Vectorizable(final @NotNull Scope scope, final @NotNull Map<String, Integer> columnIndexes) {
+            this.scope = scope;
+            this.columnIndexes = columnIndexes;
+        }
+
+        @Override
+        public @NotNull Boolean visitDouble(final @NotNull DoubleExpression expression) {
+            return true;
+        }
+
+        @Override
+        public @NotNull Boolean visitIdentifier(final @NotNull IdentifierExpression expression) {
+            // only parameters
+            return columnIndexes.containsKey(expression.name());
+        }
+
+        @Override
+        public @NotNull Boolean visitAccess(final @NotNull AccessExpression expression) {
+            // only numeric constants, like math.pi
+            return constant(scope, expression) != null;
+        }
+
+        @Override
+        public @NotNull Boolean visitCall(final @NotNull CallExpression expression) {
+            if (mathFunction(scope, expression) == null) {
+                return false;
+            }
+            for (final Expression argument : expression.arguments()) {
+                if (!argument.visit(this)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public @NotNull Boolean visitUnary(final @NotNull UnaryExpression expression) {
+            return expression.op() != UnaryExpression.Op.RETURN && expression.expression().visit(this);
+        }
+
+        @Override
+        public @NotNull Boolean visitBinary(final @NotNull BinaryExpression expression) {
+            switch (expression.op()) {
+                case AND:
+                case OR:
+                case LT:
+                case LTE:
+                case GT:
+                case GTE:
+                case ADD:
+                case SUB:
+                case MUL:
+                case DIV:
+                case EQ:
+                case NEQ:
+                    return expression.left().visit(this) && expression.right().visit(this);
+                default:
+                    return false;
+            }
+        }
+
+        @Override
+        public @NotNull Boolean visitTernaryConditional(final @NotNull TernaryConditionalExpression expression) {
+            return expression.condition().visit(this)
+                    && expression.trueExpression().visit(this)
+                    && expression.falseExpression().visit(this);
+        }
+
+        @Override
+        public @NotNull Boolean visit(final @NotNull Expression expression) {
+            // anything else (variables, assignments, strings, arrays, etc.)
+            return false;
+        }
+    }
+
+    /**
+     * Emits the instructions to evaluate a vectorizable expression,
+     * leaving a vector or a mask on the stack.
+     */
+    private final class Emitter implements ExpressionVisitor<@NotNull Kind> {
+        private void visitAs(final @NotNull Expression expression, final @NotNull Kind kind) {
+            final Kind result = expression.visit(this);
+            if (result != kind) {
+                if (kind == Kind.MASK) {
+                    toMask();
+                } else {
+                    toVector();
+                }
+            }
+        }
+
+        @Override
+        public @NotNull Kind visitDouble(final @NotNull DoubleExpression expression) {
+            broadcast(expression.value());
+            return Kind.VECTOR;
+        }
+
+        @Override
+        public @NotNull Kind visitIdentifier(final @NotNull IdentifierExpression expression) {
+            final String name = expression.name();
+            final Integer local = columnVectorLocals.get(name);
+            if (local != null) {
+                bytecode.addAload(local);
+                return Kind.VECTOR;
+            }
+
+            // DoubleVector.fromArray(species, column, row)
+            bytecode.addAload(speciesLocal);
+            bytecode.addAload(firstColumnLocal + columnIndexes.get(name));
+            bytecode.addIload(rowLocal);
+            bytecode.addInvokestatic(DOUBLE_VECTOR, "fromArray", "(" + VECTOR_SPECIES_DESC + "[DI)" + DOUBLE_VECTOR_DESC);
+            final int vectorLocal = store();
+            bytecode.addAload(vectorLocal);
+            columnVectorLocals.put(name, vectorLocal);
+            return Kind.VECTOR;
+        }
+
+        @Override
+        public @NotNull Kind visitAccess(final @NotNull AccessExpression expression) {
+            broadcast(requireNonNull(constant(scope, expression), "constant"));
+            return Kind.VECTOR;
+        }
+
+        @Override
+        public @NotNull Kind visitCall(final @NotNull CallExpression expression) {
+            final MathFunction function = requireNonNull(mathFunction(scope, expression), "function");
+            final List<Expression> arguments = expression.arguments();
+            switch (function) {
+                case ABS:
+                    visitAs(arguments.get(0), Kind.VECTOR);
+                    invokeVector("abs", "()" + DOUBLE_VECTOR_DESC);
+                    break;
+                case SQRT:
+                    visitAs(arguments.get(0), Kind.VECTOR);
+                    invokeVector("sqrt", "()" + DOUBLE_VECTOR_DESC);
+                    break;
+                case EXP:
+                    visitAs(arguments.get(0), Kind.VECTOR);
+                    lanewise("EXP");
+                    break;
+                case LN:
+                    visitAs(arguments.get(0), Kind.VECTOR);
+                    lanewise("LOG");
+                    break;
+                case SIN:
+                case COS:
+                    // degrees to radians
+                    visitAs(arguments.get(0), Kind.VECTOR);
+                    invokeScalar("mul", RADIAN);
+                    lanewise(function == MathFunction.SIN ? "SIN" : "COS");
+                    break;
+                case ATAN:
+                    // radians to degrees
+                    visitAs(arguments.get(0), Kind.VECTOR);
+                    lanewise("ATAN");
+                    invokeScalar("div", RADIAN);
+                    break;
+                case ATAN2:
+                    // y.lanewise(ATAN2, x)
+                    visitAs(arguments.get(0), Kind.VECTOR);
+                    bytecode.addGetstatic(VECTOR_OPERATORS, "ATAN2", BINARY_DESC);
+                    visitAs(arguments.get(1), Kind.VECTOR);
+                    invokeVector("lanewise", "(" + BINARY_DESC + VECTOR_DESC + ")" + DOUBLE_VECTOR_DESC);
+                    invokeScalar("div", RADIAN);
+                    break;
+                case MIN:
+                case MAX:
+                case POW:
+                    visitAs(arguments.get(0), Kind.VECTOR);
+                    visitAs(arguments.get(1), Kind.VECTOR);
+                    invokeBinary(function.methodName);
+                    break;
+                case CLAMP:
+                    // max(min(value, max), min)
+                    visitAs(arguments.get(0), Kind.VECTOR);
+                    visitAs(arguments.get(2), Kind.VECTOR);
+                    invokeBinary("min");
+                    visitAs(arguments.get(1), Kind.VECTOR);
+                    invokeBinary("max");
+                    break;
+                case LERP: {
+                    // (end - start) * lerp + start
+                    visitAs(arguments.get(1), Kind.VECTOR);
+                    visitAs(arguments.get(0), Kind.VECTOR);
+                    final int startLocal = store();
+                    bytecode.addAload(startLocal);
+                    invokeBinary("sub");
+                    visitAs(arguments.get(2), Kind.VECTOR);
+                    invokeBinary("mul");
+                    bytecode.addAload(startLocal);
+                    invokeBinary("add");
+                    break;
+                }
+                case HERMITE_BLEND: {
+                    // 3 * t^2 - 2 * t^3
+                    visitAs(arguments.get(0), Kind.VECTOR);
+                    final int tLocal = store();
+                    bytecode.addAload(tLocal);
+                    bytecode.addAload(tLocal);
+                    invokeBinary("mul");
+                    final int t2Local = store();
+                    bytecode.addAload(t2Local);
+                    invokeScalar("mul", 3);
+                    bytecode.addAload(t2Local);
+                    bytecode.addAload(tLocal);
+                    invokeBinary("mul");
+                    invokeScalar("mul", 2);
+                    invokeBinary("sub");
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown function: " + function);
+            }
+            return Kind.VECTOR;
+        }
+
+        @Override
+        public @NotNull Kind visitUnary(final @NotNull UnaryExpression expression) {
+            if (expression.op() == UnaryExpression.Op.LOGICAL_NEGATION) {
+                visitAs(expression.expression(), Kind.MASK);
+                bytecode.addInvokevirtual(VECTOR_MASK, "not", "()" + VECTOR_MASK_DESC);
+                return Kind.MASK;
+            } else {
+                visitAs(expression.expression(), Kind.VECTOR);
+                invokeVector("neg", "()" + DOUBLE_VECTOR_DESC);
+                return Kind.VECTOR;
+            }
+        }
+
+        @Override
+        public @NotNull Kind visitBinary(final @NotNull BinaryExpression expression) {
+            final Expression left = expression.left();
+            final Expression right = expression.right();
+            switch (expression.op()) {
+                case AND:
+                case OR:
+                    visitAs(left, Kind.MASK);
+                    visitAs(right, Kind.MASK);
+                    bytecode.addInvokevirtual(VECTOR_MASK, expression.op() == BinaryExpression.Op.AND ? "and" : "or", "(" + VECTOR_MASK_DESC + ")" + VECTOR_MASK_DESC);
+                    return Kind.MASK;
+                case LT:
+                    return compare(left, right, "LT");
+                case LTE:
+                    return compare(left, right, "LE");
+                case GT:
+                    return compare(left, right, "GT");
+                case GTE:
+                    return compare(left, right, "GE");
+                case EQ:
+                    return compare(left, right, "EQ");
+                case NEQ:
+                    return compare(left, right, "NE");
+                case ADD:
+                    return arithmetic(left, right, "add");
+                case SUB:
+                    return arithmetic(left, right, "sub");
+                case MUL:
+                    return arithmetic(left, right, "mul");
+                case DIV:
+                    // same as the scalar compiled code, a plain division
+                    return arithmetic(left, right, "div");
+                default:
+                    throw new IllegalStateException("Unsupported operator: " + expression.op());
+            }
+        }
+
+        private @NotNull Kind compare(final @NotNull Expression left, final @NotNull Expression right, final @NotNull String comparison) {
+            // left.compare(comparison, right)
+            visitAs(left, Kind.VECTOR);
+            bytecode.addGetstatic(VECTOR_OPERATORS, comparison, COMPARISON_DESC);
+            visitAs(right, Kind.VECTOR);
+            invokeVector("compare", "(" + COMPARISON_DESC + VECTOR_DESC + ")" + VECTOR_MASK_DESC);
+            return Kind.MASK;
+        }
+
+        private @NotNull Kind arithmetic(final @NotNull Expression left, final @NotNull Expression right, final @NotNull String operation) {
+            visitAs(left, Kind.VECTOR);
+            visitAs(right, Kind.VECTOR);
+            invokeBinary(operation);
+            return Kind.VECTOR;
+        }
+
+        @Override
+        public @NotNull Kind visitTernaryConditional(final @NotNull TernaryConditionalExpression expression) {
+            // falseValue.blend(trueValue, condition)
+            visitAs(expression.falseExpression(), Kind.VECTOR);
+            visitAs(expression.trueExpression(), Kind.VECTOR);
+            visitAs(expression.condition(), Kind.MASK);
+            invokeVector("blend", "(" + VECTOR_DESC + VECTOR_MASK_DESC + ")" + DOUBLE_VECTOR_DESC);
+            return Kind.VECTOR;
+        }
+
+        @Override
+        public @NotNull Kind visit(final @NotNull Expression expression) {
+            throw new IllegalStateException("Expression can't be vectorized: " + expression);
+        }
+    }
+}
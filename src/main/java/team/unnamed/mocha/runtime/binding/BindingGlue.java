@@ -0,0 +1,228 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.binding;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.runtime.value.Function;
+import team.unnamed.mocha.runtime.value.NumberValue;
+import team.unnamed.mocha.runtime.value.ObjectProperty;
+import team.unnamed.mocha.runtime.value.Value;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Binding glue generated at compile time by the
+ * {@code team.unnamed.mocha.processor.BindingProcessor} annotation
+ * processor, for a class annotated with {@link Binding} or
+ * {@link BindExternalFunction}, or with members annotated
+ * with {@link Binding}.
+ *
+ * <p>The glue for a class {@code com.example.Foo} is named
+ * {@code com.example.Foo$MochaBinding}. When present, it is used instead
+ * of reflection to bind the class, and its functions and fields are
+ * called and read directly.</p>
+ *
+ * <p>This interface is meant to be implemented by generated code only.</p>
+ *
+ * @param <T> The bound class type
+ * @since 3.1.0
+ */
+@ApiStatus.Internal
+public interface BindingGlue<T> {
+    /**
+     * The suffix added to the binary name of a bound class to
+     * obtain the binary name of its glue.
+     *
+     * @since 3.1.0
+     */
+    String SUFFIX = "$MochaBinding";
+
+    /**
+     * Returns the names declared by the {@link Binding} annotation
+     * of the bound class.
+     *
+     * @return The binding names, or null if the class is not
+     * annotated with {@link Binding}
+     * @since 3.1.0
+     */
+    @NotNull String @Nullable [] names();
+
+    /**
+     * Registers the bindings for the given instance, or the static
+     * bindings if it is null.
+     *
+     * @param instance  The bound instance, or null for static bindings
+     * @param registrar The registrar
+     * @since 3.1.0
+     */
+    void bind(final @Nullable T instance, final @NotNull Registrar registrar);
+
+    // conversions used by generated code, same as JavaTypes.convert
+    // and ReflectiveFunction, so that glue behaves like reflection
+
+    static double toDouble(final @Nullable Value value) {
+        return value == null ? 0D : value.getAsNumber();
+    }
+
+    static int toInt(final @Nullable Value value) {
+        return value == null ? 0 : (int) value.getAsNumber();
+    }
+
+    static float toFloat(final @Nullable Value value) {
+        return value == null ? 0F : (float) value.getAsNumber();
+    }
+
+    static long toLong(final @Nullable Value value) {
+        return value == null ? 0L : (long) value.getAsNumber();
+    }
+
+    static short toShort(final @Nullable Value value) {
+        return value == null ? (short) 0 : (short) value.getAsNumber();
+    }
+
+    static boolean toBoolean(final @Nullable Value value) {
+        return value != null && value.getAsBoolean();
+    }
+
+    static @NotNull String toText(final @Nullable Value value) {
+        return value == null ? "" : value.getAsString();
+    }
+
+    static @NotNull Value value(final double value) {
+        return NumberValue.of(value);
+    }
+
+    static @NotNull Value value(final boolean value) {
+        return value ? NumberValue.of(1D) : NumberValue.zero();
+    }
+
+    static @NotNull Value value(final @Nullable Object value) {
+        return ReflectiveFunction.of(value);
+    }
+
+    /**
+     * Receives the bindings registered by a {@link BindingGlue}.
+     *
+     * @since 3.1.0
+     */
+    final class Registrar {
+        private final Object instance;
+        private final Map<String, ObjectProperty> backingProperties;
+        private final BiConsumer<String, Object> entries;
+
+        Registrar(final @Nullable Object instance, final @Nullable Map<String, ObjectProperty> backingProperties, final @NotNull BiConsumer<String, Object> entries) {
+            this.instance = instance;
+            this.backingProperties = backingProperties;
+            this.entries = requireNonNull(entries, "entries");
+        }
+
+        /**
+         * Registers a function.
+         *
+         * @param names          The function names
+         * @param pure           Whether the function is pure
+         * @param declaringClass The class declaring the method
+         * @param methodName     The method name
+         * @param parameterTypes The method parameter types
+         * @param invoker        The direct invoker, or null to call the method using reflection
+         * @since 3.1.0
+         */
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        public void function(final @NotNull String @NotNull [] names, final boolean pure, final @NotNull Class<?> declaringClass, final @NotNull String methodName, final @NotNull Class<?> @NotNull [] parameterTypes, final @Nullable Function<?> invoker) {
+            final Function backing = JavaObjectBinding.getBacking(backingProperties, names[0], Function.class);
+            if (backing != null && backing.pure() != pure) {
+                throw new IllegalStateException("Different 'pure' values for interface and Java functions for function " + names[0]);
+            }
+
+            final Function javaFunction = new JavaFunction(instance, declaringClass, methodName, parameterTypes, backing != null ? backing : invoker, pure);
+            for (final String name : names) {
+                entries.accept(name, javaFunction);
+            }
+        }
+
+        /**
+         * Registers a constant field, a public, static and final field
+         * with a primitive type.
+         *
+         * @param names          The property names
+         * @param declaringClass The class declaring the field
+         * @param fieldName      The field name
+         * @param value          The field value
+         * @since 3.1.0
+         */
+        public void constant(final @NotNull String @NotNull [] names, final @NotNull Class<?> declaringClass, final @NotNull String fieldName, final @NotNull Value value) {
+            final Value backingValue = JavaObjectBinding.getBacking(backingProperties, names[0], Value.class);
+            if (backingValue != null) {
+                put(names, new JavaFieldBinding(instance, declaringClass, fieldName, () -> backingValue, null, false));
+            } else {
+                put(names, new JavaFieldBinding(instance, declaringClass, fieldName, () -> value, null, true));
+            }
+        }
+
+        /**
+         * Registers a field with a numeric or boolean type.
+         *
+         * @param names          The property names
+         * @param declaringClass The class declaring the field
+         * @param fieldName      The field name
+         * @param getter         The field getter
+         * @since 3.1.0
+         */
+        public void numberField(final @NotNull String @NotNull [] names, final @NotNull Class<?> declaringClass, final @NotNull String fieldName, final @NotNull DoubleSupplier getter) {
+            final Value backingValue = JavaObjectBinding.getBacking(backingProperties, names[0], Value.class);
+            if (backingValue != null) {
+                put(names, new JavaFieldBinding(instance, declaringClass, fieldName, () -> backingValue, null, false));
+            } else {
+                put(names, new JavaFieldBinding(instance, declaringClass, fieldName, null, getter, false));
+            }
+        }
+
+        /**
+         * Registers a field.
+         *
+         * @param names          The property names
+         * @param declaringClass The class declaring the field
+         * @param fieldName      The field name
+         * @param getter         The field getter, or null to read the field using reflection
+         * @since 3.1.0
+         */
+        public void field(final @NotNull String @NotNull [] names, final @NotNull Class<?> declaringClass, final @NotNull String fieldName, final @Nullable Supplier<Value> getter) {
+            final Value backingValue = JavaObjectBinding.getBacking(backingProperties, names[0], Value.class);
+            put(names, new JavaFieldBinding(instance, declaringClass, fieldName, backingValue == null ? getter : () -> backingValue, null, false));
+        }
+
+        private void put(final @NotNull String @NotNull [] names, final @NotNull JavaFieldBinding fieldBinding) {
+            for (final String name : names) {
+                entries.accept(name, fieldBinding);
+            }
+        }
+    }
+}
@@ -26,13 +26,21 @@ package team.unnamed.mocha.runtime.binding;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.runtime.value.NumberValue;
 import team.unnamed.mocha.runtime.value.Value;
+import team.unnamed.mocha.util.CaseInsensitivePerfectHashMap;
+import team.unnamed.mocha.util.CaseInsensitiveStringHashMap;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 import static java.util.Objects.requireNonNull;
@@ -57,18 +65,96 @@ public final class JavaFieldBinding implements RegisteredBinding {
         INLINEABLE_TYPES = Collections.unmodifiableSet(inlineableTypes);
     }
 
+    // types whose values are converted to numbers, read
+    // without boxing
+    private static final Set<Class<?>> NUMERIC_TYPES;
+
+    static {
+        final Set<Class<?>> numericTypes = new HashSet<>(INLINEABLE_TYPES);
+        numericTypes.remove(char.class);
+        NUMERIC_TYPES = Collections.unmodifiableSet(numericTypes);
+    }
+
+    /**
+     * The bound instance fields of every class, by binding name, for
+     * nested accesses like {@code query.foo.bar}.
+     */
+    private static final ClassValue<Map<String, InstanceField>> INSTANCE_FIELDS = new ClassValue<Map<String, InstanceField>>() {
+        @Override
+        protected @NotNull Map<String, InstanceField> computeValue(final @NotNull Class<?> type) {
+            final Map<String, InstanceField> fields = new CaseInsensitiveStringHashMap<>();
+            for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (final Field field : clazz.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    final Binding annotation = field.getDeclaredAnnotation(Binding.class);
+                    if (annotation == null) {
+                        continue;
+                    }
+                    final InstanceField instanceField = new InstanceField(field);
+                    for (final String bindingName : annotation.value()) {
+                        // subclass fields first
+                        fields.putIfAbsent(bindingName, instanceField);
+                    }
+                }
+            }
+            return CaseInsensitivePerfectHashMap.copyOf(fields);
+        }
+    };
+
     private final Object object;
-    private final Field field;
+    private Field field;
     private Supplier<Value> value;
     private boolean constant;
 
+    // getter for numeric fields, null if not numeric
+    // or not accessible
+    private DoubleSupplier numericGetter;
+    // last value read by the numeric getter, reused while the
+    // field doesn't change
+    private volatile NumberValue last;
+
+    // lookup information for fields bound by generated glue,
+    // resolved only when the field is needed
+    private final Class<?> declaringClass;
+    private final String fieldName;
+
     JavaFieldBinding(final @Nullable Object object, final @Nullable Field field, final @Nullable Supplier<Value> value) {
         this.object = object;
         this.field = field;
         this.value = value;
+        this.declaringClass = null;
+        this.fieldName = null;
         evaluate();
     }
 
+    JavaFieldBinding(final @NotNull Object object, final @NotNull InstanceField field, final @Nullable Supplier<Value> value) {
+        this.object = requireNonNull(object, "object");
+        this.field = field.field;
+        this.value = value;
+        this.declaringClass = null;
+        this.fieldName = null;
+        if (value == null && field.numeric && field.getter != null) {
+            // reuse the getter of the field, instead of creating one
+            // for every instance
+            this.numericGetter = () -> field.getAsNumber(object);
+        }
+    }
+
+    JavaFieldBinding(final @Nullable Object object, final @NotNull Class<?> declaringClass, final @NotNull String fieldName, final @Nullable Supplier<Value> value, final @Nullable DoubleSupplier numericGetter, final boolean constant) {
+        this.object = object;
+        this.value = value;
+        this.numericGetter = numericGetter;
+        this.constant = constant;
+        this.declaringClass = requireNonNull(declaringClass, "declaringClass");
+        this.fieldName = requireNonNull(fieldName, "fieldName");
+        if (value == null && numericGetter == null) {
+            this.field = field();
+            evaluate();
+        }
+    }
+
     private void evaluate() {
         if (value == null) {
             // validate
@@ -87,11 +173,109 @@ public final class JavaFieldBinding implements RegisteredBinding {
                 final Value val = getFromField();
                 this.value = () -> val;
                 this.constant = true;
+            } else if (NUMERIC_TYPES.contains(type)
+                    && (object != null || Modifier.isStatic(modifiers))) {
+                this.numericGetter = createNumericGetter(object, field);
             }
         }
     }
 
+    private static @Nullable DoubleSupplier createNumericGetter(final @Nullable Object object, final @NotNull Field field) {
+        MethodHandle getter;
+        try {
+            getter = MethodHandles.lookup().unreflectGetter(field);
+        } catch (final IllegalAccessException e) {
+            // fall back to Field.get, which fails when read
+            return null;
+        }
+        if (!Modifier.isStatic(field.getModifiers())) {
+            getter = getter.bindTo(object);
+        }
+        // booleans are converted to 1 or 0
+        final MethodHandle numericGetter = MethodHandles.explicitCastArguments(getter, MethodType.methodType(double.class));
+        return () -> {
+            try {
+                return (double) numericGetter.invokeExact();
+            } catch (final Throwable throwable) {
+                throw new IllegalStateException("Could not get field value.", throwable);
+            }
+        };
+    }
+
+    /**
+     * Finds the non-static field annotated with {@link Binding} and bound
+     * to the given {@code name} in the given {@code type} or any of its
+     * superclasses.
+     *
+     * @param type The type to search the field in
+     * @param name The binding name (case-insensitive)
+     * @return The found field, or null if not found
+     * @since 3.1.0
+     */
+    public static @Nullable Field findInstanceField(final @NotNull Class<?> type, final @NotNull String name) {
+        requireNonNull(type, "type");
+        requireNonNull(name, "name");
+        final InstanceField field = INSTANCE_FIELDS.get(type).get(name);
+        return field == null ? null : field.field;
+    }
+
+    /**
+     * Reads the value of the non-static field annotated with {@link Binding}
+     * and bound to the given {@code name} from the given {@code object}, see
+     * {@link #findInstanceField}.
+     *
+     * <p>Fields are resolved once per class, and read through a method
+     * handle, so reading them doesn't create a binding.</p>
+     *
+     * @param object The object to read the field from
+     * @param name   The binding name (case-insensitive)
+     * @return The field value, or null if there is no such field
+     * @since 3.1.0
+     */
+    public static @Nullable Value getInstanceField(final @NotNull Object object, final @NotNull String name) {
+        requireNonNull(object, "object");
+        requireNonNull(name, "name");
+        final InstanceField field = INSTANCE_FIELDS.get(object.getClass()).get(name);
+        return field == null ? null : field.get(object);
+    }
+
+    /**
+     * Reads the value of the given {@code field} from the given
+     * {@code object}.
+     *
+     * @param object The object to read the field from
+     * @param field  The field to read
+     * @return The field value
+     * @since 3.1.0
+     */
+    public static @NotNull Value get(final @NotNull Object object, final @NotNull Field field) {
+        requireNonNull(object, "object");
+        requireNonNull(field, "field");
+        // (same as a binding of the field, without creating it)
+        final Object val;
+        try {
+            val = field.get(object);
+        } catch (final IllegalAccessException e) {
+            throw new IllegalStateException("Could not get field value.", e);
+        }
+        return ReflectiveFunction.of(val);
+    }
+
+    public @Nullable Object object() {
+        return object;
+    }
+
     public @Nullable Field field() {
+        Field field = this.field;
+        if (field == null && declaringClass != null) {
+            // benign race, fields are equal
+            try {
+                field = declaringClass.getDeclaredField(fieldName);
+            } catch (final NoSuchFieldException e) {
+                throw new IllegalStateException("Bound field " + fieldName + " not found in " + declaringClass, e);
+            }
+            this.field = field;
+        }
         return field;
     }
 
@@ -100,10 +284,34 @@ public final class JavaFieldBinding implements RegisteredBinding {
     }
 
     public @NotNull Value get() {
-        if (value == null) {
+        if (value != null) {
+            return value.get();
+        } else if (numericGetter != null) {
+            final double number = NumberValue.normalize(numericGetter.getAsDouble());
+            final NumberValue last = this.last;
+            if (last != null && Double.doubleToRawLongBits(last.value()) == Double.doubleToRawLongBits(number)) {
+                return last;
+            }
+            final NumberValue current = NumberValue.of(number);
+            this.last = current;
+            return current;
+        } else {
             return getFromField();
         }
-        return value.get();
+    }
+
+    /**
+     * Reads the value of this binding as a number, without boxing it
+     * if the field has a primitive type.
+     *
+     * @return The value, as a number
+     * @since 3.1.0
+     */
+    public double getAsNumber() {
+        if (value == null && numericGetter != null) {
+            return NumberValue.normalize(numericGetter.getAsDouble());
+        }
+        return get().getAsNumber();
     }
 
     private @NotNull Value getFromField() {
@@ -117,6 +325,60 @@ public final class JavaFieldBinding implements RegisteredBinding {
             throw new IllegalStateException("Could not get field value.", e);
         }
 
-        return Value.of(val);
+        // keep non-value objects as Java values, so that
+        // their fields can be accessed too (e.g. query.foo.bar)
+        return ReflectiveFunction.of(val);
+    }
+
+    /**
+     * A bound instance field, with a getter that is not bound to
+     * any instance, so that it is created once per field.
+     */
+    static final class InstanceField {
+        private final Field field;
+        private final MethodHandle getter;
+        private final boolean numeric;
+
+        InstanceField(final @NotNull Field field) {
+            this.field = field;
+            this.numeric = NUMERIC_TYPES.contains(field.getType());
+            MethodHandle getter;
+            try {
+                getter = MethodHandles.lookup().unreflectGetter(field);
+            } catch (final IllegalAccessException e) {
+                // fall back to Field.get, which fails when read
+                getter = null;
+            }
+            if (getter != null) {
+                // booleans are converted to 1 or 0
+                getter = numeric
+                        ? MethodHandles.explicitCastArguments(getter, MethodType.methodType(double.class, Object.class))
+                        : getter.asType(MethodType.methodType(Object.class, Object.class));
+            }
+            this.getter = getter;
+        }
+
+        double getAsNumber(final @NotNull Object object) {
+            try {
+                return (double) getter.invokeExact(object);
+            } catch (final Throwable throwable) {
+                throw new IllegalStateException("Could not get field value.", throwable);
+            }
+        }
+
+        @NotNull Value get(final @NotNull Object object) {
+            if (getter == null) {
+                return JavaFieldBinding.get(object, field);
+            }
+            try {
+                if (numeric) {
+                    return NumberValue.of(NumberValue.normalize((double) getter.invokeExact(object)));
+                } else {
+                    return ReflectiveFunction.of((Object) getter.invokeExact(object));
+                }
+            } catch (final Throwable throwable) {
+                throw new IllegalStateException("Could not get field value.", throwable);
+            }
+        }
     }
 }
@@ -32,18 +32,52 @@ import team.unnamed.mocha.runtime.value.Value;
 
 import java.lang.reflect.Method;
 
+import static java.util.Objects.requireNonNull;
+
 @ApiStatus.Internal
 public final class JavaFunction<T> implements Function<T> {
     private final Object object;
-    private final Method method;
     private final boolean pure;
+    private Method method;
     private Function<T> function;
 
+    // lookup information for methods bound by generated glue,
+    // resolved only when the method is needed
+    private final Class<?> declaringClass;
+    private final String methodName;
+    private final Class<?>[] parameterTypes;
+
     JavaFunction(final @Nullable Object object, final @Nullable Method method, final @Nullable Function<T> function, final boolean pure) {
         this.object = object;
         this.method = method;
         this.function = function;
         this.pure = pure;
+        this.declaringClass = null;
+        this.methodName = null;
+        this.parameterTypes = null;
+        evaluate();
+    }
+
+    JavaFunction(final @Nullable Object object, final ReflectiveFunction.@NotNull Plan plan, final boolean pure) {
+        this.object = object;
+        this.method = plan.method();
+        this.function = new ReflectiveFunction<>(object, plan);
+        this.pure = pure;
+        this.declaringClass = null;
+        this.methodName = null;
+        this.parameterTypes = null;
+    }
+
+    JavaFunction(final @Nullable Object object, final @NotNull Class<?> declaringClass, final @NotNull String methodName, final @NotNull Class<?> @NotNull [] parameterTypes, final @Nullable Function<T> function, final boolean pure) {
+        this.object = object;
+        this.function = function;
+        this.pure = pure;
+        this.declaringClass = requireNonNull(declaringClass, "declaringClass");
+        this.methodName = requireNonNull(methodName, "methodName");
+        this.parameterTypes = requireNonNull(parameterTypes, "parameterTypes");
+        if (function == null) {
+            this.method = method();
+        }
         evaluate();
     }
 
@@ -63,9 +97,30 @@ public final class JavaFunction<T> implements Function<T> {
     }
 
     public @Nullable Method method() {
+        Method method = this.method;
+        if (method == null && declaringClass != null) {
+            // benign race, methods are equal
+            try {
+                method = declaringClass.getDeclaredMethod(methodName, parameterTypes);
+            } catch (final NoSuchMethodException e) {
+                throw new IllegalStateException("Bound method " + methodName + " not found in " + declaringClass, e);
+            }
+            this.method = method;
+        }
         return method;
     }
 
+    /**
+     * Determines whether this function calls its method
+     * using reflection.
+     *
+     * @return True if the method is called using reflection
+     * @since 3.1.0
+     */
+    public boolean reflective() {
+        return function instanceof ReflectiveFunction;
+    }
+
     @Override
     public @Nullable Value evaluate(final @NotNull ExecutionContext<T> context, final @NotNull Arguments arguments) {
         return function.evaluate(context, arguments);
@@ -30,30 +30,54 @@ import team.unnamed.mocha.runtime.value.Function;
 import team.unnamed.mocha.runtime.value.ObjectProperty;
 import team.unnamed.mocha.runtime.value.ObjectValue;
 import team.unnamed.mocha.runtime.value.Value;
+import team.unnamed.mocha.util.CaseInsensitivePerfectHashMap;
 import team.unnamed.mocha.util.CaseInsensitiveStringHashMap;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 import static java.util.Objects.requireNonNull;
 
 @ApiStatus.Internal
 public final class JavaObjectBinding implements ObjectValue {
+    /**
+     * The binding templates, computed once per class, so that binding
+     * many instances of the same class does not scan it again.
+     */
+    private static final ClassValue<Template> TEMPLATES = new ClassValue<Template>() {
+        @Override
+        protected @NotNull Template computeValue(final @NotNull Class<?> type) {
+            return new Template(type);
+        }
+    };
+
     private final String[] names;
-    private final Map<String, Object> entries = new CaseInsensitiveStringHashMap<>();
+    private final Template template;
+    private final Object instance;
+    // the bound members, aligned with the template layout
+    private volatile Object[] values;
 
-    JavaObjectBinding(final @NotNull String @NotNull [] names) {
-        this.names = requireNonNull(names, "names");
+    private JavaObjectBinding(final @NotNull Template template, final @Nullable Object instance, final @NotNull Object @NotNull [] values) {
+        this.names = template.names;
+        this.template = template;
+        this.instance = instance;
+        this.values = requireNonNull(values, "values");
     }
 
-    JavaObjectBinding() {
-        this.names = new String[0];
+    private JavaObjectBinding(final @NotNull Template template, final @NotNull Object instance) {
+        this.names = template.names;
+        this.template = template;
+        this.instance = instance;
     }
 
-    private static <T extends Value> T getBacking(final @Nullable Map<String, ObjectProperty> backingProperties, final @NotNull String functionName, final Class<T> valueType) {
+    static <T extends Value> T getBacking(final @Nullable Map<String, ObjectProperty> backingProperties, final @NotNull String functionName, final Class<T> valueType) {
         if (backingProperties != null) {
             final ObjectProperty property = backingProperties.get(functionName);
             if (property != null && valueType.isInstance(property.value())) {
@@ -64,19 +88,169 @@ public final class JavaObjectBinding implements ObjectValue {
     }
 
     public static <T> @NotNull JavaObjectBinding of(final @NotNull Class<T> clazz, final @Nullable T instance, final @Nullable ObjectValue backingObject) {
-        final Binding binding = clazz.getDeclaredAnnotation(Binding.class);
-        if (binding == null && instance == null) {
+        final Template template = TEMPLATES.get(clazz);
+        if (!template.annotated && instance == null) {
             throw new IllegalArgumentException("Statically bound " + clazz + " is not annotated with @Binding");
         }
+        template.checkMembers(instance != null);
+
+        if (backingObject == null) {
+            if (instance == null) {
+                // static bindings do not depend on the instance, share them
+                return template.staticBinding();
+            } else {
+                // cheap view, its entries are created on first use
+                return new JavaObjectBinding(template, instance);
+            }
+        }
+        return new JavaObjectBinding(template, instance, template.createValues(instance, backingObject.entries()));
+    }
+
+    public @NotNull String[] names() {
+        return names;
+    }
+
+    /**
+     * Returns the bound class.
+     *
+     * @return The bound class
+     * @since 3.1.0
+     */
+    public @NotNull Class<?> type() {
+        return template.type;
+    }
+
+    private @Nullable Object entry(final @NotNull String name) {
+        Object[] values = this.values;
+        if (values == null) {
+            // benign race, values are equivalent
+            values = template.createValues(instance, null);
+            this.values = values;
+        }
+        // the layout is always created before the values
+        final int index = template.layout(instance != null).indexOf(name);
+        return index == -1 ? null : values[index];
+    }
+
+    public @Nullable JavaFieldBinding getField(final @NotNull String name) {
+        final Object value = entry(name);
+        if (value instanceof JavaFieldBinding) {
+            return (JavaFieldBinding) value;
+        } else {
+            return null;
+        }
+    }
 
-        final JavaObjectBinding object = binding != null ? new JavaObjectBinding(binding.value()) : new JavaObjectBinding();
-        final Map<String, ObjectProperty> backingProperties = backingObject != null ? backingObject.entries() : null;
+    @Override
+    public @NotNull Value get(final @NotNull String name) {
+        // same as getProperty(name).value(), without creating the property
+        final Object value = entry(name);
+        if (value == null) {
+            return Value.nil();
+        } else if (value instanceof JavaFieldBinding) {
+            return ((JavaFieldBinding) value).get();
+        } else {
+            return (Value) value;
+        }
+    }
+
+    @Override
+    public @Nullable ObjectProperty getProperty(final @NotNull String name) {
+        final Object value = entry(name);
+        if (value == null) {
+            return null;
+        } else if (value instanceof JavaFieldBinding) {
+            return ObjectProperty.property(
+                    ((JavaFieldBinding) value).get(),
+                    ((JavaFieldBinding) value).constant()
+            );
+        } else {
+            return ObjectProperty.property((Value) value, true);
+        }
+    }
+
+    @Override
+    public boolean set(final @NotNull String name, final @Nullable Value value) {
+        return true;
+    }
+
+    private static @Nullable BindingGlue<?> findGlue(final @NotNull Class<?> clazz) {
+        final Class<?> glueClass;
+        try {
+            glueClass = Class.forName(clazz.getName() + BindingGlue.SUFFIX, true, clazz.getClassLoader());
+        } catch (final ClassNotFoundException e) {
+            // not generated, use reflection
+            return null;
+        }
+
+        if (!BindingGlue.class.isAssignableFrom(glueClass)) {
+            return null;
+        }
+
+        try {
+            return (BindingGlue<?>) glueClass.getDeclaredConstructor().newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create binding glue " + glueClass, e);
+        }
+    }
+
+    /**
+     * The reflective information needed to bind a class, which is the same
+     * for all its instances, or its generated {@link BindingGlue}.
+     */
+    private static final class Template {
+        private final Class<?> type;
+        private final boolean annotated;
+        private final String[] names;
+        private final BindingGlue<Object> glue;
+        private final ExternalFunction[] externalFunctions;
+        private final Field[] fields;
+        private final Method[] methods;
+        // the names declared by the annotations of the fields and methods,
+        // read once, annotation values are copied on every call
+        private final String[][] fieldNames;
+        private final String[][] methodNames;
+        private final boolean[] pureMethods;
+        // call plans of the methods, created when first bound, and
+        // shared by the functions of every instance
+        private final ReflectiveFunction.Plan[] methodPlans;
+        // getters of the instance fields, created when first bound
+        private final JavaFieldBinding.InstanceField[] instanceFields;
+        private volatile Layout staticLayout;
+        private volatile Layout instanceLayout;
+        private volatile JavaObjectBinding staticBinding;
+
+        @SuppressWarnings("unchecked")
+        Template(final @NotNull Class<?> clazz) {
+            this.type = clazz;
+            this.glue = (BindingGlue<Object>) findGlue(clazz);
+            if (glue != null) {
+                // members were already checked by the annotation processor
+                final String[] names = glue.names();
+                this.annotated = names != null;
+                this.names = names != null ? names : new String[0];
+                this.externalFunctions = new ExternalFunction[0];
+                this.fields = new Field[0];
+                this.methods = new Method[0];
+                this.fieldNames = new String[0][];
+                this.methodNames = new String[0][];
+                this.pureMethods = new boolean[0];
+                this.methodPlans = new ReflectiveFunction.Plan[0];
+                this.instanceFields = new JavaFieldBinding.InstanceField[0];
+                return;
+            }
+
+            final Binding binding = clazz.getDeclaredAnnotation(Binding.class);
+            this.annotated = binding != null;
+            this.names = binding != null ? binding.value() : new String[0];
 
-        {
             // check external bindings
             final BindExternalFunction.Multiple annotation = clazz.getDeclaredAnnotation(BindExternalFunction.Multiple.class);
             if (annotation != null) {
-                for (final BindExternalFunction externalFunctionBinding : annotation.value()) {
+                final BindExternalFunction[] externalFunctionBindings = annotation.value();
+                this.externalFunctions = new ExternalFunction[externalFunctionBindings.length];
+                for (int i = 0; i < externalFunctionBindings.length; i++) {
+                    final BindExternalFunction externalFunctionBinding = externalFunctionBindings[i];
                     final Class<?> atClass = externalFunctionBinding.at();
                     final String methodName = externalFunctionBinding.name();
                     final Class<?>[] parameterTypes = externalFunctionBinding.args();
@@ -90,129 +264,246 @@ public final class JavaObjectBinding implements ObjectValue {
                                 + " external binding for " + clazz, e);
                     }
 
-                    final String functionName;
-                    {
-                        final String alias = externalFunctionBinding.as();
-                        if (alias.isEmpty()) {
-                            functionName = methodName;
-                        } else {
-                            functionName = alias;
-                        }
-                    }
-
-                    final Function backing = getBacking(backingProperties, functionName, Function.class);
-                    final boolean pure = externalFunctionBinding.pure();
+                    final String alias = externalFunctionBinding.as();
+                    this.externalFunctions[i] = new ExternalFunction(
+                            alias.isEmpty() ? methodName : alias,
+                            method,
+                            externalFunctionBinding.pure()
+                    );
+                }
+            } else {
+                this.externalFunctions = new ExternalFunction[0];
+            }
 
-                    if (backing != null && backing.pure() != pure) {
-                        throw new IllegalStateException("Different 'pure' values for interface and Java functions for function " + functionName);
-                    }
+            final List<Field> fields = new ArrayList<>();
+            for (final Field field : clazz.getDeclaredFields()) {
+                if (field.isAnnotationPresent(Binding.class)) {
+                    fields.add(field);
+                }
+            }
+            this.fields = fields.toArray(new Field[0]);
 
-                    object.entries.put(functionName, new JavaFunction<>(instance, method, backing, pure));
+            final List<Method> methods = new ArrayList<>();
+            for (final Method method : clazz.getDeclaredMethods()) {
+                if (!method.isSynthetic() && method.isAnnotationPresent(Binding.class)) {
+                    methods.add(method);
                 }
             }
+            this.methods = methods.toArray(new Method[0]);
+
+            this.fieldNames = new String[this.fields.length][];
+            for (int i = 0; i < this.fields.length; i++) {
+                this.fieldNames[i] = this.fields[i].getDeclaredAnnotation(Binding.class).value();
+            }
+            this.methodNames = new String[this.methods.length][];
+            this.pureMethods = new boolean[this.methods.length];
+            for (int i = 0; i < this.methods.length; i++) {
+                final Binding methodBinding = this.methods[i].getDeclaredAnnotation(Binding.class);
+                this.methodNames[i] = methodBinding.value();
+                this.pureMethods[i] = methodBinding.pure();
+            }
+            this.methodPlans = new ReflectiveFunction.Plan[this.methods.length];
+            this.instanceFields = new JavaFieldBinding.InstanceField[this.fields.length];
         }
 
-        for (final Field field : clazz.getDeclaredFields()) {
-            final Binding annotation = field.getDeclaredAnnotation(Binding.class);
-            if (annotation == null) {
-                continue;
+        private JavaFieldBinding.@NotNull InstanceField instanceField(final int index) {
+            JavaFieldBinding.InstanceField field = instanceFields[index];
+            if (field == null) {
+                // benign race, fields are immutable and equivalent
+                field = new JavaFieldBinding.InstanceField(fields[index]);
+                instanceFields[index] = field;
             }
+            return field;
+        }
 
-            if (instance == null) {
-                // bind static only
-                if (!Modifier.isStatic(field.getModifiers())) {
-                    continue;
+        private ReflectiveFunction.@NotNull Plan methodPlan(final int index) {
+            ReflectiveFunction.Plan plan = methodPlans[index];
+            if (plan == null) {
+                // benign race, plans are immutable and equivalent
+                plan = new ReflectiveFunction.Plan(methods[index]);
+                methodPlans[index] = plan;
+            }
+            return plan;
+        }
+
+        void checkMembers(final boolean instance) {
+            for (int i = 0; i < fields.length; i++) {
+                if (Modifier.isStatic(fields[i].getModifiers()) != instance && fieldNames[i].length < 1) {
+                    throw new IllegalArgumentException("No property names declared for field " + fields[i]);
                 }
-            } else {
-                // bind non-static only
-                if (Modifier.isStatic(field.getModifiers())) {
-                    continue;
+            }
+            for (int i = 0; i < methods.length; i++) {
+                if (Modifier.isStatic(methods[i].getModifiers()) != instance && methodNames[i].length < 1) {
+                    throw new IllegalArgumentException("No function names declared for method " + methods[i]);
                 }
             }
+        }
 
-            final String[] propertyNames = annotation.value();
-            if (propertyNames.length < 1) {
-                throw new IllegalArgumentException("No property names declared for field " + field);
+        @NotNull JavaObjectBinding staticBinding() {
+            JavaObjectBinding binding = staticBinding;
+            if (binding == null) {
+                // benign race, bindings are equivalent
+                binding = new JavaObjectBinding(this, null, createValues(null, null));
+                staticBinding = binding;
             }
-            final Value backingValue = getBacking(backingProperties, propertyNames[0], Value.class);
-            final JavaFieldBinding fieldBinding = new JavaFieldBinding(instance, field, backingValue == null ? null : () -> backingValue);
-            for (final String propertyName : propertyNames) {
-                object.entries.put(propertyName, fieldBinding);
+            return binding;
+        }
+
+        @Nullable Layout layout(final boolean instance) {
+            return instance ? instanceLayout : staticLayout;
+        }
+
+        /**
+         * Creates the members bound to the given instance, or the static
+         * members if it is null, aligned with the {@link #layout}.
+         */
+        @NotNull Object @NotNull [] createValues(final @Nullable Object instance, final @Nullable Map<String, ObjectProperty> backingProperties) {
+            Layout layout = layout(instance != null);
+            if (layout == null) {
+                synchronized (this) {
+                    layout = layout(instance != null);
+                    if (layout == null) {
+                        // the bound names are only known once the members
+                        // are registered, do it once to compute the layout
+                        final Map<String, Object> entries = new CaseInsensitiveStringHashMap<>();
+                        register(instance, backingProperties, entries::put);
+                        layout = new Layout(entries.keySet());
+                        final Object[] values = new Object[layout.size()];
+                        for (final Map.Entry<String, Object> entry : entries.entrySet()) {
+                            values[layout.indexOf(entry.getKey())] = entry.getValue();
+                        }
+                        if (instance != null) {
+                            instanceLayout = layout;
+                        } else {
+                            staticLayout = layout;
+                        }
+                        return values;
+                    }
+                }
             }
+
+            final Layout finalLayout = layout;
+            final Object[] values = new Object[layout.size()];
+            register(instance, backingProperties, (name, value) -> {
+                final int index = finalLayout.indexOf(name);
+                if (index == -1) {
+                    throw new IllegalStateException("Member " + name + " of " + type + " is not in its layout");
+                }
+                values[index] = value;
+            });
+            return values;
         }
 
-        for (final Method method : clazz.getDeclaredMethods()) {
-            final Binding annotation = method.getDeclaredAnnotation(Binding.class);
-            if (annotation == null) {
-                continue;
+        /**
+         * Creates the members bound to the given instance, or the static
+         * members if it is null, and passes them to the given consumer,
+         * once per bound name.
+         */
+        private void register(final @Nullable Object instance, final @Nullable Map<String, ObjectProperty> backingProperties, final @NotNull BiConsumer<String, Object> entries) {
+            if (glue != null) {
+                glue.bind(instance, new BindingGlue.Registrar(instance, backingProperties, entries));
+                return;
             }
 
-            if (method.isSynthetic()) {
-                continue;
+            for (final ExternalFunction externalFunction : externalFunctions) {
+                final Function backing = getBacking(backingProperties, externalFunction.name, Function.class);
+                if (backing != null && backing.pure() != externalFunction.pure) {
+                    throw new IllegalStateException("Different 'pure' values for interface and Java functions for function " + externalFunction.name);
+                }
+                entries.accept(externalFunction.name, backing == null
+                        ? new JavaFunction<>(instance, externalFunction.plan(), externalFunction.pure)
+                        : new JavaFunction<>(instance, externalFunction.method, backing, externalFunction.pure));
             }
 
-            if (instance == null) {
-                // bind static only
-                if (!Modifier.isStatic(method.getModifiers())) {
+            for (int i = 0; i < fields.length; i++) {
+                final Field field = fields[i];
+                if (Modifier.isStatic(field.getModifiers()) != (instance == null)) {
+                    // bind static only if no instance, non-static only otherwise
                     continue;
                 }
-            } else {
-                // bind non-static only
-                if (Modifier.isStatic(method.getModifiers())) {
-                    continue;
+
+                final String[] propertyNames = fieldNames[i];
+                final Value backingValue = getBacking(backingProperties, propertyNames[0], Value.class);
+                final Supplier<Value> value = backingValue == null ? null : () -> backingValue;
+                final JavaFieldBinding fieldBinding = instance == null
+                        ? new JavaFieldBinding(null, field, value)
+                        : new JavaFieldBinding(instance, instanceField(i), value);
+                for (final String propertyName : propertyNames) {
+                    entries.accept(propertyName, fieldBinding);
                 }
             }
 
-            final String[] functionNames = annotation.value();
-            if (functionNames.length < 1) {
-                throw new IllegalArgumentException("No function names declared for method " + method);
-            }
-            final Function backing = getBacking(backingProperties, functionNames[0], Function.class);
-            final boolean pure = annotation.pure();
+            for (int i = 0; i < methods.length; i++) {
+                final Method method = methods[i];
+                if (Modifier.isStatic(method.getModifiers()) != (instance == null)) {
+                    // bind static only if no instance, non-static only otherwise
+                    continue;
+                }
 
-            if (backing != null && backing.pure() != pure) {
-                throw new IllegalStateException("Different 'pure' values for interface and Java functions for function " + functionNames[0]);
-            }
+                final String[] functionNames = methodNames[i];
+                final Function backing = getBacking(backingProperties, functionNames[0], Function.class);
+                final boolean pure = pureMethods[i];
 
-            final Function javaFunction = new JavaFunction(instance, method, backing, pure);
-            for (final String functionName : functionNames) {
-                object.entries.put(functionName, javaFunction);
+                if (backing != null && backing.pure() != pure) {
+                    throw new IllegalStateException("Different 'pure' values for interface and Java functions for function " + functionNames[0]);
+                }
+
+                final Function javaFunction = backing == null
+                        ? new JavaFunction(instance, methodPlan(i), pure)
+                        : new JavaFunction(instance, method, backing, pure);
+                for (final String functionName : functionNames) {
+                    entries.accept(functionName, javaFunction);
+                }
             }
         }
-
-        return object;
     }
 
-    public @NotNull String[] names() {
-        return names;
-    }
+    /**
+     * The names bound by a class, and their index in the members of
+     * each binding. The perfect hash over the names is computed once
+     * per class, so binding an instance only creates its members.
+     */
+    private static final class Layout {
+        private final CaseInsensitivePerfectHashMap<Integer> indexes;
 
-    public @Nullable JavaFieldBinding getField(final @NotNull String name) {
-        final Object value = entries.get(name);
-        if (value instanceof JavaFieldBinding) {
-            return (JavaFieldBinding) value;
-        } else {
-            return null;
+        Layout(final @NotNull Iterable<String> names) {
+            final Map<String, Integer> indexes = new CaseInsensitiveStringHashMap<>();
+            for (final String name : names) {
+                indexes.putIfAbsent(name, indexes.size());
+            }
+            this.indexes = CaseInsensitivePerfectHashMap.copyOf(indexes);
         }
-    }
 
-    @Override
-    public @Nullable ObjectProperty getProperty(final @NotNull String name) {
-        final Object value = entries.get(name);
-        if (value == null) {
-            return null;
-        } else if (value instanceof JavaFieldBinding) {
-            return ObjectProperty.property(
-                    ((JavaFieldBinding) value).get(),
-                    ((JavaFieldBinding) value).constant()
-            );
-        } else {
-            return ObjectProperty.property((Value) value, true);
+        int indexOf(final @NotNull String name) {
+            final Integer index = indexes.get(name);
+            return index == null ? -1 : index;
+        }
+
+        int size() {
+            return indexes.size();
         }
     }
 
-    @Override
-    public boolean set(final @NotNull String name, final @Nullable Value value) {
-        return true;
+    private static final class ExternalFunction {
+        private final String name;
+        private final Method method;
+        private final boolean pure;
+        private volatile ReflectiveFunction.Plan plan;
+
+        ExternalFunction(final @NotNull String name, final @NotNull Method method, final boolean pure) {
+            this.name = name;
+            this.method = method;
+            this.pure = pure;
+        }
+
+        ReflectiveFunction.@NotNull Plan plan() {
+            ReflectiveFunction.Plan plan = this.plan;
+            if (plan == null) {
+                // benign race, plans are equivalent
+                plan = new ReflectiveFunction.Plan(method);
+                this.plan = plan;
+            }
+            return plan;
+        }
     }
 }
@@ -0,0 +1,192 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.binding;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.runtime.ExecutionContext;
+import team.unnamed.mocha.runtime.value.Function;
+import team.unnamed.mocha.runtime.value.NumberValue;
+import team.unnamed.mocha.runtime.value.ObjectValue;
+import team.unnamed.mocha.runtime.value.Value;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A function implemented by an instance of a functional interface (e.g. a
+ * lambda), whose signature is kept, so that compiled scripts can call it
+ * directly and interpreted scripts can call it without converting its
+ * arguments to objects.
+ *
+ * <p>The functional interface must be public, and its method may only take {@code double},
+ * {@code int} and {@code boolean} parameters, and return one of those
+ * types or {@code void}.</p>
+ *
+ * @param <T> The entity type
+ * @since 3.1.0
+ */
+public final class NativeFunction<T> implements Function<T> {
+    private final Class<?> type;
+    private final Object target;
+    private final Method method;
+    private final boolean pure;
+    private final Function<T> invoker;
+
+    private NativeFunction(final @NotNull Class<?> type, final @NotNull Object target, final @NotNull Method method, final boolean pure, final @NotNull Function<T> invoker) {
+        this.type = type;
+        this.target = target;
+        this.method = method;
+        this.pure = pure;
+        this.invoker = invoker;
+    }
+
+    /**
+     * Creates a native function from the given functional
+     * interface instance.
+     *
+     * @param type     The functional interface type
+     * @param function The functional interface instance
+     * @param pure     Whether the function is pure, see {@link Function#pure()}
+     * @param <F>      The functional interface type
+     * @return The created native function
+     * @throws IllegalArgumentException If the given type is not a functional
+     *                                  interface with a supported signature
+     * @since 3.1.0
+     */
+    public static <F> @NotNull NativeFunction<?> of(final @NotNull Class<F> type, final @NotNull F function, final boolean pure) {
+        requireNonNull(type, "type");
+        requireNonNull(function, "function");
+        final Method method = functionalMethod(type);
+        for (final Class<?> parameterType : method.getParameterTypes()) {
+            if (parameterType != double.class && parameterType != int.class && parameterType != boolean.class) {
+                throw new IllegalArgumentException("Unsupported parameter type " + parameterType + " in " + method);
+            }
+        }
+        final Class<?> returnType = method.getReturnType();
+        if (returnType != double.class && returnType != int.class && returnType != boolean.class && returnType != void.class) {
+            throw new IllegalArgumentException("Unsupported return type " + returnType + " in " + method);
+        }
+        return new NativeFunction<>(type, function, method, pure, invoker(type, function, method));
+    }
+
+    private static @NotNull Method functionalMethod(final @NotNull Class<?> type) {
+        if (!type.isInterface() || !Modifier.isPublic(type.getModifiers())) {
+            throw new IllegalArgumentException(type + " is not a public interface");
+        }
+        Method functionalMethod = null;
+        for (final Method method : type.getMethods()) {
+            if (!Modifier.isAbstract(method.getModifiers()) || isObjectMethod(method)) {
+                continue;
+            }
+            if (functionalMethod != null) {
+                throw new IllegalArgumentException(type + " has more than one abstract method");
+            }
+            functionalMethod = method;
+        }
+        if (functionalMethod == null) {
+            throw new IllegalArgumentException(type + " has no abstract methods");
+        }
+        return functionalMethod;
+    }
+
+    private static boolean isObjectMethod(final @NotNull Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static <T> @NotNull Function<T> invoker(final @NotNull Class<?> type, final @NotNull Object function, final @NotNull Method method) {
+        // direct calls for the built-in interfaces
+        if (type == ObjectValue.DoubleFunction0.class) {
+            final ObjectValue.DoubleFunction0 f = (ObjectValue.DoubleFunction0) function;
+            return (ctx, args) -> NumberValue.of(f.apply());
+        } else if (type == ObjectValue.DoubleFunction1.class) {
+            final ObjectValue.DoubleFunction1 f = (ObjectValue.DoubleFunction1) function;
+            return (ctx, args) -> NumberValue.of(f.apply(number(args)));
+        } else if (type == ObjectValue.DoubleFunction2.class) {
+            final ObjectValue.DoubleFunction2 f = (ObjectValue.DoubleFunction2) function;
+            return (ctx, args) -> NumberValue.of(f.apply(number(args), number(args)));
+        } else if (type == ObjectValue.DoubleFunction3.class) {
+            final ObjectValue.DoubleFunction3 f = (ObjectValue.DoubleFunction3) function;
+            return (ctx, args) -> NumberValue.of(f.apply(number(args), number(args), number(args)));
+        } else if (type == ObjectValue.DoubleFunction4.class) {
+            final ObjectValue.DoubleFunction4 f = (ObjectValue.DoubleFunction4) function;
+            return (ctx, args) -> NumberValue.of(f.apply(number(args), number(args), number(args), number(args)));
+        } else {
+            // method handle, without boxing numeric arguments
+            return new ReflectiveFunction<>(function, method);
+        }
+    }
+
+    private static double number(final @NotNull Arguments arguments) {
+        final Value value = arguments.next().eval();
+        return value == null ? 0D : value.getAsNumber();
+    }
+
+    /**
+     * Returns the functional interface type.
+     *
+     * @return The functional interface type
+     * @since 3.1.0
+     */
+    public @NotNull Class<?> type() {
+        return type;
+    }
+
+    /**
+     * Returns the functional interface instance.
+     *
+     * @return The functional interface instance
+     * @since 3.1.0
+     */
+    public @NotNull Object target() {
+        return target;
+    }
+
+    /**
+     * Returns the functional interface method.
+     *
+     * @return The functional interface method
+     * @since 3.1.0
+     */
+    public @NotNull Method method() {
+        return method;
+    }
+
+    @Override
+    public @Nullable Value evaluate(final @NotNull ExecutionContext<T> context, final @NotNull Arguments arguments) {
+        return invoker.evaluate(context, arguments);
+    }
+
+    @Override
+    public boolean pure() {
+        return pure;
+    }
+}
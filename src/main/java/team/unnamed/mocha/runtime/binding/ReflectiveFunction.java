@@ -34,23 +34,51 @@ import team.unnamed.mocha.runtime.value.NumberValue;
 import team.unnamed.mocha.runtime.value.StringValue;
 import team.unnamed.mocha.runtime.value.Value;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Function that calls a Java method.
+ *
+ * <p>The way every parameter is obtained and converted is computed
+ * once per method, see {@link Plan}, and the method is called using
+ * a {@link MethodHandle}. Methods that only take and return numbers
+ * are called without boxing their arguments.</p>
+ */
 final class ReflectiveFunction<T> implements Function<T> {
+    private static final int MAX_NUMERIC_ARITY = 4;
+
     private final Object object;
-    private final Method method;
+    private final Plan plan;
 
     ReflectiveFunction(final @Nullable Object object, final @NotNull Method method) {
+        this(object, new Plan(method));
+    }
+
+    ReflectiveFunction(final @Nullable Object object, final @NotNull Plan plan) {
         this.object = object;
-        this.method = requireNonNull(method, "method");
+        this.plan = requireNonNull(plan, "plan");
+    }
+
+    private static boolean isNumeric(final @NotNull Class<?> type, final boolean returnType) {
+        return type == double.class
+                || type == int.class
+                || type == float.class
+                || type == long.class
+                || type == short.class
+                || (returnType && (type == void.class || type == boolean.class || type == byte.class));
     }
 
     static @NotNull Value of(final @Nullable Object any) {
@@ -64,13 +92,10 @@ final class ReflectiveFunction<T> implements Function<T> {
             return (Boolean) any ? NumberValue.of(1D) : NumberValue.zero();
         } else {
             if (any != null && any.getClass().isArray()) {
-                // array types
-                final int length = Array.getLength(any);
-                final Value[] values = new Value[length];
-                for (int i = 0; i < length; i++) {
-                    values[i] = of(Array.get(any, i));
-                }
-                return ArrayValue.of(values);
+                // array types, elements are converted on access
+                return ArrayValue.viewArray(any, ReflectiveFunction::of);
+            } else if (any instanceof List) {
+                return ArrayValue.view((List<?>) any, ReflectiveFunction::of);
             } else if (any != null) {
                 // small change here, use javaValue
                 return new JavaValue(any);
@@ -82,46 +107,234 @@ final class ReflectiveFunction<T> implements Function<T> {
 
     @Override
     public @NotNull Value evaluate(final @NotNull ExecutionContext<T> context, final @NotNull Arguments arguments) {
-        final Parameter[] parameters = method.getParameters();
-        final Type[] genericParameterTypes = method.getGenericParameterTypes();
+        final Plan plan = this.plan;
+        if (plan.numericInvoker != null) {
+            return evaluateNumeric(plan.numericInvoker, arguments);
+        }
 
+        final ParameterPlan[] parameters = plan.parameters;
         final Object[] values = new Object[parameters.length];
         for (int i = 0; i < parameters.length; i++) {
-            final Parameter parameter = parameters[i];
-            Class<?> parameterType = parameter.getType();
-            final Value value;
+            values[i] = parameters[i].value(context, arguments);
+        }
 
-            if (i == parameters.length - 1 && method.isVarArgs()) {
-                // varargs
-                final Class<?> componentType = parameterType.getComponentType();
-                final List<Value> varArgsValues = new ArrayList<>();
-                while (true) {
-                    final Argument argument = arguments.next();
-                    if (argument.expression() == null) {
-                        break;
+        if (plan.invoker == null) {
+            throw new RuntimeException(plan.accessException);
+        }
+
+        try {
+            return of(plan.invoker.invokeExact(object, values));
+        } catch (final Throwable throwable) {
+            throw new RuntimeException(throwable);
+        }
+    }
+
+    private @NotNull Value evaluateNumeric(final @NotNull MethodHandle invoker, final @NotNull Arguments arguments) {
+        final Object object = this.object;
+        final int arity = plan.parameters.length;
+        final double a = arity > 0 ? number(arguments) : 0D;
+        final double b = arity > 1 ? number(arguments) : 0D;
+        final double c = arity > 2 ? number(arguments) : 0D;
+        final double d = arity > 3 ? number(arguments) : 0D;
+
+        final boolean returnsVoid = invoker.type().returnType() == void.class;
+        final double result;
+        try {
+            switch (arity) {
+                case 0:
+                    if (returnsVoid) {
+                        invoker.invokeExact(object);
+                        return Value.nil();
+                    }
+                    result = (double) invoker.invokeExact(object);
+                    break;
+                case 1:
+                    if (returnsVoid) {
+                        invoker.invokeExact(object, a);
+                        return Value.nil();
                     }
-                    final Value object = argument.eval();
-                    if (componentType.isInstance(object)) {
-                        varArgsValues.add(object);
-                    } else {
-                        varArgsValues.add(null);
+                    result = (double) invoker.invokeExact(object, a);
+                    break;
+                case 2:
+                    if (returnsVoid) {
+                        invoker.invokeExact(object, a, b);
+                        return Value.nil();
                     }
+                    result = (double) invoker.invokeExact(object, a, b);
+                    break;
+                case 3:
+                    if (returnsVoid) {
+                        invoker.invokeExact(object, a, b, c);
+                        return Value.nil();
+                    }
+                    result = (double) invoker.invokeExact(object, a, b, c);
+                    break;
+                default:
+                    if (returnsVoid) {
+                        invoker.invokeExact(object, a, b, c, d);
+                        return Value.nil();
+                    }
+                    result = (double) invoker.invokeExact(object, a, b, c, d);
+                    break;
+            }
+        } catch (final Throwable throwable) {
+            throw new RuntimeException(throwable);
+        }
+        return NumberValue.of(result);
+    }
+
+    private static double number(final @NotNull Arguments arguments) {
+        final Value value = arguments.next().eval();
+        return value == null ? 0D : value.getAsNumber();
+    }
+
+    /**
+     * The precomputed information needed to call a method, which doesn't
+     * depend on the instance the method is called on, so it is computed
+     * once per method and shared by the functions of every bound instance.
+     */
+    static final class Plan {
+        private final Method method;
+        private final ParameterPlan[] parameters;
+
+        // (Object receiver, Object[])Object invoker, or null if the
+        // method can't be accessed
+        private final MethodHandle invoker;
+        // (Object receiver, double...)double or (Object receiver, double...)void
+        // invoker, only if every parameter and the return type are numeric
+        private final MethodHandle numericInvoker;
+        private final IllegalAccessException accessException;
+
+        Plan(final @NotNull Method method) {
+            this.method = requireNonNull(method, "method");
+
+            final Parameter[] parameters = method.getParameters();
+            final Type[] genericParameterTypes = method.getGenericParameterTypes();
+            this.parameters = new ParameterPlan[parameters.length];
+            boolean numeric = parameters.length <= MAX_NUMERIC_ARITY && isNumeric(method.getReturnType(), true);
+            for (int i = 0; i < parameters.length; i++) {
+                final ParameterPlan plan = ParameterPlan.of(method, parameters[i], genericParameterTypes[i], i == parameters.length - 1);
+                this.parameters[i] = plan;
+                numeric &= plan.kind == ParameterKind.ARGUMENT && isNumeric(plan.type, false);
+            }
+
+            MethodHandle handle;
+            IllegalAccessException accessException = null;
+            try {
+                handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+            } catch (final IllegalAccessException e) {
+                // same as Method.invoke, fail when called
+                handle = null;
+                accessException = e;
+            }
+            this.accessException = accessException;
+
+            if (handle != null && Modifier.isStatic(method.getModifiers())) {
+                // take (and ignore) a receiver, like instance methods
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+
+            if (handle == null) {
+                this.invoker = null;
+                this.numericInvoker = null;
+            } else {
+                this.invoker = handle
+                        .asSpreader(Object[].class, parameters.length)
+                        .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+                if (numeric) {
+                    final Class<?>[] doubles = new Class<?>[parameters.length + 1];
+                    Arrays.fill(doubles, double.class);
+                    doubles[0] = Object.class;
+                    final Class<?> returnType = method.getReturnType() == void.class ? void.class : double.class;
+                    this.numericInvoker = MethodHandles.explicitCastArguments(handle, MethodType.methodType(returnType, doubles));
+                } else {
+                    this.numericInvoker = null;
                 }
-                value = ArrayValue.of(varArgsValues.toArray(size -> (Value[]) Array.newInstance(componentType, size)));
+            }
+        }
+
+        @NotNull Method method() {
+            return method;
+        }
+    }
+
+    private enum ParameterKind {
+        ARGUMENT,
+        VARARGS,
+        LAZY_CONTEXT,
+        LAZY_ARGUMENT,
+        CONTEXT,
+        ENTITY
+    }
+
+    /**
+     * Precomputed information on how to obtain the value for a
+     * method parameter.
+     */
+    private static final class ParameterPlan {
+        private final ParameterKind kind;
+        private final Class<?> type;
+        private final Conversion conversion;
+        private final Object nullValue;
+
+        private ParameterPlan(final @NotNull ParameterKind kind, final @NotNull Class<?> type) {
+            this.kind = kind;
+            this.type = type;
+            this.conversion = Conversion.of(type);
+            this.nullValue = JavaTypes.getNullValueForType(type);
+        }
+
+        static @NotNull ParameterPlan of(final @NotNull Method method, final @NotNull Parameter parameter, final @NotNull Type genericParameterType, final boolean last) {
+            final Class<?> parameterType = parameter.getType();
+            if (last && method.isVarArgs()) {
+                return new ParameterPlan(ParameterKind.VARARGS, parameterType);
             } else if (parameterType == Lazy.class) {
                 // use the Lazy<T> argument as type, and pass the argument
-                final Type genericParameterType = genericParameterTypes[i];
                 if (!(genericParameterType instanceof ParameterizedType)) {
                     throw new IllegalArgumentException(
                             "Lazy<T> parameter must be a parameterized type."
                     );
                 }
-                parameterType = (Class<?>) ((ParameterizedType) genericParameterType)
+                final Class<?> argumentType = (Class<?>) ((ParameterizedType) genericParameterType)
                         .getActualTypeArguments()[0];
-                if (parameterType == ExecutionContext.class) {
-                    value = new JavaValue((Lazy<ExecutionContext<T>>) () -> context);
-                } else {
-                    final Class<?> argumentType = parameterType;
+                return new ParameterPlan(argumentType == ExecutionContext.class
+                        ? ParameterKind.LAZY_CONTEXT
+                        : ParameterKind.LAZY_ARGUMENT, argumentType);
+            } else if (parameterType == ExecutionContext.class) {
+                return new ParameterPlan(ParameterKind.CONTEXT, parameterType);
+            } else if (parameter.isAnnotationPresent(Entity.class)) {
+                return new ParameterPlan(ParameterKind.ENTITY, parameterType);
+            } else {
+                return new ParameterPlan(ParameterKind.ARGUMENT, parameterType);
+            }
+        }
+
+        @Nullable Object value(final @NotNull ExecutionContext<?> context, final @NotNull Arguments arguments) {
+            final Value value;
+            switch (kind) {
+                case VARARGS: {
+                    final Class<?> componentType = type.getComponentType();
+                    final List<Value> varArgsValues = new ArrayList<>();
+                    while (true) {
+                        final Argument argument = arguments.next();
+                        if (argument.expression() == null) {
+                            break;
+                        }
+                        final Value object = argument.eval();
+                        if (componentType.isInstance(object)) {
+                            varArgsValues.add(object);
+                        } else {
+                            varArgsValues.add(null);
+                        }
+                    }
+                    value = ArrayValue.of(varArgsValues.toArray(size -> (Value[]) Array.newInstance(componentType, size)));
+                    break;
+                }
+                case LAZY_CONTEXT:
+                    value = new JavaValue((Lazy<ExecutionContext<?>>) () -> context);
+                    break;
+                case LAZY_ARGUMENT: {
+                    final Class<?> argumentType = type;
                     final Argument argument = arguments.next();
                     value = new JavaValue((Lazy<?>) () -> {
                         final Object object = argument.eval();
@@ -131,29 +344,79 @@ final class ReflectiveFunction<T> implements Function<T> {
                             return null;
                         }
                     });
+                    break;
                 }
-            } else if (parameterType == ExecutionContext.class) {
-                value = new JavaValue(context);
-            } else if (parameter.isAnnotationPresent(Entity.class)) {
-                value = new JavaValue(context.entity());
-            } else {
-                final Argument argument = arguments.next();
-                value = argument.eval();
+                case CONTEXT:
+                    value = new JavaValue(context);
+                    break;
+                case ENTITY:
+                    return context.entity();
+                default:
+                    value = arguments.next().eval();
+                    break;
             }
 
             if (value == null) {
-                values[i] = JavaTypes.getNullValueForType(parameterType);
-            } else if (parameter.isAnnotationPresent(Entity.class)) {
-                values[i] = ((JavaValue) value).value();
+                return nullValue;
             } else {
-                values[i] = JavaTypes.convert(value, parameterType);
+                return conversion.convert(value);
             }
         }
+    }
 
-        try {
-            return of(method.invoke(object, values));
-        } catch (final Exception exception) {
-            throw new RuntimeException(exception);
+    /**
+     * Conversion from a Molang value to a Java parameter type, same
+     * as {@link JavaTypes#convert(Value, Class)}, but resolved once.
+     */
+    private enum Conversion {
+        STRING,
+        DOUBLE,
+        INT,
+        FLOAT,
+        BOOLEAN,
+        LONG,
+        SHORT,
+        NONE;
+
+        static @NotNull Conversion of(final @NotNull Class<?> type) {
+            if (type == String.class) {
+                return STRING;
+            } else if (type == Double.class || type == double.class) {
+                return DOUBLE;
+            } else if (type == Integer.class || type == int.class) {
+                return INT;
+            } else if (type == Float.class || type == float.class) {
+                return FLOAT;
+            } else if (type == Boolean.class || type == boolean.class) {
+                return BOOLEAN;
+            } else if (type == Long.class || type == long.class) {
+                return LONG;
+            } else if (type == Short.class || type == short.class) {
+                return SHORT;
+            } else {
+                return NONE;
+            }
+        }
+
+        @Nullable Object convert(final @NotNull Value value) {
+            switch (this) {
+                case STRING:
+                    return value.getAsString();
+                case DOUBLE:
+                    return value.getAsNumber();
+                case INT:
+                    return (int) value.getAsNumber();
+                case FLOAT:
+                    return (float) value.getAsNumber();
+                case BOOLEAN:
+                    return value.getAsBoolean();
+                case LONG:
+                    return (long) value.getAsNumber();
+                case SHORT:
+                    return (short) value.getAsNumber();
+                default:
+                    return null;
+            }
         }
     }
 }
@@ -0,0 +1,57 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.compiled;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A compiled function that can also be evaluated for many rows
+ * at once, reading its arguments from columns (one array per
+ * parameter) and writing its results to an output array.
+ *
+ * <p>Evaluating in columns avoids the per-call overhead of
+ * evaluating the function once per row, and lets the JIT compiler
+ * unroll (and possibly vectorize) the evaluation loop.</p>
+ *
+ * <p>See {@link team.unnamed.mocha.MochaEngine#compileColumnar}</p>
+ *
+ * @since 3.1.0
+ */
+public interface MochaColumnarFunction {
+    /**
+     * Evaluates the function for the first {@code rows} rows, reading
+     * the arguments from the given {@code columns} and writing the
+     * results to {@code output}.
+     *
+     * <p>Row {@code i} is evaluated as
+     * {@code output[i] = f(columns[0][i], columns[1][i], ...)}</p>
+     *
+     * @param columns The argument columns, in the same order as the
+     *                function method parameters
+     * @param output  The output array
+     * @param rows    The amount of rows to evaluate
+     * @since 3.1.0
+     */
+    void evaluate(final double @NotNull [] @NotNull [] columns, final double @NotNull [] output, final int rows);
+}
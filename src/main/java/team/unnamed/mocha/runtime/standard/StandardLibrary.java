@@ -0,0 +1,78 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.standard;
+
+import org.jetbrains.annotations.NotNull;
+import team.unnamed.mocha.runtime.Scope;
+import team.unnamed.mocha.runtime.binding.JavaObjectBinding;
+import team.unnamed.mocha.runtime.value.ObjectValue;
+
+/**
+ * The standard library, built once and shared by every engine.
+ *
+ * <p>Standard bindings are immutable, so they are safe to share
+ * between engines and threads, creating an engine does not need
+ * to scan the standard library bindings again.</p>
+ *
+ * @since 3.1.0
+ */
+public final class StandardLibrary {
+    private StandardLibrary() {
+        throw new UnsupportedOperationException("This class cannot be instantiated");
+    }
+
+    /**
+     * Returns the shared, immutable {@code math} binding.
+     *
+     * @return The math binding
+     * @since 3.1.0
+     */
+    public static @NotNull ObjectValue math() {
+        return Holder.MATH;
+    }
+
+    /**
+     * Returns the shared, read-only scope template with the standard
+     * (immutable) bindings. Engines copy this scope, copies are cheap,
+     * since scopes are copy-on-write.
+     *
+     * <p>Note that it doesn't contain the {@code variable} binding,
+     * since it is mutable and every engine has its own.</p>
+     *
+     * @return The scope template
+     * @see Scope#builder(Scope)
+     * @since 3.1.0
+     */
+    public static @NotNull Scope scope() {
+        return Holder.SCOPE;
+    }
+
+    // lazily initialized, on first use
+    private static final class Holder {
+        static final ObjectValue MATH = JavaObjectBinding.of(MochaMath.class, null, new MochaMath());
+        static final Scope SCOPE = Scope.builder()
+                .set("math", MATH)
+                .buildFrozen();
+    }
+}
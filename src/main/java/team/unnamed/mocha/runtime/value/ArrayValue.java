@@ -23,35 +23,268 @@
  */
 package team.unnamed.mocha.runtime.value;
 
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.lang.reflect.Array;
+import java.util.AbstractList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * An array of values.
+ *
+ * <p>Arrays can also be views over Java arrays and lists (see the
+ * {@code view} methods), whose elements are only converted to values
+ * when accessed. Views reflect later changes to their backing array
+ * or list, their elements are never cached.</p>
+ */
 public final class ArrayValue implements Value {
+    private final Elements elements;
+    // the elements, only for arrays created from values, null for views
     private final Value[] values;
 
     private ArrayValue(final @NotNull Value @NotNull ... values) {
-        this.values = requireNonNull(values, "values");
+        requireNonNull(values, "values");
+        this.elements = new Elements() {
+            @Override
+            public int length() {
+                return values.length;
+            }
+
+            @Override
+            public @NotNull Value get(final int index) {
+                return values[index];
+            }
+        };
+        this.values = values;
+    }
+
+    private ArrayValue(final @NotNull Elements elements) {
+        this.elements = elements;
+        this.values = null;
     }
 
     public static @NotNull ArrayValue of(final @NotNull Value @NotNull ... values) {
         return new ArrayValue(values);
     }
 
+    /**
+     * Creates a view over the given {@code double} array.
+     *
+     * @param array The backing array
+     * @return The array value
+     * @since 3.1.0
+     */
+    public static @NotNull ArrayValue view(final double @NotNull [] array) {
+        requireNonNull(array, "array");
+        return new ArrayValue(new Elements() {
+            @Override
+            public int length() {
+                return array.length;
+            }
+
+            @Override
+            public @NotNull Value get(final int index) {
+                return NumberValue.of(array[index]);
+            }
+        });
+    }
+
+    /**
+     * Creates a view over the given {@code int} array.
+     *
+     * @param array The backing array
+     * @return The array value
+     * @since 3.1.0
+     */
+    public static @NotNull ArrayValue view(final int @NotNull [] array) {
+        requireNonNull(array, "array");
+        return new ArrayValue(new Elements() {
+            @Override
+            public int length() {
+                return array.length;
+            }
+
+            @Override
+            public @NotNull Value get(final int index) {
+                return NumberValue.of(array[index]);
+            }
+        });
+    }
+
+    /**
+     * Creates a view over the given list, its elements are converted
+     * using the given converter when accessed.
+     *
+     * <p>Accessing an element by index is as fast as it is for the list,
+     * e.g. linear for a {@link java.util.LinkedList}.</p>
+     *
+     * @param list      The backing list
+     * @param converter The element converter, e.g. {@link Value#of(Object)}
+     * @return The array value
+     * @since 3.1.0
+     */
+    public static @NotNull ArrayValue view(final @NotNull List<?> list, final java.util.function.@NotNull Function<Object, ? extends Value> converter) {
+        requireNonNull(list, "list");
+        requireNonNull(converter, "converter");
+        return new ArrayValue(new Elements() {
+            @Override
+            public int length() {
+                return list.size();
+            }
+
+            @Override
+            public @NotNull Value get(final int index) {
+                return converter.apply(list.get(index));
+            }
+
+            @Override
+            public @NotNull Value @NotNull [] toArray() {
+                if (list instanceof RandomAccess) {
+                    return Elements.super.toArray();
+                }
+                // iterate, instead of getting every index
+                final Object[] objects = list.toArray();
+                final Value[] values = new Value[objects.length];
+                for (int i = 0; i < objects.length; i++) {
+                    values[i] = converter.apply(objects[i]);
+                }
+                return values;
+            }
+        });
+    }
+
+    /**
+     * Creates a view over the given Java array, of any type, its elements
+     * are converted using the given converter when accessed (except for
+     * {@code double} and {@code int} arrays, whose elements are always
+     * converted to numbers).
+     *
+     * @param array     The backing array
+     * @param converter The element converter, e.g. {@link Value#of(Object)}
+     * @return The array value
+     * @throws IllegalArgumentException If the given object is not an array
+     * @since 3.1.0
+     */
+    public static @NotNull ArrayValue viewArray(final @NotNull Object array, final java.util.function.@NotNull Function<Object, ? extends Value> converter) {
+        requireNonNull(array, "array");
+        requireNonNull(converter, "converter");
+        if (array instanceof double[]) {
+            return view((double[]) array);
+        } else if (array instanceof int[]) {
+            return view((int[]) array);
+        } else if (array instanceof Object[]) {
+            final Object[] objects = (Object[]) array;
+            return new ArrayValue(new Elements() {
+                @Override
+                public int length() {
+                    return objects.length;
+                }
+
+                @Override
+                public @NotNull Value get(final int index) {
+                    return converter.apply(objects[index]);
+                }
+            });
+        } else if (array.getClass().isArray()) {
+            // other primitive arrays
+            return new ArrayValue(new Elements() {
+                @Override
+                public int length() {
+                    return Array.getLength(array);
+                }
+
+                @Override
+                public @NotNull Value get(final int index) {
+                    return converter.apply(Array.get(array, index));
+                }
+            });
+        } else {
+            throw new IllegalArgumentException("Not an array: " + array.getClass());
+        }
+    }
+
+    /**
+     * Gets the element at the given index of the given array value, the
+     * same way array accesses are evaluated: the index is wrapped around
+     * the array length, and negative indexes are clamped to zero.
+     *
+     * <p>Used by both the interpreter and compiled scripts.</p>
+     *
+     * @param array The array value
+     * @param index The index
+     * @return The element, or nil if the given value is not an array
+     * or is empty
+     * @since 3.1.0
+     */
+    @ApiStatus.Internal
+    public static @NotNull Value access(final @Nullable Value array, final double index) {
+        if (!(array instanceof ArrayValue)) {
+            return Value.nil();
+        }
+        final ArrayValue arrayValue = (ArrayValue) array;
+        final int length = arrayValue.length();
+        if (length == 0) {
+            return Value.nil();
+        }
+        return arrayValue.get(Math.max(0, (int) index) % length);
+    }
+
+    /**
+     * Returns the elements of this array. For views, returns a new
+     * array with the current elements, converted on every call.
+     *
+     * @return The elements
+     */
     public @NotNull Value @NotNull [] values() {
-        return values;
+        return values != null ? values : elements.toArray();
+    }
+
+    /**
+     * Returns the length of this array.
+     *
+     * @return The length
+     * @since 3.1.0
+     */
+    public int length() {
+        return elements.length();
+    }
+
+    /**
+     * Returns the element at the given index.
+     *
+     * @param index The index
+     * @return The element
+     * @throws IndexOutOfBoundsException If the index is out of bounds
+     * @since 3.1.0
+     */
+    public @NotNull Value get(final int index) {
+        return elements.get(index);
     }
 
     public @NotNull Value get(final Value index) {
-        return values[(int) index.getAsNumber()];
+        return get((int) index.getAsNumber());
+    }
+
+    /**
+     * Returns a list view of this array, elements of views are
+     * converted when accessed.
+     *
+     * @return The list view
+     * @since 3.1.0
+     */
+    public @NotNull List<Value> asList() {
+        return new ElementList();
     }
 
     @Override
     public @NotNull String toString() {
-        return "ArrayValue[" + Arrays.toString(values) + "]";
+        return "ArrayValue[" + Arrays.toString(values()) + "]";
     }
 
     @Override
@@ -59,11 +292,38 @@ public final class ArrayValue implements Value {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         final ArrayValue that = (ArrayValue) o;
-        return Arrays.equals(values, that.values);
+        return Arrays.equals(values(), that.values());
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(values);
+        return Arrays.hashCode(values());
+    }
+
+    private interface Elements {
+        int length();
+
+        @NotNull Value get(final int index);
+
+        default @NotNull Value @NotNull [] toArray() {
+            final int length = length();
+            final Value[] values = new Value[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = get(i);
+            }
+            return values;
+        }
+    }
+
+    private final class ElementList extends AbstractList<Value> implements RandomAccess {
+        @Override
+        public Value get(final int index) {
+            return ArrayValue.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return length();
+        }
     }
 }
@@ -21,13 +21,21 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-package team.unnamed.mocha.runtime.value;
+package team.unnamed.mocha.runtime.value;
 
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.util.CaseInsensitivePerfectHashMap;
 import team.unnamed.mocha.util.CaseInsensitiveStringHashMap;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static java.util.Objects.requireNonNull;
 
@@ -36,14 +44,50 @@ import static java.util.Objects.requireNonNull;
  * these objects can have properties
  * (or fields) that can be read and
  * sometimes written
+ *
+ * <p>Object bindings are safe to read and
+ * write from many threads at once, e.g. the
+ * shared {@code variable} binding</p>
+ *
+ * <p>Property values are stored in slots, and
+ * objects with the same property names, added
+ * in the same order, share the shape that maps
+ * names to slots, so that accesses can be cached
+ * by the interpreter, see {@link PropertyCache}</p>
  */
 public class MutableObjectBinding implements ObjectValue {
-    private final Map<String, ObjectProperty> properties = new CaseInsensitiveStringHashMap<>();
-    private boolean blocked = false;
+    private static final AtomicReferenceArray<Value> NO_VALUES = new AtomicReferenceArray<>(0);
+
+    private final Object writeLock = new Object();
+    // always written before the shape, and read after it, so
+    // the values array is never shorter than the shape
+    private volatile AtomicReferenceArray<Value> values = NO_VALUES;
+    // used instead of the values when the shape is Shape.DICTIONARY,
+    // also written before the shape
+    private volatile Map<String, Value> dictionary;
+    private volatile Shape shape = Shape.ROOT;
+    private volatile boolean blocked = false;
 
     @Override
     public @Nullable ObjectProperty getProperty(final @NotNull String name) {
-        return properties.get(name);
+        final Value value = get0(name);
+        return value == null ? null : ObjectProperty.property(value, false);
+    }
+
+    @Override
+    public @NotNull Value get(final @NotNull String name) {
+        // same as getProperty(name).value(), without creating the property
+        final Value value = get0(name);
+        return value == null ? Value.nil() : value;
+    }
+
+    private @Nullable Value get0(final @NotNull String name) {
+        final Shape shape = this.shape;
+        if (shape == Shape.DICTIONARY) {
+            return dictionary.get(name.toLowerCase());
+        }
+        final int slot = shape.slot(name);
+        return slot == -1 ? null : values.get(slot);
     }
 
     /**
@@ -56,10 +100,43 @@ public class MutableObjectBinding implements ObjectValue {
         if (blocked) {
             return false;
         }
-        if (value == null) {
-            properties.remove(name);
-        } else {
-            properties.put(name, ObjectProperty.property(value, false));
+        synchronized (writeLock) {
+            final Shape shape = this.shape;
+            if (shape == Shape.DICTIONARY) {
+                if (value == null) {
+                    dictionary.remove(name.toLowerCase());
+                } else {
+                    dictionary.put(name.toLowerCase(), value);
+                }
+                return true;
+            }
+            final int slot = shape.slot(name);
+            if (slot != -1) {
+                // removed properties keep their (empty) slot
+                values.set(slot, value);
+            } else if (value != null && shape.names.length >= Shape.MAX_SIZE) {
+                // too many properties, switch to a plain hash map
+                final Map<String, Value> dictionary = new ConcurrentHashMap<>();
+                for (int i = 0; i < shape.names.length; i++) {
+                    final Value current = values.get(i);
+                    if (current != null) {
+                        dictionary.put(shape.names[i], current);
+                    }
+                }
+                dictionary.put(name.toLowerCase(), value);
+                this.dictionary = dictionary;
+                this.shape = Shape.DICTIONARY;
+            } else if (value != null) {
+                final Shape next = shape.with(name);
+                final AtomicReferenceArray<Value> current = values;
+                final AtomicReferenceArray<Value> grown = new AtomicReferenceArray<>(next.names.length);
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                grown.set(next.names.length - 1, value);
+                this.values = grown;
+                this.shape = next;
+            }
         }
         return true;
     }
@@ -69,7 +146,20 @@ public class MutableObjectBinding implements ObjectValue {
         if (blocked) {
             throw new IllegalStateException("This object binding has been blocked!");
         }
-        this.properties.putAll(binding.properties);
+        final Shape shape = binding.shape;
+        if (shape == Shape.DICTIONARY) {
+            for (final Map.Entry<String, Value> entry : binding.dictionary.entrySet()) {
+                set(entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+        final AtomicReferenceArray<Value> values = binding.values;
+        for (int i = 0; i < shape.names.length; i++) {
+            final Value value = values.get(i);
+            if (value != null) {
+                set(shape.names[i], value);
+            }
+        }
     }
 
     public boolean blocked() {
@@ -83,4 +173,194 @@ public class MutableObjectBinding implements ObjectValue {
         blocked = true;
     }
 
+    /**
+     * The layout of a {@link MutableObjectBinding}, maps its property
+     * names to slot indexes. Shapes are immutable and shared: adding a
+     * property to an object transitions it to the shape with the added
+     * name, which is created only once while it is in use.
+     *
+     * <p>Shapes only reference the shapes they transition to weakly, so
+     * that shapes for property names no longer used by any object (or
+     * cache) are collected, instead of growing the shared tree forever.</p>
+     */
+    private static final class Shape {
+        // the transitions whose target shape was collected
+        private static final ReferenceQueue<Shape> COLLECTED = new ReferenceQueue<>();
+
+        static final Shape ROOT = new Shape(new String[0]);
+
+        /**
+         * The shape of objects in "dictionary mode", which keep their
+         * properties in a plain hash map, it has no slots.
+         */
+        static final Shape DICTIONARY = new Shape(new String[0]);
+
+        /**
+         * Objects with more properties than this switch to dictionary
+         * mode, so that objects used as growing maps don't create (and
+         * hash) a new shape per property, and don't make the shared
+         * shape tree deeper than this.
+         */
+        static final int MAX_SIZE = 64;
+
+        private final String[] names;
+        private final CaseInsensitivePerfectHashMap<Integer> slots;
+        private final Map<String, Transition> transitions = new ConcurrentHashMap<>();
+
+        private Shape(final @NotNull String @NotNull [] names) {
+            this.names = names;
+            final Map<String, Integer> slots = new CaseInsensitiveStringHashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                slots.put(names[i], i);
+            }
+            this.slots = CaseInsensitivePerfectHashMap.copyOf(slots);
+        }
+
+        int slot(final @NotNull String name) {
+            final Integer slot = slots.get(name);
+            return slot == null ? -1 : slot;
+        }
+
+        @NotNull Shape with(final @NotNull String name) {
+            final String key = name.toLowerCase();
+            while (true) {
+                final Transition transition = transitions.get(key);
+                final Shape existing = transition == null ? null : transition.get();
+                if (existing != null) {
+                    return existing;
+                }
+
+                expungeCollected();
+                final String[] names = Arrays.copyOf(this.names, this.names.length + 1);
+                names[names.length - 1] = key;
+                final Shape created = new Shape(names);
+                final Transition createdTransition = new Transition(created, transitions, key);
+                if (transition == null
+                        ? transitions.putIfAbsent(key, createdTransition) == null
+                        : transitions.replace(key, transition, createdTransition)) {
+                    return created;
+                }
+                // another thread added the transition, use its shape
+            }
+        }
+
+        private static void expungeCollected() {
+            Reference<? extends Shape> reference;
+            while ((reference = COLLECTED.poll()) != null) {
+                final Transition transition = (Transition) reference;
+                transition.owner.remove(transition.key, transition);
+            }
+        }
+    }
+
+    /**
+     * A weak reference to the shape that adding a property transitions
+     * to, removed from its owner once the shape is collected.
+     */
+    private static final class Transition extends WeakReference<Shape> {
+        private final Map<String, Transition> owner;
+        private final String key;
+
+        Transition(final @NotNull Shape shape, final @NotNull Map<String, Transition> owner, final @NotNull String key) {
+            super(shape, Shape.COLLECTED);
+            this.owner = owner;
+            this.key = key;
+        }
+    }
+
+    /**
+     * An inline cache for a property access site, e.g. {@code v.x}.
+     * Remembers the slot of the property for the last seen shape, so
+     * that accessing the property of objects with the same shape is
+     * just a shape check and an array read.
+     *
+     * <p>Caches are safe to share between threads.</p>
+     *
+     * @since 3.1.0
+     */
+    @ApiStatus.Internal
+    public static final class PropertyCache {
+        private final String name;
+        private volatile CachedSlot cached;
+
+        public PropertyCache(final @NotNull String name) {
+            this.name = requireNonNull(name, "name");
+        }
+
+        public @NotNull String name() {
+            return name;
+        }
+
+        /**
+         * Gets the value of the cached property, same as
+         * {@code object.get(name)}.
+         *
+         * @param object The object
+         * @return The property value
+         */
+        public @NotNull Value get(final @NotNull MutableObjectBinding object) {
+            if (object.getClass() != MutableObjectBinding.class) {
+                // subclasses may override get, don't assume the layout
+                return object.get(name);
+            }
+            final Shape shape = object.shape;
+            final CachedSlot cached = this.cached;
+            final int slot;
+            if (cached != null && cached.shape == shape) {
+                slot = cached.slot;
+            } else {
+                slot = shape.slot(name);
+                if (slot == -1) {
+                    // not found, or the object is in dictionary mode
+                    return object.get(name);
+                }
+                this.cached = new CachedSlot(shape, slot);
+            }
+            final Value value = object.values.get(slot);
+            return value == null ? Value.nil() : value;
+        }
+
+        /**
+         * Sets the value of the cached property, same as
+         * {@code object.set(name, value)}.
+         *
+         * @param object The object
+         * @param value  The property value
+         * @return True if the property was set
+         */
+        public boolean set(final @NotNull MutableObjectBinding object, final @Nullable Value value) {
+            if (object.getClass() != MutableObjectBinding.class) {
+                return object.set(name, value);
+            }
+            if (object.blocked) {
+                return false;
+            }
+            final CachedSlot cached = this.cached;
+            if (cached != null) {
+                synchronized (object.writeLock) {
+                    if (cached.shape == object.shape) {
+                        object.values.set(cached.slot, value);
+                        return true;
+                    }
+                }
+            }
+            object.set(name, value);
+            final Shape shape = object.shape;
+            final int slot = shape.slot(name);
+            if (slot != -1) {
+                this.cached = new CachedSlot(shape, slot);
+            }
+            return true;
+        }
+    }
+
+    private static final class CachedSlot {
+        private final Shape shape;
+        private final int slot;
+
+        CachedSlot(final @NotNull Shape shape, final int slot) {
+            this.shape = shape;
+            this.slot = slot;
+        }
+    }
 }
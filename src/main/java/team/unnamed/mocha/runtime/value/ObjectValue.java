@@ -25,6 +25,7 @@ package team.unnamed.mocha.runtime.value;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import team.unnamed.mocha.runtime.binding.NativeFunction;
 
 import java.util.Collections;
 import java.util.Map;
@@ -67,16 +68,68 @@ public interface ObjectValue extends Value {
     }
 
     // :) overloads
+    default void setFunction(final @NotNull String name, final @NotNull DoubleFunction0 function) {
+        setFunction(name, function, false);
+    }
+
     default void setFunction(final @NotNull String name, final @NotNull DoubleFunction1 function) {
-        set(name, (Function<?>) (ctx, args) -> NumberValue.of(function.apply(args.next().eval().getAsNumber())));
+        setFunction(name, function, false);
     }
 
     default void setFunction(final @NotNull String name, final @NotNull DoubleFunction2 function) {
-        set(name, (Function<?>) (ctx, args) -> NumberValue.of(function.apply(args.next().eval().getAsNumber(), args.next().eval().getAsNumber())));
+        setFunction(name, function, false);
     }
 
     default void setFunction(final @NotNull String name, final @NotNull DoubleFunction3 function) {
-        set(name, (Function<?>) (ctx, args) -> NumberValue.of(function.apply(args.next().eval().getAsNumber(), args.next().eval().getAsNumber(), args.next().eval().getAsNumber())));
+        setFunction(name, function, false);
+    }
+
+    default void setFunction(final @NotNull String name, final @NotNull DoubleFunction4 function) {
+        setFunction(name, function, false);
+    }
+
+    default void setFunction(final @NotNull String name, final @NotNull DoubleFunction0 function, final boolean pure) {
+        setFunction(name, DoubleFunction0.class, function, pure);
+    }
+
+    default void setFunction(final @NotNull String name, final @NotNull DoubleFunction1 function, final boolean pure) {
+        setFunction(name, DoubleFunction1.class, function, pure);
+    }
+
+    default void setFunction(final @NotNull String name, final @NotNull DoubleFunction2 function, final boolean pure) {
+        setFunction(name, DoubleFunction2.class, function, pure);
+    }
+
+    default void setFunction(final @NotNull String name, final @NotNull DoubleFunction3 function, final boolean pure) {
+        setFunction(name, DoubleFunction3.class, function, pure);
+    }
+
+    default void setFunction(final @NotNull String name, final @NotNull DoubleFunction4 function, final boolean pure) {
+        setFunction(name, DoubleFunction4.class, function, pure);
+    }
+
+    /**
+     * Sets a function implemented by the given functional interface
+     * instance, keeping its signature, so that compiled scripts can
+     * call it directly.
+     *
+     * <p>The functional interface must be public, and its method may
+     * only take {@code double}, {@code int} and {@code boolean} parameters,
+     * and return one of those types or {@code void}.</p>
+     *
+     * @param name     The function name
+     * @param type     The functional interface type
+     * @param function The functional interface instance
+     * @param pure     Whether the function is pure, see {@link Function#pure()}
+     * @param <F>      The functional interface type
+     * @since 3.1.0
+     */
+    default <F> void setFunction(final @NotNull String name, final @NotNull Class<F> type, final @NotNull F function, final boolean pure) {
+        set(name, NativeFunction.of(type, function, pure));
+    }
+
+    interface DoubleFunction0 {
+        double apply();
     }
 
     interface DoubleFunction1 {
@@ -90,4 +143,8 @@ public interface ObjectValue extends Value {
     interface DoubleFunction3 {
         double apply(double n1, double n2, double n3);
     }
+
+    interface DoubleFunction4 {
+        double apply(double n1, double n2, double n3, double n4);
+    }
 }
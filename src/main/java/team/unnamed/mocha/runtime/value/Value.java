@@ -27,7 +27,7 @@ import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.Array;
+import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
 
@@ -44,13 +44,10 @@ public /* sealed */ interface Value /* permits Function, ObjectValue, ArrayValue
             return (Boolean) any ? NumberValue.of(1D) : NumberValue.zero();
         } else {
             if (any != null && any.getClass().isArray()) {
-                // array types
-                final int length = Array.getLength(any);
-                final Value[] values = new Value[length];
-                for (int i = 0; i < length; i++) {
-                    values[i] = of(Array.get(any, i));
-                }
-                return ArrayValue.of(values);
+                // array types, elements are converted on access
+                return ArrayValue.viewArray(any, Value::of);
+            } else if (any instanceof List) {
+                return ArrayValue.view((List<?>) any, Value::of);
             } else {
                 return NumberValue.zero();
             }
@@ -87,7 +84,7 @@ public /* sealed */ interface Value /* permits Function, ObjectValue, ArrayValue
         } else if (this instanceof StringValue) {
             return !((StringValue) this).value().isEmpty();
         } else if (this instanceof ArrayValue) {
-            return ((ArrayValue) this).values().length != 0;
+            return ((ArrayValue) this).length() != 0;
         } else if (this instanceof ObjectValue) {
             return !((ObjectValue) this).entries().isEmpty();
         } else {
@@ -105,9 +102,8 @@ public /* sealed */ interface Value /* permits Function, ObjectValue, ArrayValue
         } else if (this instanceof NumberValue) {
             return Double.toString(((NumberValue) this).value());
         } else if (this instanceof ArrayValue) {
-            final Value[] values = ((ArrayValue) this).values();
             final StringJoiner joiner = new StringJoiner(", ", "[", "]");
-            for (final Value value : values) {
+            for (final Value value : ((ArrayValue) this).asList()) {
                 joiner.add(value.getAsString());
             }
             return joiner.toString();
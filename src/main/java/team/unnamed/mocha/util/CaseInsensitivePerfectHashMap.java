@@ -0,0 +1,263 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An immutable {@link Map} that uses case-insensitive {@link String}s
+ * as keys, with a minimal perfect hash precomputed over its keys, so
+ * that a lookup is just a couple of array reads and a single key
+ * comparison, and doesn't allocate.
+ *
+ * <p>The hash is built with the "hash, displace" technique: keys are
+ * grouped in buckets, and every bucket stores the seed that places its
+ * keys in free slots of the table.</p>
+ *
+ * <p>Like {@link CaseInsensitiveStringHashMap}, listing keys will return
+ * all the keys in lowercase. Instances are safe to share between
+ * threads.</p>
+ *
+ * @param <V> The value type
+ * @since 3.1.0
+ */
+public final class CaseInsensitivePerfectHashMap<V> extends AbstractMap<String, V> {
+    private static final CaseInsensitivePerfectHashMap<?> EMPTY = new CaseInsensitivePerfectHashMap<>(
+            new int[0], new String[0], new Object[0]);
+
+    private final int[] seeds;
+    private final String[] keys;
+    private final Object[] values;
+    private Set<Map.Entry<String, V>> entrySet;
+
+    private CaseInsensitivePerfectHashMap(final int @NotNull [] seeds, final @NotNull String @NotNull [] keys, final @Nullable Object @NotNull [] values) {
+        this.seeds = seeds;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Creates an immutable case-insensitive map with the entries of the
+     * given map. If the given map contains keys that only differ in their
+     * case, only one of them is kept.
+     *
+     * @param map The map to copy
+     * @param <V> The value type
+     * @return The created map
+     * @since 3.1.0
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> @NotNull CaseInsensitivePerfectHashMap<V> copyOf(final @NotNull Map<String, ? extends V> map) {
+        requireNonNull(map, "map");
+        if (map instanceof CaseInsensitivePerfectHashMap) {
+            return (CaseInsensitivePerfectHashMap<V>) map;
+        }
+
+        final Map<String, ? extends V> lowercased = new CaseInsensitiveStringHashMap<>(map);
+        final int size = lowercased.size();
+        if (size == 0) {
+            return (CaseInsensitivePerfectHashMap<V>) EMPTY;
+        }
+
+        final String[] entryKeys = new String[size];
+        final Object[] entryValues = new Object[size];
+        final long[] hashes = new long[size];
+        int index = 0;
+        for (final Map.Entry<String, ? extends V> entry : lowercased.entrySet()) {
+            entryKeys[index] = entry.getKey();
+            entryValues[index] = entry.getValue();
+            hashes[index] = hash(entry.getKey());
+            index++;
+        }
+
+        // group the entries by bucket, one bucket per entry (on average)
+        final int bucketCount = size;
+        final int[][] buckets = new int[bucketCount][];
+        final int[] bucketSizes = new int[bucketCount];
+        for (int i = 0; i < size; i++) {
+            bucketSizes[bucket(hashes[i], bucketCount)]++;
+        }
+        for (int b = 0; b < bucketCount; b++) {
+            buckets[b] = new int[bucketSizes[b]];
+            bucketSizes[b] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            final int b = bucket(hashes[i], bucketCount);
+            buckets[b][bucketSizes[b]++] = i;
+        }
+
+        // place the biggest buckets first, while most slots are free
+        final Integer[] order = new Integer[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            order[b] = b;
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer b) -> buckets[b].length).reversed());
+
+        final int[] seeds = new int[bucketCount];
+        final String[] keys = new String[size];
+        final Object[] values = new Object[size];
+        final boolean[] used = new boolean[size];
+        final int[] slots = new int[size];
+        final int maxAttempts = Math.max(1 << 16, size * 64);
+
+        for (final int b : order) {
+            final int[] bucket = buckets[b];
+            if (bucket.length == 0) {
+                break;
+            }
+            int seed = 0;
+            while (!place(bucket, hashes, seed, used, slots)) {
+                if (++seed == maxAttempts) {
+                    throw new IllegalArgumentException("Couldn't compute a perfect hash for keys " + lowercased.keySet());
+                }
+            }
+            seeds[b] = seed;
+            for (int i = 0; i < bucket.length; i++) {
+                keys[slots[i]] = entryKeys[bucket[i]];
+                values[slots[i]] = entryValues[bucket[i]];
+            }
+        }
+
+        return new CaseInsensitivePerfectHashMap<>(seeds, keys, values);
+    }
+
+    private static boolean place(final int @NotNull [] bucket, final long @NotNull [] hashes, final int seed, final boolean @NotNull [] used, final int @NotNull [] slots) {
+        for (int i = 0; i < bucket.length; i++) {
+            final int slot = slot(hashes[bucket[i]], seed, used.length);
+            if (used[slot]) {
+                // free the slots taken by this attempt
+                for (int j = 0; j < i; j++) {
+                    used[slots[j]] = false;
+                }
+                return false;
+            }
+            used[slot] = true;
+            slots[i] = slot;
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the given key ignoring its case, consistently with
+     * {@link String#equalsIgnoreCase(String)}, without allocating.
+     */
+    private static long hash(final @NotNull String key) {
+        // FNV-1a, 64 bits
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0, length = key.length(); i < length; i++) {
+            hash ^= Character.toLowerCase(Character.toUpperCase(key.charAt(i)));
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static int bucket(final long hash, final int bucketCount) {
+        return (int) ((hash >>> 1) % bucketCount);
+    }
+
+    private static int slot(final long hash, final int seed, final int size) {
+        // murmur3 finalizer, over the hash displaced by the seed
+        long h = hash + seed * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) ((h >>> 1) % size);
+    }
+
+    private int indexOf(final @Nullable Object key) {
+        if (!(key instanceof String) || keys.length == 0) {
+            return -1;
+        }
+        final String name = (String) key;
+        final long hash = hash(name);
+        final int slot = slot(hash, seeds[bucket(hash, seeds.length)], keys.length);
+        return keys[slot].equalsIgnoreCase(name) ? slot : -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(final @Nullable Object key) {
+        final int index = indexOf(key);
+        return index == -1 ? null : (V) values[index];
+    }
+
+    @Override
+    public boolean containsKey(final @Nullable Object key) {
+        return indexOf(key) != -1;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public @NotNull Set<Map.Entry<String, V>> entrySet() {
+        Set<Map.Entry<String, V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, V>> {
+        @Override
+        public @NotNull Iterator<Map.Entry<String, V>> iterator() {
+            return new Iterator<Map.Entry<String, V>>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < keys.length;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public Map.Entry<String, V> next() {
+                    if (index >= keys.length) {
+                        throw new NoSuchElementException();
+                    }
+                    final int i = index++;
+                    return new AbstractMap.SimpleImmutableEntry<>(keys[i], (V) values[i]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+    }
+}
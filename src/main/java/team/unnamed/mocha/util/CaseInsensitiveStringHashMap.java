@@ -63,7 +63,8 @@ public class CaseInsensitiveStringHashMap<V> extends HashMap<String, V> {
     }
 
     public CaseInsensitiveStringHashMap(Map<String, ? extends V> m) {
-        super(lowercaseMap(m));
+        // keys of other case-insensitive maps are already lowercase
+        super(m instanceof CaseInsensitiveStringHashMap ? m : lowercaseMap(m));
     }
 
     private static <T> T lowercase(T key) {
@@ -39,6 +39,16 @@ import static java.util.Objects.requireNonNull;
 public class JavassistUtil {
 
     private static final Set<String> WRAPPER_TYPE_NAMES = new HashSet<>();
+    private static final CtClass[] PRIMITIVE_TYPES = {
+            CtClass.booleanType,
+            CtClass.byteType,
+            CtClass.charType,
+            CtClass.shortType,
+            CtClass.intType,
+            CtClass.longType,
+            CtClass.floatType,
+            CtClass.doubleType
+    };
 
     static {
         WRAPPER_TYPE_NAMES.add(Boolean.class.getName());
@@ -69,6 +79,16 @@ public class JavassistUtil {
         return type.isPrimitive() || isWrapper(type);
     }
 
+    public static @NotNull CtClass getPrimitiveType(final @NotNull CtClass wrapperType) {
+        requireNonNull(wrapperType, "wrapperType");
+        for (final CtClass primitiveType : PRIMITIVE_TYPES) {
+            if (((CtPrimitiveType) primitiveType).getWrapperName().equals(wrapperType.getName())) {
+                return primitiveType;
+            }
+        }
+        throw new IllegalArgumentException("Not a wrapper type: " + wrapperType.getName());
+    }
+
     public static void addCast(final @NotNull Bytecode bytecode, final @NotNull CtClass from, final @NotNull CtClass to) {
         requireNonNull(bytecode, "bytecode");
         requireNonNull(from, "from");
@@ -153,10 +173,10 @@ public class JavassistUtil {
             // Requires us to perform some extra logic, checking if the int is 0
             // and pushing 0 or 1 depending on the result
             bytecode.addOpcode(Bytecode.IFEQ); // if int is 0...
-            bytecode.addIndex(6);              // ...jump to push 0 (A)
+            bytecode.addIndex(7);              // ...jump to push 0 (A)
             bytecode.addIconst(1);          // int is not 0, push 1
             bytecode.addOpcode(Bytecode.GOTO); // ...jump
-            bytecode.addIndex(3);              // ...to end (skips A)
+            bytecode.addIndex(4);              // ...to end (skips A)
             bytecode.addIconst(0);          // (A) push 0
         } else if (to.equals(CtClass.shortType)) {
             // Convert int to short
@@ -211,11 +231,17 @@ public class JavassistUtil {
             bytecode.addOpcode(Bytecode.D2F);
         } else if (to.equals(CtClass.voidType)) {
             throw new IllegalArgumentException("Cannot cast double to void");
+        } else if (to.equals(CtClass.booleanType)) {
+            // Convert double to boolean
+            // Compares it with zero, any non-zero value is true
+            bytecode.addOpcode(Bytecode.DCONST_0);
+            bytecode.addOpcode(Bytecode.DCMPL);
+            addCastIntTo(bytecode, CtClass.booleanType);
         } else {
             // Convert to an int and try to cast it to the target type
             bytecode.addOpcode(Bytecode.D2I);
             try {
-                addCastIntTo(bytecode, CtClass.intType);
+                addCastIntTo(bytecode, to);
             } catch (final TypeCastException e) {
                 // correct message
                 throw new TypeCastException("Cannot cast double to unknown type: " + to.getName());
@@ -246,11 +272,17 @@ public class JavassistUtil {
             bytecode.addOpcode(Bytecode.L2F);
         } else if (to.equals(CtClass.voidType)) {
             throw new IllegalArgumentException("Cannot cast long to void");
+        } else if (to.equals(CtClass.booleanType)) {
+            // Convert long to boolean
+            // Compares it with zero, any non-zero value is true
+            bytecode.addOpcode(Bytecode.LCONST_0);
+            bytecode.addOpcode(Bytecode.LCMP);
+            addCastIntTo(bytecode, CtClass.booleanType);
         } else {
             // Convert to an int and try to cast it to the target type
             bytecode.addOpcode(Bytecode.L2I);
             try {
-                addCastIntTo(bytecode, CtClass.intType);
+                addCastIntTo(bytecode, to);
             } catch (final TypeCastException e) {
                 // correct message
                 throw new TypeCastException("Cannot cast long to unknown type: " + to.getName());
@@ -281,11 +313,17 @@ public class JavassistUtil {
             bytecode.addOpcode(Bytecode.F2L);
         } else if (to.equals(CtClass.voidType)) {
             throw new IllegalArgumentException("Cannot cast float to void");
+        } else if (to.equals(CtClass.booleanType)) {
+            // Convert float to boolean
+            // Compares it with zero, any non-zero value is true
+            bytecode.addOpcode(Bytecode.FCONST_0);
+            bytecode.addOpcode(Bytecode.FCMPL);
+            addCastIntTo(bytecode, CtClass.booleanType);
         } else {
             // Convert to an int and try to cast it to the target type
             bytecode.addOpcode(Bytecode.F2I);
             try {
-                addCastIntTo(bytecode, CtClass.intType);
+                addCastIntTo(bytecode, to);
             } catch (final TypeCastException e) {
                 // correct message
                 throw new TypeCastException("Cannot cast float to unknown type: " + to.getName());
@@ -93,7 +93,12 @@ public final class MochaAssertions {
     }
 
     public static void assertEvaluatesAndCompiles(final double expected, final @NotNull String expr) {
-        final MochaEngine<?> engine = MochaEngine.createStandard();
+        assertEvaluatesAndCompiles(expected, expr, engine -> engine);
+    }
+
+    public static void assertEvaluatesAndCompiles(final double expected, final @NotNull String expr, final @NotNull UnaryOperator<MochaEngine<?>> configurer) {
+        MochaEngine<?> engine = MochaEngine.createStandard();
+        engine = configurer.apply(engine);
         final double result = engine.eval(expr);
         assertEquals(expected, result, 0.0001, () -> "(Interpreted) expression: '" + expr + "' evaluated to " + result + ", expected " + expected);
 
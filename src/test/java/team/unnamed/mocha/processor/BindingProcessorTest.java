@@ -0,0 +1,171 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.processor;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.binding.BindingGlue;
+import team.unnamed.mocha.runtime.binding.JavaFunction;
+import team.unnamed.mocha.runtime.binding.JavaObjectBinding;
+import team.unnamed.mocha.runtime.value.ObjectValue;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BindingProcessorTest {
+    private static final String SOURCE = "package example;\n"
+            + "\n"
+            + "import team.unnamed.mocha.runtime.binding.BindExternalFunction;\n"
+            + "import team.unnamed.mocha.runtime.binding.Binding;\n"
+            + "import team.unnamed.mocha.runtime.binding.Entity;\n"
+            + "\n"
+            + "@Binding(\"q\")\n"
+            + "@BindExternalFunction(at = Math.class, name = \"abs\", args = {double.class}, pure = true)\n"
+            + "@BindExternalFunction(at = Math.class, name = \"max\", args = {double.class, double.class}, as = \"largest\", pure = true)\n"
+            + "public class Query {\n"
+            + "    @Binding(\"gravity\")\n"
+            + "    public static final double GRAVITY = 9.8;\n"
+            + "\n"
+            + "    @Binding({\"health\", \"hp\"})\n"
+            + "    public int health = 20;\n"
+            + "\n"
+            + "    @Binding(\"alive\")\n"
+            + "    boolean alive = true;\n"
+            + "\n"
+            + "    @Binding(\"name\")\n"
+            + "    public String name = \"steve\";\n"
+            + "\n"
+            + "    @Binding(\"secret\")\n"
+            + "    private double secret = 5;\n"
+            + "\n"
+            + "    @Binding(value = \"twice\", pure = true)\n"
+            + "    public static double twice(double value) {\n"
+            + "        return value * 2;\n"
+            + "    }\n"
+            + "\n"
+            + "    @Binding(\"damage\")\n"
+            + "    public void damage(int amount) {\n"
+            + "        health -= amount;\n"
+            + "    }\n"
+            + "\n"
+            + "    @Binding(\"is_named\")\n"
+            + "    public boolean isNamed(String name) {\n"
+            + "        return this.name.equals(name);\n"
+            + "    }\n"
+            + "\n"
+            + "    @Binding(\"count\")\n"
+            + "    public double count(String... values) {\n"
+            + "        return values.length;\n"
+            + "    }\n"
+            + "\n"
+            + "    @Binding(\"entity_health\")\n"
+            + "    public static double entityHealth(@Entity Query query) {\n"
+            + "        return query == null ? -1 : query.health;\n"
+            + "    }\n"
+            + "}\n";
+
+    @Test
+    void test(final @TempDir Path directory) throws Exception {
+        final Path sources = Files.createDirectories(directory.resolve("src/example"));
+        final Path classes = Files.createDirectories(directory.resolve("classes"));
+        final Path source = sources.resolve("Query.java");
+        Files.write(source, SOURCE.getBytes(StandardCharsets.UTF_8));
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final int result = compiler.run(null, output, output,
+                "-classpath", classPath(),
+                "-processor", BindingProcessor.class.getName(),
+                "-d", classes.toString(),
+                source.toString());
+        assertEquals(0, result, () -> output.toString());
+
+        try (final URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, getClass().getClassLoader())) {
+            final Class<?> queryClass = classLoader.loadClass("example.Query");
+            assertNotNull(classLoader.loadClass("example.Query" + BindingGlue.SUFFIX));
+
+            final Object query = queryClass.getConstructor().newInstance();
+            bindAndTest(queryClass, query);
+        }
+    }
+
+    private static String classPath() throws Exception {
+        // the test may run in a class loader other than the system one
+        return String.join(File.pathSeparator,
+                location(BindingProcessor.class),
+                location(NotNull.class),
+                System.getProperty("java.class.path"));
+    }
+
+    private static String location(final Class<?> type) throws Exception {
+        return Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+    }
+
+    private static <T> void bindAndTest(final Class<T> type, final Object instance) {
+        final MochaEngine<T> engine = MochaEngine.createStandard(type.cast(instance));
+        engine.bind(type);
+        engine.bindInstance(type, type.cast(instance), "query");
+
+        assertEquals(9.8, engine.eval("q.gravity"), 1e-9);
+        assertEquals(6, engine.eval("q.twice(3)"));
+        assertEquals(4, engine.eval("q.abs(-4)"));
+        assertEquals(7, engine.eval("q.largest(2, 7)"));
+        assertEquals(20, engine.eval("q.entity_health()"));
+
+        assertEquals(20, engine.eval("query.health"));
+        assertEquals(20, engine.eval("query.hp"));
+        assertEquals(1, engine.eval("query.alive"));
+        assertEquals(1, engine.eval("query.is_named('steve')"));
+        assertEquals(0, engine.eval("query.is_named('alex')"));
+        engine.eval("query.damage(5)");
+        assertEquals(15, engine.eval("query.health"));
+
+        // private fields are still read using reflection
+        assertThrows(IllegalStateException.class, () -> engine.eval("query.secret"));
+
+        // functions are called directly, except for the reflective fallbacks
+        final ObjectValue bound = (ObjectValue) engine.scope().get("query");
+        assertTrue(bound instanceof JavaObjectBinding);
+        assertFalse(((JavaFunction<?>) bound.get("damage")).reflective());
+        assertTrue(((JavaFunction<?>) bound.get("count")).reflective());
+        assertFalse(((JavaObjectBinding) bound).getField("health").constant());
+        assertTrue(((JavaObjectBinding) engine.scope().get("q")).getField("gravity").constant());
+    }
+}
@@ -27,9 +27,12 @@ import org.junit.jupiter.api.Test;
 import team.unnamed.mocha.MochaEngine;
 import team.unnamed.mocha.runtime.binding.Binding;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.UnaryOperator;
 
-import static team.unnamed.mocha.MochaAssertions.assertEvaluates;
+import static team.unnamed.mocha.MochaAssertions.assertEvaluatesAndCompiles;
 
 class ArrayAccessRuntimeTest {
     @Test
@@ -39,20 +42,48 @@ class ArrayAccessRuntimeTest {
             return engine;
         };
 
-        assertEvaluates(5D, "query.values[0]", configurer);
-        assertEvaluates(10D, "query.values[1]", configurer);
-        assertEvaluates(100D, "query.values[2]", configurer);
-        assertEvaluates(100D, "q.values[20 + 3]", configurer);
-        assertEvaluates(5D, "query.values[-1]", configurer);
-        assertEvaluates(5D, "q.values[-1000]", configurer);
-        assertEvaluates(5D, "q.values[0.5]", configurer);
-        assertEvaluates(10D, "q.values[0.5 + 0.5]", configurer);
-        assertEvaluates(100D, "q.values[math.pi - 1]", configurer);
+        assertEvaluatesAndCompiles(5D, "query.values[0]", configurer);
+        assertEvaluatesAndCompiles(10D, "query.values[1]", configurer);
+        assertEvaluatesAndCompiles(100D, "query.values[2]", configurer);
+        assertEvaluatesAndCompiles(100D, "q.values[20 + 3]", configurer);
+        assertEvaluatesAndCompiles(5D, "query.values[-1]", configurer);
+        assertEvaluatesAndCompiles(5D, "q.values[-1000]", configurer);
+        assertEvaluatesAndCompiles(5D, "q.values[0.5]", configurer);
+        assertEvaluatesAndCompiles(10D, "q.values[0.5 + 0.5]", configurer);
+        assertEvaluatesAndCompiles(100D, "q.values[math.pi - 1]", configurer);
+        assertEvaluatesAndCompiles(10D, "t.i = 4; return q.values[t.i];", configurer);
+        assertEvaluatesAndCompiles(0D, "q.empty[2]", configurer);
+        assertEvaluatesAndCompiles(3D, "q.ints[q.values[0]]", configurer);
+        assertEvaluatesAndCompiles(1D, "q.names[1] == 'pig'", configurer);
+        assertEvaluatesAndCompiles(0D, "q.names[1] == 'steve'", configurer);
+        assertEvaluatesAndCompiles(0D, "q.values[1]", engine -> engine);
+        assertEvaluatesAndCompiles(40D, "q.ages()[2]", configurer);
+        assertEvaluatesAndCompiles(18D, "q.ages()[-1]", configurer);
+        assertEvaluatesAndCompiles(0D, "q.no_ages()[1]", configurer);
     }
 
     @Binding({"query", "q"})
     public static class QueryImpl {
         @Binding("values")
         public static final double[] VALUES = {5D, 10D, 100D};
+
+        @Binding("empty")
+        public static final double[] EMPTY = {};
+
+        @Binding("ints")
+        public static int[] ints = {1, 2, 3};
+
+        @Binding("names")
+        public static String[] names = {"steve", "pig"};
+
+        @Binding("ages")
+        public static List<Integer> ages() {
+            return Arrays.asList(18, 16, 40, 24);
+        }
+
+        @Binding("no_ages")
+        public static List<Integer> noAges() {
+            return Collections.emptyList();
+        }
     }
 }
@@ -0,0 +1,159 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.binding.Binding;
+import team.unnamed.mocha.runtime.binding.Entity;
+import team.unnamed.mocha.runtime.binding.JavaObjectBinding;
+import team.unnamed.mocha.runtime.standard.MochaMath;
+import team.unnamed.mocha.runtime.value.ObjectValue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CompiledFunctionCacheTest {
+    @Test
+    void test_shared_between_engines() {
+        final CompiledFunctionCache cache = CompiledFunctionCache.create(16);
+        final ObjectValue math = JavaObjectBinding.of(MochaMath.class, null, new MochaMath());
+
+        final MochaEngine<?> engine1 = MochaEngine.create(null, builder -> builder.set("math", math)).compileCache(cache);
+        final MochaEngine<?> engine2 = MochaEngine.create(null, builder -> builder.set("math", math)).compileCache(cache);
+
+        final MochaFunction function1 = engine1.compile("math.sqrt(16) + 1");
+        final MochaFunction function2 = engine2.compile("math.sqrt(16)  +  1");
+        assertSame(function1, function2);
+        assertEquals(5D, function2.evaluate());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void test_different_entities() {
+        final CompiledFunctionCache cache = CompiledFunctionCache.create(16);
+        final ObjectValue math = JavaObjectBinding.of(MochaMath.class, null, new MochaMath());
+        final ObjectValue query = JavaObjectBinding.of(QueryImpl.class, null, null);
+
+        final MochaEngine<Mob> engine1 = MochaEngine.create(new Mob(20), builder -> {
+            builder.set("math", math);
+            builder.set("query", query);
+        }).compileCache(cache);
+        final MochaEngine<Mob> engine2 = MochaEngine.create(new Mob(8), builder -> {
+            builder.set("math", math);
+            builder.set("query", query);
+        }).compileCache(cache);
+
+        // doesn't use the entity, same function
+        assertSame(engine1.compile("math.sqrt(16) + 1"), engine2.compile("math.sqrt(16) + 1"));
+
+        // uses the entity, same class, instantiated for each entity
+        final MochaFunction health1 = engine1.compile("query.health() * 2");
+        final MochaFunction health2 = engine2.compile("query.health() * 2");
+        assertNotSame(health1, health2);
+        assertSame(health1.getClass(), health2.getClass());
+        assertEquals(40D, health1.evaluate());
+        assertEquals(16D, health2.evaluate());
+        assertSame(health1, engine1.compile("query.health() * 2"));
+
+        assertEquals(2, cache.missCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void test_different_bindings() {
+        final CompiledFunctionCache cache = CompiledFunctionCache.create(16);
+        final MochaEngine<?> engine1 = MochaEngine.createStandard().compileCache(cache);
+        final MochaEngine<?> engine2 = MochaEngine.createStandard().compileCache(cache);
+
+        // each engine has its own variables
+        final MochaFunction function1 = engine1.compile("v.x = (v.x ?? 0) + 1; return v.x;");
+        final MochaFunction function2 = engine2.compile("v.x = (v.x ?? 0) + 1; return v.x;");
+        assertNotSame(function1, function2);
+        assertEquals(1D, function1.evaluate());
+        assertEquals(2D, function1.evaluate());
+        assertEquals(1D, function2.evaluate());
+        assertEquals(0, cache.hitCount());
+        assertEquals(2, cache.missCount());
+
+        // same engine, same script
+        assertSame(function1, engine1.compile("v.x = (v.x ?? 0) + 1; return v.x;"));
+        assertEquals(1, cache.hitCount());
+    }
+
+    @Test
+    void test_eviction() {
+        final CompiledFunctionCache cache = CompiledFunctionCache.create(2);
+        final MochaEngine<?> engine = MochaEngine.createStandard().compileCache(cache);
+
+        final MochaFunction one = engine.compile("1 + math.abs(-1)");
+        engine.compile("2 + math.abs(-1)");
+        engine.compile("1 + math.abs(-1)"); // hit, now the most recently used
+        engine.compile("3 + math.abs(-1)"); // evicts "2 + ..."
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertSame(one, engine.compile("1 + math.abs(-1)"));
+        assertEquals(2, cache.hitCount());
+        engine.compile("2 + math.abs(-1)");
+        assertEquals(4, cache.missCount());
+    }
+
+    @Test
+    void test_batch() {
+        final CompiledFunctionCache cache = CompiledFunctionCache.create(16);
+        final MochaEngine<?> engine = MochaEngine.createStandard().compileCache(cache);
+        final MochaFunction cached = engine.compile("math.abs(-3)");
+
+        final Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("a", "math.abs(-3)");
+        sources.put("b", "math.abs(-4)");
+        final Map<String, MochaFunction> functions = engine.compileAll(sources);
+        assertSame(cached, functions.get("a"));
+        assertEquals(4D, functions.get("b").evaluate());
+        assertSame(functions.get("b"), engine.compile("math.abs(-4)"));
+    }
+
+    public static final class Mob {
+        private final double health;
+
+        public Mob(final double health) {
+            this.health = health;
+        }
+    }
+
+    @Binding("query")
+    public static final class QueryImpl {
+        @Binding("health")
+        public static double health(final @Entity Mob mob) {
+            return mob == null ? 0 : mob.health;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
+import team.unnamed.mocha.runtime.compiled.Named;
+import team.unnamed.mocha.runtime.value.NumberValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrentEngineTest {
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 2_000;
+
+    @Test
+    void test_shared_engine() throws Exception {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        engine.scope().set("base", NumberValue.of(10));
+
+        // prepared and compiled before the threads start, shared by all of them
+        final MochaFunction prepared = engine.prepareEval("t.a = base; t.b = t.a * 2; return t.a + t.b;");
+        final ScaleFunction compiled = engine.compile("t.x = x * base; loop(2, { t.x = t.x + 1; }); return t.x;", ScaleFunction.class);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                final int threadIndex = thread;
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        // temps are local to every evaluation
+                        assertEquals(threadIndex + i * 3D, engine.eval("t.v = " + threadIndex + "; t.w = " + i + "; return t.v + t.w * 3;"));
+                        assertEquals(30D, prepared.evaluate());
+                        assertEquals(i * 10D + 2, compiled.scale(i));
+
+                        if (i % 200 == 0) {
+                            // compiling concurrently
+                            final ScaleFunction function = engine.compile("x * " + threadIndex, ScaleFunction.class);
+                            assertEquals(i * threadIndex, function.scale(i));
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            // binding while the other threads evaluate
+            futures.add(executor.submit((Callable<Void>) () -> {
+                start.await();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    engine.scope().set("extra_" + (i % 50), NumberValue.of(i));
+                    engine.scope().set("extra_" + ((i + 25) % 50), null);
+                }
+                return null;
+            }));
+
+            start.countDown();
+            for (final Future<?> future : futures) {
+                // rethrows assertion errors
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void test_shared_variables() throws Exception {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                final int threadIndex = thread;
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    start.await();
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        // each thread writes its own variable
+                        engine.eval("v.thread_" + threadIndex + " = " + i + ";");
+                        assertEquals(i, engine.eval("v.thread_" + threadIndex));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            assertEquals(ITERATIONS - 1, engine.eval("v.thread_" + thread));
+        }
+    }
+
+    public interface ScaleFunction extends MochaCompiledFunction {
+        double scale(@Named("x") double x);
+    }
+}
@@ -27,6 +27,9 @@ import org.junit.jupiter.api.Test;
 import team.unnamed.mocha.MochaEngine;
 import team.unnamed.mocha.runtime.binding.Binding;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class ForEachTest {
@@ -44,6 +47,7 @@ class ForEachTest {
 
         final double result = engine.eval(code);
         assertEquals(98, result);
+        assertEquals(98, engine.eval(code.replace("list_ages", "age_list")));
     }
 
     @Binding({"query", "q"})
@@ -52,5 +56,10 @@ class ForEachTest {
         public static double[] listAges() {
             return new double[]{18D, 16D, 40D, 24D};
         }
+
+        @Binding("age_list")
+        public static List<Integer> ageList() {
+            return Arrays.asList(18, 16, 40, 24);
+        }
     }
 }
@@ -0,0 +1,62 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.runtime.value.NumberValue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrozenScopeTest {
+    @Test
+    void test() {
+        final Scope scope = Scope.builder()
+                .set("Query", NumberValue.of(1))
+                .set("math", NumberValue.of(2))
+                .buildFrozen();
+
+        assertEquals(NumberValue.of(1), scope.get("query"));
+        assertEquals(NumberValue.of(2), scope.get("MATH"));
+        assertNull(scope.getProperty("variable"));
+        assertTrue(scope.readOnly());
+        assertFalse(scope.set("variable", NumberValue.of(3)));
+        assertSame(scope, scope.freeze());
+
+        // copies are regular scopes
+        final Scope copy = scope.copy();
+        assertTrue(copy.set("variable", NumberValue.of(3)));
+        assertEquals(NumberValue.of(3), copy.get("variable"));
+        assertNull(scope.getProperty("variable"));
+
+        // freezing takes the current bindings
+        final Scope frozen = copy.freeze();
+        copy.set("query", NumberValue.of(4));
+        assertEquals(NumberValue.of(1), frozen.get("query"));
+        assertEquals(NumberValue.of(3), frozen.get("variable"));
+    }
+}
@@ -26,6 +26,11 @@ package team.unnamed.mocha.runtime;
 import org.junit.jupiter.api.Test;
 import team.unnamed.mocha.MochaEngine;
 import team.unnamed.mocha.runtime.binding.Binding;
+import team.unnamed.mocha.runtime.binding.JavaObjectBinding;
+import team.unnamed.mocha.runtime.value.Value;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class InstanceMethodBindingTest {
     @Test
@@ -36,11 +41,96 @@ class InstanceMethodBindingTest {
         engine.compile("instance.print_name()").evaluate();
     }
 
+    @Test
+    void test_many_instances() {
+        for (int i = 0; i < 10; i++) {
+            final MochaEngine<?> engine = MochaEngine.createStandard();
+            engine.bindInstance(TestInstanceMethods.class, new TestInstanceMethods("Instance " + i, i), "instance");
+            assertEquals(i * 2, engine.eval("instance.double_level()"));
+            assertEquals(i + 3, engine.eval("instance.level_plus_length('abc')"));
+            assertEquals(i, engine.eval("instance.level"));
+        }
+    }
+
+    @Test
+    void test_field_reads() {
+        final MutableLevel instance = new MutableLevel();
+        final JavaObjectBinding binding = JavaObjectBinding.of(MutableLevel.class, instance, null);
+
+        instance.level = 5;
+        assertEquals(5, binding.get("level").getAsNumber());
+        assertEquals(5, binding.getField("level").getAsNumber());
+        // unchanged field values are reused
+        assertSame(binding.get("level"), binding.get("level"));
+
+        instance.level = 6;
+        assertEquals(6, binding.get("level").getAsNumber());
+        instance.alive = true;
+        assertEquals(1, binding.get("alive").getAsNumber());
+    }
+
+    @Test
+    void test_instances_share_layout() {
+        final MutableLevel first = new MutableLevel();
+        final MutableLevel second = new MutableLevel();
+        first.level = 1;
+        second.level = 2;
+        final JavaObjectBinding firstBinding = JavaObjectBinding.of(MutableLevel.class, first, null);
+        final JavaObjectBinding secondBinding = JavaObjectBinding.of(MutableLevel.class, second, null);
+
+        // members are created per instance, but found by the same names
+        assertEquals(1, firstBinding.get("LEVEL").getAsNumber());
+        assertEquals(2, secondBinding.get("lvl").getAsNumber());
+        assertEquals(Value.nil(), secondBinding.get("missing"));
+    }
+
+    @Test
+    void test_static_binding_shared() {
+        assertSame(
+                JavaObjectBinding.of(TestStaticMethods.class, null, null),
+                JavaObjectBinding.of(TestStaticMethods.class, null, null)
+        );
+    }
+
+    public static final class MutableLevel {
+        @Binding({"level", "lvl"})
+        public int level;
+
+        @Binding("alive")
+        public boolean alive;
+    }
+
+    @Binding("static")
+    public static final class TestStaticMethods {
+        @Binding("two")
+        public static double two() {
+            return 2;
+        }
+    }
+
     public static final class TestInstanceMethods {
         private final String name;
 
-        public TestInstanceMethods(final String name) {
+        @Binding("level")
+        public final double level;
+
+        public TestInstanceMethods(final String name, final double level) {
             this.name = name;
+            this.level = level;
+        }
+
+        public TestInstanceMethods(final String name) {
+            this(name, 0);
+        }
+
+        @Binding("double_level")
+        public double doubleLevel() {
+            return level * 2;
+        }
+
+        @Binding("level_plus_length")
+        public double levelPlusLength(final String text) {
+            return level + text.length();
         }
 
         @Binding("print_name")
@@ -0,0 +1,109 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.binding.Binding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JavaMethodBindingTest {
+    @Test
+    void test_numeric() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        engine.bind(TestMethods.class);
+        assertEquals(42, engine.eval("test.answer()"));
+        assertEquals(3, engine.eval("test.add(1, 2)"));
+        assertEquals(7, engine.eval("test.truncate(7.9)"));
+        assertEquals(1, engine.eval("test.positive(5)"));
+        assertEquals(0, engine.eval("test.positive(-5)"));
+        assertEquals(10, engine.eval("test.sum(1, 2, 3, 4)"));
+
+        // missing arguments are zero
+        assertEquals(1, engine.eval("test.add(1)"));
+
+        engine.eval("test.record(5, 6)");
+        assertEquals(11, TestMethods.recorded);
+    }
+
+    @Test
+    void test_generic() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        engine.bind(TestMethods.class);
+        assertEquals(5, engine.eval("test.length('hello')"));
+        assertEquals(15, engine.eval("test.sum5(1, 2, 3, 4, 5)"));
+        assertEquals(1, engine.eval("test.negate(false)"));
+    }
+
+    @Binding("test")
+    public static final class TestMethods {
+        static double recorded;
+
+        @Binding("answer")
+        public static int answer() {
+            return 42;
+        }
+
+        @Binding("add")
+        public static double add(final double a, final double b) {
+            return a + b;
+        }
+
+        @Binding("truncate")
+        public static long truncate(final int value) {
+            return value;
+        }
+
+        @Binding("positive")
+        public static boolean positive(final float value) {
+            return value > 0;
+        }
+
+        @Binding("sum")
+        public static double sum(final double a, final double b, final double c, final double d) {
+            return a + b + c + d;
+        }
+
+        @Binding("record")
+        public static void record(final double a, final short b) {
+            recorded = a + b;
+        }
+
+        @Binding("length")
+        public static int length(final String value) {
+            return value.length();
+        }
+
+        @Binding("sum5")
+        public static double sum5(final double a, final double b, final double c, final double d, final double e) {
+            return a + b + c + d + e;
+        }
+
+        @Binding("negate")
+        public static boolean negate(final boolean value) {
+            return !value;
+        }
+    }
+}
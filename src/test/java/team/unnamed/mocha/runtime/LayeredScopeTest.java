@@ -0,0 +1,71 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.runtime.value.NumberValue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LayeredScopeTest {
+    @Test
+    void test() {
+        final Scope parent = Scope.create();
+        parent.set("a", NumberValue.of(1));
+        parent.set("b", NumberValue.of(2));
+
+        final Scope layered = Scope.layered(parent);
+        assertEquals(NumberValue.of(1), layered.get("A"));
+
+        // local bindings shadow the parent ones, without modifying them
+        assertTrue(layered.set("a", NumberValue.of(3)));
+        assertTrue(layered.set("temp", NumberValue.of(4)));
+        assertEquals(NumberValue.of(3), layered.get("a"));
+        assertEquals(NumberValue.of(4), layered.get("TEMP"));
+        assertEquals(NumberValue.of(1), parent.get("a"));
+        assertNull(parent.getProperty("temp"));
+
+        // removed bindings hide the parent ones
+        layered.set("b", null);
+        assertNull(layered.getProperty("b"));
+        assertEquals(NumberValue.of(2), parent.get("b"));
+        assertEquals(2, layered.entries().size());
+
+        // parent changes are visible
+        parent.set("c", NumberValue.of(5));
+        assertEquals(NumberValue.of(5), layered.get("c"));
+
+        // copies don't see later changes
+        final Scope copy = layered.copy();
+        layered.set("temp", NumberValue.of(6));
+        assertEquals(NumberValue.of(4), copy.get("temp"));
+
+        layered.readOnly(true);
+        assertFalse(layered.set("temp", NumberValue.of(7)));
+        assertEquals(NumberValue.of(6), layered.get("temp"));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.binding.Binding;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MolangAotCompilerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void test() throws Exception {
+        final Path input = directory.resolve("input");
+        final Path output = directory.resolve("output");
+        Files.createDirectories(input.resolve("animations"));
+        Files.write(input.resolve("animations/walk.molang"), "math.sin(90) * q.speed".getBytes(StandardCharsets.UTF_8));
+        Files.write(input.resolve("health.molang"), "q.health / 2".getBytes(StandardCharsets.UTF_8));
+
+        MolangAotCompiler.main(new String[]{
+                input.toString(), output.toString(),
+                "--package", "com.example.molang",
+                "--bind-instance", QueryImpl.class.getName() + "=query,q"
+        });
+        assertTrue(Files.exists(output.resolve(MolangAotCompiler.INDEX_RESOURCE)));
+
+        try (final URLClassLoader classLoader = new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+            // same bindings, nothing compiled
+            final AtomicInteger compiled = new AtomicInteger();
+            final MochaEngine<?> engine = MochaEngine.createStandard().postCompile(bytecode -> compiled.incrementAndGet());
+            final QueryImpl query = new QueryImpl();
+            query.speed = 3;
+            query.health = 10;
+            engine.bindInstance(QueryImpl.class, query, "query", "q");
+
+            final Map<String, MochaFunction> functions = engine.loadPrecompiled(classLoader, MochaFunction.class);
+            assertEquals(2, functions.size());
+            assertEquals(3D, functions.get("animations/walk").evaluate(), 1E-9);
+            assertEquals(5D, functions.get("health").evaluate());
+            assertEquals(0, compiled.get());
+            assertTrue(functions.get("health").getClass().getName().startsWith("com.example.molang."));
+
+            // bindings changed, compiled again
+            final MochaEngine<?> otherEngine = MochaEngine.createStandard().postCompile(bytecode -> compiled.incrementAndGet());
+            final Map<String, MochaFunction> otherFunctions = otherEngine.loadPrecompiled(classLoader, MochaFunction.class);
+            assertEquals(0D, otherFunctions.get("health").evaluate());
+            assertEquals(2, compiled.get());
+        }
+    }
+
+    public static final class QueryImpl {
+        @Binding("speed")
+        public double speed = 1;
+
+        @Binding("health")
+        public double health = 20;
+    }
+}
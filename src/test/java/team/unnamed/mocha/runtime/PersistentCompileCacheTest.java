@@ -0,0 +1,177 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.binding.Binding;
+import team.unnamed.mocha.runtime.value.ArrayValue;
+import team.unnamed.mocha.runtime.value.NumberValue;
+import team.unnamed.mocha.runtime.value.ObjectProperty;
+import team.unnamed.mocha.runtime.value.ObjectValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class PersistentCompileCacheTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void test_warm_start() {
+        final PersistentCompileCache cache = PersistentCompileCache.create(directory);
+        final String script = "math.sqrt(q.health) + c.values[1] + q.get_armor()";
+
+        // first run, compiles
+        final AtomicInteger compiled = new AtomicInteger();
+        final MochaEngine<?> engine1 = createEngine(16, 5, cache).postCompile(bytecode -> compiled.incrementAndGet());
+        assertEquals(4D + 5D + 2D, engine1.compile(script).evaluate());
+        assertEquals(1, compiled.get());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.storeCount());
+
+        // second run (other instances, same bindings), loaded
+        final MochaEngine<?> engine2 = createEngine(9, 5, PersistentCompileCache.create(directory)).postCompile(bytecode -> compiled.incrementAndGet());
+        final MochaFunction function = engine2.compile(script);
+        assertEquals(3D + 5D + 2D, function.evaluate());
+        assertEquals(1, compiled.get());
+    }
+
+    @Test
+    void test_library_version() {
+        // changes with the version, even if the classes are the same
+        final Class<?>[] classes = {MolangCompiler.class, ScriptBindings.class};
+        assertEquals(ScriptBindings.libraryVersion("3.1.0", classes), ScriptBindings.libraryVersion("3.1.0", classes));
+        assertNotEquals(ScriptBindings.libraryVersion("3.1.0", classes), ScriptBindings.libraryVersion("3.1.1", classes));
+
+        // and with the compiler classes, even if the version is unknown
+        assertNotEquals(ScriptBindings.libraryVersion(null, classes), ScriptBindings.libraryVersion(null, MolangCompiler.class));
+        assertNotEquals("null", ScriptBindings.LIBRARY_VERSION);
+    }
+
+    @Test
+    void test_bindings_changed() {
+        final PersistentCompileCache cache = PersistentCompileCache.create(directory);
+        final MochaEngine<?> engine1 = createEngine(16, 5, cache);
+        assertEquals(7D, engine1.compile("c.value + 2").evaluate());
+
+        // a constant changed, must compile again
+        final MochaEngine<?> engine2 = createEngine(16, 10, cache);
+        assertEquals(12D, engine2.compile("c.value + 2").evaluate());
+        assertEquals(2, cache.missCount());
+        assertEquals(0, cache.hitCount());
+    }
+
+    @Test
+    void test_bound_class_changed() {
+        final PersistentCompileCache cache = PersistentCompileCache.create(directory);
+        final MochaEngine<?> engine1 = MochaEngine.createStandard().persistentCompileCache(cache);
+        engine1.bind(FirstQuery.class);
+        assertEquals(1D, engine1.compile("q.level").evaluate());
+
+        // same names, different class, must compile again
+        final MochaEngine<?> engine2 = MochaEngine.createStandard().persistentCompileCache(cache);
+        engine2.bind(SecondQuery.class);
+        assertEquals(2D, engine2.compile("q.level").evaluate());
+        assertEquals(2, cache.missCount());
+        assertEquals(0, cache.hitCount());
+    }
+
+    @Test
+    void test_failed_store() throws IOException {
+        assertEquals(7D, createEngine(16, 5, PersistentCompileCache.create(directory)).compile("c.value + 2").evaluate());
+        final Path entry;
+        try (final Stream<Path> files = Files.list(directory)) {
+            entry = files.findFirst().orElseThrow(IllegalStateException::new);
+        }
+
+        // replace the entry with a non-empty directory, so that storing it fails
+        Files.delete(entry);
+        Files.createDirectories(entry.resolve("child"));
+        final PersistentCompileCache cache = PersistentCompileCache.create(directory);
+        assertEquals(7D, createEngine(16, 5, cache).compile("c.value + 2").evaluate());
+        assertEquals(0, cache.storeCount());
+
+        // the temporary file was removed
+        try (final Stream<Path> files = Files.list(directory)) {
+            assertEquals(Collections.singletonList(entry), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void test_not_persistable() {
+        final PersistentCompileCache cache = PersistentCompileCache.create(directory);
+        // interpreted parts are not persisted
+        assertEquals(3D, createEngine(16, 5, cache).compile("v.x = 3; return v.x;").evaluate());
+        assertEquals(0, cache.storeCount());
+    }
+
+    private static MochaEngine<?> createEngine(final double health, final double constant, final PersistentCompileCache cache) {
+        final MochaEngine<?> engine = MochaEngine.createStandard().persistentCompileCache(cache);
+        engine.bindInstance(QueryImpl.class, new QueryImpl(health), "query", "q");
+
+        final Map<String, ObjectProperty> constants = new HashMap<>();
+        constants.put("value", ObjectProperty.property(NumberValue.of(constant), true));
+        constants.put("values", ObjectProperty.property(ArrayValue.of(NumberValue.of(1), NumberValue.of(5)), true));
+        engine.scope().set("c", (ObjectValue) constants::get);
+        return engine;
+    }
+
+    public static final class QueryImpl {
+        @Binding("health")
+        public double health;
+
+        QueryImpl(final double health) {
+            this.health = health;
+        }
+
+        @Binding("get_armor")
+        public double armor() {
+            return 2;
+        }
+    }
+
+    @Binding({"query", "q"})
+    public static final class FirstQuery {
+        @Binding("level")
+        public static double level = 1;
+    }
+
+    @Binding({"query", "q"})
+    public static final class SecondQuery {
+        @Binding("level")
+        public static double level = 2;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.runtime.value.NumberValue;
+import team.unnamed.mocha.runtime.value.ObjectProperty;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScopeTest {
+    @Test
+    void test_copies() {
+        final Scope scope = Scope.create();
+        scope.set("A", NumberValue.of(1));
+
+        final Scope copy = scope.copy();
+        copy.set("b", NumberValue.of(2));
+        scope.set("a", NumberValue.of(3));
+
+        assertEquals(NumberValue.of(3), scope.get("a"));
+        assertNull(scope.getProperty("b"));
+        assertEquals(NumberValue.of(1), copy.get("a"));
+        assertEquals(NumberValue.of(2), copy.get("B"));
+    }
+
+    @Test
+    void test_entries() {
+        final Scope scope = Scope.create();
+        final Map<String, ObjectProperty> entries = scope.entries();
+        scope.set("Math", NumberValue.of(1));
+
+        // live, case-insensitive and read-only view
+        assertEquals(1, entries.size());
+        assertTrue(entries.containsKey("MATH"));
+        assertEquals(NumberValue.of(1), entries.get("math").value());
+        assertTrue(entries.keySet().contains("math"));
+        assertThrows(UnsupportedOperationException.class, () -> entries.remove("math"));
+
+        scope.set("math", null);
+        assertTrue(entries.isEmpty());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.parser.ParseException;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ScriptClassUnloadTest {
+    @Test
+    void test_detached_from_class_pool() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final MochaFunction function = engine.compile("math.sqrt(16) + 1");
+        assertEquals(5D, function.evaluate());
+
+        // hidden class names are suffixed with '/<address>'
+        final String className = function.getClass().getName().split("/")[0];
+        assertNull(engine.classPool().getOrNull(className));
+    }
+
+    @Test
+    void test_unloaded() throws InterruptedException {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final WeakReference<Class<?>> compiledClass = compileAndDrop(engine);
+        assertCollected(compiledClass);
+    }
+
+    @Test
+    void test_unloaded_with_class_loader() throws Exception {
+        // forces the fallback path, one class loader per script
+        final ClassLoader classLoader = new ClassLoader(getClass().getClassLoader()) {
+        };
+        final MolangCompiler compiler = new MolangCompiler(null, classLoader, MochaEngine.createStandard().scope());
+        final WeakReference<Class<?>> compiledClass = compileAndDrop(compiler);
+        assertCollected(compiledClass);
+    }
+
+    private static WeakReference<Class<?>> compileAndDrop(final MochaEngine<?> engine) {
+        final MochaFunction function = engine.compile("math.abs(-2) * 3");
+        assertEquals(6D, function.evaluate());
+        return new WeakReference<>(function.getClass());
+    }
+
+    private static WeakReference<Class<?>> compileAndDrop(final MolangCompiler compiler) throws ParseException {
+        final MochaFunction function = compiler.compile(
+                MochaEngine.createStandard().parse("math.abs(-2) * 3"),
+                MochaFunction.class
+        );
+        assertEquals(6D, function.evaluate());
+        assertNotSame(MolangCompiler.class.getClassLoader(), function.getClass().getClassLoader());
+        return new WeakReference<>(function.getClass());
+    }
+
+    private static void assertCollected(final WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(reference.get(), "Script class was not unloaded");
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.standard.StandardLibrary;
+import team.unnamed.mocha.runtime.value.NumberValue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StandardLibraryTest {
+    @Test
+    void test_shared() {
+        final MochaEngine<?> engine1 = MochaEngine.createStandard();
+        final MochaEngine<?> engine2 = MochaEngine.createStandard();
+
+        // the math binding is shared, the variables are not
+        assertSame(StandardLibrary.math(), engine1.scope().get("math"));
+        assertSame(engine1.scope().get("math"), engine2.scope().get("math"));
+        assertNotSame(engine1.scope().get("variable"), engine2.scope().get("variable"));
+        assertSame(engine1.scope().get("variable"), engine1.scope().get("v"));
+
+        engine1.eval("v.x = 5");
+        assertEquals(5D, engine1.eval("v.x"));
+        assertEquals(0D, engine2.eval("v.x"));
+        assertEquals(5D, engine2.eval("math.sqrt(25)"));
+    }
+
+    @Test
+    void test_template_is_read_only() {
+        final Scope template = StandardLibrary.scope();
+        assertTrue(template.readOnly());
+        assertFalse(template.set("math", NumberValue.of(1)));
+
+        // engines can still replace their own bindings
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        engine.scope().set("math", NumberValue.of(1));
+        assertSame(StandardLibrary.math(), template.get("math"));
+        assertEquals(5D, MochaEngine.createStandard().eval("math.abs(-5)"));
+    }
+
+    @Test
+    void test_shared_compile_cache() {
+        final CompiledFunctionCache cache = CompiledFunctionCache.create(16);
+        final MochaFunction function1 = MochaEngine.createStandard().compileCache(cache).compile("math.sqrt(16) + 1");
+        final MochaFunction function2 = MochaEngine.createStandard().compileCache(cache).compile("math.sqrt(16) + 1");
+        assertSame(function1, function2);
+        assertEquals(5D, function2.evaluate());
+    }
+}
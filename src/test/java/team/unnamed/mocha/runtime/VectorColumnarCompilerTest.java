@@ -0,0 +1,139 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.parser.ParseException;
+import team.unnamed.mocha.runtime.compiled.MochaColumnarFunction;
+import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
+import team.unnamed.mocha.runtime.compiled.Named;
+import team.unnamed.mocha.util.CaseInsensitiveStringHashMap;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VectorColumnarCompilerTest {
+    private static final String[] VECTORIZABLE = {
+            "a * 2 + b",
+            "return -a / b;",
+            "a > b ? a - b : (a == b ? 1 : b / 2)",
+            "(a >= 0 && b < 0) || !(a != b)",
+            "math.sin(a * 90) * math.cos(b) + math.pi",
+            "math.sqrt(math.abs(a)) + math.pow(math.abs(b), 0.5)",
+            "math.clamp(a, -1, 1) + math.lerp(a, b, 0.25) + math.hermite_blend(a)",
+            "math.min(a, b) - math.max(a, b) + math.atan2(a, b) + math.atan(a)",
+            "math.exp(a / 10) + math.ln(math.abs(b) + 1)",
+            "a ? b : 5"
+    };
+    private static final int ROWS = 1_003; // not a multiple of any vector length
+
+    @Test
+    void test_results() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final Random random = new Random(42);
+        final double[] a = new double[ROWS];
+        final double[] b = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            // include zeros and equal values
+            a[i] = i % 7 == 0 ? 0 : (random.nextInt(20) - 10) / 2D;
+            b[i] = i % 5 == 0 ? a[i] : (random.nextInt(20) - 10) / 2D;
+        }
+
+        for (final String source : VECTORIZABLE) {
+            final MochaColumnarFunction columnar = engine.compileColumnar(source, ScriptType.class);
+            final ScriptType scalar = engine.compile(source, ScriptType.class);
+            final double[] output = new double[ROWS];
+            columnar.evaluate(new double[][]{a, b}, output, ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                final double expected = scalar.eval(a[i], b[i]);
+                if (Double.isFinite(expected)) {
+                    // vectorized math functions may differ in the last bits
+                    assertEquals(expected, output[i], Math.abs(expected) * 1e-9 + 1e-12, source);
+                } else {
+                    assertEquals(expected, output[i], source);
+                }
+            }
+        }
+    }
+
+    @Test
+    void test_boolean() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final MochaColumnarFunction columnar = engine.compileColumnar("a * b", CompareType.class);
+        final double[] values = new double[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            values[i] = i % 3;
+        }
+        final double[] output = new double[ROWS];
+        columnar.evaluate(new double[][]{values, values}, output, ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i % 3 == 0 ? 0D : 1D, output[i]);
+        }
+    }
+
+    @Test
+    void test_available() {
+        if (Boolean.getBoolean("mocha.test.vector")) {
+            // the build adds jdk.incubator.vector, otherwise only the
+            // scalar fallback would be tested
+            assertTrue(VectorColumnarCompiler.available(), "jdk.incubator.vector is not available");
+        }
+    }
+
+    @Test
+    void test_vectorizable() throws ParseException {
+        if (!VectorColumnarCompiler.available()) {
+            // jdk.incubator.vector not added
+            return;
+        }
+
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final Map<String, Integer> columns = new CaseInsensitiveStringHashMap<>();
+        columns.put("a", 0);
+        columns.put("b", 1);
+
+        for (final String source : VECTORIZABLE) {
+            assertNotNull(VectorColumnarCompiler.vectorizable(engine.parse(source), engine.scope(), columns), source);
+        }
+
+        assertNull(VectorColumnarCompiler.vectorizable(engine.parse("t.x = a; return t.x;"), engine.scope(), columns));
+        assertNull(VectorColumnarCompiler.vectorizable(engine.parse("a + c"), engine.scope(), columns));
+        assertNull(VectorColumnarCompiler.vectorizable(engine.parse("math.random(a, b)"), engine.scope(), columns));
+        assertNull(VectorColumnarCompiler.vectorizable(engine.parse("v.amp * a"), engine.scope(), columns));
+    }
+
+    public interface ScriptType extends MochaCompiledFunction {
+        double eval(@Named("a") double a, @Named("b") double b);
+    }
+
+    public interface CompareType extends MochaCompiledFunction {
+        boolean test(@Named("a") double a, @Named("b") double b);
+    }
+}
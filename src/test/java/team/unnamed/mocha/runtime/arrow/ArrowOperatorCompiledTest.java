@@ -0,0 +1,85 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.arrow;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.MochaFunction;
+import team.unnamed.mocha.runtime.binding.Binding;
+import team.unnamed.mocha.runtime.binding.Entity;
+import team.unnamed.mocha.runtime.value.JavaValue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ArrowOperatorCompiledTest {
+    @Test
+    void test() {
+        final Mob self = new Mob(20, null);
+        final MochaEngine<Mob> engine = MochaEngine.createStandard(self);
+        engine.bind(QueryImpl.class);
+        engine.scope().set("self", new JavaValue(self));
+
+        final MochaFunction selfHealth = engine.compile("self->q.health()");
+        final MochaFunction targetHealth = engine.compile("q.target()->q.health() * 2");
+        final MochaFunction nestedTargetHealth = engine.compile("q.target()->q.target()->q.health()");
+        final MochaFunction notAnEntity = engine.compile("5->q.health()");
+
+        assertEquals(20D, selfHealth.evaluate());
+        assertEquals(0D, targetHealth.evaluate(), "null entities evaluate to zero");
+        assertEquals(0D, nestedTargetHealth.evaluate());
+        assertEquals(0D, notAnEntity.evaluate());
+
+        self.target = new Mob(8, new Mob(3, null));
+        assertEquals(16D, targetHealth.evaluate());
+        assertEquals(3D, nestedTargetHealth.evaluate());
+
+        // interpreter must give the same results
+        assertEquals(20D, engine.eval("self->q.health()"));
+        assertEquals(16D, engine.eval("q.target()->q.health() * 2"));
+        assertEquals(3D, engine.eval("q.target()->q.target()->q.health()"));
+    }
+
+    public static final class Mob {
+        private final double health;
+        private Mob target;
+
+        public Mob(final double health, final Mob target) {
+            this.health = health;
+            this.target = target;
+        }
+    }
+
+    @Binding({"query", "q"})
+    public static final class QueryImpl {
+        @Binding("health")
+        public static double health(final @Entity Mob mob) {
+            return mob == null ? 0 : mob.health;
+        }
+
+        @Binding("target")
+        public static Mob target(final @Entity Mob mob) {
+            return mob == null ? null : mob.target;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.entity;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.parser.ParseException;
+import team.unnamed.mocha.runtime.MochaEntityFunction;
+import team.unnamed.mocha.runtime.binding.Binding;
+import team.unnamed.mocha.runtime.binding.Entity;
+import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
+import team.unnamed.mocha.runtime.compiled.Named;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EntityParameterTest {
+    @Test
+    @SuppressWarnings("unchecked")
+    void test() throws ParseException {
+        // no engine entity, it is given per call
+        final MochaEngine<Mob> engine = MochaEngine.createStandard(null);
+        engine.bind(QueryImpl.class);
+
+        final MochaEntityFunction<Mob> health = engine.compile("q.health() * 2", MochaEntityFunction.class);
+        final MochaEntityFunction<Mob> targetHealth = engine.compile("q.target()->q.health()", MochaEntityFunction.class);
+        final MochaEntityFunction<Mob> interpreted = engine.compile("v.x = q.health(); return v.x + 1;", MochaEntityFunction.class);
+
+        final Mob zombie = new Mob(20, null);
+        final Mob skeleton = new Mob(8, zombie);
+        assertEquals(40D, health.evaluate(zombie));
+        assertEquals(16D, health.evaluate(skeleton));
+        assertEquals(0D, health.evaluate(null));
+        assertEquals(20D, targetHealth.evaluate(skeleton));
+        assertEquals(0D, targetHealth.evaluate(zombie));
+        assertEquals(21D, interpreted.evaluate(zombie));
+        assertEquals(9D, interpreted.evaluate(skeleton));
+
+        // interpreter
+        assertEquals(40D, engine.eval(engine.parse("q.health() * 2"), zombie));
+        assertEquals(16D, engine.eval(engine.parse("q.health() * 2"), skeleton));
+    }
+
+    @Test
+    void test_with_arguments() {
+        final MochaEngine<Mob> engine = MochaEngine.createStandard(null);
+        engine.bind(QueryImpl.class);
+
+        final ScaledHealth function = engine.compile("q.health() * scale", ScaledHealth.class);
+        assertEquals(10D, function.evaluate(0.5, new Mob(20, null)));
+        assertEquals(24D, function.evaluate(3, new Mob(8, null)));
+    }
+
+    public interface ScaledHealth extends MochaCompiledFunction {
+        double evaluate(@Named("scale") double scale, @Entity Mob mob);
+    }
+
+    public static final class Mob {
+        private final double health;
+        private final Mob target;
+
+        public Mob(final double health, final Mob target) {
+            this.health = health;
+            this.target = target;
+        }
+    }
+
+    @Binding({"query", "q"})
+    public static final class QueryImpl {
+        @Binding("health")
+        public static double health(final @Entity Mob mob) {
+            return mob == null ? 0 : mob.health;
+        }
+
+        @Binding("target")
+        public static Mob target(final @Entity Mob mob) {
+            return mob == null ? null : mob.target;
+        }
+    }
+}
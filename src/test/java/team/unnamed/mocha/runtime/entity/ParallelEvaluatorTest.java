@@ -0,0 +1,116 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.entity;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.MochaEntityFunction;
+import team.unnamed.mocha.runtime.ParallelEvaluator;
+import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
+import team.unnamed.mocha.runtime.compiled.Named;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelEvaluatorTest {
+    private static final int ENTITY_COUNT = 10_000;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void test() {
+        final MochaEngine<EntityParameterTest.Mob> engine = MochaEngine.createStandard(null);
+        engine.bind(EntityParameterTest.QueryImpl.class);
+
+        final MochaEntityFunction<EntityParameterTest.Mob> compiled = engine.compile("t.x = q.health() * 2; return t.x + 1;", MochaEntityFunction.class);
+        // loop is evaluated by the interpreter, with its own temps
+        final MochaEntityFunction<EntityParameterTest.Mob> interpreted = engine.compile("t.x = 0; loop(3, { t.x = t.x + q.health(); }); return t.x;", MochaEntityFunction.class);
+
+        final List<EntityParameterTest.Mob> mobs = new ArrayList<>();
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            mobs.add(new EntityParameterTest.Mob(i, null));
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final ParallelEvaluator evaluator = ParallelEvaluator.create(pool, 64);
+
+            final double[] output = new double[ENTITY_COUNT];
+            evaluator.evaluate(compiled, mobs, output);
+            for (int i = 0; i < ENTITY_COUNT; i++) {
+                assertEquals(i * 2 + 1, output[i]);
+            }
+
+            final ConcurrentHashMap<EntityParameterTest.Mob, Double> results = new ConcurrentHashMap<>();
+            evaluator.evaluate(interpreted, mobs, results::put);
+            assertEquals(ENTITY_COUNT, results.size());
+            for (int i = 0; i < ENTITY_COUNT; i++) {
+                assertEquals(i * 3D, results.get(mobs.get(i)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void test_range() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final ScaleFunction function = engine.compile("math.sqrt(x) * 2", ScaleFunction.class);
+        final ParallelEvaluator evaluator = ParallelEvaluator.create(ForkJoinPool.commonPool(), 100);
+
+        final double[] output = new double[ENTITY_COUNT];
+        evaluator.evaluate(i -> function.scale(i * i), 0, ENTITY_COUNT, output);
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            assertEquals(i * 2D, output[i]);
+        }
+
+        // one state per chunk, chunks are halved until they fit the grain size
+        final AtomicInteger states = new AtomicInteger();
+        evaluator.evaluate(() -> {
+            states.incrementAndGet();
+            return new double[1];
+        }, (state, i) -> {
+            state[0] = i;
+            return function.scale(state[0]);
+        }, 0, ENTITY_COUNT, output);
+        assertTrue(states.get() >= ENTITY_COUNT / 100 && states.get() < ENTITY_COUNT / 50);
+        assertEquals(6D, output[9]);
+    }
+
+    @Test
+    void test_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> ParallelEvaluator.create(ForkJoinPool.commonPool(), 0));
+        assertThrows(IllegalArgumentException.class, () -> ParallelEvaluator.create().evaluate(i -> i, 0, 10, new double[5]));
+    }
+
+    public interface ScaleFunction extends MochaCompiledFunction {
+        double scale(@Named("x") double x);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.jvm;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.MochaFunction;
+import team.unnamed.mocha.runtime.binding.Binding;
+import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
+import team.unnamed.mocha.runtime.compiled.Named;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BatchCompileTest {
+    @Test
+    void test() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        engine.bindInstance(QueryImpl.class, new QueryImpl(), "query", "q");
+
+        final Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("empty", "");
+        sources.put("health", "q.health * 2");
+        sources.put("temps", "t.x = 3; return t.x + q.health;");
+        sources.put("math", "math.sqrt(q.health) + 1");
+        sources.put("interpreted", "v.x = q.health; return v.x + 1;");
+
+        final Map<String, MochaFunction> functions = engine.compileAll(sources);
+        assertEquals(new ArrayList<>(sources.keySet()), new ArrayList<>(functions.keySet()));
+        assertSame(MochaFunction.nop(), functions.get("empty"));
+        assertEquals(8D, functions.get("health").evaluate());
+        assertEquals(7D, functions.get("temps").evaluate());
+        assertEquals(3D, functions.get("math").evaluate());
+        assertEquals(5D, functions.get("interpreted").evaluate());
+
+        // all in the same class
+        assertSame(functions.get("health").getClass(), functions.get("interpreted").getClass());
+    }
+
+    @Test
+    void test_arguments() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final Map<String, String> sources = new LinkedHashMap<>();
+        sources.put("max", "a > b ? a : b");
+        sources.put("min", "a < b ? a : b");
+        sources.put("lerp", "a + (b - a) * 0.5");
+
+        final Map<String, ScriptType> functions = engine.compileAll(sources, ScriptType.class);
+        assertEquals(10, functions.get("max").eval(10, 5));
+        assertEquals(5, functions.get("min").eval(10, 5));
+        assertEquals(5, functions.get("lerp").eval(1, 10));
+    }
+
+    @Test
+    void test_many() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < 600; i++) {
+            sources.put("bone_" + i, "math.sin(" + i + ") * 0 + " + i);
+        }
+
+        final Map<String, MochaFunction> functions = engine.compileAll(sources);
+        final Set<Class<?>> classes = new HashSet<>();
+        for (int i = 0; i < 600; i++) {
+            final MochaFunction function = functions.get("bone_" + i);
+            assertEquals(i, function.evaluate());
+            classes.add(function.getClass());
+        }
+        assertEquals(3, classes.size());
+    }
+
+    public interface ScriptType extends MochaCompiledFunction {
+        int eval(@Named("a") double a, @Named("b") double b);
+    }
+
+    public static final class QueryImpl {
+        @Binding("health")
+        public double health = 4;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.jvm;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.MochaFunction;
+import team.unnamed.mocha.runtime.compiled.MochaColumnarFunction;
+import team.unnamed.mocha.runtime.compiled.MochaCompiledFunction;
+import team.unnamed.mocha.runtime.compiled.Named;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ColumnarCompiledRuntimeTest {
+    @Test
+    void test() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final MochaColumnarFunction function = engine.compileColumnar("a > b ? a * 2 : math.sqrt(b)", ScriptType.class);
+
+        final double[] a = {1, 10, 3, 20};
+        final double[] b = {16, 5, 9, 25};
+        final double[] output = new double[5];
+        function.evaluate(new double[][]{a, b}, output, 4);
+        assertArrayEquals(new double[]{4, 20, 3, 5, 0}, output);
+
+        // it is also a regular function
+        assertEquals(20D, ((ScriptType) function).eval(10, 5));
+    }
+
+    @Test
+    void test_conversions() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final MochaColumnarFunction compare = engine.compileColumnar("x >= 2", CompareType.class);
+        final double[] output = new double[3];
+        compare.evaluate(new double[][]{{1, 2, 3}}, output, 3);
+        assertArrayEquals(new double[]{0, 1, 1}, output);
+
+        final MochaColumnarFunction constant = engine.compileColumnar("math.pi", MochaFunction.class);
+        constant.evaluate(new double[0][], output, 2);
+        assertArrayEquals(new double[]{Math.PI, Math.PI, 1}, output);
+    }
+
+    @Test
+    void test_invalid() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        assertThrows(IllegalArgumentException.class, () -> engine.compileColumnar("1", InvalidType.class));
+    }
+
+    public interface ScriptType extends MochaCompiledFunction {
+        double eval(@Named("a") double a, @Named("b") double b);
+    }
+
+    public interface CompareType extends MochaCompiledFunction {
+        boolean compare(@Named("x") double x);
+    }
+
+    public interface InvalidType extends MochaCompiledFunction {
+        double eval(@Named("x") int x);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.jvm;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.MochaFunction;
+import team.unnamed.mocha.runtime.binding.Binding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConditionalCompiledRuntimeTest {
+    @Test
+    void test() {
+        final QueryImpl query = new QueryImpl();
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        engine.bindInstance(QueryImpl.class, query, "query", "q");
+
+        final String speedOrOne = "q.speed ?? 1";
+        final String speedPlusOne = "(q.speed ?? 2) + 1";
+        final String movingOrZero = "q.moving ? 5";
+        final String scope = "t.x = 1; q.moving ? { t.x = 2; t.x = t.x * 3; }; return t.x;";
+        final String earlyReturn = "q.moving ? { return 7; }; return 1;";
+        final String truthy = "q.speed ? 1 : 2";
+        final String notMoving = "!q.moving";
+        final String stateOrOne = "q.state ?? 1";
+
+        query.speed = 0;
+        query.moving = false;
+        query.state = "";
+        assertEvaluates(engine, 1D, speedOrOne);
+        assertEvaluates(engine, 3D, speedPlusOne);
+        assertEvaluates(engine, 0D, movingOrZero);
+        assertEvaluates(engine, 1D, scope);
+        assertEvaluates(engine, 1D, earlyReturn);
+        assertEvaluates(engine, 2D, truthy);
+        assertEvaluates(engine, 1D, notMoving);
+        assertEvaluates(engine, 1D, stateOrOne);
+
+        query.speed = 0.5;
+        query.moving = true;
+        query.state = "idle";
+        assertEvaluates(engine, 0.5D, speedOrOne);
+        assertEvaluates(engine, 1.5D, speedPlusOne);
+        assertEvaluates(engine, 5D, movingOrZero);
+        assertEvaluates(engine, 6D, scope);
+        assertEvaluates(engine, 7D, earlyReturn);
+        assertEvaluates(engine, 1D, truthy, "non-zero numbers are truthy");
+        assertEvaluates(engine, 0D, notMoving);
+        assertEvaluates(engine, 0D, stateOrOne, "non-empty strings are truthy");
+    }
+
+    private static void assertEvaluates(final MochaEngine<?> engine, final double expected, final String expr) {
+        assertEvaluates(engine, expected, expr, expr);
+    }
+
+    private static void assertEvaluates(final MochaEngine<?> engine, final double expected, final String expr, final String message) {
+        assertEquals(expected, engine.eval(expr), "(Interpreted) " + message);
+        final MochaFunction function = engine.compile(expr);
+        assertEquals(expected, function.evaluate(), "(Compiled) " + message);
+    }
+
+    public static final class QueryImpl {
+        @Binding("speed")
+        public double speed;
+
+        @Binding("moving")
+        public boolean moving;
+
+        @Binding("state")
+        public String state;
+    }
+}
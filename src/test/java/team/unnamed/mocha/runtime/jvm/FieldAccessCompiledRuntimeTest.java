@@ -0,0 +1,93 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.jvm;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.MochaFunction;
+import team.unnamed.mocha.runtime.binding.Binding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FieldAccessCompiledRuntimeTest {
+    @Test
+    void test() {
+        final QueryImpl query = new QueryImpl();
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        engine.bindInstance(QueryImpl.class, query, "query", "q");
+
+        final MochaFunction health = engine.compile("q.health");
+        final MochaFunction targetHealth = engine.compile("query.target.health * 2");
+        final MochaFunction targetTargetHealth = engine.compile("query.target.target.health");
+        final MochaFunction alive = engine.compile("q.alive ? 1 : 2");
+
+        assertEquals(20D, health.evaluate());
+        assertEquals(0D, targetHealth.evaluate());
+        assertEquals(0D, targetTargetHealth.evaluate());
+        assertEquals(1D, alive.evaluate());
+
+        // changes are visible from the compiled functions
+        query.health = 15;
+        query.alive = false;
+        query.target = new Target(8, null);
+        assertEquals(15D, health.evaluate());
+        assertEquals(16D, targetHealth.evaluate());
+        assertEquals(0D, targetTargetHealth.evaluate());
+        assertEquals(2D, alive.evaluate());
+
+        query.target = new Target(8, new Target(3, null));
+        assertEquals(3D, targetTargetHealth.evaluate());
+
+        // interpreter must give the same results
+        assertEquals(15D, engine.eval("q.health"));
+        assertEquals(16D, engine.eval("query.target.health * 2"));
+        assertEquals(16D, engine.eval("query.Target.HEALTH * 2"));
+        assertEquals(3D, engine.eval("query.target.target.health"));
+        assertEquals(0D, engine.eval("query.target.target.target.health"));
+    }
+
+    public static final class QueryImpl {
+        @Binding("health")
+        public double health = 20;
+
+        @Binding("alive")
+        public boolean alive = true;
+
+        @Binding("target")
+        public Target target;
+    }
+
+    public static final class Target {
+        @Binding("health")
+        public final int health;
+
+        @Binding("target")
+        public final Target target;
+
+        public Target(final int health, final Target target) {
+            this.health = health;
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.jvm;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.MochaFunction;
+import team.unnamed.mocha.runtime.binding.Binding;
+import team.unnamed.mocha.runtime.value.ArrayValue;
+import team.unnamed.mocha.runtime.value.MutableObjectBinding;
+import team.unnamed.mocha.runtime.value.NumberValue;
+import team.unnamed.mocha.runtime.value.ObjectValue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MixedModeCompiledRuntimeTest {
+    @Test
+    void test() {
+        assertEvaluates(10D, "v.x = 5; return v.x * 2;");
+        assertEvaluates(40D, "t.sum = 0; loop(5, { t.sum = t.sum + 2; }); return t.sum * q.health;");
+        assertEvaluates(30D, "t.i = 3; q.health > 1 ? { return v.missing ?? t.i * 10; }; return 0;");
+        assertEvaluates(9D, "custom.double(q.health) + 1");
+        assertEvaluates(1D, "v.state = 'idle'; return v.state == 'idle';");
+        assertEvaluates(0D, "v.state = 'idle'; return 'walk' == v.state;");
+        assertEvaluates(5D, "foo + q.health / 2 + 1");
+        assertEvaluates(12D, "q.health + v.values[1] * 2");
+    }
+
+    @Test
+    void test_string_temps() {
+        assertEvaluates(1D, "t.s = 'abc'; return t.s == 'abc';");
+        assertEvaluates(1D, "t.s = 'abc'; t.copy = t.s; return t.copy == 'abc' && t.copy != 'abd';");
+        assertEvaluates(1D, "t.s = (q.health > 1 ? 'big' : 'small'); return t.s == 'big';");
+        assertEvaluates(1D, "t.s = 'abc'; t.n = 0; loop(3, { t.n = t.n + 1; }); return t.s == 'abc' && t.n == 3;");
+        assertEvaluates(1D, "t.s = 'abc'; loop(1, { t.s = 'def'; }); return t.s == 'def';");
+    }
+
+    @Test
+    void test_repeated_evaluation() {
+        // the interpreted parts reuse their local scope between evaluations
+        final MochaFunction withTemps = createEngine().compile("t.n = t.n + 1; q.health > 1 ? { return v.missing ?? t.n * 10; }; return 0;");
+        final MochaFunction withoutTemps = createEngine().compile("q.health > 1 ? { return v.missing ?? q.health; }; return 0;");
+        for (int i = 0; i < 3; i++) {
+            assertEquals(10D, withTemps.evaluate());
+            assertEquals(4D, withoutTemps.evaluate());
+        }
+    }
+
+    private static void assertEvaluates(final double expected, final String expr) {
+        assertEquals(expected, createEngine().eval(expr), "(Interpreted) " + expr);
+        assertEquals(expected, createEngine().compile(expr).evaluate(), "(Compiled) " + expr);
+    }
+
+    private static MochaEngine<?> createEngine() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        engine.bindInstance(QueryImpl.class, new QueryImpl(), "query", "q");
+
+        final MutableObjectBinding custom = new MutableObjectBinding();
+        custom.setFunction("double", n -> n * 2);
+        engine.scope().set("custom", custom);
+        engine.scope().set("foo", NumberValue.of(2));
+        ((ObjectValue) engine.scope().get("variable")).set("values", ArrayValue.of(NumberValue.of(1), NumberValue.of(4), NumberValue.of(9)));
+        return engine;
+    }
+
+    public static final class QueryImpl {
+        @Binding("health")
+        public double health = 4;
+    }
+}
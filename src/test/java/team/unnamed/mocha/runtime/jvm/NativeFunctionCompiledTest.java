@@ -0,0 +1,105 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.jvm;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.value.MutableObjectBinding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NativeFunctionCompiledTest {
+    private static final AtomicInteger CALLS = new AtomicInteger();
+
+    @Test
+    void test() {
+        assertEvaluates(42D, "native.answer()");
+        assertEvaluates(6D, "native.double(3)");
+        assertEvaluates(5D, "native.add(2, 3)");
+        assertEvaluates(10D, "native.sum(1, 2, 3, 4)");
+        assertEvaluates(3D, "native.pick(true, 3, 4)");
+        assertEvaluates(4D, "native.pick(0, 3, 4)");
+        assertEvaluates(1D, "native.even(4.9)");
+        assertEvaluates(0D, "native.even(3)");
+        assertEvaluates(0D, "native.add(1, native.double(-0.5))");
+    }
+
+    @Test
+    void test_void() {
+        CALLS.set(0);
+        final MochaEngine<?> engine = createEngine();
+        engine.eval("native.count(5)");
+        engine.compile("native.count(2)").evaluate();
+        assertEquals(7, CALLS.get());
+    }
+
+    @Test
+    void test_unsupported() {
+        final MutableObjectBinding binding = new MutableObjectBinding();
+        assertThrows(IllegalArgumentException.class, () -> binding.setFunction("x", java.util.function.Supplier.class, () -> null, false));
+        assertThrows(IllegalArgumentException.class, () -> binding.setFunction("x", java.util.function.IntFunction.class, i -> null, false));
+    }
+
+    private static void assertEvaluates(final double expected, final String expr) {
+        assertEquals(expected, createEngine().eval(expr), "(Interpreted) " + expr);
+
+        final AtomicBoolean interpreted = new AtomicBoolean();
+        final MochaEngine<?> engine = createEngine();
+        engine.postCompile(bytecode -> interpreted.set(new String(bytecode, StandardCharsets.ISO_8859_1).contains("InterpretedExpression")));
+        assertEquals(expected, engine.compile(expr).evaluate(), "(Compiled) " + expr);
+        assertFalse(interpreted.get(), "(Compiled directly) " + expr);
+    }
+
+    private static MochaEngine<?> createEngine() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final MutableObjectBinding binding = new MutableObjectBinding();
+        binding.setFunction("answer", () -> 42);
+        binding.setFunction("double", n -> n * 2);
+        binding.setFunction("add", Double::sum, true);
+        binding.setFunction("sum", (a, b, c, d) -> a + b + c + d);
+        binding.setFunction("pick", Pick.class, (condition, a, b) -> condition ? a : b, true);
+        binding.setFunction("even", IntPredicate.class, value -> value % 2 == 0, true);
+        binding.setFunction("count", IntConsumer.class, CALLS::addAndGet, false);
+        engine.scope().set("native", binding);
+        return engine;
+    }
+
+    public interface Pick {
+        double pick(boolean condition, double a, double b);
+    }
+
+    public interface IntPredicate {
+        boolean test(int value);
+    }
+
+    public interface IntConsumer {
+        void accept(int value);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.jvm;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.runtime.MochaFunction;
+import team.unnamed.mocha.runtime.binding.Binding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StringCompiledRuntimeTest {
+    @Test
+    void test() {
+        final QueryImpl query = new QueryImpl();
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        engine.bindInstance(QueryImpl.class, query, "query", "q");
+
+        final MochaFunction idle = engine.compile("q.state == 'idle'");
+        final MochaFunction notIdle = engine.compile("'idle' != query.state");
+        final MochaFunction selector = engine.compile("q.get_state() == 'walk' ? 2 : (q.state == 'idle' ? 1 : 0)");
+        final MochaFunction number = engine.compile("q.state == 0");
+
+        assertEquals(1D, idle.evaluate());
+        assertEquals(0D, notIdle.evaluate());
+        assertEquals(1D, selector.evaluate());
+        assertEquals(0D, number.evaluate(), "strings are never equal to numbers");
+
+        query.state = "walk";
+        assertEquals(0D, idle.evaluate());
+        assertEquals(1D, notIdle.evaluate());
+        assertEquals(2D, selector.evaluate());
+
+        query.state = null;
+        assertEquals(0D, idle.evaluate());
+        assertEquals(0D, selector.evaluate());
+
+        // interpreter must give the same results
+        query.state = "idle";
+        assertEquals(1D, engine.eval("q.state == 'idle'"));
+        assertEquals(0D, engine.eval("'idle' != query.state"));
+        assertEquals(1D, engine.eval("q.get_state() == 'walk' ? 2 : (q.state == 'idle' ? 1 : 0)"));
+        assertEquals(0D, engine.eval("q.state == 0"));
+        assertEquals(0D, engine.eval("'a' == 'b'"));
+        assertEquals(1D, engine.eval("'a' == 'a'"));
+    }
+
+    public static final class QueryImpl {
+        @Binding("state")
+        public String state = "idle";
+
+        @Binding("get_state")
+        public String state() {
+            return state;
+        }
+    }
+}
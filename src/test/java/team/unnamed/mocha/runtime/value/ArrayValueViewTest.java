@@ -0,0 +1,99 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.value;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ArrayValueViewTest {
+    @Test
+    void test_primitive_views() {
+        final double[] doubles = {1, 2, 3};
+        final ArrayValue view = ArrayValue.view(doubles);
+        assertEquals(3, view.length());
+        assertEquals(NumberValue.of(2), view.get(1));
+
+        // views reflect the backing array
+        doubles[1] = 5;
+        assertEquals(NumberValue.of(5), view.get(1));
+
+        assertEquals(NumberValue.of(3), ArrayValue.view(new int[]{1, 2, 3}).get(2));
+        assertEquals(ArrayValue.of(NumberValue.of(1), NumberValue.of(2)), Value.of(new long[]{1, 2}));
+    }
+
+    @Test
+    void test_elements_are_converted_on_access() {
+        final AtomicInteger conversions = new AtomicInteger();
+        final List<Object> list = Arrays.asList(1, "two", 3);
+        final ArrayValue view = ArrayValue.view(list, element -> {
+            conversions.incrementAndGet();
+            return Value.of(element);
+        });
+
+        assertEquals(3, view.length());
+        assertEquals(0, conversions.get());
+        assertEquals(StringValue.of("two"), view.get(1));
+        assertEquals(1, conversions.get());
+
+        assertEquals(ArrayValue.of(NumberValue.of(1), StringValue.of("two"), NumberValue.of(3)), view);
+        assertEquals(Arrays.asList(NumberValue.of(1), StringValue.of("two"), NumberValue.of(3)), view.asList());
+    }
+
+    @Test
+    void test_list_changes_after_materializing() {
+        final List<Double> list = new ArrayList<>(Arrays.asList(1D, 2D));
+        final ArrayValue view = ArrayValue.view(list, Value::of);
+        assertEquals("ArrayValue[[NumberValue(1.0), NumberValue(2.0)]]", view.toString());
+
+        // the view is still live after its elements were listed
+        list.add(3D);
+        list.set(0, 5D);
+        assertEquals(3, view.length());
+        assertEquals(NumberValue.of(3), ArrayValue.access(view, 2));
+        assertEquals(NumberValue.of(5), view.get(0));
+        assertEquals(ArrayValue.of(NumberValue.of(5), NumberValue.of(2), NumberValue.of(3)), view);
+
+        final List<Double> linked = new LinkedList<>(list);
+        final ArrayValue linkedView = ArrayValue.view(linked, Value::of);
+        linked.remove(0);
+        assertEquals(2, linkedView.length());
+        assertEquals(ArrayValue.of(NumberValue.of(2), NumberValue.of(3)), linkedView);
+    }
+
+    @Test
+    void test_access() {
+        final ArrayValue view = ArrayValue.view(new double[]{5, 10, 100});
+        assertEquals(NumberValue.of(5), ArrayValue.access(view, -1));
+        assertEquals(NumberValue.of(100), ArrayValue.access(view, 5));
+        assertEquals(Value.nil(), ArrayValue.access(ArrayValue.view(new double[0]), 0));
+        assertEquals(Value.nil(), ArrayValue.access(NumberValue.of(1), 0));
+    }
+}
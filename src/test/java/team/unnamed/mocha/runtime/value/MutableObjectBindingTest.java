@@ -0,0 +1,143 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.runtime.value;
+
+import org.junit.jupiter.api.Test;
+import team.unnamed.mocha.MochaEngine;
+import team.unnamed.mocha.parser.ast.Expression;
+import team.unnamed.mocha.runtime.MochaFunction;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MutableObjectBindingTest {
+    @Test
+    void test_properties() {
+        final MutableObjectBinding object = new MutableObjectBinding();
+        assertTrue(object.set("X", NumberValue.of(1)));
+        assertTrue(object.set("y", NumberValue.of(2)));
+        assertEquals(NumberValue.of(1), object.get("x"));
+        assertEquals(NumberValue.of(2), object.getProperty("Y").value());
+
+        object.set("x", NumberValue.of(3));
+        assertEquals(NumberValue.of(3), object.get("X"));
+
+        object.set("x", null);
+        assertNull(object.getProperty("x"));
+        assertEquals(NumberValue.zero(), object.get("x"));
+
+        final MutableObjectBinding copy = new MutableObjectBinding();
+        copy.setAllFrom(object);
+        assertNull(copy.getProperty("x"));
+        assertEquals(NumberValue.of(2), copy.get("y"));
+
+        object.block();
+        assertFalse(object.set("y", NumberValue.of(4)));
+        assertEquals(NumberValue.of(2), object.get("y"));
+    }
+
+    @Test
+    void test_property_cache() {
+        final MutableObjectBinding.PropertyCache cache = new MutableObjectBinding.PropertyCache("x");
+
+        // same shape
+        final MutableObjectBinding a = new MutableObjectBinding();
+        a.set("x", NumberValue.of(1));
+        a.set("y", NumberValue.of(2));
+        final MutableObjectBinding b = new MutableObjectBinding();
+        b.set("x", NumberValue.of(3));
+        b.set("y", NumberValue.of(4));
+
+        // different shape, properties were added in a different order
+        final MutableObjectBinding c = new MutableObjectBinding();
+        c.set("y", NumberValue.of(5));
+        c.set("x", NumberValue.of(6));
+
+        assertEquals(NumberValue.of(1), cache.get(a));
+        assertEquals(NumberValue.of(3), cache.get(b));
+        assertEquals(NumberValue.of(6), cache.get(c));
+        assertEquals(NumberValue.of(1), cache.get(a));
+        assertEquals(NumberValue.zero(), cache.get(new MutableObjectBinding()));
+
+        assertTrue(cache.set(b, NumberValue.of(7)));
+        assertEquals(NumberValue.of(7), b.get("x"));
+        assertEquals(NumberValue.of(1), a.get("x"));
+
+        final MutableObjectBinding empty = new MutableObjectBinding();
+        assertTrue(cache.set(empty, NumberValue.of(8)));
+        assertEquals(NumberValue.of(8), empty.get("x"));
+    }
+
+    @Test
+    void test_dictionary_mode() {
+        final MutableObjectBinding.PropertyCache cache = new MutableObjectBinding.PropertyCache("key_3");
+        final MutableObjectBinding object = new MutableObjectBinding();
+        for (int i = 0; i < 1000; i++) {
+            object.set("Key_" + i, NumberValue.of(i));
+            assertEquals(NumberValue.of(i < 3 ? 0 : 3), cache.get(object));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(NumberValue.of(i), object.get("key_" + i));
+        }
+
+        assertTrue(cache.set(object, NumberValue.of(-3)));
+        assertEquals(NumberValue.of(-3), object.get("KEY_3"));
+        object.set("key_5", null);
+        assertNull(object.getProperty("key_5"));
+
+        final MutableObjectBinding copy = new MutableObjectBinding();
+        copy.setAllFrom(object);
+        assertEquals(NumberValue.of(-3), copy.get("key_3"));
+        assertEquals(NumberValue.of(999), copy.get("key_999"));
+        assertNull(copy.getProperty("key_5"));
+    }
+
+    @Test
+    void test_interpreter() {
+        final MochaEngine<?> engine = MochaEngine.createStandard();
+        final MochaFunction function = engine.prepareEval("v.y = 2; v.x = v.x + v.y; return v.x;");
+        assertEquals(2, function.evaluate());
+        assertEquals(4, function.evaluate());
+        assertEquals(4, engine.eval("return variable.X;"));
+    }
+
+    @Test
+    void test_shared_expressions() throws Exception {
+        final MochaEngine<?> engine1 = MochaEngine.createStandard();
+        final MochaEngine<?> engine2 = MochaEngine.createStandard();
+        engine2.eval("v.y = 5;");
+
+        // the same parsed expressions used by engines whose variables
+        // have different shapes, each engine keeps its own inline caches
+        final List<Expression> expressions = engine1.parse("v.x = (v.x ?? 0) + 1; return v.x;");
+        assertEquals(1, engine1.eval(expressions));
+        assertEquals(1, engine2.eval(expressions));
+        assertEquals(2, engine1.eval(expressions));
+        assertEquals(5, engine2.eval("return v.y;"));
+    }
+}
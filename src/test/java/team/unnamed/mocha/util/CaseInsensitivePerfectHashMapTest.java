@@ -0,0 +1,72 @@
+/*
+ * This file is part of mocha, licensed under the MIT license
+ *
+ * Copyright (c) 2021-2025 Unnamed Team
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package team.unnamed.mocha.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaseInsensitivePerfectHashMapTest {
+    @Test
+    void test() {
+        final Map<String, String> source = new HashMap<>();
+        source.put("Hello", "World");
+        source.put("Hello2", "World2");
+        final Map<String, String> map = CaseInsensitivePerfectHashMap.copyOf(source);
+
+        assertEquals(2, map.size());
+        assertEquals(new HashSet<>(Arrays.asList("hello", "hello2")), map.keySet());
+        assertEquals("World", map.get("HELLO"));
+        assertEquals("World2", map.get("hElLo2"));
+        assertTrue(map.containsKey("hello"));
+        assertFalse(map.containsKey("hello3"));
+        assertNull(map.get("hello3"));
+        assertNull(map.get(null));
+        assertEquals(new CaseInsensitiveStringHashMap<>(source), map);
+        assertThrows(UnsupportedOperationException.class, () -> map.put("hello3", "World3"));
+
+        assertTrue(CaseInsensitivePerfectHashMap.copyOf(new HashMap<>()).isEmpty());
+        assertNull(CaseInsensitivePerfectHashMap.copyOf(new HashMap<>()).get("hello"));
+    }
+
+    @Test
+    void test_many_keys() {
+        final Map<String, Integer> source = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            source.put("Key_" + i, i);
+        }
+        final Map<String, Integer> map = CaseInsensitivePerfectHashMap.copyOf(source);
+
+        assertEquals(5000, map.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, map.get("KEY_" + i));
+            assertNull(map.get("key " + i));
+        }
+    }
+}